@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.internal.offheap.MemoryAllocatorImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the default off-heap free list manager with the size class one under concurrent
+ * put/destroy churn of values of mixed sizes.
+ */
+@Fork(3)
+public class OffHeapChurnBenchmark {
+
+  private static final int KEYS_PER_THREAD = 10000;
+  private static final int LIVE_KEYS_PER_THREAD = KEYS_PER_THREAD / 2;
+
+  @State(Scope.Benchmark)
+  public static class CacheState {
+    @Param({"false", "true"})
+    public boolean sizeClassAllocator;
+
+    private Cache cache;
+    private Region<Integer, byte[]> region;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    @Setup
+    public void setup() {
+      System.setProperty(MemoryAllocatorImpl.SIZE_CLASS_ALLOCATOR_PROPERTY,
+          Boolean.toString(sizeClassAllocator));
+      cache = new CacheFactory().set("mcast-port", "0").set("locators", "")
+          .set("off-heap-memory-size", "512m").create();
+      region = cache.<Integer, byte[]>createRegionFactory(RegionShortcut.REPLICATE)
+          .setOffHeap(true).create("region");
+    }
+
+    @TearDown
+    public void tearDown() {
+      cache.close();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    private int firstKey;
+    private int next;
+    private byte[][] values;
+
+    @Setup
+    public void setup(CacheState cacheState) {
+      firstKey = cacheState.threadCount.getAndIncrement() * KEYS_PER_THREAD;
+      Random random = new Random(firstKey);
+      values = new byte[64][];
+      for (int i = 0; i < values.length; i++) {
+        // mostly small values with some medium and a few large ones
+        int size;
+        if (i % 16 == 0) {
+          size = 8192 + random.nextInt(64 * 1024);
+        } else if (i % 4 == 0) {
+          size = 512 + random.nextInt(4096);
+        } else {
+          size = 16 + random.nextInt(256);
+        }
+        values[i] = new byte[size];
+        random.nextBytes(values[i]);
+      }
+    }
+  }
+
+  @Benchmark
+  @Threads(8)
+  @Warmup(iterations = 10)
+  @Measurement(iterations = 10)
+  public Object putDestroy(CacheState cacheState, ThreadState threadState) {
+    int n = threadState.next++;
+    Region<Integer, byte[]> region = cacheState.region;
+    region.put(threadState.firstKey + (n % KEYS_PER_THREAD),
+        threadState.values[n % threadState.values.length]);
+    return region.remove(threadState.firstKey + ((n + LIVE_KEYS_PER_THREAD) % KEYS_PER_THREAD));
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.geode.cache.Region;
+
+/**
+ * A non-blocking view of a client {@link Region}. Each operation is handed to the region's
+ * {@link Pool} and returns immediately with a {@link CompletableFuture} that is completed when the
+ * server replies. The future is completed exceptionally with the same exception the corresponding
+ * blocking {@link Region} method would have thrown.
+ * <p>
+ * The number of operations a pool will keep outstanding on behalf of all of its async regions is
+ * bounded. When that limit is reached an operation does not wait for an earlier one to complete:
+ * its future is completed exceptionally with a
+ * {@link java.util.concurrent.RejectedExecutionException} and the operation is not sent.
+ * <p>
+ * Async operations are not supported in a transaction; they throw
+ * {@link org.apache.geode.cache.UnsupportedOperationInTransactionException} if the calling thread
+ * has one in progress.
+ * <p>
+ * Instances are obtained from {@link ClientCache#getAsyncRegion(Region)}.
+ *
+ * @param <K> the type of keys in the region
+ * @param <V> the type of values in the region
+ * @since Geode 1.1
+ */
+public interface AsyncRegion<K, V> {
+
+  /**
+   * Returns the region that this async view operates on.
+   */
+  public Region<K, V> getRegion();
+
+  /**
+   * Asynchronously performs {@link Region#get(Object)}.
+   *
+   * @param key the key of the entry to get
+   * @return a future completed with the value of the entry, or null if there is none
+   */
+  public CompletableFuture<V> getAsync(K key);
+
+  /**
+   * Asynchronously performs {@link Region#get(Object, Object)}.
+   *
+   * @param key the key of the entry to get
+   * @param callbackArgument an argument passed to any cache loader or server side callbacks
+   * @return a future completed with the value of the entry, or null if there is none
+   */
+  public CompletableFuture<V> getAsync(K key, Object callbackArgument);
+
+  /**
+   * Asynchronously performs {@link Region#put(Object, Object)}.
+   *
+   * @param key the key of the entry to put
+   * @param value the value to put
+   * @return a future completed with the previous value, if the region returns one, once the put
+   *         has been acknowledged
+   */
+  public CompletableFuture<V> putAsync(K key, V value);
+
+  /**
+   * Asynchronously performs {@link Region#put(Object, Object, Object)}.
+   *
+   * @param key the key of the entry to put
+   * @param value the value to put
+   * @param callbackArgument an argument passed to any cache writer or listener
+   * @return a future completed with the previous value, if the region returns one, once the put
+   *         has been acknowledged
+   */
+  public CompletableFuture<V> putAsync(K key, V value, Object callbackArgument);
+
+  /**
+   * Asynchronously performs {@link Region#getAll(Collection)}.
+   *
+   * @param keys the keys of the entries to get
+   * @return a future completed with a map of each key to its value
+   */
+  public CompletableFuture<Map<K, V>> getAllAsync(Collection<? extends K> keys);
+
+  /**
+   * Asynchronously performs {@link Region#getAll(Collection, Object)}.
+   *
+   * @param keys the keys of the entries to get
+   * @param callbackArgument an argument passed to any cache loader or server side callbacks
+   * @return a future completed with a map of each key to its value
+   */
+  public CompletableFuture<Map<K, V>> getAllAsync(Collection<? extends K> keys,
+      Object callbackArgument);
+}
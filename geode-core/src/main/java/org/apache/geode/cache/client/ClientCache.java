@@ -167,4 +167,19 @@ public interface ClientCache extends GemFireCache {
    */
   public Pool getDefaultPool();
 
+  /**
+   * Returns a non-blocking view of the given client region whose operations return
+   * {@link java.util.concurrent.CompletableFuture}s instead of waiting for the server to reply.
+   * 
+   * @param region a region of this cache that was created with a client pool
+   * @return an {@link AsyncRegion} operating on the given region
+   * @throws IllegalStateException if the region does not have a client pool
+   * @throws UnsupportedOperationException if this implementation does not support async regions
+   * @since Geode 1.1
+   */
+  public default <K, V> AsyncRegion<K, V> getAsyncRegion(Region<K, V> region) {
+    throw new UnsupportedOperationException(
+        getClass().getName() + " does not support async regions");
+  }
+
 }
@@ -392,6 +392,68 @@ public abstract class AbstractOp implements Op {
     }
   }
 
+  /**
+   * Starts an attempt of this operation on a pipelined connection. The connection then calls
+   * {@link #sendPipelinedAttempt(Connection, long)} and, once the response has been read,
+   * {@link #completePipelinedAttempt(Connection, Message, long)}. Together they do what
+   * {@link #attempt(Connection)} does.
+   *
+   * @return the start time to pass to the other two methods
+   * @since Geode 1.1
+   */
+  long startPipelinedAttempt(Connection cnx) {
+    this.failed = true;
+    this.timedOut = false;
+    return startAttempt(cnx.getStats());
+  }
+
+  /**
+   * Sends this operation's message without waiting for the response.
+   *
+   * @since Geode 1.1
+   */
+  void sendPipelinedAttempt(Connection cnx, long start) throws Exception {
+    boolean sent = false;
+    try {
+      attemptSend(cnx);
+      this.failed = false;
+      sent = true;
+    } finally {
+      endSendAttempt(cnx.getStats(), start);
+      if (!sent) {
+        endAttempt(cnx.getStats(), start);
+      }
+    }
+  }
+
+  /**
+   * The second half of {@link #attempt(Connection)} for a pipelined connection.
+   *
+   * @param response the response to this operation, already read by the connection's reader
+   * @since Geode 1.1
+   */
+  Object completePipelinedAttempt(Connection cnx, Message response, long start)
+      throws Exception {
+    this.failed = true;
+    try {
+      Object result = processResponse(response, cnx);
+      this.failed = false;
+      return result;
+    } finally {
+      endAttempt(cnx.getStats(), start);
+    }
+  }
+
+  /**
+   * Ends an attempt on a pipelined connection that failed before its response arrived.
+   *
+   * @since Geode 1.1
+   */
+  void abandonPipelinedAttempt(Connection cnx, long start) {
+    this.failed = true;
+    endAttempt(cnx.getStats(), start);
+  }
+
   protected final boolean hasFailed() {
     return this.failed;
   }
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.CancelCriterion;
+import org.apache.geode.SystemFailure;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.cache.PoolStats;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * Runs client operations on behalf of callers that do not want to block waiting for a server
+ * reply. Each submitted task completes a {@link CompletableFuture}. The number of tasks that may be
+ * outstanding at once is bounded by {@link #MAX_IN_FLIGHT}; a task submitted beyond that bound is
+ * not run and its future fails right away, which keeps a fast producer from queuing an unbounded
+ * amount of work against a slow server without blocking the caller.
+ *
+ * One instance is owned by each {@link PoolImpl}.
+ *
+ * @since Geode 1.1
+ */
+public class AsyncOpExecutor {
+  private static final Logger logger = LogService.getLogger();
+
+  public static final int THREADS = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.ASYNC_OP_THREADS",
+      Math.max(4, Runtime.getRuntime().availableProcessors() * 2)).intValue();
+
+  public static final int MAX_IN_FLIGHT = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.ASYNC_OP_MAX_IN_FLIGHT", 10000)
+      .intValue();
+
+  private final ThreadPoolExecutor executor;
+  private final int maxInFlight;
+  private final Semaphore inFlight;
+  private final CancelCriterion cancelCriterion;
+  private final PoolStats stats;
+
+  public AsyncOpExecutor(String poolName, int threads, int maxInFlight,
+      CancelCriterion cancelCriterion, PoolStats stats) {
+    final String threadName = "AsyncOpExecutor-" + poolName + "-";
+    this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+          private final AtomicInteger threadNum = new AtomicInteger();
+
+          public Thread newThread(final Runnable r) {
+            Thread result = new Thread(r, threadName + threadNum.incrementAndGet());
+            result.setDaemon(true);
+            return result;
+          }
+        });
+    this.executor.allowCoreThreadTimeOut(true);
+    this.maxInFlight = maxInFlight;
+    this.inFlight = new Semaphore(maxInFlight);
+    this.cancelCriterion = cancelCriterion;
+    this.stats = stats;
+  }
+
+  /**
+   * Schedules the given task and returns a future that is completed with its result, or
+   * exceptionally with whatever it threw. If {@link #MAX_IN_FLIGHT} tasks are already outstanding
+   * the task is not run and the returned future is completed exceptionally with a
+   * {@link RejectedExecutionException}.
+   *
+   * @throws org.apache.geode.CancelException if the owning pool has been destroyed
+   */
+  public <T> CompletableFuture<T> submit(final Callable<T> task) {
+    this.cancelCriterion.checkCancelInProgress(null);
+    final CompletableFuture<T> future = new CompletableFuture<T>();
+    if (!this.inFlight.tryAcquire()) {
+      future.completeExceptionally(new RejectedExecutionException(
+          "The maximum of " + this.maxInFlight + " async operations are already in flight"));
+      return future;
+    }
+    final long start = this.stats.startAsyncOp();
+    try {
+      this.executor.execute(new AsyncTask<T>(task, future, start));
+    } catch (RejectedExecutionException e) {
+      this.inFlight.release();
+      this.stats.endAsyncOp(start, true);
+      this.cancelCriterion.checkCancelInProgress(e);
+      throw e;
+    }
+    return future;
+  }
+
+  /**
+   * Returns the number of tasks that have been submitted but not yet completed.
+   */
+  public int getInFlightCount() {
+    return this.maxInFlight - this.inFlight.availablePermits();
+  }
+
+  /**
+   * Stops accepting new tasks. Tasks already submitted are allowed to finish for up to the given
+   * timeout after which they are abandoned.
+   */
+  public void shutdown(long timeout) {
+    this.executor.shutdown();
+    try {
+      if (!this.executor.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+        logger.warn("Timed out waiting for {} async operations to complete",
+            this.executor.getQueue().size() + this.executor.getActiveCount());
+        abandon(this.executor.shutdownNow());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      abandon(this.executor.shutdownNow());
+    }
+  }
+
+  private void abandon(List<Runnable> neverRun) {
+    RuntimeException reason = this.cancelCriterion.generateCancelledException(null);
+    if (reason == null) {
+      reason = new CancellationException("async operation executor was shut down");
+    }
+    for (Runnable r : neverRun) {
+      ((AsyncTask<?>) r).abandon(reason);
+    }
+  }
+
+  public boolean isShutdown() {
+    return this.executor.isShutdown();
+  }
+
+  /**
+   * Runs a single submitted task, completing its future and releasing its in-flight slot.
+   */
+  private class AsyncTask<T> implements Runnable {
+    private final Callable<T> task;
+    private final CompletableFuture<T> future;
+    private final long start;
+
+    AsyncTask(Callable<T> task, CompletableFuture<T> future, long start) {
+      this.task = task;
+      this.future = future;
+      this.start = start;
+    }
+
+    public void run() {
+      boolean failed = true;
+      try {
+        T result = this.task.call();
+        failed = false;
+        this.future.complete(result);
+      } catch (VirtualMachineError err) {
+        SystemFailure.initiateFailure(err);
+        // If this ever returns, rethrow the error. We're poisoned
+        // now, so don't let this thread continue.
+        throw err;
+      } catch (Throwable t) {
+        // Whenever you catch Error or Throwable, you must also
+        // catch VirtualMachineError (see above). However, there is
+        // _still_ a possibility that you are dealing with a cascading
+        // error condition, so you also need to check to see if the JVM
+        // is still usable:
+        SystemFailure.checkFailure();
+        this.future.completeExceptionally(t);
+      } finally {
+        inFlight.release();
+        stats.endAsyncOp(this.start, failed);
+      }
+    }
+
+    void abandon(Throwable reason) {
+      try {
+        this.future.completeExceptionally(reason);
+      } finally {
+        inFlight.release();
+        stats.endAsyncOp(this.start, true);
+      }
+    }
+  }
+}
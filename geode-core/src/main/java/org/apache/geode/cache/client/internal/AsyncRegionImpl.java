@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.geode.cache.DataPolicy;
+import org.apache.geode.cache.GemFireCache;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionService;
+import org.apache.geode.cache.UnsupportedOperationInTransactionException;
+import org.apache.geode.cache.client.AsyncRegion;
+import org.apache.geode.cache.client.PoolManager;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.Token;
+import org.apache.geode.internal.i18n.LocalizedStrings;
+
+/**
+ * Implements {@link AsyncRegion} by handing each operation to the {@link AsyncOpExecutor} of the
+ * region's pool. The operations themselves are the region's ordinary blocking methods, so local
+ * caching, callbacks and single hop behave exactly as they do for a blocking call.
+ *
+ * @since Geode 1.1
+ */
+public class AsyncRegionImpl<K, V> implements AsyncRegion<K, V> {
+
+  private final Region<K, V> region;
+  private final PoolImpl pool;
+
+  /**
+   * @throws IllegalStateException if the region does not have a client pool
+   */
+  public AsyncRegionImpl(Region<K, V> region) {
+    this.region = region;
+    this.pool = findPool(region);
+  }
+
+  private static PoolImpl findPool(Region<?, ?> region) {
+    String poolName = region.getAttributes().getPoolName();
+    if (poolName == null || "".equals(poolName)) {
+      throw new IllegalStateException(
+          "The region " + region.getFullPath() + " did not have a client pool configured.");
+    }
+    PoolImpl pool = (PoolImpl) PoolManager.find(poolName);
+    if (pool == null) {
+      throw new IllegalStateException("The pool " + poolName + " does not exist.");
+    }
+    return pool;
+  }
+
+  public Region<K, V> getRegion() {
+    return this.region;
+  }
+
+  public CompletableFuture<V> getAsync(K key) {
+    return getAsync(key, null);
+  }
+
+  public CompletableFuture<V> getAsync(final K key, final Object callbackArgument) {
+    if (canPipelineGets()) {
+      checkNoTransaction();
+      return pipelinedGet(key, callbackArgument);
+    }
+    return submit(new Callable<V>() {
+      public V call() {
+        return region.get(key, callbackArgument);
+      }
+    });
+  }
+
+  public CompletableFuture<V> putAsync(K key, V value) {
+    return putAsync(key, value, null);
+  }
+
+  public CompletableFuture<V> putAsync(final K key, final V value, final Object callbackArgument) {
+    return submit(new Callable<V>() {
+      public V call() {
+        return region.put(key, value, callbackArgument);
+      }
+    });
+  }
+
+  public CompletableFuture<Map<K, V>> getAllAsync(Collection<? extends K> keys) {
+    return getAllAsync(keys, null);
+  }
+
+  public CompletableFuture<Map<K, V>> getAllAsync(Collection<? extends K> keys,
+      final Object callbackArgument) {
+    // copy the keys so that the caller may reuse its collection once we return
+    final Collection<K> keyCopy = new ArrayList<K>(keys);
+    return submit(new Callable<Map<K, V>>() {
+      public Map<K, V> call() {
+        return region.getAll(keyCopy, callbackArgument);
+      }
+    });
+  }
+
+  /**
+   * A get on a region that stores nothing locally and has no loader is nothing more than a GetOp,
+   * so it can be sent on the pool's pipelined connection rather than tying up a thread waiting for
+   * the reply.
+   */
+  private boolean canPipelineGets() {
+    return this.region instanceof LocalRegion
+        && this.region.getAttributes().getDataPolicy() == DataPolicy.EMPTY
+        && this.region.getAttributes().getCacheLoader() == null
+        && this.pool.getPipelinedOpExecutor() != null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private CompletableFuture<V> pipelinedGet(K key, Object callbackArgument) {
+    if (key == null) {
+      throw new NullPointerException(
+          LocalizedStrings.LocalRegion_KEY_CANNOT_BE_NULL.toLocalizedString());
+    }
+    LocalRegion lr = (LocalRegion) this.region;
+    GetOp.GetOpImpl op = new GetOp.GetOpImpl(lr, key, callbackArgument, false, null);
+    return this.pool.getPipelinedOpExecutor().execute(op).thenApply(value -> {
+      if (Token.isInvalidOrRemoved(value)) {
+        return null;
+      }
+      return (V) value;
+    });
+  }
+
+  private <T> CompletableFuture<T> submit(Callable<T> task) {
+    checkNoTransaction();
+    return this.pool.getAsyncOpExecutor().submit(task);
+  }
+
+  /**
+   * The operation runs on another thread which can not see this thread's transaction, so rather
+   * than silently doing the operation outside of it we refuse.
+   */
+  private void checkNoTransaction() {
+    RegionService service = this.region.getRegionService();
+    if (service instanceof GemFireCache
+        && ((GemFireCache) service).getCacheTransactionManager().exists()) {
+      throw new UnsupportedOperationInTransactionException(
+          "Async region operations are not supported in a transaction");
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "AsyncRegion[" + this.region.getFullPath() + "]";
+  }
+}
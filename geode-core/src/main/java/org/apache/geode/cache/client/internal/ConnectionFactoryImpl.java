@@ -125,6 +125,23 @@ public class ConnectionFactoryImpl implements ConnectionFactory {
 
   public Connection createClientToServerConnection(ServerLocation location, boolean forQueue)
       throws GemFireSecurityException {
+    return createClientToServerConnection(location, forQueue, false);
+  }
+
+  /**
+   * Creates a connection to the given server that asks the server to accept pipelined requests. The
+   * returned connection's handshake tells whether the server agreed.
+   *
+   * @return the new connection or null if one could not be created
+   * @since Geode 1.1
+   */
+  public ConnectionImpl createPipelinedConnection(ServerLocation location)
+      throws GemFireSecurityException {
+    return createClientToServerConnection(location, false, true);
+  }
+
+  private ConnectionImpl createClientToServerConnection(ServerLocation location, boolean forQueue,
+      boolean pipelined) throws GemFireSecurityException {
     ConnectionImpl connection = new ConnectionImpl(this.ds, this.cancelCriterion);
     FailureTracker failureTracker = blackList.getFailureTracker(location);
 
@@ -132,6 +149,9 @@ public class ConnectionFactoryImpl implements ConnectionFactory {
 
     try {
       HandShake connHandShake = new HandShake(handshake);
+      if (pipelined) {
+        connHandShake.requestPipelining();
+      }
       connection.connect(endpointManager, location, connHandShake, socketBufferSize,
           handShakeTimeout, readTimeout, getCommMode(forQueue), this.gatewaySender,
           this.socketCreator);
@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.CancelCriterion;
+import org.apache.geode.SystemFailure;
+import org.apache.geode.cache.client.ServerConnectivityException;
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.tier.sockets.Message;
+import org.apache.geode.internal.cache.tier.sockets.ServerConnection;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * A client to server connection on which many operations may be outstanding at once. Requests are
+ * written back to back by the calling threads and each is tagged with a correlation id. A single
+ * reader thread reads the responses, which the server tags with the id of the request they answer,
+ * and completes the matching operation's future. The server is free to reply in any order.
+ * <p>
+ * Only operations whose response is a single, non-chunked {@link Message} can be pipelined.
+ * <p>
+ * If the connection fails every outstanding operation is completed exceptionally with a
+ * {@link ServerConnectivityException} and the connection is destroyed.
+ *
+ * @since Geode 1.1
+ */
+public class PipelinedConnection implements Runnable {
+  private static final Logger logger = LogService.getLogger();
+
+  private final ConnectionImpl cnx;
+  private final CancelCriterion cancelCriterion;
+  private final Semaphore window;
+  private final Map<Integer, PendingOp> pending = new ConcurrentHashMap<>();
+  private final AtomicInteger nextCorrelationId = new AtomicInteger();
+  private final Object sendLock = new Object();
+  private final Thread reader;
+
+  /**
+   * The buffer used by the reader thread. The connection's own comm buffer is used for sending.
+   */
+  private ByteBuffer readBuffer;
+
+  private volatile Throwable failure;
+
+  /**
+   * @param cnx a connection whose handshake negotiated pipelining
+   * @param depth the most operations that may be outstanding at once
+   */
+  public PipelinedConnection(ConnectionImpl cnx, int depth, CancelCriterion cancelCriterion)
+      throws java.net.SocketException {
+    if (!cnx.getHandShake().isPipelined()) {
+      throw new IllegalArgumentException("connection " + cnx + " is not pipelined");
+    }
+    this.cnx = cnx;
+    this.cancelCriterion = cancelCriterion;
+    this.window = new Semaphore(depth);
+    this.readBuffer = ServerConnection.allocateCommBuffer(cnx.getCommBuffer().capacity(),
+        cnx.getSocket());
+    this.reader = new Thread(this, "PipelinedConnection reader for " + cnx.getServer());
+    this.reader.setDaemon(true);
+  }
+
+  public void start() {
+    this.reader.start();
+  }
+
+  public ConnectionImpl getConnection() {
+    return this.cnx;
+  }
+
+  /**
+   * Sends the given operation's request and returns a future that is completed once its response
+   * arrives. Blocks if the maximum number of operations are already outstanding.
+   */
+  public CompletableFuture<Object> execute(AbstractOp op) {
+    acquireSlot();
+    CompletableFuture<Object> future = new CompletableFuture<>();
+    synchronized (this.sendLock) {
+      if (this.failure != null) {
+        this.window.release();
+        checkFailure();
+      }
+      int correlationId = nextCorrelationId();
+      long start = op.startPipelinedAttempt(this.cnx);
+      // register before sending since the response may be read before the send returns
+      this.pending.put(correlationId, new PendingOp(op, future, start));
+      op.getMessage().setCorrelationId(correlationId);
+      try {
+        op.sendPipelinedAttempt(this.cnx, start);
+      } catch (Exception e) {
+        // the attempt has already been ended so take it back out before failing the others
+        this.pending.remove(correlationId);
+        this.window.release();
+        ServerConnectivityException reason = toConnectivityException(e);
+        future.completeExceptionally(reason);
+        fail(reason);
+      }
+    }
+    return future;
+  }
+
+  private void acquireSlot() {
+    boolean interrupted = Thread.interrupted();
+    try {
+      for (;;) {
+        this.cancelCriterion.checkCancelInProgress(null);
+        checkFailure();
+        try {
+          if (this.window.tryAcquire(1000, TimeUnit.MILLISECONDS)) {
+            return;
+          }
+        } catch (InterruptedException e) {
+          interrupted = true;
+          this.cancelCriterion.checkCancelInProgress(e);
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private int nextCorrelationId() {
+    int result;
+    do {
+      result = this.nextCorrelationId.incrementAndGet();
+    } while (result == Message.NO_CORRELATION_ID);
+    return result;
+  }
+
+  private void checkFailure() {
+    Throwable t = this.failure;
+    if (t != null) {
+      throw new ServerConnectivityException("Pipelined connection to " + this.cnx.getServer()
+          + " has failed", t);
+    }
+  }
+
+  /**
+   * Returns the number of operations sent but not yet answered.
+   */
+  public int getOutstandingCount() {
+    return this.pending.size();
+  }
+
+  public boolean isFailed() {
+    return this.failure != null;
+  }
+
+  /**
+   * Reads responses until the connection fails or is closed.
+   */
+  public void run() {
+    Message msg = new Message(1, Version.CURRENT);
+    try {
+      msg.setComms(this.cnx.getSocket(), this.cnx.getInputStream(), this.cnx.getOutputStream(),
+          this.readBuffer, this.cnx.getStats());
+      while (this.failure == null) {
+        try {
+          msg.recv();
+        } catch (SocketTimeoutException e) {
+          if (this.pending.isEmpty()) {
+            // nothing outstanding so an idle connection is fine
+            continue;
+          }
+          throw e;
+        }
+        PendingOp p = this.pending.remove(msg.getCorrelationId());
+        if (p == null) {
+          throw new ServerConnectivityException("Received a response with unknown correlation id "
+              + msg.getCorrelationId() + " from " + this.cnx.getServer());
+        }
+        try {
+          p.complete(msg);
+        } finally {
+          msg.clear();
+          this.window.release();
+        }
+      }
+    } catch (VirtualMachineError err) {
+      SystemFailure.initiateFailure(err);
+      // If this ever returns, rethrow the error. We're poisoned
+      // now, so don't let this thread continue.
+      throw err;
+    } catch (Throwable t) {
+      // Whenever you catch Error or Throwable, you must also
+      // catch VirtualMachineError (see above). However, there is
+      // _still_ a possibility that you are dealing with a cascading
+      // error condition, so you also need to check to see if the JVM
+      // is still usable:
+      SystemFailure.checkFailure();
+      if (this.failure == null && logger.isDebugEnabled()) {
+        logger.debug("Pipelined connection {} failed", this.cnx, t);
+      }
+      fail(t);
+    } finally {
+      msg.unsetComms();
+    }
+  }
+
+  /**
+   * Destroys the connection and fails every outstanding operation.
+   */
+  public void close() {
+    fail(new ServerConnectivityException("Pipelined connection was closed"));
+  }
+
+  private void fail(Throwable cause) {
+    synchronized (this.sendLock) {
+      if (this.failure == null) {
+        this.failure = cause;
+        this.cnx.destroy();
+      }
+    }
+    ServerConnectivityException reason = toConnectivityException(cause);
+    for (Integer correlationId : this.pending.keySet()) {
+      // the reader may be completing this one so only abandon it if we remove it
+      PendingOp p = this.pending.remove(correlationId);
+      if (p != null) {
+        p.abandon(reason);
+        this.window.release();
+      }
+    }
+    if (Thread.currentThread() == this.reader) {
+      ByteBuffer bb = this.readBuffer;
+      if (bb != null) {
+        this.readBuffer = null;
+        ServerConnection.releaseCommBuffer(bb);
+      }
+    }
+  }
+
+  private ServerConnectivityException toConnectivityException(Throwable cause) {
+    if (cause instanceof ServerConnectivityException) {
+      return (ServerConnectivityException) cause;
+    }
+    return new ServerConnectivityException(
+        "Pipelined connection to " + this.cnx.getServer() + " failed", cause);
+  }
+
+  private class PendingOp {
+    final AbstractOp op;
+    final CompletableFuture<Object> future;
+    final long start;
+
+    PendingOp(AbstractOp op, CompletableFuture<Object> future, long start) {
+      this.op = op;
+      this.future = future;
+      this.start = start;
+    }
+
+    void complete(Message response) {
+      try {
+        this.future.complete(this.op.completePipelinedAttempt(cnx, response, this.start));
+      } catch (Exception e) {
+        this.future.completeExceptionally(e);
+      }
+    }
+
+    void abandon(ServerConnectivityException reason) {
+      this.op.abandonPipelinedAttempt(cnx, this.start);
+      this.future.completeExceptionally(reason);
+    }
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import java.net.SocketException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.CancelCriterion;
+import org.apache.geode.cache.client.ServerConnectivityException;
+import org.apache.geode.cache.client.ServerOperationException;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.distributed.internal.ServerLocation;
+import org.apache.geode.internal.cache.tier.sockets.Message;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.security.GemFireSecurityException;
+
+/**
+ * Executes operations for a pool on a {@link PipelinedConnection} so that many of them can be
+ * outstanding on one connection. The connection is created on first use and recreated after it
+ * fails.
+ * <p>
+ * An operation that can not be pipelined, because no server agreed to pipelining or because its
+ * pipelined connection failed, is executed by the pool in the ordinary way on a thread from the
+ * pool's {@link AsyncOpExecutor}. Callers therefore see the same failover behavior as a blocking
+ * operation. Only idempotent operations should be given to this executor since a request that was
+ * sent before its connection failed may be sent again.
+ *
+ * @since Geode 1.1
+ */
+public class PipelinedOpExecutor {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The most operations that may be outstanding on a pool's pipelined connection. Zero, the
+   * default, disables pipelining.
+   */
+  public static final int PIPELINE_DEPTH = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "PoolImpl.PIPELINE_DEPTH", 0).intValue();
+
+  private final PoolImpl pool;
+  private final ConnectionFactoryImpl connectionFactory;
+  private final int depth;
+  private final CancelCriterion cancelCriterion;
+
+  /**
+   * Servers that did not agree to pipelining. We do not ask them again.
+   */
+  private final Set<ServerLocation> refusingServers = ConcurrentHashMap.newKeySet();
+
+  /** guarded by this */
+  private PipelinedConnection connection;
+  /** guarded by this */
+  private boolean closed;
+
+  public PipelinedOpExecutor(PoolImpl pool, ConnectionFactoryImpl connectionFactory, int depth,
+      CancelCriterion cancelCriterion) {
+    this.pool = pool;
+    this.connectionFactory = connectionFactory;
+    this.depth = depth;
+    this.cancelCriterion = cancelCriterion;
+  }
+
+  /**
+   * Executes the given operation, whose response must be a single non-chunked message, and returns
+   * a future completed with its result.
+   */
+  public CompletableFuture<Object> execute(final AbstractOp op) {
+    PipelinedConnection pc = getConnection();
+    if (pc == null) {
+      return executeOnPool(op);
+    }
+    CompletableFuture<Object> pipelined;
+    try {
+      pipelined = pc.execute(op);
+    } catch (ServerConnectivityException e) {
+      return executeOnPool(op);
+    }
+    final CompletableFuture<Object> result = new CompletableFuture<>();
+    pipelined.whenComplete((value, t) -> {
+      if (t == null) {
+        result.complete(value);
+      } else if (t instanceof ServerConnectivityException
+          && !(t instanceof ServerOperationException)) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Retrying {} without pipelining: {}", op, t.getMessage());
+        }
+        try {
+          copy(executeOnPool(op), result);
+        } catch (RuntimeException e) {
+          // most likely the pool has been destroyed
+          result.completeExceptionally(e);
+        }
+      } else {
+        result.completeExceptionally(t);
+      }
+    });
+    return result;
+  }
+
+  private CompletableFuture<Object> executeOnPool(final AbstractOp op) {
+    op.getMessage().setCorrelationId(Message.NO_CORRELATION_ID);
+    return this.pool.getAsyncOpExecutor().submit(() -> this.pool.execute(op));
+  }
+
+  private static void copy(CompletableFuture<Object> from, final CompletableFuture<Object> to) {
+    from.whenComplete((value, t) -> {
+      if (t == null) {
+        to.complete(value);
+      } else {
+        to.completeExceptionally(t);
+      }
+    });
+  }
+
+  private synchronized PipelinedConnection getConnection() {
+    this.cancelCriterion.checkCancelInProgress(null);
+    if (this.closed) {
+      return null;
+    }
+    if (this.connection != null && !this.connection.isFailed()) {
+      return this.connection;
+    }
+    this.connection = null;
+    Set<ServerLocation> excluded = new HashSet<>(this.refusingServers);
+    excluded.addAll(this.connectionFactory.getBlackList().getBadServers());
+    ServerLocation server;
+    try {
+      server = this.pool.getConnectionSource().findServer(excluded);
+    } catch (ServerConnectivityException e) {
+      // let the pool report this when it executes the op
+      return null;
+    }
+    if (server == null) {
+      return null;
+    }
+    ConnectionImpl cnx;
+    try {
+      cnx = this.connectionFactory.createPipelinedConnection(server);
+    } catch (GemFireSecurityException e) {
+      this.refusingServers.add(server);
+      return null;
+    } catch (ServerConnectivityException e) {
+      return null;
+    }
+    if (cnx == null) {
+      return null;
+    }
+    if (!cnx.getHandShake().isPipelined() || server.getRequiresCredentials()) {
+      // pipelined requests do not carry the per request security part
+      this.refusingServers.add(server);
+      cnx.destroy();
+      return null;
+    }
+    try {
+      this.connection = new PipelinedConnection(cnx, this.depth, this.cancelCriterion);
+    } catch (SocketException e) {
+      cnx.destroy();
+      return null;
+    }
+    this.connection.start();
+    return this.connection;
+  }
+
+  /**
+   * Closes the pipelined connection. Operations outstanding on it are retried on the pool.
+   */
+  public void close() {
+    PipelinedConnection pc;
+    synchronized (this) {
+      this.closed = true;
+      pc = this.connection;
+      this.connection = null;
+    }
+    if (pc != null) {
+      pc.close();
+    }
+  }
+}
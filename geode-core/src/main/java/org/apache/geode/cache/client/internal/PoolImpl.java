@@ -114,6 +114,8 @@ public class PoolImpl implements InternalPool {
   private final PoolStats stats;
   private ScheduledExecutorService backgroundProcessor;
   private final OpExecutorImpl executor;
+  private AsyncOpExecutor asyncOpExecutor;
+  private PipelinedOpExecutor pipelinedOpExecutor;
   private final RegisterInterestTracker riTracker = new RegisterInterestTracker();
   private final InternalDistributedSystem dsys;
 
@@ -557,6 +559,14 @@ public class PoolImpl implements InternalPool {
             .create(LocalizedStrings.PoolImpl_INTERRUPTED_WHILE_STOPPING_BACKGROUNDPROCESSOR), e);
       }
 
+      if (this.pipelinedOpExecutor != null) {
+        this.pipelinedOpExecutor.close();
+      }
+
+      if (this.asyncOpExecutor != null) {
+        this.asyncOpExecutor.shutdown(SHUTDOWN_TIMEOUT);
+      }
+
       try {
         if (this.source != null) {
           this.source.stop();
@@ -829,6 +839,44 @@ public class PoolImpl implements InternalPool {
     return backgroundProcessor;
   }
 
+  /**
+   * Returns the executor used to run operations submitted through an
+   * {@link org.apache.geode.cache.client.AsyncRegion}, creating it on first use.
+   * 
+   * @since Geode 1.1
+   */
+  public synchronized AsyncOpExecutor getAsyncOpExecutor() {
+    this.cancelCriterion.checkCancelInProgress(null);
+    if (this.asyncOpExecutor == null) {
+      if (this.stats == null) {
+        throw new IllegalStateException("Pool " + getName() + " has not been started");
+      }
+      this.asyncOpExecutor = new AsyncOpExecutor(getName(), AsyncOpExecutor.THREADS,
+          AsyncOpExecutor.MAX_IN_FLIGHT, new PoolOrCacheStopper(), this.stats);
+    }
+    return this.asyncOpExecutor;
+  }
+
+  /**
+   * Returns the executor used to pipeline operations on a single connection, or null if pipelining
+   * is disabled for this pool.
+   *
+   * @see PipelinedOpExecutor#PIPELINE_DEPTH
+   * @since Geode 1.1
+   */
+  public synchronized PipelinedOpExecutor getPipelinedOpExecutor() {
+    if (PipelinedOpExecutor.PIPELINE_DEPTH <= 0 || this.multiuserSecureModeEnabled
+        || isUsedByGateway()) {
+      return null;
+    }
+    this.cancelCriterion.checkCancelInProgress(null);
+    if (this.pipelinedOpExecutor == null) {
+      this.pipelinedOpExecutor = new PipelinedOpExecutor(this, this.connectionFactory,
+          PipelinedOpExecutor.PIPELINE_DEPTH, new PoolOrCacheStopper());
+    }
+    return this.pipelinedOpExecutor;
+  }
+
   public RegisterInterestTracker getRITracker() {
     return this.riTracker;
   }
@@ -881,6 +929,13 @@ public class PoolImpl implements InternalPool {
     return manager.borrowConnection(loc, 15000L, false);
   }
 
+  /**
+   * Test hook that returns the factory this pool creates its connections with.
+   */
+  ConnectionFactoryImpl getConnectionFactory() {
+    return connectionFactory;
+  }
+
   /**
    * Test hook that returns an unnmodifiable list of the current blacklisted servers
    */
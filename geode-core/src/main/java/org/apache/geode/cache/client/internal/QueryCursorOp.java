@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.geode.cache.client.ServerConnectivityException;
+import org.apache.geode.cache.query.ResultsCursor;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.distributed.internal.ServerLocation;
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.tier.MessageType;
+import org.apache.geode.internal.cache.tier.sockets.ChunkedMessage;
+import org.apache.geode.internal.cache.tier.sockets.Message;
+
+/**
+ * Does a query on a server whose results are kept on the server and fetched a page at a time.
+ *
+ * @since Geode 1.1
+ */
+public class QueryCursorOp {
+  /**
+   * Does a query on a server using connections from the given pool to communicate with the server
+   * and returns a cursor that fetches the next page of results from the same server when the
+   * current page has been read.
+   *
+   * @param pool the pool to use to communicate with the server.
+   * @param queryString the query to execute
+   * @param queryParams the values bound to the parameters of the query
+   * @param pageSize the number of results fetched at a time
+   * @return a cursor over the results of the query
+   */
+  public static ResultsCursor execute(ExecutablePool pool, String queryString,
+      Object[] queryParams, int pageSize) {
+    OpenOpImpl op = new OpenOpImpl(queryString, queryParams, pageSize);
+    SelectResults page = (SelectResults) pool.execute(op);
+    return new ServerResultsCursor(pool, op.getServer(), op.getCursorId(), page, pageSize);
+  }
+
+  private QueryCursorOp() {
+    // no instances allowed
+  }
+
+  /**
+   * Reads the id of the cursor that follows the results of each chunk. The id is 0 once the last
+   * result has been sent.
+   */
+  private static abstract class PageOpImpl extends QueryOp.QueryOpImpl {
+
+    private long cursorId;
+
+    PageOpImpl(int msgType, int numParts) {
+      super(msgType, numParts);
+    }
+
+    long getCursorId() {
+      return this.cursorId;
+    }
+
+    @Override
+    protected Message createResponseMessage() {
+      return new ChunkedMessage(3, Version.CURRENT);
+    }
+
+    @Override
+    protected void processTrailingParts(ChunkedMessage cm) throws Exception {
+      // the result of a query that is not a select, such as a count, is sent without a cursor
+      this.cursorId = cm.getNumberOfParts() > 2 ? cm.getPart(2).getLong() : 0;
+    }
+
+    @Override
+    protected String getOpName() {
+      return "queryCursor";
+    }
+  }
+
+  private static class OpenOpImpl extends PageOpImpl {
+
+    private ServerLocation server;
+
+    /**
+     * @throws org.apache.geode.SerializationException if serialization fails
+     */
+    OpenOpImpl(String queryString, Object[] queryParams, int pageSize) {
+      super(MessageType.QUERY_CURSOR_OPEN, 3 + queryParams.length);
+      getMessage().addStringPart(queryString);
+      getMessage().addIntPart(pageSize);
+      getMessage().addIntPart(queryParams.length);
+      for (Object param : queryParams) {
+        getMessage().addObjPart(param);
+      }
+    }
+
+    /**
+     * Returns the server that keeps the results of the query.
+     */
+    ServerLocation getServer() {
+      return this.server;
+    }
+
+    @Override
+    public Object attempt(Connection cnx) throws Exception {
+      this.server = cnx.getServer();
+      return super.attempt(cnx);
+    }
+  }
+
+  private static class NextOpImpl extends PageOpImpl {
+    /**
+     * @throws org.apache.geode.SerializationException if serialization fails
+     */
+    NextOpImpl(long cursorId, int pageSize) {
+      super(MessageType.QUERY_CURSOR_NEXT, 2);
+      getMessage().addLongPart(cursorId);
+      getMessage().addIntPart(pageSize);
+    }
+  }
+
+  private static class CloseOpImpl extends AbstractOp {
+    /**
+     * @throws org.apache.geode.SerializationException if serialization fails
+     */
+    CloseOpImpl(long cursorId) {
+      super(MessageType.QUERY_CURSOR_CLOSE, 1);
+      getMessage().addLongPart(cursorId);
+    }
+
+    @Override
+    protected Object processResponse(Message msg) throws Exception {
+      processAck(msg, "closeQueryCursor");
+      return null;
+    }
+
+    @Override
+    protected boolean isErrorResponse(int msgType) {
+      return false;
+    }
+
+    @Override
+    protected long startAttempt(ConnectionStats stats) {
+      return stats.startQuery();
+    }
+
+    @Override
+    protected void endSendAttempt(ConnectionStats stats, long start) {
+      stats.endQuerySend(start, hasFailed());
+    }
+
+    @Override
+    protected void endAttempt(ConnectionStats stats, long start) {
+      stats.endQuery(start, hasTimedOut(), hasFailed());
+    }
+  }
+
+  /**
+   * Iterates over the current page of results and fetches the next one from the server when it has
+   * been read. The user attributes of the thread that executed the query are used for the later
+   * operations so that a cursor of a multiuser pool can be read by any thread.
+   */
+  private static class ServerResultsCursor implements ResultsCursor {
+
+    private final ExecutablePool pool;
+
+    private final ServerLocation server;
+
+    private final int pageSize;
+
+    private final UserAttributes userAttributes;
+
+    private long cursorId;
+
+    private Iterator page;
+
+    ServerResultsCursor(ExecutablePool pool, ServerLocation server, long cursorId,
+        SelectResults page, int pageSize) {
+      this.pool = pool;
+      this.server = server;
+      this.cursorId = cursorId;
+      this.page = page.iterator();
+      this.pageSize = pageSize;
+      this.userAttributes = UserAttributes.userAttributes.get();
+    }
+
+    public synchronized boolean hasNext() {
+      while (!this.page.hasNext() && this.cursorId != 0) {
+        NextOpImpl op = new NextOpImpl(this.cursorId, this.pageSize);
+        SelectResults results = (SelectResults) executeOnServer(op);
+        this.page = results.iterator();
+        this.cursorId = op.getCursorId();
+      }
+      return this.page.hasNext();
+    }
+
+    public synchronized Object next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return this.page.next();
+    }
+
+    public synchronized void close() {
+      this.page = Collections.emptyIterator();
+      if (this.cursorId != 0) {
+        long id = this.cursorId;
+        this.cursorId = 0;
+        try {
+          executeOnServer(new CloseOpImpl(id));
+        } catch (ServerConnectivityException ignore) {
+          // the server has gone, and the results with it
+        }
+      }
+    }
+
+    private Object executeOnServer(AbstractOp op) {
+      UserAttributes previous = UserAttributes.userAttributes.get();
+      UserAttributes.userAttributes.set(this.userAttributes);
+      try {
+        return this.pool.executeOn(this.server, op);
+      } finally {
+        UserAttributes.userAttributes.set(previous);
+      }
+    }
+  }
+}
@@ -165,6 +165,7 @@ public class QueryOp {
               selectResults.addAll(Arrays.asList(resultArray));
             }
           }
+          processTrailingParts(cm);
         }
       };
       processChunkedResponse((ChunkedMessage) msg, getOpName(), ch);
@@ -175,6 +176,14 @@ public class QueryOp {
       }
     }
 
+    /**
+     * Called for each chunk of the response once its results have been read. Subclasses whose
+     * responses have more than two parts read the other parts here.
+     */
+    protected void processTrailingParts(ChunkedMessage cm) throws Exception {
+      // nothing more to read
+    }
+
     protected String getOpName() {
       return "query";
     }
@@ -16,6 +16,7 @@ package org.apache.geode.cache.client.internal;
 
 import java.util.List;
 
+import org.apache.geode.cache.query.ResultsCursor;
 import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.distributed.internal.ServerLocation;
 
@@ -70,4 +71,16 @@ public class ServerProxy {
     return QueryOp.execute(this.pool, queryPredicate, queryParams);
   }
 
+  /**
+   * Does a query on a server whose results are fetched a page at a time
+   * 
+   * @param queryString the query to execute
+   * @param pageSize the number of results fetched at a time
+   * @return A cursor over the results of the query
+   * @since Geode 1.1
+   */
+  public ResultsCursor queryStream(String queryString, Object[] queryParams, int pageSize) {
+    return QueryCursorOp.execute(this.pool, queryString, queryParams, pageSize);
+  }
+
 }
@@ -127,6 +127,84 @@ public interface Query {
   public Object execute(Object[] params) throws FunctionDomainException, TypeMismatchException,
       NameResolutionException, QueryInvocationTargetException;
 
+  /**
+   * Executes this query and returns a cursor over its results. When this query is executed on a
+   * server, the client fetches the results from the server <code>pageSize</code> results at a
+   * time as the cursor is iterated instead of receiving all of them at once. The results are
+   * returned in the order of the query.
+   *
+   * @param pageSize the number of results fetched from the server at a time
+   * @return a cursor over the results, which should be closed once the needed results have been
+   *         read
+   *
+   * @throws IllegalArgumentException If <code>pageSize</code> is not positive
+   * @throws UnsupportedOperationException If this implementation of <code>Query</code> does not
+   *         support cursors
+   * @throws FunctionDomainException A function was applied to a parameter that is improper for that
+   *         function.
+   * @throws TypeMismatchException If a bound parameter is not of the expected type.
+   * @throws NameResolutionException If a name in the query cannot be resolved.
+   * @throws QueryInvocationTargetException If the data referenced in from clause is not available
+   *         for querying.
+   * @see #execute()
+   * @since Geode 1.1
+   */
+  public default ResultsCursor executeStream(int pageSize) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    return executeStream(pageSize, new Object[0]);
+  }
+
+  /**
+   * Executes this query with the given parameters and returns a cursor over its results, which
+   * are fetched from the server a page at a time.
+   *
+   * @param pageSize the number of results fetched from the server at a time
+   * @param params Values that are bound to parameters (such as <code>$1</code>) in this query.
+   * @return a cursor over the results, which should be closed once the needed results have been
+   *         read
+   *
+   * @throws IllegalArgumentException If <code>pageSize</code> is not positive or the number of
+   *         bound parameters does not match the number of placeholders
+   * @throws UnsupportedOperationException If this implementation of <code>Query</code> does not
+   *         support cursors
+   * @throws FunctionDomainException A function was applied to a parameter that is improper for that
+   *         function.
+   * @throws TypeMismatchException If a bound parameter is not of the expected type.
+   * @throws NameResolutionException If a name in the query cannot be resolved.
+   * @throws QueryInvocationTargetException If the data referenced in from clause is not available
+   *         for querying.
+   * @see #executeStream(int)
+   * @see #execute(Object[])
+   * @since Geode 1.1
+   */
+  public default ResultsCursor executeStream(int pageSize, Object[] params)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    throw new UnsupportedOperationException(
+        getClass().getName() + " does not support executing a query with a cursor");
+  }
+
+  /**
+   * Makes each execution of this query wait until the region updates made before it have been
+   * applied to the indexes of the queried regions whose index maintenance is asynchronous, so that
+   * the query sees those updates. By default a query does not wait.
+   * <p>
+   * Only the indexes of this member are waited for. So an execution throws an
+   * <code>UnsupportedOperationException</code> if the query is executed on a server through a
+   * pool or queries a partitioned region, whose buckets may be hosted by other members.
+   *
+   * @param timeoutMillis how long an execution waits at most before it throws a
+   *        {@link QueryExecutionTimeoutException}, or a negative value for not waiting
+   * @throws UnsupportedOperationException If this implementation of <code>Query</code> does not
+   *         support waiting for index updates
+   * @see org.apache.geode.cache.RegionAttributes#getIndexMaintenanceSynchronous()
+   * @since Geode 1.1
+   */
+  public default void setWaitForIndexUpdates(long timeoutMillis) {
+    throw new UnsupportedOperationException(
+        getClass().getName() + " does not support waiting for index updates");
+  }
+
   /**
    * Executes this query on the partitioned data-store associated with the given
    * RegionFunctionContext and returns an object that represents its result. An Exception is thrown
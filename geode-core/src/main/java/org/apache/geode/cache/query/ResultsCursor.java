@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query;
+
+import java.util.Iterator;
+
+/**
+ * Iterates over the results of a query executed with {@link Query#executeStream(int)}. When the
+ * query is executed on a server, the results are fetched from the server a page at a time as the
+ * iteration proceeds, so that a client never holds more than one page of results.
+ *
+ * <p>
+ * A cursor should be closed once the results that are needed have been read, which releases the
+ * results that are kept on the server. A cursor that has been iterated to the end is closed
+ * automatically.
+ *
+ * @since Geode 1.1
+ */
+public interface ResultsCursor<E> extends Iterator<E>, AutoCloseable {
+
+  /**
+   * Releases the results that have not been read yet. Calling this method more than once has no
+   * effect.
+   */
+  @Override
+  public void close();
+}
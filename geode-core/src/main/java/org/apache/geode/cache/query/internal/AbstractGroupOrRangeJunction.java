@@ -160,6 +160,14 @@ public abstract class AbstractGroupOrRangeJunction extends AbstractCompiledValue
               this.indpndntItr.length == 1 ? this.indpndntItr[0] : null, context,
               this.completeExpansion),
           true /* evaluate projection */);
+      // a range junction records its own evaluation
+      if (context.getExplanation() != null && result != null
+          && !(newOperands.filterOperand instanceof RangeJunction)) {
+        explainIndexLookup(newOperands.filterOperand,
+            newOperands.iterateOperand != null
+                ? " and evaluation of the other conditions on its results" : "",
+            result.size(), context);
+      }
     } else {
       // With multiple filter conditions, the newOperands.filterOperand is bound
       // to be GroupJunction
@@ -204,6 +212,11 @@ public abstract class AbstractGroupOrRangeJunction extends AbstractCompiledValue
       if (newOperands.iterateOperand != null) {
         // call private method here to evaluate
         result = auxIterateEvaluate(newOperands.iterateOperand, context, result);
+        if (context.getExplanation() != null && result != null) {
+          context.getExplanation().addStep(
+              "Evaluation of the other conditions on the intersection",
+              QueryExplanation.UNKNOWN, result.size());
+        }
       }
     }
     return result;
@@ -293,13 +306,24 @@ public abstract class AbstractGroupOrRangeJunction extends AbstractCompiledValue
                * if there exists a single Filter operand in original GroupJunction
                */, this.indpndntItr, _operator == LITERAL_and, isConditioningNeeded,
           false /* do not evaluate projection */);
+      if (context.getExplanation() != null && filterResults != null) {
+        explainIndexLookup(filter,
+            !isConditioningNeeded && intermediateResults != null ? " within the previous results"
+                : "",
+            filterResults.size(), context);
+      }
       if (_operator == LITERAL_and) {
         if (filterResults != null && filterResults.isEmpty()) {
           return filterResults;
         } else if (filterResults != null) {
+          boolean intersect = intermediateResults != null && isConditioningNeeded;
           intermediateResults =
               (intermediateResults == null || !isConditioningNeeded) ? filterResults
                   : QueryUtils.intersection(intermediateResults, filterResults, context);
+          if (intersect && context.getExplanation() != null) {
+            context.getExplanation().addStep("Intersection with the previous results",
+                QueryExplanation.UNKNOWN, intermediateResults.size());
+          }
           i.remove();
           if (intermediateResults.size() <= indexThresholdSize) {
             // Abort further intersection , the residual filter operands will be transferred for
@@ -337,6 +361,19 @@ public abstract class AbstractGroupOrRangeJunction extends AbstractCompiledValue
     return intermediateResults;
   }
 
+  /**
+   * Records the lookup of the index of a filter in the explanation of the query.
+   */
+  private void explainIndexLookup(Filter filter, String suffix, int actualRows,
+      ExecutionContext context) throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    // the evaluators a range junction is organized into do not know their index, the junction does
+    Filter explained = this instanceof RangeJunction ? this : filter;
+    context.getExplanation().addStep(
+        QueryExplanation.describeIndexLookup(explained, context) + suffix,
+        explained.getSizeEstimate(context), actualRows);
+  }
+
   /** invariant: the operand is known to be evaluated by iteration */
   private SelectResults auxIterateEvaluate(CompiledValue operand, ExecutionContext context,
       SelectResults intermediateResults) throws FunctionDomainException, TypeMismatchException,
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * Reads the value of a field or no argument method of the objects of one class without going
+ * through java.lang.reflect on each read.
+ * <p>
+ * A public method of a public class that Geode's class loader can see is called through a
+ * {@link Function} generated by the {@link LambdaMetafactory}, which the JIT can inline like a
+ * direct call. Anything else, such as a field or a method of a class of another class loader, is
+ * read through a {@link MethodHandle}.
+ *
+ * @since Geode 1.1
+ */
+abstract class AttributeAccessor {
+  private static final Logger logger = LogService.getLogger();
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  private static final MethodType READ_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  private final Class<?> targetClass;
+
+  private final Member member;
+
+  AttributeAccessor(Class<?> targetClass, Member member) {
+    this.targetClass = targetClass;
+    this.member = member;
+  }
+
+  /**
+   * Returns an accessor for the given member, which must be a field or a method with no
+   * parameters, of the objects of the given class. The member must already be accessible.
+   */
+  static AttributeAccessor create(Class<?> targetClass, Member member) {
+    if (member instanceof Method && canGenerateFunction((Method) member)) {
+      try {
+        return new FunctionAccessor(targetClass, member, generateFunction((Method) member));
+      } catch (Throwable t) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Could not generate an accessor for {}, using a method handle", member, t);
+        }
+      }
+    }
+    return new MethodHandleAccessor(targetClass, member, unreflect(member));
+  }
+
+  /** The class of the objects this accessor reads */
+  Class<?> getTargetClass() {
+    return this.targetClass;
+  }
+
+  Member getMember() {
+    return this.member;
+  }
+
+  /**
+   * Returns the value of the attribute of the target, which must be an instance of the target
+   * class. Throws whatever the read method throws, unwrapped.
+   */
+  abstract Object read(Object target) throws Throwable;
+
+  private static boolean canGenerateFunction(Method method) {
+    int modifiers = method.getModifiers();
+    Class<?> declaringClass = method.getDeclaringClass();
+    Class<?> returnType = method.getReturnType();
+    return Modifier.isPublic(modifiers) && !Modifier.isStatic(modifiers)
+        && Modifier.isPublic(declaringClass.getModifiers()) && returnType != void.class
+        && method.getParameterTypes().length == 0 && isVisible(declaringClass)
+        && (returnType.isPrimitive() || isVisible(returnType));
+  }
+
+  /**
+   * Returns true if the generated class, which is linked by Geode's class loader, would resolve
+   * the given class to the same class.
+   */
+  private static boolean isVisible(Class<?> c) {
+    try {
+      return Class.forName(c.getName(), false, LOOKUP.lookupClass().getClassLoader()) == c;
+    } catch (ClassNotFoundException | LinkageError ignore) {
+      return false;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Function<Object, Object> generateFunction(Method method) throws Throwable {
+    MethodHandle implementation = LOOKUP.unreflect(method);
+    Class<?> returnType = MethodType.methodType(method.getReturnType()).wrap().returnType();
+    CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply",
+        MethodType.methodType(Function.class), MethodType.methodType(Object.class, Object.class),
+        implementation, MethodType.methodType(returnType, method.getDeclaringClass()));
+    return (Function<Object, Object>) site.getTarget().invokeExact();
+  }
+
+  private static MethodHandle unreflect(Member member) {
+    MethodHandle handle;
+    try {
+      if (member instanceof Method) {
+        handle = LOOKUP.unreflect((Method) member);
+      } else {
+        handle = LOOKUP.unreflectGetter((Field) member);
+      }
+    } catch (IllegalAccessException e) {
+      // the member was made accessible when it was looked up
+      throw new IllegalStateException(e);
+    }
+    if (Modifier.isStatic(member.getModifiers())) {
+      handle = MethodHandles.dropArguments(handle, 0, Object.class);
+    }
+    return handle.asType(READ_TYPE);
+  }
+
+  private static class FunctionAccessor extends AttributeAccessor {
+    private final Function<Object, Object> function;
+
+    FunctionAccessor(Class<?> targetClass, Member member, Function<Object, Object> function) {
+      super(targetClass, member);
+      this.function = function;
+    }
+
+    @Override
+    Object read(Object target) {
+      return this.function.apply(target);
+    }
+  }
+
+  private static class MethodHandleAccessor extends AttributeAccessor {
+    private final MethodHandle handle;
+
+    MethodHandleAccessor(Class<?> targetClass, Member member, MethodHandle handle) {
+      super(targetClass, member);
+      this.handle = handle;
+    }
+
+    @Override
+    Object read(Object target) throws Throwable {
+      return (Object) this.handle.invokeExact(target);
+    }
+  }
+}
@@ -52,6 +52,11 @@ public class AttributeDescriptor {
   private final String _name;
   /** cache for remembering the correct Member for a class and attribute */
   private static final ConcurrentMap _cache = new ConcurrentHashMap();
+  /** the accessors of each class by attribute name */
+  private static final ConcurrentMap<Class, ConcurrentMap<String, AttributeAccessor>> _accessors =
+      new ConcurrentHashMap<Class, ConcurrentMap<String, AttributeAccessor>>();
+  /** the accessor last used by this descriptor, for a path evaluated over objects of one class */
+  private volatile AttributeAccessor lastAccessor;
 
 
 
@@ -59,6 +64,10 @@ public class AttributeDescriptor {
     _name = name;
   }
 
+  public String getName() {
+    return _name;
+  }
+
 
 
   /** Validate whether this attribute <i>can</i> be evaluated for target type */
@@ -92,48 +101,46 @@ public class AttributeDescriptor {
       return QueryService.UNDEFINED;
     }
 
-    Class resolutionClass = target.getClass();
-    Member m = getReadMember(resolutionClass);
+    AttributeAccessor accessor = getReadAccessor(target.getClass());
     try {
-      if (m instanceof Method) {
-        try {
-          return ((Method) m).invoke(target, (Object[]) null);
-        } catch (EntryDestroyedException e) {
-          // eat the Exception
-          return QueryService.UNDEFINED;
-        } catch (IllegalAccessException e) {
-          throw new NameNotFoundException(
-              LocalizedStrings.AttributeDescriptor_METHOD_0_IN_CLASS_1_IS_NOT_ACCESSIBLE_TO_THE_QUERY_PROCESSOR
-                  .toLocalizedString(new Object[] {m.getName(), target.getClass().getName()}),
-              e);
-        } catch (InvocationTargetException e) {
-          // if the target exception is Exception, wrap that,
-          // otherwise wrap the InvocationTargetException itself
-          Throwable t = e.getTargetException();
-          if ((t instanceof EntryDestroyedException)) {
-            // eat the exception
-            return QueryService.UNDEFINED;
-          }
-          if (t instanceof Exception)
-            throw new QueryInvocationTargetException(t);
-          throw new QueryInvocationTargetException(e);
-        }
-      } else {
-        try {
-          return ((Field) m).get(target);
-        } catch (IllegalAccessException e) {
-          throw new NameNotFoundException(
-              LocalizedStrings.AttributeDescriptor_FIELD_0_IN_CLASS_1_IS_NOT_ACCESSIBLE_TO_THE_QUERY_PROCESSOR
-                  .toLocalizedString(new Object[] {m.getName(), target.getClass().getName()}),
-              e);
-        } catch (EntryDestroyedException e) {
-          return QueryService.UNDEFINED;
-        }
-      }
+      return accessor.read(target);
     } catch (EntryDestroyedException e) {
       // eat the exception
       return QueryService.UNDEFINED;
+    } catch (Exception e) {
+      throw new QueryInvocationTargetException(e);
+    } catch (Throwable t) {
+      throw new QueryInvocationTargetException(new InvocationTargetException(t));
+    }
+  }
+
+  /**
+   * Returns the accessor that reads this attribute from objects of the given class.
+   */
+  AttributeAccessor getReadAccessor(Class targetClass) throws NameNotFoundException {
+    AttributeAccessor accessor = this.lastAccessor;
+    if (accessor != null && accessor.getTargetClass() == targetClass) {
+      return accessor;
+    }
+    ConcurrentMap<String, AttributeAccessor> classAccessors = _accessors.get(targetClass);
+    if (classAccessors == null) {
+      classAccessors = new ConcurrentHashMap<String, AttributeAccessor>();
+      ConcurrentMap<String, AttributeAccessor> old =
+          _accessors.putIfAbsent(targetClass, classAccessors);
+      if (old != null) {
+        classAccessors = old;
+      }
+    }
+    accessor = classAccessors.get(_name);
+    if (accessor == null) {
+      accessor = AttributeAccessor.create(targetClass, getReadMember(targetClass));
+      AttributeAccessor old = classAccessors.putIfAbsent(_name, accessor);
+      if (old != null) {
+        accessor = old;
+      }
     }
+    this.lastAccessor = accessor;
+    return accessor;
   }
 
 
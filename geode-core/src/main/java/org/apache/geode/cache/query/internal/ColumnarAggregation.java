@@ -0,0 +1,485 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.Aggregator;
+import org.apache.geode.cache.query.FunctionDomainException;
+import org.apache.geode.cache.query.NameResolutionException;
+import org.apache.geode.cache.query.QueryInvocationTargetException;
+import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.cache.query.internal.aggregate.MaxMin;
+import org.apache.geode.cache.query.internal.aggregate.Sum;
+import org.apache.geode.cache.query.internal.index.ColumnarProjection;
+import org.apache.geode.cache.query.internal.index.ColumnarProjection.Column;
+import org.apache.geode.cache.query.internal.index.IndexManager;
+import org.apache.geode.cache.query.internal.index.IndexUtils;
+import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
+import org.apache.geode.cache.query.internal.types.TypeUtils;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.PartitionedRegion;
+import org.apache.geode.internal.cache.TXManagerImpl;
+
+/**
+ * Computes the aggregates of a query from a {@link ColumnarProjection} of the queried region
+ * instead of from its values. The where clause is applied column by column to a set of rows and
+ * the aggregates then read only the rows left in the set.
+ * <p>
+ * Only a query over a single replicated or local region whose projections are all non distinct
+ * aggregates, and whose where clause is made of and/or junctions of comparisons between a field of
+ * the iterator and a literal or bind parameter, is evaluated this way. Comparisons follow
+ * {@link TypeUtils#compare}.
+ *
+ * @since Geode 1.1
+ */
+class ColumnarAggregation {
+
+  private static final int CANCEL_CHECK_INTERVAL = 4096;
+
+  /** What count(*) accumulates for each row, as CompiledGroupBySelect does */
+  private static final Object COUNT_STAR_VALUE = Integer.valueOf(0);
+
+  private final ColumnarProjection projection;
+  private final RowFilter filter;
+  /** The field of each aggregate or null for count(*) */
+  private final String[] aggregateFields;
+
+  private ColumnarAggregation(ColumnarProjection projection, RowFilter filter,
+      String[] aggregateFields) {
+    this.projection = projection;
+    this.filter = filter;
+    this.aggregateFields = aggregateFields;
+  }
+
+  /**
+   * Returns the columnar evaluation of the query, or null if it has to be evaluated over the
+   * values of the region.
+   */
+  static ColumnarAggregation create(List iterators, CompiledValue whereClause,
+      CompiledAggregateFunction[] aggregateFunctions, ExecutionContext context)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    if (iterators.size() != 1 || aggregateFunctions.length == 0 || context.isCqQueryContext()
+        || context.getIsPRQueryNode() || context.getBucketList() != null) {
+      return null;
+    }
+    CompiledIteratorDef iterDef = (CompiledIteratorDef) iterators.get(0);
+    if (iterDef.getCollectionExpr().getType() != OQLLexerTokenTypes.RegionPath) {
+      return null;
+    }
+    String regionPath = ((CompiledRegion) iterDef.getCollectionExpr()).getRegionPath();
+    Region region = context.getCache().getRegion(regionPath);
+    if (!(region instanceof LocalRegion) || region instanceof PartitionedRegion) {
+      return null;
+    }
+    // the projection does not see the changes of a transaction
+    if (((TXManagerImpl) context.getCache().getCacheTransactionManager()).getTXState() != null) {
+      return null;
+    }
+    String iterName = iterDef.getName();
+    List<String> fieldNames = new ArrayList<String>();
+    String[] aggregateFields = new String[aggregateFunctions.length];
+    for (int i = 0; i < aggregateFunctions.length; i++) {
+      CompiledAggregateFunction aggFunc = aggregateFunctions[i];
+      if (aggFunc.isDistinctOnly()) {
+        return null;
+      }
+      CompiledValue param = aggFunc.getParameter();
+      if (param == null) {
+        continue;
+      }
+      aggregateFields[i] = getFieldName(param, iterName);
+      if (aggregateFields[i] == null) {
+        return null;
+      }
+      fieldNames.add(aggregateFields[i]);
+    }
+    RowFilter filter = null;
+    if (whereClause != null) {
+      filter = createFilter(whereClause, iterName, fieldNames, context);
+      if (filter == null) {
+        return null;
+      }
+    }
+    IndexManager indexManager = IndexUtils.getIndexManager(region, false);
+    if (indexManager == null) {
+      return null;
+    }
+    ColumnarProjection projection = indexManager.getColumnarProjection(fieldNames);
+    if (projection == null) {
+      return null;
+    }
+    return new ColumnarAggregation(projection, filter, aggregateFields);
+  }
+
+  /**
+   * Returns the field of the iterator that the expression reads, or null if it is anything else.
+   */
+  private static String getFieldName(CompiledValue cv, String iterName) {
+    switch (cv.getType()) {
+      case CompiledValue.PATH: {
+        CompiledPath path = (CompiledPath) cv;
+        CompiledValue receiver = path.getReceiver();
+        if (iterName != null && receiver.getType() == OQLLexerTokenTypes.Identifier
+            && iterName.equals(((CompiledID) receiver).getId())) {
+          return path.getTailID();
+        }
+        return null;
+      }
+      case OQLLexerTokenTypes.Identifier: {
+        // an implicit attribute of the only iterator
+        String id = ((CompiledID) cv).getId();
+        return id.equals(iterName) ? null : id;
+      }
+      default:
+        return null;
+    }
+  }
+
+  private static RowFilter createFilter(CompiledValue cv, String iterName,
+      List<String> fieldNames, ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    switch (cv.getType()) {
+      case CompiledValue.JUNCTION: {
+        CompiledJunction junction = (CompiledJunction) cv;
+        List operands = junction.getChildren();
+        RowFilter[] filters = new RowFilter[operands.size()];
+        for (int i = 0; i < filters.length; i++) {
+          filters[i] = createFilter((CompiledValue) operands.get(i), iterName, fieldNames, context);
+          if (filters[i] == null) {
+            return null;
+          }
+        }
+        return junction.getOperator() == OQLLexerTokenTypes.LITERAL_and ? new AndFilter(filters)
+            : new OrFilter(filters);
+      }
+      case CompiledValue.COMPARISON: {
+        CompiledComparison comparison = (CompiledComparison) cv;
+        int operator = comparison.getOperator();
+        if (!isRelationalOperator(operator)) {
+          return null;
+        }
+        List operands = comparison.getChildren();
+        CompiledValue left = (CompiledValue) operands.get(0);
+        CompiledValue right = (CompiledValue) operands.get(1);
+        String fieldName = getFieldName(left, iterName);
+        CompiledValue constant = right;
+        if (fieldName == null) {
+          fieldName = getFieldName(right, iterName);
+          constant = left;
+          operator = reflectOperator(operator);
+        }
+        if (fieldName == null || (constant.getType() != CompiledValue.LITERAL
+            && constant.getType() != OQLLexerTokenTypes.QUERY_PARAM)) {
+          return null;
+        }
+        fieldNames.add(fieldName);
+        return new ComparisonFilter(fieldName, operator, constant.evaluate(context));
+      }
+      default:
+        return null;
+    }
+  }
+
+  private static boolean isRelationalOperator(int operator) {
+    switch (operator) {
+      case OQLLexerTokenTypes.TOK_EQ:
+      case OQLLexerTokenTypes.TOK_NE:
+      case OQLLexerTokenTypes.TOK_LT:
+      case OQLLexerTokenTypes.TOK_LE:
+      case OQLLexerTokenTypes.TOK_GT:
+      case OQLLexerTokenTypes.TOK_GE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static int reflectOperator(int operator) {
+    switch (operator) {
+      case OQLLexerTokenTypes.TOK_LT:
+        return OQLLexerTokenTypes.TOK_GT;
+      case OQLLexerTokenTypes.TOK_LE:
+        return OQLLexerTokenTypes.TOK_GE;
+      case OQLLexerTokenTypes.TOK_GT:
+        return OQLLexerTokenTypes.TOK_LT;
+      case OQLLexerTokenTypes.TOK_GE:
+        return OQLLexerTokenTypes.TOK_LE;
+      default:
+        return operator;
+    }
+  }
+
+  /**
+   * Accumulates the rows that match the where clause into the aggregators, which must be those of
+   * the query's aggregate functions in order.
+   *
+   * @return the number of rows accumulated or -1 if the query has to be evaluated over the values
+   *         of the region, in which case the aggregators must not be used
+   */
+  int accumulate(Aggregator[] aggregators) {
+    Lock readLock = this.projection.getReadLock();
+    readLock.lock();
+    try {
+      Column[] columns = new Column[this.aggregateFields.length];
+      for (int i = 0; i < columns.length; i++) {
+        if (this.aggregateFields[i] != null) {
+          columns[i] = this.projection.getColumn(this.aggregateFields[i]);
+          if (!columns[i].isResolved()) {
+            return -1;
+          }
+        }
+      }
+      BitSet rows = this.projection.copyLiveRows();
+      if (this.filter != null && !this.filter.apply(rows, this.projection)) {
+        return -1;
+      }
+      int matched = rows.cardinality();
+      if (matched == 0) {
+        return 0;
+      }
+      for (int i = 0; i < aggregators.length; i++) {
+        accumulate(aggregators[i], columns[i], rows);
+      }
+      return matched;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  private static void accumulate(Aggregator aggregator, Column column, BitSet rows) {
+    if (column == null) {
+      for (int r = rows.nextSetBit(0); r >= 0; r = rows.nextSetBit(r + 1)) {
+        aggregator.accumulate(COUNT_STAR_VALUE);
+      }
+    } else if (aggregator instanceof Sum) {
+      Sum sum = (Sum) aggregator;
+      int n = 0;
+      for (int r = rows.nextSetBit(0); r >= 0; r = rows.nextSetBit(r + 1)) {
+        checkCanceled(++n);
+        if (column.isNumber(r)) {
+          sum.accumulateNumber(column.getNumber(r));
+        } else {
+          sum.accumulate(column.getValue(r));
+        }
+      }
+    } else if (aggregator instanceof MaxMin) {
+      accumulateMaxMin((MaxMin) aggregator, column, rows);
+    } else {
+      int n = 0;
+      for (int r = rows.nextSetBit(0); r >= 0; r = rows.nextSetBit(r + 1)) {
+        checkCanceled(++n);
+        aggregator.accumulate(column.getValue(r));
+      }
+    }
+  }
+
+  /**
+   * Finds the extreme row without boxing when all the rows hold numbers of the same type. Numbers
+   * of different types are accumulated one by one so that they fail as they do over the values.
+   */
+  private static void accumulateMaxMin(MaxMin aggregator, Column column, BitSet rows) {
+    int first = rows.nextSetBit(0);
+    byte kind = column.getKind(first);
+    boolean sameKind = column.isNumber(first);
+    int best = first;
+    int n = 0;
+    for (int r = first; sameKind && r >= 0; r = rows.nextSetBit(r + 1)) {
+      checkCanceled(++n);
+      if (column.getKind(r) != kind) {
+        sameKind = false;
+      } else {
+        int compare = Double.compare(column.getNumber(r), column.getNumber(best));
+        if (aggregator.isFindMax() ? compare > 0 : compare < 0) {
+          best = r;
+        }
+      }
+    }
+    if (sameKind) {
+      aggregator.accumulate(column.getValue(best));
+      return;
+    }
+    for (int r = first; r >= 0; r = rows.nextSetBit(r + 1)) {
+      checkCanceled(++n);
+      aggregator.accumulate(column.getValue(r));
+    }
+  }
+
+  private static void checkCanceled(int rowCount) {
+    if (rowCount % CANCEL_CHECK_INTERVAL == 0) {
+      QueryMonitor.isQueryExecutionCanceled();
+    }
+  }
+
+  private abstract static class RowFilter {
+    /**
+     * Clears the rows of the set that do not match. Returns false if the rows could not be
+     * evaluated from the columns.
+     */
+    abstract boolean apply(BitSet rows, ColumnarProjection projection);
+  }
+
+  private static class AndFilter extends RowFilter {
+    private final RowFilter[] filters;
+
+    AndFilter(RowFilter[] filters) {
+      this.filters = filters;
+    }
+
+    @Override
+    boolean apply(BitSet rows, ColumnarProjection projection) {
+      for (RowFilter filter : this.filters) {
+        if (!filter.apply(rows, projection)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static class OrFilter extends RowFilter {
+    private final RowFilter[] filters;
+
+    OrFilter(RowFilter[] filters) {
+      this.filters = filters;
+    }
+
+    @Override
+    boolean apply(BitSet rows, ColumnarProjection projection) {
+      BitSet matched = new BitSet();
+      BitSet remaining = (BitSet) rows.clone();
+      for (RowFilter filter : this.filters) {
+        // like the junction, an operand is only evaluated for the rows not matched yet
+        BitSet candidates = (BitSet) remaining.clone();
+        if (!filter.apply(candidates, projection)) {
+          return false;
+        }
+        matched.or(candidates);
+        remaining.andNot(candidates);
+      }
+      rows.and(matched);
+      return true;
+    }
+  }
+
+  private static class ComparisonFilter extends RowFilter {
+    private final String fieldName;
+    private final int operator;
+    private final Object constant;
+    /** The type of a primitive number constant or OBJECT */
+    private final byte constantKind;
+    private final double doubleConstant;
+    private final long longConstant;
+
+    ComparisonFilter(String fieldName, int operator, Object constant) {
+      this.fieldName = fieldName;
+      this.operator = operator;
+      this.constant = constant;
+      this.constantKind = getKind(constant);
+      if (this.constantKind != ColumnarProjection.OBJECT) {
+        this.doubleConstant = ((Number) constant).doubleValue();
+        this.longConstant = ((Number) constant).longValue();
+      } else {
+        this.doubleConstant = 0;
+        this.longConstant = 0;
+      }
+    }
+
+    private static byte getKind(Object constant) {
+      if (constant instanceof Integer) {
+        return ColumnarProjection.INT;
+      } else if (constant instanceof Long) {
+        return ColumnarProjection.LONG;
+      } else if (constant instanceof Double) {
+        return ColumnarProjection.DOUBLE;
+      } else if (constant instanceof Float) {
+        return ColumnarProjection.FLOAT;
+      } else if (constant instanceof Short) {
+        return ColumnarProjection.SHORT;
+      } else if (constant instanceof Byte) {
+        return ColumnarProjection.BYTE;
+      } else {
+        return ColumnarProjection.OBJECT;
+      }
+    }
+
+    @Override
+    boolean apply(BitSet rows, ColumnarProjection projection) {
+      Column column = projection.getColumn(this.fieldName);
+      if (!column.isResolved()) {
+        return false;
+      }
+      boolean numericConstant = this.constantKind != ColumnarProjection.OBJECT;
+      int n = 0;
+      for (int r = rows.nextSetBit(0); r >= 0; r = rows.nextSetBit(r + 1)) {
+        checkCanceled(++n);
+        boolean matches;
+        if (numericConstant && column.isNumber(r)) {
+          matches = matches(compareNumber(column.getKind(r), column.getNumber(r)));
+        } else {
+          Object result;
+          try {
+            result = TypeUtils.compare(column.getValue(r), this.constant, this.operator);
+          } catch (TypeMismatchException ignore) {
+            // let the evaluation over the values report it
+            return false;
+          }
+          matches = Boolean.TRUE.equals(result);
+        }
+        if (!matches) {
+          rows.clear(r);
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Compares the number the way TypeUtils compares the boxed row value with the constant.
+     */
+    private int compareNumber(byte kind, double value) {
+      if (kind == ColumnarProjection.DOUBLE || this.constantKind == ColumnarProjection.DOUBLE) {
+        return Double.compare(value, this.doubleConstant);
+      } else if (kind == ColumnarProjection.FLOAT
+          || this.constantKind == ColumnarProjection.FLOAT) {
+        return Float.compare((float) value, (float) this.doubleConstant);
+      } else {
+        // integral values in a column are exact
+        return Long.compare((long) value, this.longConstant);
+      }
+    }
+
+    private boolean matches(int compare) {
+      switch (this.operator) {
+        case OQLLexerTokenTypes.TOK_EQ:
+          return compare == 0;
+        case OQLLexerTokenTypes.TOK_NE:
+          return compare != 0;
+        case OQLLexerTokenTypes.TOK_LT:
+          return compare < 0;
+        case OQLLexerTokenTypes.TOK_LE:
+          return compare <= 0;
+        case OQLLexerTokenTypes.TOK_GT:
+          return compare > 0;
+        default:
+          return compare >= 0;
+      }
+    }
+  }
+}
@@ -137,6 +137,10 @@ public class CompiledAggregateFunction extends AbstractCompiledValue {
     return this.expr;
   }
 
+  public boolean isDistinctOnly() {
+    return this.distinctOnly;
+  }
+
   public ObjectType getObjectType() {
     switch (this.aggFuncType) {
 
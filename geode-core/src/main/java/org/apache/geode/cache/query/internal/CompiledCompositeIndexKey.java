@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.geode.cache.query.AmbiguousNameException;
+import org.apache.geode.cache.query.FunctionDomainException;
+import org.apache.geode.cache.query.NameResolutionException;
+import org.apache.geode.cache.query.QueryInvocationTargetException;
+import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.cache.query.internal.index.CompositeIndexKey;
+import org.apache.geode.cache.query.internal.index.IndexManager;
+import org.apache.geode.cache.query.internal.types.TypeUtils;
+import org.apache.geode.pdx.internal.PdxString;
+
+/**
+ * The indexed expression of a composite index, an ordered list of expressions such as
+ * <code>p.account, p.tradeDate</code>. It evaluates to a {@link CompositeIndexKey}.
+ * <p>
+ * While planning a query, an instance holding the paths of the conditions of an AND junction is
+ * used to look up a composite index whose first component is one of them.
+ *
+ * @since Geode 1.1
+ */
+public class CompiledCompositeIndexKey extends AbstractCompiledValue {
+
+  private final CompiledValue[] components;
+
+  public CompiledCompositeIndexKey(CompiledValue[] components) {
+    this.components = components;
+  }
+
+  @Override
+  public List getChildren() {
+    return Arrays.asList(this.components);
+  }
+
+  public int getType() {
+    return COMPOSITE_INDEX_KEY;
+  }
+
+  public CompiledValue[] getComponents() {
+    return this.components;
+  }
+
+  public Object evaluate(ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    Object[] values = new Object[this.components.length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = indexKeyFor(this.components[i].evaluate(context));
+    }
+    return new CompositeIndexKey(values);
+  }
+
+  /**
+   * Returns the value of a component as it is kept in a {@link CompositeIndexKey}.
+   */
+  static Object indexKeyFor(Object value) throws TypeMismatchException {
+    if (value == null) {
+      return IndexManager.NULL;
+    } else if (value instanceof PdxString) {
+      return value.toString();
+    }
+    return TypeUtils.indexKeyFor(value);
+  }
+
+  @Override
+  public Set computeDependencies(ExecutionContext context)
+      throws TypeMismatchException, AmbiguousNameException, NameResolutionException {
+    for (CompiledValue component : this.components) {
+      context.addDependencies(this, component.computeDependencies(context));
+    }
+    return context.getDependencySet(this, true);
+  }
+
+  /**
+   * Returns the canonicalized expressions of the components.
+   */
+  public String[] getCanonicalizedComponents(ExecutionContext context)
+      throws AmbiguousNameException, TypeMismatchException, NameResolutionException {
+    String[] canonicalized = new String[this.components.length];
+    for (int i = 0; i < canonicalized.length; i++) {
+      StringBuffer sb = new StringBuffer();
+      this.components[i].generateCanonicalizedExpression(sb, context);
+      canonicalized[i] = sb.toString();
+    }
+    return canonicalized;
+  }
+
+  @Override
+  public void generateCanonicalizedExpression(StringBuffer clauseBuffer, ExecutionContext context)
+      throws AmbiguousNameException, TypeMismatchException, NameResolutionException {
+    for (int i = this.components.length - 1; i > 0; i--) {
+      this.components[i].generateCanonicalizedExpression(clauseBuffer, context);
+      clauseBuffer.insert(0, ", ");
+    }
+    this.components[0].generateCanonicalizedExpression(clauseBuffer, context);
+  }
+}
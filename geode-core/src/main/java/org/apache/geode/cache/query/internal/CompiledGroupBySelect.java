@@ -159,11 +159,51 @@ public class CompiledGroupBySelect extends CompiledSelect {
   @Override
   public SelectResults evaluate(ExecutionContext context) throws FunctionDomainException,
       TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    SelectResults columnarResults = evaluateFromColumnarProjection(context);
+    if (columnarResults != null) {
+      return columnarResults;
+    }
     SelectResults sr = super.evaluate(context);
     return this.applyAggregateAndGroupBy(sr, context);
 
   }
 
+  /**
+   * Computes the aggregates from a columnar projection of the region if the query has no group by,
+   * order by, distinct or limit and only projects aggregates.
+   * 
+   * @return the results or null if the query has to be evaluated over the region's values
+   */
+  private SelectResults evaluateFromColumnarProjection(ExecutionContext context)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    ObjectType elementType = this.cachedElementTypeForOrderBy;
+    if (elementType == null || this.isDistinct || this.limit != null || this.orderByAttrs != null
+        || this.originalOrderByClause != null || (this.groupBy != null && !this.groupBy.isEmpty())
+        || this.aggregateColsPos.cardinality() != this.projAttrs.size()) {
+      return null;
+    }
+    ColumnarAggregation aggregation = ColumnarAggregation.create(getIterators(),
+        getWhereClause(), this.aggregateFunctions, context);
+    if (aggregation == null) {
+      return null;
+    }
+    Aggregator[] aggregators = new Aggregator[this.aggregateFunctions.length];
+    refreshAggregators(aggregators, context);
+    int matched = aggregation.accumulate(aggregators);
+    if (matched < 0) {
+      return null;
+    }
+    boolean isStruct = elementType.isStructType();
+    SelectResults newResults = createResultSet(context, elementType, isStruct, false);
+    if (matched > 0) {
+      Object row = isStruct ? new StructImpl((StructTypeImpl) elementType,
+          new Object[this.projAttrs.size()]) : null;
+      this.terminateAndAddToResults(isStruct, newResults, aggregators, row, context, true, -1);
+    }
+    return newResults;
+  }
+
   public SelectResults applyAggregateAndGroupBy(SelectResults baseResults, ExecutionContext context)
       throws FunctionDomainException, TypeMismatchException, NameResolutionException,
       QueryInvocationTargetException {
@@ -87,6 +87,9 @@ public class CompiledJunction extends AbstractCompiledValue implements Negatable
   private int _operator = 0;
   private List unevaluatedFilterOperands = null;
 
+  /** The key of the composite index filter of this junction in the cache of a context */
+  private final Object compositeIndexFilterKey = new Object();
+
   // A token to place into the samesort map. This is to let the engine know there is more than one
   // index
   // being used for this junction but allows actual operands to form range junctions if enough
@@ -421,9 +424,28 @@ public class CompiledJunction extends AbstractCompiledValue implements Negatable
         resultPlanInfo.evalAsFilter = false;
       }
     }
+    CompositeIndexFilter compositeFilter = getCompositeIndexFilter(context);
+    if (compositeFilter != null) {
+      resultPlanInfo.indexes.add(compositeFilter.getIndex());
+      resultPlanInfo.evalAsFilter = true;
+    }
     return resultPlanInfo;
   }
 
+  /**
+   * Returns the filter evaluating conditions of this AND junction with one lookup of a composite
+   * index, or null if there is none.
+   */
+  private CompositeIndexFilter getCompositeIndexFilter(ExecutionContext context)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    if (_operator != LITERAL_and) {
+      return null;
+    }
+    return CompositeIndexFilter.getCompositeIndexFilter(this.compositeIndexFilterKey, _operands,
+        context);
+  }
+
   /* Package methods */
   public int getOperator() {
     return _operator;
@@ -468,6 +490,10 @@ public class CompiledJunction extends AbstractCompiledValue implements Negatable
     CompiledValue operand = null;
     boolean isJunctionNeeded = false;
     boolean indexExistsOnNonJoinOp = false;
+    CompositeIndexFilter compositeFilter = getCompositeIndexFilter(context);
+    if (compositeFilter != null) {
+      evalOperands.add(indexCount++, compositeFilter);
+    }
 
     for (int i = 0; i < _operands.length; i++) {
       // Asif : If we are inside this function this itself indicates
@@ -487,6 +513,10 @@ public class CompiledJunction extends AbstractCompiledValue implements Negatable
       // either true or false for an AND junction but always false for an
       // OR Junction.
       operand = this._operands[i];
+      if (compositeFilter != null && compositeFilter.isFilterOperand(operand)) {
+        // evaluated by the lookup of the composite index
+        continue;
+      }
       if (!operand.isDependentOnCurrentScope(context)) {
         indexCount++;
         // Asif Ensure that independent operands are always at the start
@@ -1052,6 +1082,9 @@ public class CompiledJunction extends AbstractCompiledValue implements Negatable
   public boolean isProjectionEvaluationAPossibility(ExecutionContext context)
       throws FunctionDomainException, TypeMismatchException, NameResolutionException,
       QueryInvocationTargetException {
+    if (getCompositeIndexFilter(context) != null) {
+      return false;
+    }
     for (int i = 0; i < this._operands.length; ++i) {
       // LIKE gives rise to a JUNCTION in CompiledLike whether wildcard is present or not
       if ((this._operands[i].getType() == JUNCTION || this._operands[i].getType() == LIKE)
@@ -1106,6 +1139,10 @@ public class CompiledJunction extends AbstractCompiledValue implements Negatable
       // in case we want to support multi index usage again at some point. Till then since it is
       // hard coded to use 1 index
       // we can for the time being return true if there exists atleast one indexable condition
+      CompositeIndexFilter compositeFilter = getCompositeIndexFilter(context);
+      if (compositeFilter != null) {
+        return compositeFilter.isLimitApplicableAtIndexLevel(context);
+      }
       boolean foundIndex = false;
       for (int i = 0; i < this._operands.length; ++i) {
         if (this._operands[i].getPlanInfo(context).evalAsFilter
@@ -1124,6 +1161,11 @@ public class CompiledJunction extends AbstractCompiledValue implements Negatable
       String canonicalizedOrderByClause) throws FunctionDomainException, TypeMismatchException,
       NameResolutionException, QueryInvocationTargetException {
     if (this._operator == LITERAL_and) {
+      CompositeIndexFilter compositeFilter = getCompositeIndexFilter(context);
+      if (compositeFilter != null) {
+        return compositeFilter.isOrderByApplicableAtIndexLevel(context,
+            canonicalizedOrderByClause);
+      }
       // Set<IndexProtocol> usedIndex = new HashSet<IndexProtocol>();
       boolean foundRightIndex = false;
       for (int i = 0; i < this._operands.length; ++i) {
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.distributed.internal.DistributionConfig;
+
+/**
+ * A bounded cache of the compiled forms of the queries of a cache, so that a query string that is
+ * run over and over is only parsed and prepared once. Queries that differ only in their bind
+ * arguments share an entry since the arguments are not part of the query string. Entries are keyed
+ * by the query string without comments and with the white space outside of literals collapsed, and
+ * the least recently used entry is dropped when the cache is full.
+ * <p>
+ * A compiled query is shared by all the {@link DefaultQuery}s created for its string, which may run
+ * concurrently; state of one execution is kept in its {@link ExecutionContext}. The cache is
+ * cleared whenever an index is created or removed.
+ *
+ * @since Geode 1.1
+ */
+public class CompiledQueryCache {
+
+  /**
+   * The most compiled queries a cache keeps. Zero disables the cache.
+   */
+  public static final int MAX_SIZE = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "Query.COMPILED_QUERY_CACHE_SIZE", 1000)
+      .intValue();
+
+  private final int maxSize;
+
+  private final LruMap queries;
+
+  private long hits;
+
+  private long misses;
+
+  public CompiledQueryCache() {
+    this(MAX_SIZE);
+  }
+
+  public CompiledQueryCache(final int maxSize) {
+    this.maxSize = maxSize;
+    this.queries = new LruMap(maxSize);
+  }
+
+  public boolean isEnabled() {
+    return this.maxSize > 0;
+  }
+
+  /**
+   * Returns the compiled form of the given query string, compiling it if it is not cached.
+   *
+   * @throws org.apache.geode.cache.query.QueryInvalidException if the query cannot be compiled
+   */
+  CompiledQuery getCompiledQuery(String queryString, Cache cache) {
+    String key = normalize(queryString);
+    synchronized (this) {
+      CompiledQuery result = this.queries.get(key);
+      if (result != null) {
+        this.hits++;
+        return result;
+      }
+      this.misses++;
+    }
+    // compile outside of the sync; if two threads race the last one wins
+    CompiledQuery result = DefaultQuery.compile(queryString, cache, false);
+    synchronized (this) {
+      this.queries.put(key, result);
+    }
+    return result;
+  }
+
+  /**
+   * Drops all the compiled queries.
+   */
+  public synchronized void clear() {
+    this.queries.clear();
+  }
+
+  public synchronized int size() {
+    return this.queries.size();
+  }
+
+  public synchronized long getHits() {
+    return this.hits;
+  }
+
+  public synchronized long getMisses() {
+    return this.misses;
+  }
+
+  /**
+   * Returns the query string without comments, with leading and trailing white space removed and
+   * each other run of white space outside of literals replaced by a single space.
+   */
+  static String normalize(String queryString) {
+    int length = queryString.length();
+    StringBuilder sb = new StringBuilder(length);
+    boolean pendingSpace = false;
+    int i = 0;
+    while (i < length) {
+      char c = queryString.charAt(i);
+      char next = i + 1 < length ? queryString.charAt(i + 1) : 0;
+      if (Character.isWhitespace(c)) {
+        pendingSpace = sb.length() > 0;
+        i++;
+        continue;
+      }
+      if (c == '-' && next == '-') {
+        int end = queryString.indexOf('\n', i);
+        i = end == -1 ? length : end;
+        pendingSpace = sb.length() > 0;
+        continue;
+      }
+      if (c == '/' && next == '*') {
+        int end = queryString.indexOf("*/", i + 2);
+        i = end == -1 ? length : end + 2;
+        pendingSpace = sb.length() > 0;
+        continue;
+      }
+      if (pendingSpace) {
+        sb.append(' ');
+        pendingSpace = false;
+      }
+      if (c == '\'' || c == '"') {
+        // copy the literal or quoted identifier as is
+        int end = queryString.indexOf(c, i + 1);
+        end = end == -1 ? length : end + 1;
+        sb.append(queryString, i, end);
+        i = end;
+      } else {
+        sb.append(c);
+        i++;
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * A query string compiled for execution.
+   */
+  static class CompiledQuery {
+    final CompiledValue compiledValue;
+    final boolean traceRequested;
+
+    CompiledQuery(CompiledValue compiledValue, boolean traceRequested) {
+      this.compiledValue = compiledValue;
+      this.traceRequested = traceRequested;
+    }
+  }
+
+  /**
+   * A map in access order that drops its least recently used entry once it holds more than its
+   * maximum size.
+   */
+  private static class LruMap extends LinkedHashMap<String, CompiledQuery> {
+    private static final long serialVersionUID = 1L;
+
+    private final int maxSize;
+
+    LruMap(int maxSize) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, CompiledQuery> eldest) {
+      return size() > this.maxSize;
+    }
+  }
+}
@@ -66,8 +66,9 @@ public class CompiledSelect extends AbstractCompiledValue {
   // Asif: limits the SelectResults by the number specified.
   private CompiledValue limit;
   // Shobhit: counts the no of results satisfying where condition for
-  // count(*) non-distinct queries where no indexes are used.
-  private int countStartQueryResult = 0;
+  // count(*) non-distinct queries where no indexes are used. Kept in the
+  // context since one CompiledSelect may be evaluated by several threads.
+  private static final String COUNT_START_QUERY_RESULT = "CountStartQueryResult";
 
   protected List<CompiledValue> groupBy = null;
   // Are not serialized and are recreated when compiling the query
@@ -431,6 +432,9 @@ public class CompiledSelect extends AbstractCompiledValue {
       boolean evalAsFilters = false;
       if (this.whereClause == null) {
         result = doIterationEvaluate(context, false);
+        if (context.getExplanation() != null) {
+          explainScan(context, null, result);
+        }
       } else {
         if (!this.whereClause.isDependentOnCurrentScope(context)) { // independent
                                                                     // where
@@ -485,7 +489,8 @@ public class CompiledSelect extends AbstractCompiledValue {
             context.cachePut(this.whereClause, CLAUSE_EVALUATED);
           }
           try {
-            evalAsFilters = planInfo.evalAsFilter;
+            evalAsFilters = planInfo.evalAsFilter
+                && !isScanCheaperThanIndex(context, planInfo, limitValue, numInd);
             // let context know if there is exactly one index lookup
             context.setOneIndexLookup(planInfo.indexes.size() == 1);
             if (evalAsFilters) {
@@ -543,14 +548,30 @@ public class CompiledSelect extends AbstractCompiledValue {
 
 
               result = ((Filter) this.whereClause).filterEvaluate(context, null);
+              if (context.getExplanation() != null) {
+                explainFilterEvaluation(context, result);
+              }
               if (!(context.cacheGet(RESULT_TYPE) instanceof Boolean)) {
                 QueryObserverHolder.getInstance()
                     .beforeApplyingProjectionOnFilterEvaluatedResults(result);
                 result = applyProjectionOnCollection(result, context, !needsTopLevelOrdering);
               }
             } else {
-              // otherwise iterate over the single from var to evaluate
-              result = doIterationEvaluate(context, true);
+              HashJoin hashJoin = HashJoin.create(this.whereClause, context);
+              if (hashJoin != null) {
+                // join the from vars by hashing the values of one of them
+                result = doHashJoin(hashJoin, context);
+                if (context.getExplanation() != null) {
+                  context.getExplanation().addStep(hashJoin.describe(context),
+                      QueryExplanation.UNKNOWN, result.size());
+                }
+              } else {
+                // otherwise iterate over the single from var to evaluate
+                result = doIterationEvaluate(context, true);
+                if (context.getExplanation() != null) {
+                  explainScan(context, planInfo, result);
+                }
+              }
             }
           } finally {
             // The Read lock is acquired in {@link
@@ -601,6 +622,7 @@ public class CompiledSelect extends AbstractCompiledValue {
         if (this.count) {
           SelectResults res = (SelectResults) result;
 
+          int countStartQueryResult = getCountStartQueryResult(context)[0];
           if ((this.distinct || evalAsFilters || countStartQueryResult == 0)) {
             // Retrun results as it is as distinct is applied
             // at coordinator node for PR queries.
@@ -650,6 +672,65 @@ public class CompiledSelect extends AbstractCompiledValue {
   }
 
 
+  /**
+   * Returns true if the where clause is a single condition that an index can evaluate, but that
+   * selects so much of the region that scanning the region is cheaper.
+   */
+  private boolean isScanCheaperThanIndex(ExecutionContext context, PlanInfo planInfo,
+      int limitValue, int numInd) throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    // an index also gives the results in order, or only as many as the limit
+    if (!QueryCostModel.COST_BASED_INDEX_SELECTION || this.iterators.size() != 1 || numInd != 1
+        || this.orderByAttrs != null || limitValue >= 0 || planInfo.indexes.size() != 1
+        || (this.whereClause.getType() != COMPARISON && this.whereClause.getType() != LITERAL_in)
+        || (context instanceof QueryExecutionContext
+            && ((QueryExecutionContext) context).hasHints())) {
+      return false;
+    }
+    Region region = ((Index) planInfo.indexes.get(0)).getRegion();
+    if (region == null) {
+      return false;
+    }
+    int estimate;
+    try {
+      estimate = ((Filter) this.whereClause).getSizeEstimate(context);
+    } catch (ClassCastException e) {
+      // the key cannot be compared with the keys of the index, which the lookup handles
+      return false;
+    }
+    return QueryCostModel.isScanCheaper(estimate, region.size());
+  }
+
+  private void explainFilterEvaluation(ExecutionContext context, SelectResults result)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    int type = this.whereClause.getType();
+    if (type == COMPARISON || type == LITERAL_in) {
+      // the other filters record the steps of their evaluation themselves
+      context.getExplanation().addStep(
+          QueryExplanation.describeIndexLookup((Filter) this.whereClause, context),
+          ((Filter) this.whereClause).getSizeEstimate(context), result.size());
+    }
+  }
+
+  private void explainScan(ExecutionContext context, PlanInfo planInfo, SelectResults result) {
+    CompiledValue collectionExpr =
+        ((CompiledIteratorDef) this.iterators.get(0)).getCollectionExpr();
+    StringBuilder description = new StringBuilder("Scan of ");
+    description.append(collectionExpr instanceof CompiledRegion
+        ? ((CompiledRegion) collectionExpr).getRegionPath() : "the from clause");
+    int estimate = QueryExplanation.UNKNOWN;
+    if (planInfo != null && planInfo.evalAsFilter) {
+      Index index = (Index) planInfo.indexes.get(0);
+      description.append(", cheaper than a lookup of index ").append(index.getName());
+      estimate = index.getRegion().size();
+    }
+    if (this.whereClause != null) {
+      description.append(" evaluating the where clause");
+    }
+    context.getExplanation().addStep(description.toString(), estimate, result.size());
+  }
+
   /**
    * Retruns the size of region iterator for count(*) on a region without whereclause.
    * 
@@ -775,51 +856,78 @@ public class CompiledSelect extends AbstractCompiledValue {
     return cIn.optimizeBulkGet(rgn, context);
   }
 
-  // returns the number of elements added in the return ResultSet
-  private int doNestedIterations(int level, SelectResults results, ExecutionContext context,
+  private SelectResults doHashJoin(HashJoin hashJoin, final ExecutionContext context)
+      throws TypeMismatchException, FunctionDomainException, NameResolutionException,
+      QueryInvocationTargetException {
+    final SelectResults results = prepareEmptyResultSet(context, false);
+    final int limitValue = evaluateLimitValue(context, this.limit);
+    final int[] numElementsInResult = {0};
+    hashJoin.evaluate(context, new HashJoin.PairHandler() {
+      @Override
+      public boolean handlePair() throws FunctionDomainException, TypeMismatchException,
+          NameResolutionException, QueryInvocationTargetException {
+        numElementsInResult[0] =
+            addToResultsIfWhereClauseHolds(results, context, true, numElementsInResult[0]);
+        return orderByAttrs != null || limitValue < 0 || numElementsInResult[0] != limitValue;
+      }
+    });
+    return results;
+  }
+
+  // returns the number of elements in the results once the current iterations are added to them
+  private int addToResultsIfWhereClauseHolds(SelectResults results, ExecutionContext context,
       boolean evaluateWhereClause, int numElementsInResult) throws TypeMismatchException,
-      AmbiguousNameException, FunctionDomainException, NameResolutionException,
-      QueryInvocationTargetException, CompiledSelect.NullIteratorException {
-    List iterList = context.getCurrentIterators();
-    if (level == iterList.size()) {
-      boolean addToResults = true;
-      if (evaluateWhereClause) {
-        Object result = this.whereClause.evaluate(context);
-        QueryObserver observer = QueryObserverHolder.getInstance();
-        observer.afterIterationEvaluation(result);
-        if (result == null) {
-          addToResults = false;
-        } else if (result instanceof Boolean) {
-          addToResults = ((Boolean) result).booleanValue();
-        } else if (result == QueryService.UNDEFINED) {
-          // add UNDEFINED to results only for NOT EQUALS queries
-          if (this.whereClause.getType() == COMPARISON) {
-            int operator = ((CompiledComparison) this.whereClause).getOperator();
-            if ((operator != TOK_NE && operator != TOK_NE_ALT)) {
-              addToResults = false;
-            }
-          } else {
+      FunctionDomainException, NameResolutionException, QueryInvocationTargetException {
+    boolean addToResults = true;
+    if (evaluateWhereClause) {
+      Object result = this.whereClause.evaluate(context);
+      QueryObserver observer = QueryObserverHolder.getInstance();
+      observer.afterIterationEvaluation(result);
+      if (result == null) {
+        addToResults = false;
+      } else if (result instanceof Boolean) {
+        addToResults = ((Boolean) result).booleanValue();
+      } else if (result == QueryService.UNDEFINED) {
+        // add UNDEFINED to results only for NOT EQUALS queries
+        if (this.whereClause.getType() == COMPARISON) {
+          int operator = ((CompiledComparison) this.whereClause).getOperator();
+          if ((operator != TOK_NE && operator != TOK_NE_ALT)) {
             addToResults = false;
           }
         } else {
-          throw new TypeMismatchException(
-              LocalizedStrings.CompiledSelect_THE_WHERE_CLAUSE_WAS_TYPE_0_INSTEAD_OF_BOOLEAN
-                  .toLocalizedString(result.getClass().getName()));
+          addToResults = false;
         }
+      } else {
+        throw new TypeMismatchException(
+            LocalizedStrings.CompiledSelect_THE_WHERE_CLAUSE_WAS_TYPE_0_INSTEAD_OF_BOOLEAN
+                .toLocalizedString(result.getClass().getName()));
       }
-      if (addToResults) {
-        int occurence =
-            applyProjectionAndAddToResultSet(context, results, this.orderByAttrs == null);
-        // Asif: If the occurence is greater than 1, then only in case of
-        // non distinct query should it be treated as contributing to size
-        // else duplication will be eliminated when making it distinct using
-        // ResultsCollectionWrapper and we will fall short of limit
-        if (occurence == 1 || (occurence > 1 && !this.distinct)) {
-          // Asif: (Unique i.e first time occurence) or subsequent occurence
-          // for non distinct query
-          ++numElementsInResult;
-        }
+    }
+    if (addToResults) {
+      int occurence =
+          applyProjectionAndAddToResultSet(context, results, this.orderByAttrs == null);
+      // Asif: If the occurence is greater than 1, then only in case of
+      // non distinct query should it be treated as contributing to size
+      // else duplication will be eliminated when making it distinct using
+      // ResultsCollectionWrapper and we will fall short of limit
+      if (occurence == 1 || (occurence > 1 && !this.distinct)) {
+        // Asif: (Unique i.e first time occurence) or subsequent occurence
+        // for non distinct query
+        ++numElementsInResult;
       }
+    }
+    return numElementsInResult;
+  }
+
+  // returns the number of elements added in the return ResultSet
+  private int doNestedIterations(int level, SelectResults results, ExecutionContext context,
+      boolean evaluateWhereClause, int numElementsInResult) throws TypeMismatchException,
+      AmbiguousNameException, FunctionDomainException, NameResolutionException,
+      QueryInvocationTargetException, CompiledSelect.NullIteratorException {
+    List iterList = context.getCurrentIterators();
+    if (level == iterList.size()) {
+      numElementsInResult = addToResultsIfWhereClauseHolds(results, context,
+          evaluateWhereClause, numElementsInResult);
     } else {
       RuntimeIterator rIter = (RuntimeIterator) iterList.get(level);
       SelectResults sr = rIter.evaluateCollection(context);
@@ -832,7 +940,7 @@ public class CompiledSelect extends AbstractCompiledValue {
       if (this.whereClause == null && iterators.size() == 1 && isCount() && !isDistinct()
           && sr instanceof QRegion) {
         QRegion qr = (QRegion) sr;
-        countStartQueryResult = qr.getRegion().size();
+        getCountStartQueryResult(context)[0] = qr.getRegion().size();
         return 1;
       }
 
@@ -939,8 +1047,18 @@ public class CompiledSelect extends AbstractCompiledValue {
     }
   }
 
+  private static int[] getCountStartQueryResult(ExecutionContext context) {
+    int[] result = (int[]) context.cacheGet(COUNT_START_QUERY_RESULT);
+    if (result == null) {
+      result = new int[1];
+      context.cachePut(COUNT_START_QUERY_RESULT, result);
+    }
+    return result;
+  }
+
   private SelectResults prepareEmptyResultSet(ExecutionContext context, boolean ignoreOrderBy)
-      throws TypeMismatchException, AmbiguousNameException {
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
     // Asif:if no projection attributes or '*'as projection attribute
     // & more than one/RunTimeIterator then create a StrcutSet.
     // If attribute is null or '*' & only one RuntimeIterator then create a
@@ -970,7 +1088,7 @@ public class CompiledSelect extends AbstractCompiledValue {
                 : new OrderByComparator(this.orderByAttrs, (StructTypeImpl) elementType, context);
             results = this.distinct ? new SortedStructSet(comparator, (StructTypeImpl) elementType)
                 : new SortedStructBag(comparator, (StructTypeImpl) elementType, nullValuesAtStart);
-
+            boundToLimit(results, context);
           }
         } else {
           if (ignoreOrderBy) {
@@ -983,6 +1101,7 @@ public class CompiledSelect extends AbstractCompiledValue {
                 : new OrderByComparator(this.orderByAttrs, elementType, context);
             results = this.distinct ? new SortedResultSet(comparator)
                 : new SortedResultsBag(comparator, nullValuesAtStart);
+            boundToLimit(results, context);
           }
           results.setElementType(elementType);
         }
@@ -1010,12 +1129,33 @@ public class CompiledSelect extends AbstractCompiledValue {
           new ResultsBag(new ObjectTypeImpl(Integer.class), 1 /*
                                                                * initial capacity for count value
                                                                */, context.getCachePerfStats());
-      countStartQueryResult = 0;
+      context.cachePut(COUNT_START_QUERY_RESULT, new int[1]);
 
     }
     return results;
   }
 
+  /**
+   * Makes a result set sorted by the ORDER BY clause keep only as many rows as the LIMIT, so that
+   * the rows that cannot be returned are dropped while sorting instead of after it. Not done for
+   * order by attributes missing from the projection, whose sort values are held by the comparator.
+   */
+  private void boundToLimit(SelectResults results, ExecutionContext context)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    Integer limitValue = evaluateLimitValue(context, this.limit);
+    if (limitValue <= 0 || this.hasUnmappedOrderByCols) {
+      return;
+    }
+    if (results instanceof SortedResultsBag) {
+      ((SortedResultsBag) results).setMaximumSize(limitValue);
+    } else if (results instanceof SortedStructSet) {
+      ((SortedStructSet) results).setMaximumSize(limitValue);
+    } else {
+      ((SortedResultSet) results).setMaximumSize(limitValue);
+    }
+  }
+
   protected ObjectType prepareResultType(ExecutionContext context)
       throws TypeMismatchException, AmbiguousNameException {
     // Asif:if no projection attributes or '*'as projection attribute
@@ -1193,7 +1333,7 @@ public class CompiledSelect extends AbstractCompiledValue {
         // Counter is local to CompileSelect and not available in ResultSet
         // until
         // the end of evaluate call to this CompiledSelect object.
-        this.countStartQueryResult++;
+        getCountStartQueryResult(context)[0]++;
         occurence = 1;
       } else {
         // if order by is present
@@ -0,0 +1,515 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.geode.cache.query.AmbiguousNameException;
+import org.apache.geode.cache.query.FunctionDomainException;
+import org.apache.geode.cache.query.NameResolutionException;
+import org.apache.geode.cache.query.QueryInvocationTargetException;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.Struct;
+import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.cache.query.internal.CompiledComparison.PathAndKey;
+import org.apache.geode.cache.query.internal.index.AbstractIndex;
+import org.apache.geode.cache.query.internal.index.CompositeIndexKey;
+import org.apache.geode.cache.query.internal.index.IndexData;
+import org.apache.geode.cache.query.internal.index.IndexManager;
+import org.apache.geode.cache.query.internal.index.IndexProtocol;
+import org.apache.geode.cache.query.internal.index.IndexUtils;
+import org.apache.geode.cache.query.internal.index.PartitionedIndex;
+import org.apache.geode.cache.query.internal.types.StructTypeImpl;
+import org.apache.geode.cache.query.types.ObjectType;
+import org.apache.geode.cache.query.types.StructType;
+
+/**
+ * Evaluates conditions of an AND junction with a single lookup of a composite index. The filter
+ * takes equality conditions on the leading components of the index, and at most one lower and one
+ * upper bound on the component that follows them, so that the matching entries are one range of
+ * the index.
+ * <p>
+ * The conditions taken by the filter are removed from the junction when its operands are
+ * organized. The other conditions of the junction are evaluated as usual.
+ *
+ * @since Geode 1.1
+ */
+class CompositeIndexFilter extends AbstractCompiledValue implements Filter {
+
+  /** Cached for a junction whose conditions cannot use a composite index */
+  private static final Object NO_COMPOSITE_INDEX = new Object();
+
+  private final IndexInfo indexInfo;
+
+  /** The conditions on the leading components of the index, in the order of the components */
+  private final CompiledComparison[] equalities;
+
+  private final CompiledComparison lowerBound;
+
+  private final CompiledComparison upperBound;
+
+  private final List<CompiledValue> operands;
+
+  /** true if the filter takes all the conditions of the junction */
+  private final boolean coversJunction;
+
+  private CompositeIndexFilter(IndexData indexData, CompiledComparison[] equalities,
+      CompiledComparison lowerBound, CompiledComparison upperBound, List<CompiledValue> operands,
+      boolean coversJunction, ExecutionContext context)
+      throws AmbiguousNameException, TypeMismatchException {
+    this.equalities = equalities;
+    this.lowerBound = lowerBound;
+    this.upperBound = upperBound;
+    this.operands = operands;
+    this.coversJunction = coversJunction;
+    CompiledComparison first = (CompiledComparison) operands.get(0);
+    PathAndKey pathAndKey = first.getPathAndKey(context);
+    this.indexInfo = new IndexInfo(pathAndKey._key, pathAndKey._path, indexData.getIndex(),
+        indexData.getMatchLevel(), indexData.getMapping(),
+        first.reflectOnOperator(pathAndKey._key), this);
+  }
+
+  /**
+   * Returns the composite index filter for the conditions of an AND junction, or null if there is
+   * no composite index that is better than the indexes of the conditions themselves. The outcome
+   * is cached in the context under the given key, so that the index is looked up, and read locked,
+   * only once per execution.
+   */
+  static CompositeIndexFilter getCompositeIndexFilter(Object cacheKey, CompiledValue[] operands,
+      ExecutionContext context) throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    Object cached = context.cacheGet(cacheKey);
+    if (cached != null) {
+      return cached == NO_COMPOSITE_INDEX ? null : (CompositeIndexFilter) cached;
+    }
+    CompositeIndexFilter filter = null;
+    if (IndexUtils.indexesEnabled) {
+      filter = createCompositeIndexFilter(operands, context);
+    }
+    context.cachePut(cacheKey, filter == null ? NO_COMPOSITE_INDEX : filter);
+    return filter;
+  }
+
+  private static CompositeIndexFilter createCompositeIndexFilter(CompiledValue[] operands,
+      ExecutionContext context) throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    // group the comparisons of a path with a key by the iterator they depend on
+    Map<RuntimeIterator, Map<CompiledComparison, String>> candidates =
+        new LinkedHashMap<RuntimeIterator, Map<CompiledComparison, String>>();
+    for (CompiledValue operand : operands) {
+      if (operand.getType() != COMPARISON || !operand.isDependentOnCurrentScope(context)) {
+        continue;
+      }
+      CompiledComparison comparison = (CompiledComparison) operand;
+      PathAndKey pathAndKey = comparison.getPathAndKey(context);
+      if (pathAndKey == null || !comparison.isRangeEvaluatable()) {
+        continue;
+      }
+      switch (comparison.reflectOnOperator(pathAndKey._key)) {
+        case TOK_EQ:
+        case TOK_LT:
+        case TOK_LE:
+        case TOK_GT:
+        case TOK_GE:
+          break;
+        default:
+          continue;
+      }
+      Set iterators = QueryUtils.getCurrentScopeUltimateRuntimeIteratorsIfAny(operand, context);
+      if (iterators.size() != 1) {
+        continue;
+      }
+      RuntimeIterator iterator = (RuntimeIterator) iterators.iterator().next();
+      Map<CompiledComparison, String> comparisons = candidates.get(iterator);
+      if (comparisons == null) {
+        comparisons = new LinkedHashMap<CompiledComparison, String>();
+        candidates.put(iterator, comparisons);
+      }
+      StringBuffer sb = new StringBuffer();
+      pathAndKey._path.generateCanonicalizedExpression(sb, context);
+      comparisons.put(comparison, sb.toString());
+    }
+
+    for (Map<CompiledComparison, String> comparisons : candidates.values()) {
+      CompiledValue[] paths = new CompiledValue[comparisons.size()];
+      int i = 0;
+      for (CompiledComparison comparison : comparisons.keySet()) {
+        paths[i++] = comparison.getPathAndKey(context)._path;
+      }
+      CompiledCompositeIndexKey conditionedPaths = new CompiledCompositeIndexKey(paths);
+      conditionedPaths.computeDependencies(context);
+      // a composite index is neither a primary key nor a hash index
+      IndexData indexData =
+          QueryUtils.getAvailableIndexIfAny(conditionedPaths, context, LITERAL_and);
+      if (indexData == null) {
+        continue;
+      }
+      CompositeIndexFilter filter =
+          createCompositeIndexFilter(indexData, comparisons, operands.length, context);
+      if (filter != null) {
+        return filter;
+      }
+      // the index was read locked by the lookup
+      releaseReadLock(indexData.getIndex());
+    }
+    return null;
+  }
+
+  private static CompositeIndexFilter createCompositeIndexFilter(IndexData indexData,
+      Map<CompiledComparison, String> comparisons, int numOperands, ExecutionContext context)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    String[] components =
+        ((AbstractIndex) indexData.getIndex()).getCanonicalizedIndexedComponents();
+    if (components == null) {
+      return null;
+    }
+    List<CompiledValue> operands = new ArrayList<CompiledValue>();
+    List<CompiledComparison> equalities = new ArrayList<CompiledComparison>();
+    while (equalities.size() < components.length) {
+      CompiledComparison equality =
+          findComparison(comparisons, components[equalities.size()], TOK_EQ, TOK_EQ, context);
+      if (equality == null) {
+        break;
+      }
+      equalities.add(equality);
+      operands.add(equality);
+    }
+    CompiledComparison lowerBound = null;
+    CompiledComparison upperBound = null;
+    if (equalities.size() < components.length) {
+      String component = components[equalities.size()];
+      lowerBound = findComparison(comparisons, component, TOK_GT, TOK_GE, context);
+      upperBound = findComparison(comparisons, component, TOK_LT, TOK_LE, context);
+      if (lowerBound != null) {
+        operands.add(lowerBound);
+      }
+      if (upperBound != null) {
+        operands.add(upperBound);
+      }
+    }
+    int numComponents = equalities.size() + (lowerBound != null || upperBound != null ? 1 : 0);
+    if (numComponents == 0) {
+      return null;
+    }
+    if (numComponents == 1) {
+      // a condition on a single component is better answered by its own index, if it has one
+      for (CompiledValue operand : operands) {
+        if (operand.getPlanInfo(context).evalAsFilter) {
+          return null;
+        }
+      }
+    }
+    return new CompositeIndexFilter(indexData,
+        equalities.toArray(new CompiledComparison[equalities.size()]), lowerBound, upperBound,
+        operands, operands.size() == numOperands, context);
+  }
+
+  private static CompiledComparison findComparison(Map<CompiledComparison, String> comparisons,
+      String component, int operator1, int operator2, ExecutionContext context)
+      throws AmbiguousNameException, TypeMismatchException {
+    for (Map.Entry<CompiledComparison, String> entry : comparisons.entrySet()) {
+      CompiledComparison comparison = entry.getKey();
+      int operator = comparison.reflectOnOperator(comparison.getPathAndKey(context)._key);
+      if (entry.getValue().equals(component) && (operator == operator1 || operator == operator2)) {
+        return comparison;
+      }
+    }
+    return null;
+  }
+
+  private static void releaseReadLock(IndexProtocol index) {
+    Object prIndex = ((AbstractIndex) index).getPRIndex();
+    if (prIndex != null) {
+      ((PartitionedIndex) prIndex).releaseIndexReadLockForRemove();
+    } else {
+      ((AbstractIndex) index).releaseIndexReadLockForRemove();
+    }
+  }
+
+  /**
+   * Returns true if the operand is one of the conditions evaluated by this filter.
+   */
+  boolean isFilterOperand(CompiledValue operand) {
+    return this.operands.contains(operand);
+  }
+
+  IndexProtocol getIndex() {
+    return this.indexInfo._getIndex();
+  }
+
+  @Override
+  public List getChildren() {
+    return this.operands;
+  }
+
+  public int getType() {
+    return COMPOSITE_INDEX_FILTER;
+  }
+
+  @Override
+  public int getOperator() {
+    return LITERAL_and;
+  }
+
+  public Object evaluate(ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    for (CompiledValue operand : this.operands) {
+      if (!QueryUtils.applyCondition(operand, context)) {
+        return Boolean.FALSE;
+      }
+    }
+    return Boolean.TRUE;
+  }
+
+  @Override
+  public Set computeDependencies(ExecutionContext context)
+      throws TypeMismatchException, AmbiguousNameException, NameResolutionException {
+    for (CompiledValue operand : this.operands) {
+      context.addDependencies(this, operand.computeDependencies(context));
+    }
+    return context.getDependencySet(this, true);
+  }
+
+  @Override
+  public SelectResults filterEvaluate(ExecutionContext context, SelectResults intermediateResults)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    RuntimeIterator indpndntItr = null;
+    List currentScopeIndpndntItrs = context.getAllIndependentIteratorsOfCurrentScope();
+    Set rntmItrs = QueryUtils.getCurrentScopeUltimateRuntimeIteratorsIfAny(this, context);
+    if (rntmItrs.size() == 1 && currentScopeIndpndntItrs.size() == 1) {
+      indpndntItr = (RuntimeIterator) rntmItrs.iterator().next();
+    }
+    return filterEvaluate(context, intermediateResults, true, null,
+        indpndntItr != null ? new RuntimeIterator[] {indpndntItr} : null, true, true, false);
+  }
+
+  @Override
+  public SelectResults filterEvaluate(ExecutionContext context, SelectResults intermediateResults,
+      boolean completeExpansionNeeded, CompiledValue iterOperands, RuntimeIterator[] indpndntItrs,
+      boolean isIntersection, boolean conditioningNeeded, boolean evaluateProjection)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    ObjectType resultType = this.indexInfo._index.getResultSetType();
+    int indexFieldsSize = -1;
+    SelectResults set = null;
+    Boolean orderByClause = (Boolean) context.cacheGet(CompiledValue.CAN_APPLY_ORDER_BY_AT_INDEX);
+    boolean useLinkedDataStructure = false;
+    boolean nullValuesAtStart = true;
+    if (orderByClause != null && orderByClause.booleanValue()) {
+      List orderByAttrs = (List) context.cacheGet(CompiledValue.ORDERBY_ATTRIB);
+      useLinkedDataStructure = orderByAttrs.size() == 1;
+      nullValuesAtStart = !((CompiledSortCriterion) orderByAttrs.get(0)).getCriterion();
+    }
+    if (resultType instanceof StructType) {
+      if (useLinkedDataStructure) {
+        set = context.isDistinct() ? new LinkedStructSet((StructTypeImpl) resultType)
+            : new SortedResultsBag<Struct>((StructTypeImpl) resultType, nullValuesAtStart);
+      } else {
+        set = QueryUtils.createStructCollection(context, (StructTypeImpl) resultType);
+      }
+      indexFieldsSize = ((StructTypeImpl) resultType).getFieldNames().length;
+    } else {
+      if (useLinkedDataStructure) {
+        set = context.isDistinct() ? new LinkedResultSet(resultType)
+            : new SortedResultsBag(resultType, nullValuesAtStart);
+      } else {
+        set = QueryUtils.createResultCollection(context, resultType);
+      }
+      indexFieldsSize = 1;
+    }
+    if (iterOperands != null) {
+      // the iter operands are applied after the index lookup
+      context.cachePut(CompiledValue.CAN_APPLY_LIMIT_AT_INDEX, Boolean.FALSE);
+    }
+
+    CompositeIndexKey[] bounds = getBounds(context);
+    if (bounds != null) {
+      QueryObserver observer = QueryObserverHolder.getInstance();
+      try {
+        observer.beforeIndexLookup(this.indexInfo._index, TOK_GT, bounds[0], TOK_LT, bounds[1],
+            null);
+        context.cachePut(CompiledValue.INDEX_INFO, this.indexInfo);
+        this.indexInfo._index.query(bounds[0], TOK_GT, bounds[1], TOK_LT, set, null, context);
+      } finally {
+        observer.afterIndexLookup(set);
+      }
+    }
+    return QueryUtils.getconditionedIndexResults(set, this.indexInfo, context, indexFieldsSize,
+        completeExpansionNeeded, iterOperands, indpndntItrs);
+  }
+
+  /**
+   * Returns the lower and the upper bound of the range of the index to look up, or null if no
+   * entry can satisfy the conditions.
+   */
+  private CompositeIndexKey[] getBounds(ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    Object[] prefix = new Object[this.equalities.length];
+    for (int i = 0; i < prefix.length; i++) {
+      prefix[i] = getKey(this.equalities[i], context);
+      if (prefix[i] == QueryService.UNDEFINED) {
+        // a comparison with UNDEFINED is never true
+        return null;
+      }
+    }
+    Object lowerKey = null;
+    Object upperKey = null;
+    if (this.lowerBound != null) {
+      lowerKey = getKey(this.lowerBound, context);
+      if (lowerKey == QueryService.UNDEFINED || lowerKey == IndexManager.NULL) {
+        return null;
+      }
+    }
+    if (this.upperBound != null) {
+      upperKey = getKey(this.upperBound, context);
+      if (upperKey == QueryService.UNDEFINED || upperKey == IndexManager.NULL) {
+        return null;
+      }
+    }
+
+    CompositeIndexKey lower;
+    if (lowerKey != null) {
+      Object[] components = append(prefix, lowerKey);
+      lower = getOperator(this.lowerBound, context) == TOK_GE
+          ? CompositeIndexKey.lowerBound(components) : CompositeIndexKey.upperBound(components);
+    } else if (upperKey != null) {
+      // null and UNDEFINED sort first and do not satisfy a range condition
+      lower = CompositeIndexKey.upperBound(append(prefix, QueryService.UNDEFINED));
+    } else {
+      lower = CompositeIndexKey.lowerBound(prefix);
+    }
+    CompositeIndexKey upper;
+    if (upperKey != null) {
+      Object[] components = append(prefix, upperKey);
+      upper = getOperator(this.upperBound, context) == TOK_LE
+          ? CompositeIndexKey.upperBound(components) : CompositeIndexKey.lowerBound(components);
+    } else {
+      upper = CompositeIndexKey.upperBound(prefix);
+    }
+    if (lower.compareTo(upper) >= 0) {
+      return null;
+    }
+    return new CompositeIndexKey[] {lower, upper};
+  }
+
+  private static Object getKey(CompiledComparison comparison, ExecutionContext context)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    return CompiledCompositeIndexKey
+        .indexKeyFor(comparison.getPathAndKey(context)._key.evaluate(context));
+  }
+
+  private static int getOperator(CompiledComparison comparison, ExecutionContext context)
+      throws AmbiguousNameException, TypeMismatchException {
+    return comparison.reflectOnOperator(comparison.getPathAndKey(context)._key);
+  }
+
+  private static Object[] append(Object[] prefix, Object component) {
+    Object[] components = Arrays.copyOf(prefix, prefix.length + 1);
+    components[prefix.length] = component;
+    return components;
+  }
+
+  /**
+   * Looks up the index and intersects the entries found with the intermediate results, if any.
+   */
+  @Override
+  public SelectResults auxFilterEvaluate(ExecutionContext context,
+      SelectResults intermediateResults) throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    SelectResults results = filterEvaluate(context, null);
+    if (intermediateResults == null) {
+      return results;
+    }
+    return QueryUtils.intersection(intermediateResults, results, context);
+  }
+
+  @Override
+  public int getSizeEstimate(ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    String[] components =
+        ((AbstractIndex) this.indexInfo._index).getCanonicalizedIndexedComponents();
+    if (this.equalities.length == components.length) {
+      Object[] key = new Object[this.equalities.length];
+      for (int i = 0; i < key.length; i++) {
+        key[i] = getKey(this.equalities[i], context);
+        if (key[i] == QueryService.UNDEFINED) {
+          return 0;
+        }
+      }
+      return this.indexInfo._index.getSizeEstimate(new CompositeIndexKey(key), TOK_EQ,
+          this.indexInfo._matchLevel);
+    }
+    // a range of a composite index is assumed to be smaller than the result of any of its
+    // conditions on their own
+    return 1;
+  }
+
+  @Override
+  public boolean isBetterFilter(Filter comparedTo, ExecutionContext context, int thisSize)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    return thisSize <= comparedTo.getSizeEstimate(context);
+  }
+
+  @Override
+  public boolean isProjectionEvaluationAPossibility(ExecutionContext context) {
+    return false;
+  }
+
+  @Override
+  public boolean isConditioningNeededForIndex(RuntimeIterator independentIter,
+      ExecutionContext context, boolean completeExpnsNeeded) {
+    return true;
+  }
+
+  @Override
+  public boolean isLimitApplicableAtIndexLevel(ExecutionContext context) {
+    return this.coversJunction;
+  }
+
+  /**
+   * The entries of a range of the index are in the order of the component after the equality
+   * conditions, and of every component with an equality condition.
+   */
+  @Override
+  public boolean isOrderByApplicableAtIndexLevel(ExecutionContext context,
+      String canonicalizedOrderByClause) {
+    if (!this.coversJunction) {
+      return false;
+    }
+    String[] components =
+        ((AbstractIndex) this.indexInfo._index).getCanonicalizedIndexedComponents();
+    for (int i = 0; i <= this.equalities.length && i < components.length; i++) {
+      if (components[i].equals(canonicalizedOrderByClause)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void visitNodes(NodeVisitor visitor) {
+    Support.assertionFailed("Should not have come here");
+  }
+}
@@ -30,20 +30,24 @@ import org.apache.geode.cache.query.FunctionDomainException;
 import org.apache.geode.cache.query.NameResolutionException;
 import org.apache.geode.cache.query.Query;
 import org.apache.geode.cache.query.QueryException;
+import org.apache.geode.cache.query.QueryExecutionTimeoutException;
 import org.apache.geode.cache.query.QueryInvalidException;
 import org.apache.geode.cache.query.QueryInvocationTargetException;
 import org.apache.geode.cache.query.QueryService;
 import org.apache.geode.cache.query.QueryStatistics;
 import org.apache.geode.cache.query.RegionNotFoundException;
+import org.apache.geode.cache.query.ResultsCursor;
 import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.cache.query.TypeMismatchException;
 import org.apache.geode.cache.query.internal.cq.InternalCqQuery;
+import org.apache.geode.cache.query.internal.index.IndexManager;
 import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.NanoTimer;
 import org.apache.geode.internal.cache.BucketRegion;
 import org.apache.geode.internal.cache.CachePerfStats;
 import org.apache.geode.internal.cache.GemFireCacheImpl;
 import org.apache.geode.internal.cache.LocalDataSet;
+import org.apache.geode.internal.cache.LocalRegion;
 import org.apache.geode.internal.cache.PRQueryProcessor;
 import org.apache.geode.internal.cache.PartitionedRegion;
 import org.apache.geode.internal.cache.TXManagerImpl;
@@ -131,12 +135,19 @@ public class DefaultQuery implements Query {
     }
   };
 
+  /** The explanation the query executed by the thread is recorded in, if it is being explained */
+  private static final ThreadLocal<QueryExplanation> currentExplanation =
+      new ThreadLocal<QueryExplanation>();
+
   // indicates query executed remotely
   private boolean isRemoteQuery = false;
 
   // to prevent objects from getting deserialized
   private boolean keepSerialized = false;
 
+  // how long to wait for the asynchronous index maintenance before executing, if not negative
+  private long indexUpdatesTimeout = -1;
+
   public static final Set<String> reservedKeywords = new HashSet<String>();
 
   static {
@@ -270,21 +281,38 @@ public class DefaultQuery implements Query {
    * @see QueryService#newQuery
    */
   public DefaultQuery(String queryString, Cache cache, boolean isForRemote) {
+    this(queryString, cache, compile(queryString, cache, isForRemote));
+  }
+
+  /**
+   * Constructs a query from a compiled form that may be shared with other queries.
+   *
+   * @see CompiledQueryCache
+   */
+  DefaultQuery(String queryString, Cache cache, CompiledQueryCache.CompiledQuery compiled) {
     this.queryString = queryString;
+    this.compiledQuery = compiled.compiledValue;
+    this.traceOn = (compiled.traceRequested || QUERY_VERBOSE);
+    this.cache = cache;
+    this.stats = new DefaultQueryStatistics();
+  }
+
+  static CompiledQueryCache.CompiledQuery compile(String queryString, Cache cache,
+      boolean isForRemote) {
     QCompiler compiler = new QCompiler();
-    this.compiledQuery = compiler.compileQuery(queryString);
-    CompiledSelect cs = this.getSimpleSelect();
-    if (cs != null && !isForRemote && (cs.isGroupBy() || cs.isOrderBy())) {
-      QueryExecutionContext ctx = new QueryExecutionContext(null, cache);
-      try {
-        cs.computeDependencies(ctx);
-      } catch (QueryException qe) {
-        throw new QueryInvalidException("", qe);
+    CompiledValue compiledQuery = compiler.compileQuery(queryString);
+    if (compiledQuery instanceof CompiledSelect && !isForRemote) {
+      CompiledSelect cs = (CompiledSelect) compiledQuery;
+      if (cs.isGroupBy() || cs.isOrderBy()) {
+        QueryExecutionContext ctx = new QueryExecutionContext(null, cache);
+        try {
+          cs.computeDependencies(ctx);
+        } catch (QueryException qe) {
+          throw new QueryInvalidException("", qe);
+        }
       }
     }
-    this.traceOn = (compiler.isTraceRequested() || QUERY_VERBOSE);
-    this.cache = cache;
-    this.stats = new DefaultQueryStatistics();
+    return new CompiledQueryCache.CompiledQuery(compiledQuery, compiler.isTraceRequested());
   }
 
   public static boolean getPdxReadSerialized() {
@@ -338,6 +366,10 @@ public class DefaultQuery implements Query {
     // If pool is associated with the Query; execute the query on pool.
     // ServerSide query.
     if (this.serverProxy != null) {
+      if (this.indexUpdatesTimeout >= 0) {
+        throw new UnsupportedOperationException(
+            "A query executed on a server cannot wait for the index updates");
+      }
       // Execute Query using pool.
       return executeOnServer(parameters);
     }
@@ -351,11 +383,15 @@ public class DefaultQuery implements Query {
     QueryObserver indexObserver = null;
     QueryMonitor queryMonitor = null;
     QueryExecutor qe = checkQueryOnPR(parameters);
+    if (this.indexUpdatesTimeout >= 0) {
+      waitForIndexUpdates(parameters);
+    }
 
     try {
       // Setting the readserialized flag for local queries
       setPdxReadSerialized(cache, true);
       ExecutionContext context = new QueryExecutionContext(parameters, this.cache, this);
+      context.setExplanation(currentExplanation.get());
       indexObserver = this.startTrace();
       if (qe != null) {
         if (DefaultQuery.testHook != null) {
@@ -363,6 +399,11 @@ public class DefaultQuery implements Query {
         }
 
         result = qe.executeQuery(this, parameters, null);
+        if (context.getExplanation() != null) {
+          context.getExplanation().addStep("Execution on the buckets of the partitioned region",
+              QueryExplanation.UNKNOWN,
+              result instanceof Collection ? ((Collection) result).size() : 1);
+        }
         // For local queries returning pdx objects wrap the resultset with
         // ResultsCollectionPdxDeserializerWrapper
         // which deserializes these pdx objects.
@@ -442,6 +483,104 @@ public class DefaultQuery implements Query {
 
   }
 
+  /**
+   * Executes the query and returns the plan it was executed with: whether the region was scanned or
+   * which indexes were looked up and intersected, with the number of rows each step was estimated
+   * to return and actually returned. Only local queries can be explained.
+   *
+   * @param parameters the values bound to the parameters of the query
+   * @since Geode 1.1
+   */
+  public QueryExplanation explain(Object[] parameters) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    if (this.serverProxy != null) {
+      throw new UnsupportedOperationException("Only local queries can be explained");
+    }
+    QueryExplanation explanation = new QueryExplanation(this.queryString);
+    currentExplanation.set(explanation);
+    try {
+      execute(parameters);
+    } finally {
+      currentExplanation.remove();
+    }
+    return explanation;
+  }
+
+  @Override
+  public void setWaitForIndexUpdates(long timeoutMillis) {
+    this.indexUpdatesTimeout = timeoutMillis;
+  }
+
+  /**
+   * Waits until the index updates of the regions in this query have caught up. The buckets of a
+   * partitioned region may be queried on other members, which do not know about the timeout, so
+   * partitioned regions are rejected before waiting for anything.
+   */
+  private void waitForIndexUpdates(Object[] parameters) {
+    List<IndexManager> indexManagers = new ArrayList<IndexManager>();
+    for (Iterator itr = getRegionsInQuery(parameters).iterator(); itr.hasNext();) {
+      Region region = this.cache.getRegion((String) itr.next());
+      if (region instanceof PartitionedRegion) {
+        throw new UnsupportedOperationException("A query on the partitioned region "
+            + region.getFullPath() + " cannot wait for the index updates");
+      } else if (region instanceof LocalRegion) {
+        indexManagers.add(((LocalRegion) region).getIndexManager());
+      }
+    }
+    long deadline = System.currentTimeMillis() + this.indexUpdatesTimeout;
+    for (IndexManager indexManager : indexManagers) {
+      waitForIndexUpdates(indexManager, deadline);
+    }
+  }
+
+  private void waitForIndexUpdates(IndexManager indexManager, long deadline) {
+    if (indexManager == null) {
+      return;
+    }
+    boolean caughtUp;
+    try {
+      caughtUp = indexManager
+          .waitForIndexUpdates(Math.max(0, deadline - System.currentTimeMillis()));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new QueryExecutionCanceledException(
+          "Query was interrupted while waiting for the index updates");
+    }
+    if (!caughtUp) {
+      throw new QueryExecutionTimeoutException("The index updates of region "
+          + indexManager.getRegion().getFullPath() + " were not applied within "
+          + this.indexUpdatesTimeout + " milliseconds");
+    }
+  }
+
+  public ResultsCursor executeStream(int pageSize) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    return executeStream(pageSize, EMPTY_ARRAY);
+  }
+
+  /**
+   * Streams the results from the server a page at a time when the query has a pool. A local query
+   * is executed as usual and the cursor iterates over its results.
+   */
+  public ResultsCursor executeStream(int pageSize, Object[] parameters)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("The page size must be positive: " + pageSize);
+    }
+    if (parameters == null) {
+      throw new IllegalArgumentException(
+          LocalizedStrings.DefaultQuery_PARAMETERS_CANNOT_BE_NULL.toLocalizedString());
+    }
+    if (this.serverProxy != null) {
+      return executeStreamOnServer(pageSize, parameters);
+    }
+    Object result = execute(parameters);
+    Iterator iterator = result instanceof SelectResults ? ((SelectResults) result).iterator()
+        : Collections.singleton(result).iterator();
+    return new LocalResultsCursor(iterator);
+  }
+
   // For Order by queries ,since they are already ordered by the comparator
   // && it takes care of conversion, we do not have to wrap it in a wrapper
   public boolean needsPDXDeserializationWrapper(boolean isQueryOnPR) {
@@ -479,6 +618,47 @@ public class DefaultQuery implements Query {
     return result;
   }
 
+  private ResultsCursor executeStreamOnServer(int pageSize, Object[] parameters) {
+    long startTime = CachePerfStats.getStatTime();
+    try {
+      if (proxyCache != null) {
+        if (this.proxyCache.isClosed()) {
+          throw new CacheClosedException("Cache is closed for this user.");
+        }
+        UserAttributes.userAttributes.set(this.proxyCache.getUserAttributes());
+      }
+      return this.serverProxy.queryStream(this.queryString, parameters, pageSize);
+    } finally {
+      UserAttributes.userAttributes.set(null);
+      long endTime = CachePerfStats.getStatTime();
+      updateStatistics(endTime - startTime);
+    }
+  }
+
+  /**
+   * A cursor over the results of a query executed in this member.
+   */
+  private static class LocalResultsCursor implements ResultsCursor {
+
+    private Iterator results;
+
+    LocalResultsCursor(Iterator results) {
+      this.results = results;
+    }
+
+    public boolean hasNext() {
+      return this.results.hasNext();
+    }
+
+    public Object next() {
+      return this.results.next();
+    }
+
+    public void close() {
+      this.results = Collections.emptyIterator();
+    }
+  }
+
   /**
    * Execute a PR Query on the specified bucket. Assumes query already meets restrictions for PR
    * Query, and the first iterator in the FROM clause can be replaced with the BucketRegion.
@@ -1027,6 +1207,9 @@ public class DefaultQuery implements Query {
 
     QueryObserver indexObserver = null;
     QueryExecutor qe = checkQueryOnPR(parameters);
+    if (this.indexUpdatesTimeout >= 0) {
+      waitForIndexUpdates(parameters);
+    }
 
     try {
       indexObserver = startTrace();
@@ -30,6 +30,7 @@ import org.apache.geode.cache.query.internal.index.*;
 import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
 import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.cache.ForceReattemptException;
+import org.apache.geode.internal.cache.GemFireCacheImpl;
 import org.apache.geode.internal.cache.InternalCache;
 import org.apache.geode.internal.cache.LocalRegion;
 import org.apache.geode.internal.cache.PartitionedRegion;
@@ -102,6 +103,13 @@ public class DefaultQueryService implements QueryService {
       throw new QueryInvalidException(
           LocalizedStrings.DefaultQueryService_THE_QUERY_STRING_MUST_NOT_BE_EMPTY
               .toLocalizedString());
+    if (pool == null && this.cache instanceof GemFireCacheImpl) {
+      CompiledQueryCache compiledQueries = ((GemFireCacheImpl) this.cache).getCompiledQueryCache();
+      if (compiledQueries != null && compiledQueries.isEnabled()) {
+        return new DefaultQuery(queryString, this.cache,
+            compiledQueries.getCompiledQuery(queryString, this.cache));
+      }
+    }
     ServerProxy serverProxy = pool == null ? null : new ServerProxy(pool);
     DefaultQuery query = new DefaultQuery(queryString, this.cache, serverProxy != null);
     query.setServerProxy(serverProxy);
@@ -290,6 +298,27 @@ public class DefaultQueryService implements QueryService {
     }
   }
 
+  /**
+   * Creates a columnar projection of the given fields of the values of a replicated or local
+   * region. Aggregate queries on the region whose fields are all projected read the columns
+   * instead of the values.
+   *
+   * @throws UnsupportedOperationException if the region is partitioned or this is a client
+   * @since Geode 1.1
+   */
+  public ColumnarProjection createColumnarProjection(Region region, String... fieldNames) {
+    if (pool != null) {
+      throw new UnsupportedOperationException(
+          "Columnar projection is not supported from the client.");
+    }
+    if (region instanceof PartitionedRegion) {
+      throw new UnsupportedOperationException(
+          "Columnar projection is not supported on partitioned regions.");
+    }
+    IndexManager indexManager = IndexUtils.getIndexManager(region, true);
+    return indexManager.createColumnarProjection(fieldNames);
+  }
+
   /**
    * Asif: Gets a best match index which is available. An index with match level equal to 0 is the
    * best index to use as it implies that the query from clause iterators belonging to the region
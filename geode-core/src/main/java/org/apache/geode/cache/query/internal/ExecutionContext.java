@@ -82,6 +82,7 @@ public class ExecutionContext {
   private boolean distinct = false;
   private Object currentProjectionField = null;
   private boolean isPRQueryNode = false;
+  private QueryExplanation explanation;
 
   /**
    * Param specialIteratorVar name of special variable to use to denote the current iteration
@@ -723,4 +724,16 @@ public class ExecutionContext {
     return this.isPRQueryNode;
   }
 
+  /**
+   * Returns the explanation the steps of the query are recorded in, or null if the query is not
+   * being explained.
+   */
+  public QueryExplanation getExplanation() {
+    return this.explanation;
+  }
+
+  void setExplanation(QueryExplanation explanation) {
+    this.explanation = explanation;
+  }
+
 }
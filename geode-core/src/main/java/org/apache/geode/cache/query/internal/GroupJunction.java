@@ -23,6 +23,7 @@ import org.apache.geode.cache.query.FunctionDomainException;
 import org.apache.geode.cache.query.NameResolutionException;
 import org.apache.geode.cache.query.QueryInvocationTargetException;
 import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.cache.query.internal.index.IndexProtocol;
 
 /**
  * This structure contains the filter evaluable and iter evaluable conditions which are dependent on
@@ -141,8 +142,8 @@ public class GroupJunction extends AbstractGroupOrRangeJunction {
             if (currentBestFilter == null) {
               currentBestFilter = (Filter) _operands[i];
               currentBestFilterSize = ((Filter) _operands[i]).getSizeEstimate(context);
-            } else if (foundPreferredCondition || currentBestFilter
-                .isBetterFilter((Filter) _operands[i], context, currentBestFilterSize)) {
+            } else if (foundPreferredCondition || isBetterFilter(currentBestFilter,
+                currentBestFilterSize, (Filter) _operands[i], context)) {
               evalOperands.add(_operands[i]);
             } else {
               evalOperands.add(currentBestFilter);
@@ -162,6 +163,9 @@ public class GroupJunction extends AbstractGroupOrRangeJunction {
           }
         }
         evalOperands.add(0, currentBestFilter);
+        if (!foundPreferredCondition) {
+          indexCount += moveIntersectedFilters(evalOperands, currentBestFilterSize, context);
+        }
       }
     } else {
       indexCount = _operands.length;
@@ -176,6 +180,51 @@ public class GroupJunction extends AbstractGroupOrRangeJunction {
     return createOrganizedOperandsObject(indexCount, evalOperands);
   }
 
+  /**
+   * Returns true if the current best filter is better than the other one. With cost based index
+   * selection, the filter estimated to return fewer results is better whatever its operator.
+   */
+  private boolean isBetterFilter(Filter currentBestFilter, int currentBestFilterSize,
+      Filter other, ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    if (QueryCostModel.COST_BASED_INDEX_SELECTION) {
+      return currentBestFilterSize <= other.getSizeEstimate(context);
+    }
+    return currentBestFilter.isBetterFilter(other, context, currentBestFilterSize);
+  }
+
+  /**
+   * Moves the filters whose index lookups are worth intersecting with that of the best filter, at
+   * the start of the operands, right after the best filter.
+   *
+   * @return the number of filters moved
+   */
+  private int moveIntersectedFilters(List evalOperands, int bestFilterSize,
+      ExecutionContext context) throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    // the first index lookup would stop at the limit before the intersection, and the
+    // intersection would lose the order of the index
+    if (Boolean.TRUE.equals(context.cacheGet(CAN_APPLY_LIMIT_AT_INDEX))
+        || Boolean.TRUE.equals(context.cacheGet(CAN_APPLY_ORDER_BY_AT_INDEX))) {
+      return 0;
+    }
+    int numMoved = 0;
+    for (int i = evalOperands.size() - 1; i > numMoved; i--) {
+      CompiledValue operand = (CompiledValue) evalOperands.get(i);
+      PlanInfo pi = operand.getPlanInfo(context);
+      if (pi.evalAsFilter && pi.indexes.size() == 1
+          && QueryCostModel.isIntersectionCheaper(bestFilterSize,
+              ((Filter) operand).getSizeEstimate(context),
+              ((IndexProtocol) pi.indexes.get(0)).getRegion().size())) {
+        evalOperands.remove(i);
+        evalOperands.add(1, operand);
+        numMoved++;
+        i++;
+      }
+    }
+    return numMoved;
+  }
+
   public int getSizeEstimate(ExecutionContext context) throws FunctionDomainException,
       TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
     return 1;
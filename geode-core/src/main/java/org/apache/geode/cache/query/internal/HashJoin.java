@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.LITERAL_and;
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.TOK_EQ;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.geode.cache.query.FunctionDomainException;
+import org.apache.geode.cache.query.NameResolutionException;
+import org.apache.geode.cache.query.QueryInvocationTargetException;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.pdx.internal.PdxString;
+
+/**
+ * Evaluates a query on two independent iterators whose where clause is, or is an AND of, an
+ * equality between an expression of one iterator and an expression of the other, such as
+ * <code>SELECT * FROM /orders o, /customers c WHERE o.custId = c.id</code>, when no index can be
+ * used for it.
+ *
+ * <p>
+ * The values of the smaller collection are hashed by their side of the equality and the other
+ * collection is iterated once, looking up the values with an equal key instead of iterating the
+ * whole smaller collection for each of its values. The where clause is still evaluated on each pair
+ * of values found this way, so the hashing only needs to never separate values that compare equal.
+ *
+ * <p>
+ * At most {@link #MAX_BUILD_SIZE} values are hashed at once. A larger collection is split by the
+ * hash codes of its keys and joined in several passes, each of them iterating both collections.
+ *
+ * @since Geode 1.1
+ */
+class HashJoin {
+
+  /**
+   * If false, the iterators of a join are always iterated in nested loops when no index can be
+   * used for it.
+   */
+  static final boolean HASH_JOIN_ENABLED =
+      !Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "Query.DISABLE_HASH_JOIN");
+
+  /** The maximum number of values hashed by a pass of a join; not final so tests can lower it */
+  static int MAX_BUILD_SIZE =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "Query.HASH_JOIN_MAX_BUILD_SIZE",
+          100000);
+
+  /**
+   * Receives the pairs of values of a join whose keys may be equal, once the iterators of the query
+   * have been set to them.
+   */
+  interface PairHandler {
+
+    /**
+     * Returns false if the join should stop, such as when the limit of the query is reached.
+     */
+    boolean handlePair() throws FunctionDomainException, TypeMismatchException,
+        NameResolutionException, QueryInvocationTargetException;
+  }
+
+  private final RuntimeIterator leftIterator;
+
+  private final CompiledValue leftKey;
+
+  private final RuntimeIterator rightIterator;
+
+  private final CompiledValue rightKey;
+
+  private HashJoin(RuntimeIterator leftIterator, CompiledValue leftKey,
+      RuntimeIterator rightIterator, CompiledValue rightKey) {
+    this.leftIterator = leftIterator;
+    this.leftKey = leftKey;
+    this.rightIterator = rightIterator;
+    this.rightKey = rightKey;
+  }
+
+  /**
+   * Returns the join to evaluate a where clause with, or null if the where clause does not join the
+   * two independent iterators of the current scope with an equality.
+   */
+  static HashJoin create(CompiledValue whereClause, ExecutionContext context) {
+    if (!HASH_JOIN_ENABLED) {
+      return null;
+    }
+    List iterators = context.getCurrentIterators();
+    if (iterators.size() != 2
+        || !context.getAllIndependentIteratorsOfCurrentScope().containsAll(iterators)) {
+      return null;
+    }
+    RuntimeIterator first = (RuntimeIterator) iterators.get(0);
+    RuntimeIterator second = (RuntimeIterator) iterators.get(1);
+    if (whereClause.getType() == CompiledValue.JUNCTION
+        && ((CompiledJunction) whereClause).getOperator() == LITERAL_and) {
+      for (Iterator itr = whereClause.getChildren().iterator(); itr.hasNext();) {
+        HashJoin join = create((CompiledValue) itr.next(), first, second, context);
+        if (join != null) {
+          return join;
+        }
+      }
+      return null;
+    }
+    return create(whereClause, first, second, context);
+  }
+
+  private static HashJoin create(CompiledValue condition, RuntimeIterator first,
+      RuntimeIterator second, ExecutionContext context) {
+    if (condition.getType() != CompiledValue.COMPARISON
+        || ((CompiledComparison) condition).getOperator() != TOK_EQ) {
+      return null;
+    }
+    List operands = condition.getChildren();
+    CompiledValue left = (CompiledValue) operands.get(0);
+    CompiledValue right = (CompiledValue) operands.get(1);
+    if (isOnlyDependentOn(left, first, second, context)
+        && isOnlyDependentOn(right, second, first, context)) {
+      return new HashJoin(first, left, second, right);
+    }
+    if (isOnlyDependentOn(left, second, first, context)
+        && isOnlyDependentOn(right, first, second, context)) {
+      return new HashJoin(first, right, second, left);
+    }
+    return null;
+  }
+
+  private static boolean isOnlyDependentOn(CompiledValue value, RuntimeIterator iterator,
+      RuntimeIterator other, ExecutionContext context) {
+    return context.isDependentOn(value, iterator) && !context.isDependentOn(value, other);
+  }
+
+  /**
+   * Iterates the pairs of values of the two iterators whose keys may be equal, and passes them to
+   * the handler. Nothing is passed if the collection of an iterator is UNDEFINED, as when
+   * iterating them in nested loops.
+   */
+  void evaluate(ExecutionContext context, PairHandler handler) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    SelectResults left = this.leftIterator.evaluateCollection(context);
+    if (left == null) {
+      return;
+    }
+    SelectResults right = this.rightIterator.evaluateCollection(context);
+    if (right == null) {
+      return;
+    }
+    if (left.size() <= right.size()) {
+      join(left, this.leftIterator, this.leftKey, right, this.rightIterator, this.rightKey, context,
+          handler);
+    } else {
+      join(right, this.rightIterator, this.rightKey, left, this.leftIterator, this.leftKey, context,
+          handler);
+    }
+  }
+
+  private static void join(SelectResults build, RuntimeIterator buildIterator,
+      CompiledValue buildKey, SelectResults probe, RuntimeIterator probeIterator,
+      CompiledValue probeKey, ExecutionContext context, PairHandler handler)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    int numPasses = Math.max(1, (build.size() + MAX_BUILD_SIZE - 1) / MAX_BUILD_SIZE);
+    // the values whose key cannot be hashed are paired with every value of the other side
+    List unhashedValues = new ArrayList();
+    for (int pass = 0; pass < numPasses; pass++) {
+      Map<Object, List> table = new HashMap<Object, List>();
+      List hashedValues = new ArrayList();
+      for (Iterator itr = build.iterator(); itr.hasNext();) {
+        QueryMonitor.isQueryExecutionCanceled();
+        Object value = itr.next();
+        buildIterator.setCurrent(value);
+        Object key = hashKey(buildKey.evaluate(context));
+        if (key == null) {
+          if (pass == 0) {
+            unhashedValues.add(value);
+          }
+        } else if (getPass(key, numPasses) == pass) {
+          List values = table.get(key);
+          if (values == null) {
+            values = new ArrayList(1);
+            table.put(key, values);
+          }
+          values.add(value);
+          hashedValues.add(value);
+        }
+      }
+      for (Iterator itr = probe.iterator(); itr.hasNext();) {
+        QueryMonitor.isQueryExecutionCanceled();
+        Object value = itr.next();
+        probeIterator.setCurrent(value);
+        QueryObserverHolder.getInstance().beforeIterationEvaluation(probeIterator, value);
+        Object key = hashKey(probeKey.evaluate(context));
+        List matches;
+        if (key == null) {
+          matches = hashedValues;
+        } else {
+          matches = table.get(key);
+        }
+        if (matches != null && !handlePairs(matches, buildIterator, handler)) {
+          return;
+        }
+        if (pass == 0 && !handlePairs(unhashedValues, buildIterator, handler)) {
+          return;
+        }
+      }
+    }
+  }
+
+  private static boolean handlePairs(List values, RuntimeIterator iterator, PairHandler handler)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    for (Iterator itr = values.iterator(); itr.hasNext();) {
+      Object value = itr.next();
+      iterator.setCurrent(value);
+      QueryObserverHolder.getInstance().beforeIterationEvaluation(iterator, value);
+      if (!handler.handlePair()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int getPass(Object key, int numPasses) {
+    return (key.hashCode() & 0x7fffffff) % numPasses;
+  }
+
+  /**
+   * Returns the key a value is hashed by, or null if values that compare equal to it cannot be
+   * found by hashing. Numbers of different types compare equal when their values are equal, so they
+   * are all hashed as doubles; two longs that map to the same double are only paired, not equal.
+   */
+  static Object hashKey(Object value) {
+    if (value instanceof String || value instanceof Boolean) {
+      return value;
+    }
+    if (value instanceof PdxString) {
+      return value.toString();
+    }
+    if (value instanceof Number) {
+      double d = ((Number) value).doubleValue();
+      // 0.0 and -0.0 compare equal but are not equal as Doubles
+      return d == 0 ? 0.0d : d;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the description of the join for {@link QueryExplanation}.
+   */
+  String describe(ExecutionContext context) {
+    return "Hash join of " + describe(this.leftIterator, context) + " with "
+        + describe(this.rightIterator, context);
+  }
+
+  private static String describe(RuntimeIterator iterator, ExecutionContext context) {
+    String regionPath = context.getRegionPathForIndependentRuntimeIterator(iterator);
+    return regionPath != null ? regionPath : iterator.getName();
+  }
+}
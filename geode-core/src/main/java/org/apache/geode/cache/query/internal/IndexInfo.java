@@ -36,14 +36,26 @@ public class IndexInfo {
 
   final int[] mapping;
 
+  /**
+   * The conditions an entry must satisfy when more than the condition on _path is answered by the
+   * index, as in a lookup of a composite index
+   */
+  final private CompiledValue _condition;
+
   IndexInfo(CompiledValue key, CompiledValue path, IndexProtocol index, int matchLevel,
       int mapping[], int op) {
+    this(key, path, index, matchLevel, mapping, op, null);
+  }
+
+  IndexInfo(CompiledValue key, CompiledValue path, IndexProtocol index, int matchLevel,
+      int mapping[], int op, CompiledValue condition) {
     _key = key;
     _path = path;
     _operator = op;
     _index = index;
     _matchLevel = matchLevel;
     this.mapping = mapping;
+    _condition = condition;
   }
 
   Object evaluateIndexKey(ExecutionContext context) throws FunctionDomainException,
@@ -70,6 +82,10 @@ public class IndexInfo {
     return this._operator;
   }
 
+  public CompiledValue _condition() {
+    return this._condition;
+  }
+
   public IndexProtocol _getIndex() {
     return _index;
   }
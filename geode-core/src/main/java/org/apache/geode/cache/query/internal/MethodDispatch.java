@@ -17,6 +17,9 @@ package org.apache.geode.cache.query.internal;
 
 
 import java.util.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 
 import org.apache.geode.cache.query.*;
@@ -35,6 +38,8 @@ public class MethodDispatch {
   private String _methodName;
   private Class[] _argTypes;
   private Method _method; // remember the right method
+  private AttributeAccessor _accessor; // calls a method with no parameters
+  private MethodHandle _invoker; // calls a method with parameters given in an Object[]
 
 
   public MethodDispatch(Class targetClass, String methodName, List argTypes)
@@ -47,29 +52,46 @@ public class MethodDispatch {
     // override security in case this is a method on a nonpublic class
     // with a public method
     _method.setAccessible(true);
+    if (_method.getParameterTypes().length == 0) {
+      _accessor = AttributeAccessor.create(targetClass, _method);
+    } else {
+      _invoker = createInvoker(_method);
+    }
   }
 
+  /**
+   * Returns a handle taking the target and an array of the arguments that converts the arguments
+   * like {@link Method#invoke} does.
+   */
+  private static MethodHandle createInvoker(Method method) {
+    MethodHandle handle;
+    try {
+      handle = MethodHandles.lookup().unreflect(method).asFixedArity();
+    } catch (IllegalAccessException e) {
+      // the method was made accessible
+      throw new IllegalStateException(e);
+    }
+    if (Modifier.isStatic(method.getModifiers())) {
+      handle = MethodHandles.dropArguments(handle, 0, Object.class);
+    }
+    int parameterCount = method.getParameterTypes().length;
+    return handle.asType(MethodType.genericMethodType(parameterCount + 1))
+        .asSpreader(Object[].class, parameterCount);
+  }
 
 
   public Object invoke(Object target, List args)
       throws NameNotFoundException, QueryInvocationTargetException {
-    Object[] argsArray = args.toArray();
-
-
     try {
-      return _method.invoke(target, argsArray);
-    } catch (IllegalAccessException e) {
-      throw new NameNotFoundException(
-          LocalizedStrings.MethodDispatch_METHOD_0_IN_CLASS_1_IS_NOT_ACCESSIBLE_TO_THE_QUERY_PROCESSOR
-              .toLocalizedString(new Object[] {_method.getName(), target.getClass().getName()}),
-          e);
-    } catch (InvocationTargetException e) {
-      // if targetException is Exception, wrap it, otherwise wrap the InvocationTargetException
-      // itself
-      Throwable t = e.getTargetException();
-      if (t instanceof Exception)
-        throw new QueryInvocationTargetException(t);
+      if (_accessor != null) {
+        return _accessor.read(target);
+      }
+      return (Object) _invoker.invokeExact(target, args.toArray());
+    } catch (Exception e) {
       throw new QueryInvocationTargetException(e);
+    } catch (Throwable t) {
+      // wrapped as the reflective call used to
+      throw new QueryInvocationTargetException(new InvocationTargetException(t));
     }
   }
 
@@ -59,16 +59,25 @@ public class PathUtils {
 
   public static Object evaluateAttribute(Object target, String attribute)
       throws NameNotFoundException, QueryInvocationTargetException {
+    return evaluateAttribute(target, new AttributeDescriptor(attribute));
+  }
+
+  /**
+   * Evaluates the attribute with a descriptor that may be reused for many targets, so that the
+   * descriptor remembers how to read the attribute from their class.
+   */
+  public static Object evaluateAttribute(Object target, AttributeDescriptor attribute)
+      throws NameNotFoundException, QueryInvocationTargetException {
     if (target instanceof Struct) {
       Struct struct = (Struct) target;
       try {
-        return struct.get(attribute);
+        return struct.get(attribute.getName());
       } catch (Exception e) {
-        throw new NameNotFoundException(attribute);
+        throw new NameNotFoundException(attribute.getName());
       }
     }
     try {
-      return new AttributeDescriptor(attribute).read(target);
+      return attribute.read(target);
     } catch (NameNotFoundException nfe) {
       if (DefaultQueryService.QUERY_HETEROGENEOUS_OBJECTS
           || DefaultQueryService.TEST_QUERY_HETEROGENEOUS_OBJECTS) {
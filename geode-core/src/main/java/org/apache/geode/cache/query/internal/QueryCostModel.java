@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+
+/**
+ * Compares the costs of the ways a condition can be evaluated: scanning the region, looking up an
+ * index, or looking up several indexes and intersecting their results. The costs are expressed in
+ * units of the work done to read a region entry and evaluate a condition on it, and are only
+ * meaningful relative to each other.
+ *
+ * <p>
+ * The row counts come from the size estimates of the filters, which use the histograms of the
+ * sorted indexes for range conditions.
+ *
+ * @since Geode 1.1
+ */
+public class QueryCostModel {
+
+  /**
+   * If false, the index of an AND junction is chosen by the type of its condition as before and the
+   * region is never scanned when an index can be used.
+   */
+  public static final boolean COST_BASED_INDEX_SELECTION = !Boolean
+      .getBoolean(DistributionConfig.GEMFIRE_PREFIX + "Query.DISABLE_COST_BASED_INDEX_SELECTION");
+
+  /** The cost of reading an entry of the region and evaluating a condition on it */
+  static final double SCAN_ROW_COST = getCost("SCAN_ROW_COST", 1.0);
+
+  /** The cost of fetching an entry found in an index and adding it to the results */
+  static final double INDEX_ROW_COST = getCost("INDEX_ROW_COST", 1.2);
+
+  /** The fixed cost of an index lookup */
+  static final double INDEX_LOOKUP_COST = getCost("INDEX_LOOKUP_COST", 10.0);
+
+  /**
+   * The cost of evaluating a condition on a result of an index lookup, which binds the iterators of
+   * the query to the result before evaluating the condition
+   */
+  static final double CONDITION_ROW_COST = getCost("CONDITION_ROW_COST", 2.0);
+
+  /** The cost of adding a result to an intersection or looking it up in it */
+  static final double INTERSECTION_ROW_COST = getCost("INTERSECTION_ROW_COST", 0.25);
+
+  /**
+   * The size under which a region is never scanned when an index can be used, as the difference
+   * between the costs does not matter.
+   */
+  static final int MIN_REGION_SIZE_FOR_SCAN = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "Query.MIN_REGION_SIZE_FOR_SCAN", 1000);
+
+  private static double getCost(String name, double defaultCost) {
+    return Double.parseDouble(System.getProperty(
+        DistributionConfig.GEMFIRE_PREFIX + "Query." + name, String.valueOf(defaultCost)));
+  }
+
+  private QueryCostModel() {
+    // no instances allowed
+  }
+
+  /**
+   * Returns the cost of looking up an index that returns the given number of rows.
+   */
+  static double indexCost(int rows) {
+    return INDEX_LOOKUP_COST + (double) rows * INDEX_ROW_COST;
+  }
+
+  /**
+   * Returns the cost of evaluating a condition on each entry of a region of the given size.
+   */
+  static double scanCost(int regionSize) {
+    return (double) regionSize * SCAN_ROW_COST;
+  }
+
+  /**
+   * Returns true if scanning a region is cheaper than looking up an index that is estimated to
+   * return the given number of its entries.
+   */
+  static boolean isScanCheaper(int estimatedRows, int regionSize) {
+    return COST_BASED_INDEX_SELECTION && regionSize >= MIN_REGION_SIZE_FOR_SCAN
+        && estimatedRows != Integer.MAX_VALUE && scanCost(regionSize) < indexCost(estimatedRows);
+  }
+
+  /**
+   * Returns true if the results of an index lookup should be intersected with those of another
+   * index rather than having the condition of the other index evaluated on each of them.
+   *
+   * The other index must also be selective enough for the intersection to remove at least half
+   * of the results, as the results of its lookup are held in memory for the intersection.
+   *
+   * @param rows the estimated number of results of the first index lookup
+   * @param otherRows the estimated number of results of the other index lookup
+   * @param regionSize the number of entries of the region of the other index
+   */
+  static boolean isIntersectionCheaper(int rows, int otherRows, int regionSize) {
+    if (!COST_BASED_INDEX_SELECTION || rows <= CompiledValue.indexThresholdSize
+        || rows == Integer.MAX_VALUE || otherRows == Integer.MAX_VALUE
+        || (long) otherRows * 2 > regionSize) {
+      return false;
+    }
+    double intersectionCost =
+        indexCost(otherRows) + ((double) rows + otherRows) * INTERSECTION_ROW_COST;
+    return intersectionCost < (double) rows * CONDITION_ROW_COST;
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.geode.cache.query.FunctionDomainException;
+import org.apache.geode.cache.query.NameResolutionException;
+import org.apache.geode.cache.query.QueryInvocationTargetException;
+import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.cache.query.internal.index.IndexProtocol;
+
+/**
+ * The plan chosen for a query by {@link DefaultQuery#explain(Object[])}, as the steps that were
+ * executed with the number of rows each of them was estimated to return and actually returned.
+ *
+ * <p>
+ * The steps of a query on a partitioned region are executed on the buckets, possibly by other
+ * threads and members, and are not recorded; only the query as a whole is.
+ *
+ * @since Geode 1.1
+ */
+public class QueryExplanation {
+
+  /** The number of rows of a step that was not estimated */
+  public static final int UNKNOWN = -1;
+
+  private final String queryString;
+
+  private final List<Step> steps = new ArrayList<Step>();
+
+  QueryExplanation(String queryString) {
+    this.queryString = queryString;
+  }
+
+  public String getQueryString() {
+    return this.queryString;
+  }
+
+  /**
+   * Returns the steps in the order they were executed.
+   */
+  public synchronized List<Step> getSteps() {
+    return Collections.unmodifiableList(new ArrayList<Step>(this.steps));
+  }
+
+  synchronized void addStep(String description, int estimatedRows, int actualRows) {
+    this.steps.add(new Step(description, estimatedRows, actualRows));
+  }
+
+  /**
+   * Returns the description of the lookup of the index a filter is evaluated with.
+   */
+  static String describeIndexLookup(Filter filter, ExecutionContext context)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    List indexes = ((CompiledValue) filter).getPlanInfo(context).indexes;
+    if (indexes.isEmpty()) {
+      return "Filter evaluation";
+    }
+    IndexProtocol index = (IndexProtocol) indexes.get(0);
+    return "Lookup of index " + index.getName() + " on "
+        + index.getCanonicalizedIndexedExpression();
+  }
+
+  @Override
+  public synchronized String toString() {
+    StringBuilder sb = new StringBuilder(this.queryString);
+    for (Step step : this.steps) {
+      sb.append(System.lineSeparator()).append("  ").append(step);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * A step of the execution of a query: a scan, an index lookup or an intersection.
+   */
+  public static class Step {
+
+    private final String description;
+
+    private final int estimatedRows;
+
+    private final int actualRows;
+
+    Step(String description, int estimatedRows, int actualRows) {
+      this.description = description;
+      this.estimatedRows = estimatedRows;
+      this.actualRows = actualRows;
+    }
+
+    public String getDescription() {
+      return this.description;
+    }
+
+    /**
+     * Returns the number of rows the step was estimated to return, or {@link #UNKNOWN}.
+     */
+    public int getEstimatedRows() {
+      return this.estimatedRows;
+    }
+
+    /**
+     * Returns the number of rows the step returned, or {@link #UNKNOWN}.
+     */
+    public int getActualRows() {
+      return this.actualRows;
+    }
+
+    @Override
+    public String toString() {
+      return this.description + " (estimated rows: "
+          + (this.estimatedRows == UNKNOWN ? "?" : String.valueOf(this.estimatedRows))
+          + ", actual rows: "
+          + (this.actualRows == UNKNOWN ? "?" : String.valueOf(this.actualRows)) + ")";
+    }
+  }
+}
@@ -34,6 +34,7 @@ import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.cache.query.Struct;
 import org.apache.geode.cache.query.TypeMismatchException;
 import org.apache.geode.internal.i18n.LocalizedStrings;
+import org.apache.geode.cache.query.internal.index.IndexProtocol;
 import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
 import org.apache.geode.cache.query.internal.types.StructTypeImpl;
 import org.apache.geode.cache.query.internal.types.TypeUtils;
@@ -517,9 +518,51 @@ public class RangeJunction extends AbstractGroupOrRangeJunction {
     Support.assertionFailed("Should not have come here");
   }
 
-  public int getSizeEstimate(ExecutionContext context) {
-    // TODO:Asif:Try to estimate better
-    return RANGE_SIZE_ESTIMATE;
+  /**
+   * All the conditions of the junction are on the same index, so the junction selects no more than
+   * its most selective condition, and a lower and an upper bound select the values they have in
+   * common. The indexes chosen by hints are not estimated, as their estimates are their priorities.
+   */
+  public int getSizeEstimate(ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    if (!QueryCostModel.COST_BASED_INDEX_SELECTION || (context instanceof QueryExecutionContext
+        && ((QueryExecutionContext) context).hasHints())) {
+      return RANGE_SIZE_ESTIMATE;
+    }
+    long lowest = Integer.MAX_VALUE;
+    long lowerBound = -1;
+    long upperBound = -1;
+    IndexProtocol index = null;
+    for (CompiledValue operand : this._operands) {
+      int estimate = ((Filter) operand).getSizeEstimate(context);
+      lowest = Math.min(lowest, estimate);
+      if (!(operand instanceof CompiledComparison) || estimate == Integer.MAX_VALUE) {
+        continue;
+      }
+      CompiledComparison comparison = (CompiledComparison) operand;
+      IndexInfo[] indexInfo = comparison.getIndexInfo(context);
+      if (indexInfo == null) {
+        continue;
+      }
+      index = indexInfo[0]._index;
+      switch (comparison.reflectOnOperator(indexInfo[0]._key())) {
+        case TOK_GT:
+        case TOK_GE:
+          lowerBound = lowerBound < 0 ? estimate : Math.min(lowerBound, estimate);
+          break;
+        case TOK_LT:
+        case TOK_LE:
+          upperBound = upperBound < 0 ? estimate : Math.min(upperBound, estimate);
+          break;
+        default:
+          break;
+      }
+    }
+    if (lowerBound >= 0 && upperBound >= 0 && index != null) {
+      long total = index.getStatistics().getNumberOfValues();
+      lowest = Math.min(lowest, Math.max(0, lowerBound + upperBound - total));
+    }
+    return (int) lowest;
   }
 
   /*
@@ -37,6 +37,9 @@ public final class SortedResultSet extends TreeSet
 
   private ObjectType elementType;
 
+  /** the number of elements this set is bounded to, or 0 if it is not bounded */
+  private transient int maximumSize;
+
   public SortedResultSet() {}
 
   SortedResultSet(Collection c) {
@@ -57,6 +60,32 @@ public final class SortedResultSet extends TreeSet
     super(c);
   }
 
+
+  /**
+   * Bounds this set to the first <code>maximumSize</code> elements of its ordering, for a DISTINCT
+   * query with both ORDER BY and LIMIT. Once the set is full, adding an element drops the one that
+   * sorts last.
+   */
+  void setMaximumSize(int maximumSize) {
+    if (comparator() == null) {
+      throw new IllegalStateException("The set is not sorted by a comparator");
+    }
+    this.maximumSize = maximumSize;
+  }
+
+  @Override
+  public boolean add(Object element) {
+    if (this.maximumSize > 0 && size() >= this.maximumSize
+        && comparator().compare(element, last()) >= 0) {
+      return false;
+    }
+    boolean added = super.add(element);
+    if (this.maximumSize > 0 && size() > this.maximumSize) {
+      pollLast();
+    }
+    return added;
+  }
+
   @Override
   public boolean equals(Object other) {
     if (!(other instanceof SortedResultSet)) {
@@ -41,6 +41,9 @@ public class SortedResultsBag<E> extends Bag implements Ordered {
   private final boolean orderedDataAddition;
   private final boolean emitNullAtStart;
 
+  /** the number of elements this bag is bounded to, or 0 if it is not bounded */
+  private int maximumSize;
+
   /**
    * Constructor for unordered input
    * 
@@ -150,6 +153,75 @@ public class SortedResultsBag<E> extends Bag implements Ordered {
     return false;
   }
 
+  /**
+   * Bounds this bag to the first <code>maximumSize</code> elements of its ordering, for a query with
+   * both ORDER BY and LIMIT. Once the bag is full, an element that sorts after the last one is not
+   * added and adding any other element drops the last one, so that the query never holds more than
+   * <code>maximumSize</code> rows while sorting. Only supported for unordered input.
+   */
+  void setMaximumSize(int maximumSize) {
+    if (this.orderedDataAddition) {
+      throw new IllegalStateException("The bag is not sorted by a comparator");
+    }
+    this.maximumSize = maximumSize;
+  }
+
+  @Override
+  public boolean add(Object element) {
+    if (sortsAfterLast(element)) {
+      return false;
+    }
+    super.add(element);
+    dropLastIfFull();
+    return true;
+  }
+
+  @Override
+  public int addAndGetOccurence(Object element) {
+    if (sortsAfterLast(element)) {
+      return 0;
+    }
+    int occurence = super.addAndGetOccurence(element);
+    dropLastIfFull();
+    return occurence;
+  }
+
+  /**
+   * Returns true if this bag is full and the element does not sort before its last element.
+   */
+  private boolean sortsAfterLast(Object element) {
+    if (this.maximumSize <= 0 || this.size < this.maximumSize) {
+      return false;
+    }
+    boolean lastIsNull = this.sortedMap.isEmpty() || (!this.emitNullAtStart && this.numNulls > 0);
+    if (element == null) {
+      // nulls are equal to each other and sort either first or last
+      return lastIsNull || !this.emitNullAtStart;
+    }
+    if (lastIsNull) {
+      return this.emitNullAtStart;
+    }
+    TreeMap<E, Integer> treeMap = (TreeMap<E, Integer>) this.sortedMap;
+    return treeMap.comparator().compare((E) element, treeMap.lastKey()) >= 0;
+  }
+
+  private void dropLastIfFull() {
+    if (this.maximumSize <= 0 || this.size <= this.maximumSize) {
+      return;
+    }
+    if (this.sortedMap.isEmpty() || (!this.emitNullAtStart && this.numNulls > 0)) {
+      this.numNulls--;
+    } else {
+      Map.Entry<E, Integer> last = ((TreeMap<E, Integer>) this.sortedMap).lastEntry();
+      if (last.getValue() == 1) {
+        this.sortedMap.remove(last.getKey());
+      } else {
+        this.sortedMap.put(last.getKey(), last.getValue() - 1);
+      }
+    }
+    this.size--;
+  }
+
   @Override
   protected int mapGet(Object element) {
     Integer count = this.sortedMap.get(element);
@@ -42,6 +42,9 @@ public final class SortedStructSet extends TreeSet
    */
   private boolean modifiable = true;
 
+  /** the number of elements this set is bounded to, or 0 if it is not bounded */
+  private transient int maximumSize;
+
   /** Creates a new instance of StructSet */
   public SortedStructSet() {};
 
@@ -101,7 +104,27 @@ public final class SortedStructSet extends TreeSet
    * For internal use. Just add the Object[] values for a struct with same type
    */
   public boolean addFieldValues(Object[] fieldValues) {
-    return super.add(fieldValues);
+    if (this.maximumSize > 0 && size() >= this.maximumSize
+        && comparator().compare(fieldValues, last()) >= 0) {
+      return false;
+    }
+    boolean added = super.add(fieldValues);
+    if (this.maximumSize > 0 && size() > this.maximumSize) {
+      pollLast();
+    }
+    return added;
+  }
+
+  /**
+   * Bounds this set to the first <code>maximumSize</code> elements of its ordering, for a DISTINCT
+   * query with both ORDER BY and LIMIT. Once the set is full, adding an element drops the one that
+   * sorts last.
+   */
+  void setMaximumSize(int maximumSize) {
+    if (comparator() == null) {
+      throw new IllegalStateException("The set is not sorted by a comparator");
+    }
+    this.maximumSize = maximumSize;
   }
 
   /**
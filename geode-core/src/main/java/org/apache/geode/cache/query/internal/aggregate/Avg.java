@@ -32,6 +32,12 @@ public class Avg extends Sum {
     }
   }
 
+  @Override
+  public void accumulateNumber(double value) {
+    super.accumulateNumber(value);
+    ++num;
+  }
+
   @Override
   public void init() {
 
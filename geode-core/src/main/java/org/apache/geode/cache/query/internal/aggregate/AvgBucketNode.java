@@ -34,6 +34,12 @@ public class AvgBucketNode extends Sum {
     }
   }
 
+  @Override
+  public void accumulateNumber(double value) {
+    super.accumulateNumber(value);
+    ++count;
+  }
+
   /**
    * Returns a two element array of the total number of values & the computed sum of the values.
    */
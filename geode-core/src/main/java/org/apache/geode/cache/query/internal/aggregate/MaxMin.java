@@ -31,6 +31,10 @@ public class MaxMin implements Aggregator {
     this.findMax = findMax;
   }
 
+  public boolean isFindMax() {
+    return this.findMax;
+  }
+
   @Override
   public void accumulate(Object value) {
     if (value == null || value == QueryService.UNDEFINED) {
@@ -33,6 +33,13 @@ public class Sum extends AbstractAggregator {
     }
   }
 
+  /**
+   * Adds a number without boxing it.
+   */
+  public void accumulateNumber(double value) {
+    result += value;
+  }
+
   @Override
   public void init() {
 
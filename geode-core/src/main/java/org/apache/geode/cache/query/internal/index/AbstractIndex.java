@@ -24,6 +24,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.logging.log4j.Logger;
@@ -41,6 +42,7 @@ import org.apache.geode.cache.query.SelectResults;
 import org.apache.geode.cache.query.Struct;
 import org.apache.geode.cache.query.TypeMismatchException;
 import org.apache.geode.cache.query.internal.Bag;
+import org.apache.geode.cache.query.internal.CompiledCompositeIndexKey;
 import org.apache.geode.cache.query.internal.CompiledID;
 import org.apache.geode.cache.query.internal.CompiledIndexOperation;
 import org.apache.geode.cache.query.internal.CompiledIteratorDef;
@@ -137,6 +139,11 @@ public abstract class AbstractIndex implements IndexProtocol {
   // Flag to indicate if the index is populated with data
   protected volatile boolean isPopulated = false;
 
+  /** The histogram of the keys, built when a size estimate first needs it */
+  private volatile IndexHistogram histogram;
+
+  private final ReentrantLock histogramLock = new ReentrantLock();
+
   AbstractIndex(String indexName, Region region, String fromClause, String indexedExpression,
       String projectionAttributes, String origFromClause, String origIndxExpr, String[] defintions,
       IndexStatistics stats) {
@@ -196,6 +203,18 @@ public abstract class AbstractIndex implements IndexProtocol {
     this.internalIndexStats.incUpdateTime(end - start);
   }
 
+  void incAsyncUpdateQueueSize(long delta) {
+    this.internalIndexStats.incAsyncUpdateQueueSize(delta);
+  }
+
+  void updateAsyncUpdateStats(long numApplied, long lag, long numCoalesced) {
+    this.internalIndexStats.incAsyncUpdateQueueSize(-numApplied);
+    this.internalIndexStats.setAsyncUpdateLag(lag);
+    if (numCoalesced > 0) {
+      this.internalIndexStats.incAsyncUpdatesCoalesced(numCoalesced);
+    }
+  }
+
   long updateIndexUseStats() {
     return updateIndexUseStats(true);
   }
@@ -222,6 +241,65 @@ public abstract class AbstractIndex implements IndexProtocol {
     }
   }
 
+  /**
+   * Returns the histogram of the keys of this index, building it if there is none yet or if the
+   * index has been updated enough since it was built. While a thread builds a new histogram the
+   * other threads keep using the previous one.
+   *
+   * @return the histogram, or null if the keys of this index are not sorted
+   */
+  IndexHistogram getHistogram() {
+    IndexHistogram current = this.histogram;
+    long numUpdates = this.internalIndexStats.getNumUpdates();
+    if (current != null && !current.isStale(numUpdates)) {
+      return current;
+    }
+    if (current == null) {
+      this.histogramLock.lock();
+    } else if (!this.histogramLock.tryLock()) {
+      return current;
+    }
+    try {
+      current = this.histogram;
+      if (current == null || current.isStale(numUpdates)) {
+        IndexHistogram built =
+            new IndexHistogram(this.internalIndexStats.getNumberOfValues(), numUpdates);
+        if (addKeysToHistogram(built)) {
+          current = built.done();
+          this.histogram = current;
+        }
+      }
+      return current;
+    } finally {
+      this.histogramLock.unlock();
+    }
+  }
+
+  /**
+   * Adds the keys of this index to the histogram in ascending order, along with their number of
+   * values.
+   *
+   * @return false if the keys of this index are not sorted
+   */
+  boolean addKeysToHistogram(IndexHistogram histogram) {
+    return false;
+  }
+
+  /**
+   * Estimates the number of values selected by a range condition from the histogram of the keys.
+   *
+   * @return the estimate, or -1 if there is no histogram or the key cannot be compared with the
+   *         keys of this index
+   */
+  int estimateFromHistogram(Object key, int operator) throws TypeMismatchException {
+    IndexHistogram histogram = getHistogram();
+    if (histogram == null || key == null || key == QueryService.UNDEFINED) {
+      return -1;
+    }
+    key = getPdxStringForIndexedPdxKeys(TypeUtils.indexKeyFor(key));
+    return histogram.estimate(key, operator);
+  }
+
   public IndexedExpressionEvaluator getEvaluator() {
     return evaluator;
   }
@@ -500,9 +578,27 @@ public abstract class AbstractIndex implements IndexProtocol {
   public boolean isMatchingWithIndexExpression(CompiledValue indexExpr, String conditionExprStr,
       ExecutionContext context)
       throws AmbiguousNameException, TypeMismatchException, NameResolutionException {
+    if (indexExpr instanceof CompiledCompositeIndexKey) {
+      // a composite index is usable when its first component is one of the conditioned paths
+      String[] indexedComponents = getCanonicalizedIndexedComponents();
+      if (indexedComponents == null) {
+        return false;
+      }
+      String[] conditionedComponents =
+          ((CompiledCompositeIndexKey) indexExpr).getCanonicalizedComponents(context);
+      return Arrays.asList(conditionedComponents).contains(indexedComponents[0]);
+    }
     return this.indexedExpression.equals(conditionExprStr);
   }
 
+  /**
+   * Get the canonicalized expressions of the components of a composite index, or null if this is
+   * not a composite index.
+   */
+  public String[] getCanonicalizedIndexedComponents() {
+    return null;
+  }
+
   private Object verifyAndGetPdxDomainObject(Object value) {
     if (value instanceof StructImpl) {
       // Doing hasPdx check first, since its cheaper.
@@ -884,6 +980,24 @@ public abstract class AbstractIndex implements IndexProtocol {
     public void incReadLockCount(int delta) {}
 
     public void incNumBucketIndexes(int delta) {}
+
+    public void incAsyncUpdateQueueSize(long delta) {}
+
+    public void setAsyncUpdateLag(long millis) {}
+
+    public void incAsyncUpdatesCoalesced(long delta) {}
+
+    public long getAsyncUpdateQueueSize() {
+      return 0L;
+    }
+
+    public long getAsyncUpdateLag() {
+      return 0L;
+    }
+
+    public long getAsyncUpdatesCoalesced() {
+      return 0L;
+    }
   }
 
   /**
@@ -146,6 +146,30 @@ public abstract class AbstractMapIndex extends AbstractIndex {
       this.vsdStats.incReadLockCount(delta);
     }
 
+    public void incAsyncUpdateQueueSize(long delta) {
+      this.vsdStats.incAsyncUpdateQueueSize(delta);
+    }
+
+    public void setAsyncUpdateLag(long millis) {
+      this.vsdStats.setAsyncUpdateLag(millis);
+    }
+
+    public void incAsyncUpdatesCoalesced(long delta) {
+      this.vsdStats.incAsyncUpdatesCoalesced(delta);
+    }
+
+    public long getAsyncUpdateQueueSize() {
+      return this.vsdStats.getAsyncUpdateQueueSize();
+    }
+
+    public long getAsyncUpdateLag() {
+      return this.vsdStats.getAsyncUpdateLag();
+    }
+
+    public long getAsyncUpdatesCoalesced() {
+      return this.vsdStats.getAsyncUpdatesCoalesced();
+    }
+
     /**
      * Returns the total amount of time (in nanoseconds) spent updating this index.
      */
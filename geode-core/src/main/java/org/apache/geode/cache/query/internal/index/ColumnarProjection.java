@@ -0,0 +1,431 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.geode.cache.EntryDestroyedException;
+import org.apache.geode.cache.query.NameNotFoundException;
+import org.apache.geode.cache.query.QueryInvocationTargetException;
+import org.apache.geode.cache.query.internal.DefaultQuery;
+import org.apache.geode.cache.query.internal.PathUtils;
+import org.apache.geode.internal.cache.CachedDeserializable;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.RegionEntry;
+import org.apache.geode.internal.cache.Token;
+import org.apache.geode.internal.offheap.StoredObject;
+import org.apache.geode.internal.offheap.annotations.Released;
+import org.apache.geode.internal.offheap.annotations.Retained;
+import org.apache.geode.pdx.PdxInstance;
+import org.apache.geode.pdx.internal.PdxString;
+
+/**
+ * A copy of some fields of the values of a region, kept column by column so that aggregate queries
+ * can scan them without deserializing each value. Numbers that a double holds exactly are stored in
+ * a primitive array; other field values are stored as objects.
+ * <p>
+ * The projection is maintained by the region's {@link IndexManager} along with its indexes. Each
+ * valid entry of the region has a row. A field that the query engine could not read from a value,
+ * or whose value is itself a {@link PdxInstance}, is recorded as unresolved and queries using that
+ * column fall back to evaluating each value.
+ *
+ * @since Geode 1.1
+ */
+public class ColumnarProjection {
+
+  /** The row is not in use */
+  public static final byte ABSENT = 0;
+  public static final byte BYTE = 1;
+  public static final byte SHORT = 2;
+  public static final byte INT = 3;
+  public static final byte LONG = 4;
+  public static final byte FLOAT = 5;
+  public static final byte DOUBLE = 6;
+  /** The field value is kept as an object */
+  public static final byte OBJECT = 7;
+  /** The field value could not be stored */
+  public static final byte UNRESOLVED = 8;
+
+  /** Longs beyond this magnitude may not be exact as a double */
+  private static final long MAX_EXACT_LONG = 1L << 53;
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final LocalRegion region;
+  private final Column[] columns;
+  private final Map<RegionEntry, Integer> rows = new IdentityHashMap<RegionEntry, Integer>();
+  private final BitSet liveRows = new BitSet();
+  private int[] freeRows = new int[INITIAL_CAPACITY];
+  private int freeRowCount;
+  private int rowLimit;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  ColumnarProjection(LocalRegion region, String[] fieldNames) {
+    this.region = region;
+    this.columns = new Column[fieldNames.length];
+    for (int i = 0; i < fieldNames.length; i++) {
+      this.columns[i] = new Column(fieldNames[i]);
+    }
+  }
+
+  public LocalRegion getRegion() {
+    return this.region;
+  }
+
+  /**
+   * Returns the lock a reader must hold while it reads the columns.
+   */
+  public Lock getReadLock() {
+    return this.lock.readLock();
+  }
+
+  /**
+   * Returns the column of the given field or null if it is not projected.
+   */
+  public Column getColumn(String fieldName) {
+    for (Column column : this.columns) {
+      if (column.fieldName.equals(fieldName)) {
+        return column;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns true if every one of the given fields is projected.
+   */
+  public boolean containsFields(Collection<String> fieldNames) {
+    for (String fieldName : fieldNames) {
+      if (getColumn(fieldName) == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns a new set of the rows in use. The caller must hold the read lock.
+   */
+  public BitSet copyLiveRows() {
+    return (BitSet) this.liveRows.clone();
+  }
+
+  public int size() {
+    this.lock.readLock().lock();
+    try {
+      return this.rows.size();
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Adds the rows of all the valid entries of the region.
+   */
+  void populate() {
+    DefaultQuery.setPdxReadSerialized(this.region.getCache(), true);
+    try {
+      Iterator entryIter = this.region.getBestIterator(true);
+      while (entryIter.hasNext()) {
+        RegionEntry entry = (RegionEntry) entryIter.next();
+        if (entry == null || entry.isInvalidOrRemoved()) {
+          continue;
+        }
+        synchronized (entry) {
+          update(entry);
+        }
+      }
+    } finally {
+      DefaultQuery.setPdxReadSerialized(this.region.getCache(), false);
+    }
+  }
+
+  /**
+   * Drops all rows and adds those of the region's current entries. Used when the region is
+   * cleared.
+   */
+  void recreate() {
+    this.lock.writeLock().lock();
+    try {
+      this.rows.clear();
+      this.liveRows.clear();
+      this.freeRowCount = 0;
+      for (Column column : this.columns) {
+        column.clear(this.rowLimit);
+      }
+      this.rowLimit = 0;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+    populate();
+  }
+
+  /**
+   * Stores the fields of the entry's current value, or removes its row if the entry no longer has
+   * a valid value. The caller must hold the entry's sync.
+   */
+  void update(RegionEntry entry) {
+    Object value = getValue(entry);
+    if (value == null) {
+      remove(entry);
+      return;
+    }
+    Object[] fieldValues = new Object[this.columns.length];
+    for (int i = 0; i < this.columns.length; i++) {
+      fieldValues[i] = readField(value, this.columns[i].fieldName);
+    }
+    this.lock.writeLock().lock();
+    try {
+      Integer row = this.rows.get(entry);
+      int r;
+      if (row != null) {
+        r = row.intValue();
+      } else {
+        r = allocateRow();
+        this.rows.put(entry, r);
+        this.liveRows.set(r);
+      }
+      for (int i = 0; i < this.columns.length; i++) {
+        this.columns[i].set(r, fieldValues[i]);
+      }
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  void remove(RegionEntry entry) {
+    this.lock.writeLock().lock();
+    try {
+      Integer row = this.rows.remove(entry);
+      if (row == null) {
+        return;
+      }
+      int r = row.intValue();
+      this.liveRows.clear(r);
+      for (Column column : this.columns) {
+        column.clearRow(r);
+      }
+      if (this.freeRowCount == this.freeRows.length) {
+        this.freeRows = Arrays.copyOf(this.freeRows, this.freeRows.length * 2);
+      }
+      this.freeRows[this.freeRowCount++] = r;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  private int allocateRow() {
+    if (this.freeRowCount > 0) {
+      return this.freeRows[--this.freeRowCount];
+    }
+    int result = this.rowLimit++;
+    for (Column column : this.columns) {
+      column.ensureCapacity(this.rowLimit);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the deserialized value of the entry, or null if it does not have a valid one.
+   */
+  private Object getValue(RegionEntry entry) {
+    Object value;
+    try {
+      value = entry.getValueOffHeapOrDiskWithoutFaultIn(this.region);
+    } catch (EntryDestroyedException ignore) {
+      return null;
+    }
+    if (value == null || value instanceof Token) {
+      return null;
+    }
+    if (value instanceof StoredObject) {
+      @Retained
+      @Released
+      StoredObject ohval = (StoredObject) value;
+      try {
+        value = ohval.getDeserializedValue(this.region, entry);
+      } finally {
+        ohval.release();
+      }
+    } else if (value instanceof CachedDeserializable) {
+      value = ((CachedDeserializable) value).getDeserializedValue(this.region, entry);
+    }
+    return value;
+  }
+
+  private static Object readField(Object value, String fieldName) {
+    Object result;
+    try {
+      result = PathUtils.evaluateAttribute(value, fieldName);
+    } catch (NameNotFoundException | QueryInvocationTargetException ignore) {
+      return Unresolved.INSTANCE;
+    }
+    if (result instanceof PdxString) {
+      result = result.toString();
+    } else if (result instanceof PdxInstance) {
+      result = Unresolved.INSTANCE;
+    }
+    return result;
+  }
+
+  private enum Unresolved {
+    INSTANCE
+  }
+
+  /**
+   * The values of one field in each row of the projection.
+   */
+  public static class Column {
+    private final String fieldName;
+    private byte[] kinds = new byte[0];
+    private double[] numbers = new double[0];
+    private Object[] objects;
+    private int unresolvedCount;
+
+    Column(String fieldName) {
+      this.fieldName = fieldName;
+    }
+
+    public String getFieldName() {
+      return this.fieldName;
+    }
+
+    /**
+     * Returns true if every row in use has a value the query engine could read.
+     */
+    public boolean isResolved() {
+      return this.unresolvedCount == 0;
+    }
+
+    public byte getKind(int row) {
+      return this.kinds[row];
+    }
+
+    /**
+     * Returns true if the row's value is a number kept in the primitive array.
+     */
+    public boolean isNumber(int row) {
+      byte kind = this.kinds[row];
+      return kind >= BYTE && kind <= DOUBLE;
+    }
+
+    public double getNumber(int row) {
+      return this.numbers[row];
+    }
+
+    /**
+     * Returns the row's value as the query engine would have read it from the entry's value.
+     */
+    public Object getValue(int row) {
+      double d = this.numbers[row];
+      switch (this.kinds[row]) {
+        case BYTE:
+          return Byte.valueOf((byte) d);
+        case SHORT:
+          return Short.valueOf((short) d);
+        case INT:
+          return Integer.valueOf((int) d);
+        case LONG:
+          return Long.valueOf((long) d);
+        case FLOAT:
+          return Float.valueOf((float) d);
+        case DOUBLE:
+          return Double.valueOf(d);
+        case OBJECT:
+          return this.objects[row];
+        default:
+          return null;
+      }
+    }
+
+    void ensureCapacity(int rowCount) {
+      if (rowCount > this.kinds.length) {
+        int newLength = Math.max(INITIAL_CAPACITY, this.kinds.length * 2);
+        this.kinds = Arrays.copyOf(this.kinds, newLength);
+        this.numbers = Arrays.copyOf(this.numbers, newLength);
+        if (this.objects != null) {
+          this.objects = Arrays.copyOf(this.objects, newLength);
+        }
+      }
+    }
+
+    void clear(int rowCount) {
+      Arrays.fill(this.kinds, 0, rowCount, ABSENT);
+      if (this.objects != null) {
+        Arrays.fill(this.objects, 0, rowCount, null);
+      }
+      this.unresolvedCount = 0;
+    }
+
+    void clearRow(int row) {
+      if (this.kinds[row] == UNRESOLVED) {
+        this.unresolvedCount--;
+      }
+      if (this.objects != null) {
+        this.objects[row] = null;
+      }
+      this.kinds[row] = ABSENT;
+    }
+
+    void set(int row, Object value) {
+      clearRow(row);
+      byte kind = kindOf(value);
+      this.kinds[row] = kind;
+      if (kind == OBJECT) {
+        if (this.objects == null) {
+          this.objects = new Object[this.kinds.length];
+        }
+        this.objects[row] = value;
+      } else if (kind == UNRESOLVED) {
+        this.unresolvedCount++;
+      } else {
+        this.numbers[row] = ((Number) value).doubleValue();
+      }
+    }
+
+    private static byte kindOf(Object value) {
+      if (value == Unresolved.INSTANCE) {
+        return UNRESOLVED;
+      }
+      if (value instanceof Integer) {
+        return INT;
+      }
+      if (value instanceof Double) {
+        return DOUBLE;
+      }
+      if (value instanceof Long) {
+        long l = ((Long) value).longValue();
+        return l <= MAX_EXACT_LONG && l >= -MAX_EXACT_LONG ? LONG : OBJECT;
+      }
+      if (value instanceof Float) {
+        return FLOAT;
+      }
+      if (value instanceof Short) {
+        return SHORT;
+      }
+      if (value instanceof Byte) {
+        return BYTE;
+      }
+      return OBJECT;
+    }
+  }
+}
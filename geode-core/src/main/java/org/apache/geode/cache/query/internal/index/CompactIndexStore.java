@@ -0,0 +1,680 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.geode.cache.EntryDestroyedException;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionAttributes;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.TypeMismatchException;
+import org.apache.geode.cache.query.internal.CompiledComparison;
+import org.apache.geode.cache.query.internal.NullToken;
+import org.apache.geode.cache.query.internal.Undefined;
+import org.apache.geode.cache.query.internal.index.AbstractIndex.InternalIndexStatistics;
+import org.apache.geode.cache.query.internal.index.CompactSortedMap.Cursor;
+import org.apache.geode.cache.query.internal.index.CompactSortedMap.KeyType;
+import org.apache.geode.cache.query.internal.index.MemoryIndexStore.CachedEntryWrapper;
+import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
+import org.apache.geode.cache.query.internal.types.TypeUtils;
+import org.apache.geode.internal.cache.CachedDeserializable;
+import org.apache.geode.internal.cache.GemFireCacheImpl;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.RegionEntry;
+import org.apache.geode.internal.cache.Token;
+import org.apache.geode.internal.cache.persistence.query.CloseableIterator;
+
+/**
+ * An in-memory index storage that keeps its keys in a {@link CompactSortedMap} instead of a
+ * ConcurrentSkipListMap. The keys of an index on an int, long or double expression are kept in
+ * primitive arrays, so an index entry costs a key and a reference in a B+tree node rather than a
+ * boxed key and a skip list node. Reads need no locks; index maintenance is serialized.
+ * <p>
+ * Enabled for compact range indexes with the gemfire.index.COMPACT_INDEX_STORE system property.
+ *
+ * @since Geode 1.1
+ */
+public class CompactIndexStore implements IndexStore {
+
+  private final Object writeLock = new Object();
+
+  /**
+   * Map for valueOf(indexedExpression)=>(RegionEntry | Collection<RegionEntry>), except for the
+   * null and undefined keys. Replaced by a copy when the keys change type or the map gets sparse.
+   */
+  private volatile CompactSortedMap valueToEntriesMap = new CompactSortedMap(KeyType.OBJECT);
+
+  private volatile Object nullEntries;
+
+  private volatile Object undefinedEntries;
+
+  // Map for RegionEntries=>value of indexedExpression (reverse map)
+  private ConcurrentMap entryToValuesMap;
+
+  private final InternalIndexStatistics internalIndexStats;
+
+  private final Region region;
+  private boolean indexOnRegionKeys;
+  private boolean indexOnValues;
+
+  public CompactIndexStore(Region region, InternalIndexStatistics internalIndexStats) {
+    this.region = region;
+    RegionAttributes ra = region.getAttributes();
+    // Initialize the reverse-map if in-place modification is set by the
+    // application.
+    if (IndexManager.isObjectModificationInplace()) {
+      this.entryToValuesMap = new ConcurrentHashMap(ra.getInitialCapacity(), ra.getLoadFactor(),
+          ra.getConcurrencyLevel());
+    }
+    this.internalIndexStats = internalIndexStats;
+  }
+
+  @Override
+  public void updateMapping(Object newKey, Object oldKey, RegionEntry entry, Object oldValue)
+      throws IMQException {
+    try {
+      // Check if reverse-map is present.
+      if (IndexManager.isObjectModificationInplace()) {
+        // If reverse map get the old index key from reverse map.
+        if (this.entryToValuesMap.containsKey(entry)) {
+          oldKey = this.entryToValuesMap.get(entry);
+        }
+      } else {
+        // If the old value and new value are the same the value got updated in
+        // place, so find the old index key in the forward map.
+        if (oldValue != null && oldValue == getTargetObjectInVM(entry)) {
+          oldKey = getOldKey(newKey, entry);
+        }
+      }
+
+      newKey = TypeUtils.indexKeyFor(newKey);
+      // No need to update the map if new and old index key are same.
+      if (oldKey != null && oldKey.equals(newKey)) {
+        return;
+      }
+
+      if (newKey.equals(QueryService.UNDEFINED)) {
+        Object targetObject = getTargetObjectForUpdate(entry);
+        if (Token.isInvalidOrRemoved(targetObject)) {
+          if (oldKey != null) {
+            basicRemoveMapping(oldKey, entry, false);
+          }
+          return;
+        }
+      }
+
+      synchronized (this.writeLock) {
+        addEntry(newKey, entry);
+        // remove from forward map in case of update
+        if (oldKey != null) {
+          basicRemoveMapping(oldKey, entry, false);
+        }
+      }
+      if (IndexManager.isObjectModificationInplace()) {
+        this.entryToValuesMap.put(entry, newKey);
+      }
+    } catch (TypeMismatchException ex) {
+      throw new IMQException("Could not add object of type " + newKey.getClass().getName(), ex);
+    }
+    this.internalIndexStats.incNumValues(1);
+  }
+
+  @Override
+  public void addMapping(Object newKey, RegionEntry entry) throws IMQException {
+    // for add, oldkey is null
+    updateMapping(newKey, null, entry, null);
+  }
+
+  @Override
+  public void removeMapping(Object key, RegionEntry entry) throws IMQException {
+    boolean found = basicRemoveMapping(key, entry, true);
+    if (found && IndexManager.isObjectModificationInplace()) {
+      this.entryToValuesMap.remove(entry);
+    }
+  }
+
+  private boolean basicRemoveMapping(Object key, RegionEntry entry, boolean findOldKey)
+      throws IMQException {
+    boolean found;
+    try {
+      Object indexKey = convertToIndexKey(key, entry);
+      synchronized (this.writeLock) {
+        found = indexKey != null && removeEntry(indexKey, entry);
+      }
+    } catch (TypeMismatchException ex) {
+      throw new IMQException("Could not add object of type " + key.getClass().getName(), ex);
+    }
+    if (found) {
+      this.internalIndexStats.incNumValues(-1);
+    } else if (findOldKey && !IndexManager.isObjectModificationInplace() && key != null) {
+      // if there is an inplace-modification find old key by iterating
+      // over fwd map and then remove the mapping
+      try {
+        Object oldKey = getOldKey(key, entry);
+        found = basicRemoveMapping(oldKey, entry, false);
+      } catch (TypeMismatchException e) {
+        throw new IMQException("Could not find old key: " + key.getClass().getName(), e);
+      }
+    }
+    return found;
+  }
+
+  private Object convertToIndexKey(Object key, RegionEntry entry) throws TypeMismatchException {
+    if (IndexManager.isObjectModificationInplace() && this.entryToValuesMap.containsKey(entry)) {
+      return this.entryToValuesMap.get(entry);
+    }
+    return TypeUtils.indexKeyFor(key);
+  }
+
+  /**
+   * Adds the entry to the entries of the key. Must be called with the write lock held.
+   */
+  private void addEntry(Object key, RegionEntry entry) {
+    if (key instanceof NullToken) {
+      Object entries = this.nullEntries;
+      this.nullEntries = addTo(entries, entry);
+      keyAdded(entries);
+    } else if (key instanceof Undefined) {
+      Object entries = this.undefinedEntries;
+      this.undefinedEntries = addTo(entries, entry);
+      keyAdded(entries);
+    } else {
+      CompactSortedMap map = this.valueToEntriesMap;
+      // an empty map takes the type of its first key; keys of other types are kept as objects
+      KeyType keyType = map.size() == 0 ? KeyType.forKey(key) : map.getKeyType();
+      if (!keyType.accepts(key)) {
+        keyType = KeyType.OBJECT;
+      }
+      if (keyType != map.getKeyType()) {
+        map = map.copy(keyType);
+        this.valueToEntriesMap = map;
+      }
+      Object entries = map.get(key);
+      Object newEntries = addTo(entries, entry);
+      if (newEntries != entries) {
+        map.put(key, newEntries);
+      }
+      keyAdded(entries);
+    }
+  }
+
+  private void keyAdded(Object oldEntries) {
+    if (oldEntries == null) {
+      this.internalIndexStats.incNumKeys(1);
+    }
+  }
+
+  /**
+   * Returns the entries with the given entry added, which are the given entries if they could be
+   * changed in place.
+   */
+  private Object addTo(Object entries, RegionEntry entry) {
+    if (entries == null) {
+      return entry;
+    } else if (entries instanceof RegionEntry) {
+      IndexElemArray elemArray = new IndexElemArray();
+      elemArray.add(entries);
+      elemArray.add(entry);
+      return elemArray;
+    } else if (entries instanceof IndexElemArray
+        && ((IndexElemArray) entries).size() >= IndexManager.INDEX_ELEMARRAY_THRESHOLD) {
+      IndexConcurrentHashSet set =
+          new IndexConcurrentHashSet(IndexManager.INDEX_ELEMARRAY_THRESHOLD + 20, 0.75f, 1);
+      set.addAll((Collection) entries);
+      set.add(entry);
+      return set;
+    }
+    ((Collection) entries).add(entry);
+    return entries;
+  }
+
+  /**
+   * Removes the entry from the entries of the key. Must be called with the write lock held.
+   *
+   * @return true if the entry was found
+   */
+  private boolean removeEntry(Object key, RegionEntry entry) {
+    Object entries;
+    CompactSortedMap map = this.valueToEntriesMap;
+    if (key instanceof NullToken) {
+      entries = this.nullEntries;
+    } else if (key instanceof Undefined) {
+      entries = this.undefinedEntries;
+    } else {
+      entries = map.get(key);
+    }
+    if (entries == null) {
+      return false;
+    }
+    if (entries instanceof RegionEntry) {
+      if (entries != entry) {
+        return false;
+      }
+    } else {
+      Collection collection = (Collection) entries;
+      if (!collection.remove(entry)) {
+        return false;
+      }
+      if (!collection.isEmpty()) {
+        return true;
+      }
+    }
+    // the key has no entries left
+    if (key instanceof NullToken) {
+      this.nullEntries = null;
+    } else if (key instanceof Undefined) {
+      this.undefinedEntries = null;
+    } else {
+      map.remove(key);
+      if (map.isSparse()) {
+        this.valueToEntriesMap = map.copy(map.getKeyType());
+      }
+    }
+    this.internalIndexStats.incNumKeys(-1);
+    return true;
+  }
+
+  /**
+   * Find the old key by traversing the forward map in case of in-place update modification If not
+   * found it means the value object was modified with same value. So oldKey is same as newKey.
+   */
+  private Object getOldKey(Object newKey, RegionEntry entry) throws TypeMismatchException {
+    if (contains(this.nullEntries, entry) && !(newKey instanceof NullToken)) {
+      return IndexManager.NULL;
+    }
+    if (contains(this.undefinedEntries, entry) && !(newKey instanceof Undefined)) {
+      return QueryService.UNDEFINED;
+    }
+    Cursor cursor = this.valueToEntriesMap.cursor(null, false, null, false, false);
+    while (cursor.next()) {
+      Object indexKey = cursor.getKey();
+      // if more than one index key maps to the same RegionEntry that
+      // means there has been an in-place modification
+      if (contains(cursor.getValue(), entry)
+          && TypeUtils.compare(indexKey, newKey, CompiledComparison.TOK_NE).equals(Boolean.TRUE)) {
+        return indexKey;
+      }
+    }
+    return newKey;
+  }
+
+  private static boolean contains(Object entries, RegionEntry entry) {
+    if (entries instanceof Collection) {
+      return ((Collection) entries).contains(entry);
+    }
+    return entries != null && entries.equals(entry);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> get(Object indexKey) {
+    if (indexKey instanceof NullToken) {
+      return new CompactIndexStoreIterator(indexKey, this.nullEntries);
+    } else if (indexKey instanceof Undefined) {
+      return new CompactIndexStoreIterator(indexKey, this.undefinedEntries);
+    }
+    return new CompactIndexStoreIterator(
+        this.valueToEntriesMap.cursor(indexKey, true, indexKey, true, false), null);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> iterator(Object start, boolean startInclusive,
+      Object end, boolean endInclusive, Collection keysToRemove) {
+    return new CompactIndexStoreIterator(
+        this.valueToEntriesMap.cursor(start, startInclusive, end, endInclusive, false),
+        keysToRemove);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> iterator(Object start, boolean startInclusive,
+      Collection keysToRemove) {
+    return new CompactIndexStoreIterator(
+        this.valueToEntriesMap.cursor(start, startInclusive, null, false, false), keysToRemove);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> iterator(Collection keysToRemove) {
+    return new CompactIndexStoreIterator(
+        this.valueToEntriesMap.cursor(null, false, null, false, false), keysToRemove);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> descendingIterator(Object start, boolean startInclusive,
+      Object end, boolean endInclusive, Collection keysToRemove) {
+    return new CompactIndexStoreIterator(
+        this.valueToEntriesMap.cursor(start, startInclusive, end, endInclusive, true),
+        keysToRemove);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> descendingIterator(Object start, boolean startInclusive,
+      Collection keysToRemove) {
+    return new CompactIndexStoreIterator(
+        this.valueToEntriesMap.cursor(start, startInclusive, null, false, true), keysToRemove);
+  }
+
+  @Override
+  public CloseableIterator<IndexStoreEntry> descendingIterator(Collection keysToRemove) {
+    return new CompactIndexStoreIterator(
+        this.valueToEntriesMap.cursor(null, false, null, false, true), keysToRemove);
+  }
+
+  @Override
+  public boolean isIndexOnRegionKeys() {
+    return this.indexOnRegionKeys;
+  }
+
+  @Override
+  public void setIndexOnRegionKeys(boolean indexOnRegionKeys) {
+    this.indexOnRegionKeys = indexOnRegionKeys;
+  }
+
+  @Override
+  public boolean isIndexOnValues() {
+    return this.indexOnValues;
+  }
+
+  @Override
+  public void setIndexOnValues(boolean indexOnValues) {
+    this.indexOnValues = indexOnValues;
+  }
+
+  /**
+   * Get the object of interest from the region entry. For now it always gets the deserialized
+   * value.
+   */
+  @Override
+  public Object getTargetObject(RegionEntry entry) {
+    if (this.indexOnValues) {
+      Object o = entry.getValue((LocalRegion) this.region);
+      try {
+        if (o == Token.INVALID) {
+          return null;
+        }
+        if (o instanceof CachedDeserializable) {
+          return ((CachedDeserializable) o).getDeserializedValue(this.region, entry);
+        }
+      } catch (EntryDestroyedException ede) {
+        return null;
+      }
+      return o;
+    } else if (this.indexOnRegionKeys) {
+      return entry.getKey();
+    }
+    return new CachedEntryWrapper(((LocalRegion) this.region).new NonTXEntry(entry));
+  }
+
+  @Override
+  public Object getTargetObjectInVM(RegionEntry entry) {
+    if (this.indexOnValues) {
+      Object o = entry.getValueInVM((LocalRegion) this.region);
+      try {
+        if (o == Token.INVALID) {
+          return null;
+        }
+        if (o instanceof CachedDeserializable) {
+          return ((CachedDeserializable) o).getDeserializedValue(this.region, entry);
+        }
+      } catch (EntryDestroyedException ede) {
+        return null;
+      }
+      return o;
+    } else if (this.indexOnRegionKeys) {
+      return entry.getKey();
+    }
+    return ((LocalRegion) this.region).new NonTXEntry(entry);
+  }
+
+  private Object getTargetObjectForUpdate(RegionEntry entry) {
+    if (this.indexOnValues) {
+      Object o = entry.getValue((LocalRegion) this.region);
+      try {
+        if (o == Token.INVALID) {
+          return Token.INVALID;
+        }
+        if (o instanceof CachedDeserializable) {
+          return ((CachedDeserializable) o).getDeserializedValue(this.region, entry);
+        }
+      } catch (EntryDestroyedException ede) {
+        return Token.INVALID;
+      }
+      return o;
+    } else if (this.indexOnRegionKeys) {
+      return entry.getKey();
+    }
+    return ((LocalRegion) this.region).new NonTXEntry(entry);
+  }
+
+  @Override
+  public boolean clear() {
+    synchronized (this.writeLock) {
+      this.valueToEntriesMap = new CompactSortedMap(KeyType.OBJECT);
+      this.nullEntries = null;
+      this.undefinedEntries = null;
+      if (IndexManager.isObjectModificationInplace()) {
+        this.entryToValuesMap.clear();
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int size(Object key) {
+    Object entries;
+    if (key instanceof NullToken) {
+      entries = this.nullEntries;
+    } else if (key instanceof Undefined) {
+      entries = this.undefinedEntries;
+    } else {
+      entries = this.valueToEntriesMap.get(key);
+    }
+    if (entries == null) {
+      return 0;
+    }
+    return entries instanceof RegionEntry ? 1 : ((Collection) entries).size();
+  }
+
+  @Override
+  public int size() {
+    return this.valueToEntriesMap.size() + (this.nullEntries != null ? 1 : 0)
+        + (this.undefinedEntries != null ? 1 : 0);
+  }
+
+  @Override
+  public String printAll() {
+    StringBuilder sb = new StringBuilder();
+    printAll(sb, IndexManager.NULL, this.nullEntries);
+    printAll(sb, QueryService.UNDEFINED, this.undefinedEntries);
+    Cursor cursor = this.valueToEntriesMap.cursor(null, false, null, false, false);
+    while (cursor.next()) {
+      printAll(sb, cursor.getKey(), cursor.getValue());
+    }
+    return sb.toString();
+  }
+
+  private void printAll(StringBuilder sb, Object key, Object entries) {
+    if (entries == null) {
+      return;
+    }
+    sb.append("Key: ").append(key);
+    if (entries instanceof Collection) {
+      for (Object entry : (Collection) entries) {
+        sb.append(" Value:").append(getTargetObject((RegionEntry) entry));
+      }
+    } else {
+      sb.append(" Value:").append(getTargetObject((RegionEntry) entries));
+    }
+    sb.append("\n");
+  }
+
+  /**
+   * Iterates over the mappings of a cursor, or of a single key, as well as over the region entries
+   * of each index key.
+   */
+  private class CompactIndexStoreIterator implements CloseableIterator<IndexStoreEntry> {
+    private final Cursor cursor;
+    private final Collection keysToRemove;
+    private final CompactIndexStoreEntry currentEntry;
+
+    private Object currKey;
+    private Object pendingEntries;
+    private Iterator valuesIterator;
+    private RegionEntry nextValue;
+
+    private CompactIndexStoreIterator(Cursor cursor, Collection keysToRemove) {
+      this.cursor = cursor;
+      this.keysToRemove = keysToRemove == null ? null : new HashSet(keysToRemove);
+      this.currentEntry =
+          new CompactIndexStoreEntry(GemFireCacheImpl.getInstance().cacheTimeMillis());
+    }
+
+    private CompactIndexStoreIterator(Object key, Object entries) {
+      this(null, null);
+      this.currKey = key;
+      this.pendingEntries = entries;
+    }
+
+    @Override
+    public boolean hasNext() {
+      // return previous collection of values if not over
+      if (this.nextValue != null || this.valuesIterator != null && this.valuesIterator.hasNext()) {
+        return true;
+      }
+      this.valuesIterator = null;
+      while (true) {
+        Object entries = this.pendingEntries;
+        if (entries != null) {
+          this.pendingEntries = null;
+        } else if (this.cursor != null && this.cursor.next()) {
+          this.currKey = this.cursor.getKey();
+          // skip the keys in the keysToRemove collection
+          if (this.keysToRemove != null && removeFromKeysToRemove(this.currKey)) {
+            continue;
+          }
+          entries = this.cursor.getValue();
+        } else {
+          return false;
+        }
+        if (entries instanceof Collection) {
+          Iterator iterator = ((Collection) entries).iterator();
+          if (iterator.hasNext()) {
+            this.valuesIterator = iterator;
+            return true;
+          }
+        } else {
+          this.nextValue = (RegionEntry) entries;
+          return true;
+        }
+      }
+    }
+
+    @Override
+    public CompactIndexStoreEntry next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      RegionEntry re;
+      if (this.nextValue != null) {
+        re = this.nextValue;
+        this.nextValue = null;
+      } else {
+        re = (RegionEntry) this.valuesIterator.next();
+      }
+      this.currentEntry.setCompactIndexStoreEntry(this.currKey, re);
+      return this.currentEntry;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+      // do nothing
+    }
+
+    private boolean removeFromKeysToRemove(Object key) {
+      Iterator iterator = this.keysToRemove.iterator();
+      while (iterator.hasNext()) {
+        try {
+          if (TypeUtils.compare(key, iterator.next(), OQLLexerTokenTypes.TOK_EQ)
+              .equals(Boolean.TRUE)) {
+            iterator.remove();
+            return true;
+          }
+        } catch (TypeMismatchException e) {
+          // they are not equals, so we just continue iterating
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * A mapping of an index key to a RegionEntry
+   */
+  class CompactIndexStoreEntry implements IndexStoreEntry {
+    private Object deserializedIndexKey;
+    private RegionEntry regionEntry;
+    private boolean updateInProgress;
+    private Object value;
+    private final long iteratorStartTime;
+
+    private CompactIndexStoreEntry(long iteratorStartTime) {
+      this.iteratorStartTime = iteratorStartTime;
+    }
+
+    private void setCompactIndexStoreEntry(Object deserializedIndexKey, RegionEntry regionEntry) {
+      this.deserializedIndexKey = deserializedIndexKey;
+      this.regionEntry = regionEntry;
+      this.updateInProgress = regionEntry.isUpdateInProgress();
+      this.value = getTargetObject(regionEntry);
+    }
+
+    @Override
+    public Object getDeserializedKey() {
+      return this.deserializedIndexKey;
+    }
+
+    @Override
+    public Object getDeserializedValue() {
+      return this.value;
+    }
+
+    @Override
+    public Object getDeserializedRegionKey() {
+      return this.regionEntry.getKey();
+    }
+
+    public RegionEntry getRegionEntry() {
+      return this.regionEntry;
+    }
+
+    @Override
+    public boolean isUpdateInProgress() {
+      return this.updateInProgress || this.regionEntry.isUpdateInProgress()
+      // The index update could have started just before the iterator was created. The entry still
+      // needs to be re-evaluated in this case.
+          || IndexManager.needsRecalculation(this.iteratorStartTime,
+              this.regionEntry.getLastModified());
+    }
+  }
+}
@@ -56,7 +56,6 @@ import org.apache.geode.cache.query.internal.StructImpl;
 import org.apache.geode.cache.query.internal.Support;
 import org.apache.geode.cache.query.internal.index.IndexManager.TestHook;
 import org.apache.geode.cache.query.internal.index.IndexStore.IndexStoreEntry;
-import org.apache.geode.cache.query.internal.index.MemoryIndexStore.MemoryIndexStoreEntry;
 import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
 import org.apache.geode.cache.query.internal.types.StructTypeImpl;
 import org.apache.geode.cache.query.internal.types.TypeUtils;
@@ -91,6 +90,9 @@ public class CompactRangeIndex extends AbstractIndex {
 
   private IndexStore indexStore;
 
+  /** The components of the indexed expression of a composite index, or null */
+  private String[] canonicalizedIndexedComponents;
+
   static boolean TEST_ALWAYS_UPDATE_IN_PROGRESS = false;
 
   public CompactRangeIndex(String indexName, Region region, String fromClause,
@@ -101,6 +103,8 @@ public class CompactRangeIndex extends AbstractIndex {
     if (IndexManager.IS_TEST_LDM) {
       indexStore = new MapIndexStore(
           ((LocalRegion) region).getIndexMap(indexName, indexedExpression, origFromClause), region);
+    } else if (IndexManager.COMPACT_INDEX_STORE || IndexManager.TEST_COMPACT_INDEX_STORE) {
+      indexStore = new CompactIndexStore(region, internalIndexStats);
     } else {
       indexStore = new MemoryIndexStore(region, internalIndexStats);
     }
@@ -286,11 +290,39 @@ public class CompactRangeIndex extends AbstractIndex {
     CompactRangeIndex index = (CompactRangeIndex) indexInfo._getIndex();
     RuntimeIterator runtimeItr = index.getRuntimeIteratorForThisIndex(context, indexInfo);
     if (runtimeItr != null) {
-      runtimeItr.setCurrent(((MemoryIndexStoreEntry) entry).getDeserializedValue());
+      runtimeItr.setCurrent(entry.getDeserializedValue());
     }
     return evaluateEntry(indexInfo, context, keyVal);
   }
 
+  @Override
+  boolean addKeysToHistogram(IndexHistogram histogram) {
+    if (this.indexStore instanceof MapIndexStore) {
+      return false;
+    }
+    CloseableIterator<IndexStoreEntry> entries = this.indexStore.iterator(null);
+    try {
+      Object key = null;
+      long count = 0;
+      while (entries.hasNext()) {
+        Object entryKey = entries.next().getDeserializedKey();
+        if (entryKey == IndexManager.NULL || entryKey == QueryService.UNDEFINED) {
+          continue;
+        }
+        if (count > 0 && !entryKey.equals(key)) {
+          histogram.add(key, count);
+          count = 0;
+        }
+        key = entryKey;
+        count++;
+      }
+      histogram.add(key, count);
+    } finally {
+      entries.close();
+    }
+    return true;
+  }
+
   public int getSizeEstimate(Object key, int operator, int matchLevel)
       throws TypeMismatchException {
     // Get approx size;
@@ -322,7 +354,10 @@ public class CompactRangeIndex extends AbstractIndex {
             if (CompactRangeIndex.testHook != null) {
               CompactRangeIndex.testHook.hook(1);
             }
-            if (totalSize > 1) {
+            size = totalSize > 1 ? estimateFromHistogram(key, operator) : -1;
+            if (size >= 0) {
+              // estimated from the distribution of the keys
+            } else if (totalSize > 1) {
               Number keyAsNum = (Number) key;
               int x = 0;
               IndexStoreEntry firstEntry = null;
@@ -374,7 +409,10 @@ public class CompactRangeIndex extends AbstractIndex {
               size = indexStore.size(key) > 0 ? 1 : 0;
             }
           } else {
-            size = Integer.MAX_VALUE;
+            size = matchLevel <= 0 ? estimateFromHistogram(key, operator) : -1;
+            if (size < 0) {
+              size = Integer.MAX_VALUE;
+            }
           }
           break;
 
@@ -385,7 +423,10 @@ public class CompactRangeIndex extends AbstractIndex {
             if (CompactRangeIndex.testHook != null) {
               CompactRangeIndex.testHook.hook(2);
             }
-            if (totalSize > 1) {
+            size = totalSize > 1 ? estimateFromHistogram(key, operator) : -1;
+            if (size >= 0) {
+              // estimated from the distribution of the keys
+            } else if (totalSize > 1) {
               Number keyAsNum = (Number) key;
               int x = 0;
               IndexStoreEntry firstEntry = null;
@@ -433,7 +474,10 @@ public class CompactRangeIndex extends AbstractIndex {
               size = indexStore.size(key) > 0 ? 1 : 0;
             }
           } else {
-            size = Integer.MAX_VALUE;
+            size = matchLevel <= 0 ? estimateFromHistogram(key, operator) : -1;
+            if (size < 0) {
+              size = Integer.MAX_VALUE;
+            }
           }
           break;
       }
@@ -669,6 +713,15 @@ public class CompactRangeIndex extends AbstractIndex {
   @Override
   void instantiateEvaluator(IndexCreationHelper ich) {
     this.evaluator = new IMQEvaluator(ich);
+    if (ich instanceof FunctionalIndexCreationHelper) {
+      this.canonicalizedIndexedComponents =
+          ((FunctionalIndexCreationHelper) ich).getCanonicalizedIndexedComponents();
+    }
+  }
+
+  @Override
+  public String[] getCanonicalizedIndexedComponents() {
+    return this.canonicalizedIndexedComponents;
   }
 
   // Only used by CompactMapRangeIndex. This is due to the way the index initialization happens
@@ -931,6 +984,9 @@ public class CompactRangeIndex extends AbstractIndex {
   protected boolean evaluateEntry(IndexInfo indexInfo, ExecutionContext context, Object keyVal)
       throws FunctionDomainException, TypeMismatchException, NameResolutionException,
       QueryInvocationTargetException {
+    if (indexInfo._condition() != null) {
+      return QueryUtils.applyCondition(indexInfo._condition(), context);
+    }
     CompiledValue path = ((IndexInfo) indexInfo)._path();
     Object left = path.evaluate(context);
     CompiledValue key = ((IndexInfo) indexInfo)._key();
@@ -1075,6 +1131,30 @@ public class CompactRangeIndex extends AbstractIndex {
       this.vsdStats.incReadLockCount(delta);
     }
 
+    public void incAsyncUpdateQueueSize(long delta) {
+      this.vsdStats.incAsyncUpdateQueueSize(delta);
+    }
+
+    public void setAsyncUpdateLag(long millis) {
+      this.vsdStats.setAsyncUpdateLag(millis);
+    }
+
+    public void incAsyncUpdatesCoalesced(long delta) {
+      this.vsdStats.incAsyncUpdatesCoalesced(delta);
+    }
+
+    public long getAsyncUpdateQueueSize() {
+      return this.vsdStats.getAsyncUpdateQueueSize();
+    }
+
+    public long getAsyncUpdateLag() {
+      return this.vsdStats.getAsyncUpdateLag();
+    }
+
+    public long getAsyncUpdatesCoalesced() {
+      return this.vsdStats.getAsyncUpdatesCoalesced();
+    }
+
     /**
      * Returns the total amount of time (in nanoseconds) spent updating this index.
      */
@@ -0,0 +1,697 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.util.Comparator;
+
+import org.apache.geode.cache.query.internal.types.TypeUtils;
+
+/**
+ * A sorted map of index keys to values kept in a B+tree whose nodes hold their keys in a single
+ * array, of primitives when all the keys are Integers, Longs or Doubles. Keys are ordered by the
+ * extended numeric comparator, like the keys of a {@link MemoryIndexStore}.
+ * <p>
+ * The contents of a node are never modified once published; a writer replaces them with a copy.
+ * Readers therefore need no locks. Writers must be serialized by the caller. Each node also links
+ * to its right sibling and knows the upper bound of its keys, so a reader that raced with a split
+ * moves right to find the keys that were moved out of the node it reached (a B-link tree). Nodes
+ * are not merged when keys are removed; {@link #isSparse()} tells the caller when the map should be
+ * {@link #copy copied} into a smaller one.
+ *
+ * @since Geode 1.1
+ */
+class CompactSortedMap {
+
+  static final int DEFAULT_NODE_CAPACITY = 64;
+
+  private static final Comparator COMPARATOR = TypeUtils.getExtendedNumericComparator();
+
+  private final KeyType keyType;
+
+  private final int nodeCapacity;
+
+  private volatile Node root;
+
+  private volatile int size;
+
+  /** The number of leaves, used to tell when the map has become sparse */
+  private int numLeaves = 1;
+
+  CompactSortedMap(KeyType keyType) {
+    this(keyType, DEFAULT_NODE_CAPACITY);
+  }
+
+  CompactSortedMap(KeyType keyType, int nodeCapacity) {
+    this.keyType = keyType;
+    this.nodeCapacity = nodeCapacity;
+    this.root = new Node(new NodeData(keyType.newArray(0), new Object[0], true, null, null));
+  }
+
+  KeyType getKeyType() {
+    return this.keyType;
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns true if the leaves of the tree are, on average, less than a quarter full.
+   */
+  boolean isSparse() {
+    return this.numLeaves > 1 && this.size < this.numLeaves * (this.nodeCapacity / 4);
+  }
+
+  /**
+   * Returns the value mapped to a key equal to the given key, or null.
+   */
+  Object get(Object key) {
+    NodeData data = findLeaf(this.root, key, false, null);
+    int index = search(data.keys, key);
+    return index >= 0 ? data.values[index] : null;
+  }
+
+  /**
+   * Maps the given key to the given value. The key must be {@link KeyType#accepts accepted} by the
+   * key type of this map. Writes must not run concurrently.
+   *
+   * @return the value previously mapped to the key, or null
+   */
+  Object put(Object key, Object value) {
+    Node[] path = new Node[16];
+    int depth = 0;
+    Node node = this.root;
+    NodeData data = node.data;
+    while (!data.leaf) {
+      if (depth == path.length) {
+        Node[] newPath = new Node[depth * 2];
+        System.arraycopy(path, 0, newPath, 0, depth);
+        path = newPath;
+      }
+      path[depth++] = node;
+      node = (Node) data.values[childIndex(data.keys, key, false)];
+      data = node.data;
+    }
+
+    int index = search(data.keys, key);
+    if (index >= 0) {
+      Object[] values = data.values.clone();
+      Object oldValue = values[index];
+      values[index] = value;
+      node.data = new NodeData(data.keys, values, true, data.highKey, data.next);
+      return oldValue;
+    }
+
+    int insertionPoint = -(index + 1);
+    int length = data.values.length;
+    if (length < this.nodeCapacity) {
+      node.data = new NodeData(insertKey(data.keys, length, insertionPoint, key),
+          insert(data.values, insertionPoint, value), true, data.highKey, data.next);
+    } else {
+      Object keys = insertKey(data.keys, length, insertionPoint, key);
+      Object[] values = insert(data.values, insertionPoint, value);
+      // keep the left leaf full when appending to the last leaf, as keys are often ascending
+      int split = insertionPoint == length && data.next == null ? length : (length + 1) / 2;
+      Object separator = this.keyType.get(keys, split);
+      Node right = new Node(new NodeData(copyKeys(keys, split, length + 1),
+          copy(values, split, length + 1), true, data.highKey, data.next));
+      node.data = new NodeData(copyKeys(keys, 0, split), copy(values, 0, split), true, separator,
+          right);
+      this.numLeaves++;
+      insertIntoParent(path, depth, node, separator, right);
+    }
+    this.size++;
+    return null;
+  }
+
+  /**
+   * Removes the mapping of the given key. Writes must not run concurrently.
+   *
+   * @return the value that was mapped to the key, or null
+   */
+  Object remove(Object key) {
+    Node node = this.root;
+    NodeData data = node.data;
+    while (!data.leaf) {
+      node = (Node) data.values[childIndex(data.keys, key, false)];
+      data = node.data;
+    }
+    int index = search(data.keys, key);
+    if (index < 0) {
+      return null;
+    }
+    int length = data.values.length;
+    Object keys = this.keyType.newArray(length - 1);
+    System.arraycopy(data.keys, 0, keys, 0, index);
+    System.arraycopy(data.keys, index + 1, keys, index, length - index - 1);
+    Object[] values = new Object[length - 1];
+    System.arraycopy(data.values, 0, values, 0, index);
+    System.arraycopy(data.values, index + 1, values, index, length - index - 1);
+    Object oldValue = data.values[index];
+    node.data = new NodeData(keys, values, true, data.highKey, data.next);
+    this.size--;
+    return oldValue;
+  }
+
+  /**
+   * Returns a new map with the mappings of this one in full leaves, with keys of the given type.
+   * Writes must not run concurrently.
+   */
+  CompactSortedMap copy(KeyType newKeyType) {
+    CompactSortedMap result = new CompactSortedMap(newKeyType, this.nodeCapacity);
+    int size = this.size;
+    if (size == 0) {
+      return result;
+    }
+
+    // fill the leaves from right to left so that each one can link to its right sibling
+    int capacity = this.nodeCapacity;
+    int numLeaves = (size + capacity - 1) / capacity;
+    Node[] level = new Node[numLeaves];
+    Object[] lowKeys = new Object[numLeaves];
+    Cursor cursor = cursor(null, false, null, false, true);
+    Node next = null;
+    Object highKey = null;
+    for (int leaf = numLeaves - 1; leaf >= 0; leaf--) {
+      int length = leaf == 0 ? size - (numLeaves - 1) * capacity : capacity;
+      Object keys = newKeyType.newArray(length);
+      Object[] values = new Object[length];
+      for (int i = length - 1; i >= 0; i--) {
+        cursor.next();
+        newKeyType.set(keys, i, cursor.getKey());
+        values[i] = cursor.getValue();
+      }
+      next = new Node(new NodeData(keys, values, true, highKey, next));
+      highKey = newKeyType.get(keys, 0);
+      level[leaf] = next;
+      lowKeys[leaf] = highKey;
+    }
+    result.numLeaves = numLeaves;
+
+    // each inner node has up to nodeCapacity + 1 children, separated by their lowest keys
+    int fanout = capacity + 1;
+    while (level.length > 1) {
+      int numNodes = (level.length + fanout - 1) / fanout;
+      Node[] parents = new Node[numNodes];
+      Object[] parentLowKeys = new Object[numNodes];
+      next = null;
+      highKey = null;
+      for (int n = numNodes - 1; n >= 0; n--) {
+        int start = n * fanout;
+        int end = Math.min(start + fanout, level.length);
+        Object separators = newKeyType.newArray(end - start - 1);
+        for (int i = start + 1; i < end; i++) {
+          newKeyType.set(separators, i - start - 1, lowKeys[i]);
+        }
+        next = new Node(new NodeData(separators, copy(level, start, end), false, highKey, next));
+        highKey = lowKeys[start];
+        parents[n] = next;
+        parentLowKeys[n] = highKey;
+      }
+      level = parents;
+      lowKeys = parentLowKeys;
+    }
+    result.root = level[0];
+    result.size = size;
+    return result;
+  }
+
+  /**
+   * Returns a cursor over the mappings with keys between the given bounds, in ascending or
+   * descending order. A null bound leaves that end of the range open. The cursor reflects some of
+   * the writes done while it is used.
+   */
+  Cursor cursor(Object from, boolean fromInclusive, Object to, boolean toInclusive,
+      boolean descending) {
+    return descending ? new DescendingCursor(this.root, from, fromInclusive, to, toInclusive)
+        : new AscendingCursor(this.root, from, fromInclusive, to, toInclusive);
+  }
+
+  private void insertIntoParent(Node[] path, int depth, Node left, Object separator, Node right) {
+    if (depth == 0) {
+      Object keys = this.keyType.newArray(1);
+      this.keyType.set(keys, 0, separator);
+      this.root = new Node(new NodeData(keys, new Object[] {left, right}, false, null, null));
+      return;
+    }
+    Node node = path[depth - 1];
+    NodeData data = node.data;
+    int index = childIndex(data.keys, separator, false);
+    int length = data.values.length - 1;
+    Object keys = insertKey(data.keys, length, index, separator);
+    Object[] children = insert(data.values, index + 1, right);
+    if (length < this.nodeCapacity) {
+      node.data = new NodeData(keys, children, false, data.highKey, data.next);
+    } else {
+      int split = (length + 1) / 2;
+      Object promoted = this.keyType.get(keys, split);
+      Node sibling = new Node(new NodeData(copyKeys(keys, split + 1, length + 1),
+          copy(children, split + 1, length + 2), false, data.highKey, data.next));
+      node.data = new NodeData(copyKeys(keys, 0, split), copy(children, 0, split + 1), false,
+          promoted, sibling);
+      insertIntoParent(path, depth - 1, node, promoted, sibling);
+    }
+  }
+
+  /**
+   * Returns the contents of the leaf holding the keys around the given bound, starting from the
+   * given root. The leaf holding the keys equal to the bound is returned, or the keys less than
+   * the bound if lower is true. A null bound finds the first leaf, or the last leaf if lower is
+   * true. If lowKeyHolder is not null its first element is set to the lowest key the leaf may hold,
+   * or null if the leaf is the first one.
+   */
+  private NodeData findLeaf(Node root, Object bound, boolean lower, Object[] lowKeyHolder) {
+    Object lowKey = null;
+    NodeData data = root.data;
+    while (true) {
+      while (data.next != null && (bound == null ? lower
+          : compare(data.highKey, bound) < (lower ? 0 : 1))) {
+        lowKey = data.highKey;
+        data = data.next.data;
+      }
+      if (data.leaf) {
+        if (lowKeyHolder != null) {
+          lowKeyHolder[0] = lowKey;
+        }
+        return data;
+      }
+      int index = bound == null ? (lower ? data.values.length - 1 : 0)
+          : childIndex(data.keys, bound, lower);
+      if (index > 0) {
+        lowKey = this.keyType.get(data.keys, index - 1);
+      }
+      data = ((Node) data.values[index]).data;
+    }
+  }
+
+  /**
+   * Returns the index of the child of an inner node holding the keys equal to the given key, or
+   * the keys less than the key if lower is true.
+   */
+  private int childIndex(Object separators, Object key, boolean lower) {
+    int index = search(separators, key);
+    if (index >= 0) {
+      return lower ? index : index + 1;
+    }
+    return -(index + 1);
+  }
+
+  /**
+   * Returns the index of the given key in the given keys, or (-(insertion point) - 1) if it is not
+   * there, like {@link java.util.Arrays#binarySearch}.
+   */
+  private int search(Object keys, Object key) {
+    int low = 0;
+    int high = this.keyType.length(keys) - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = this.keyType.compare(keys, mid, key);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /**
+   * Returns the index of the first of the given keys that is greater than, or equal to if
+   * inclusive, the given key.
+   */
+  private int ceiling(Object keys, Object key, boolean inclusive) {
+    int index = search(keys, key);
+    if (index >= 0) {
+      return inclusive ? index : index + 1;
+    }
+    return -(index + 1);
+  }
+
+  private static int compare(Object key1, Object key2) {
+    return COMPARATOR.compare(key1, key2);
+  }
+
+  private Object insertKey(Object keys, int length, int index, Object key) {
+    Object result = this.keyType.newArray(length + 1);
+    System.arraycopy(keys, 0, result, 0, index);
+    this.keyType.set(result, index, key);
+    System.arraycopy(keys, index, result, index + 1, length - index);
+    return result;
+  }
+
+  private Object copyKeys(Object keys, int from, int to) {
+    return copyKeys(this.keyType, keys, from, to);
+  }
+
+  private static Object copyKeys(KeyType keyType, Object keys, int from, int to) {
+    Object result = keyType.newArray(to - from);
+    System.arraycopy(keys, from, result, 0, to - from);
+    return result;
+  }
+
+  private static Object[] insert(Object[] values, int index, Object value) {
+    Object[] result = new Object[values.length + 1];
+    System.arraycopy(values, 0, result, 0, index);
+    result[index] = value;
+    System.arraycopy(values, index, result, index + 1, values.length - index);
+    return result;
+  }
+
+  private static Object[] copy(Object[] values, int from, int to) {
+    Object[] result = new Object[to - from];
+    System.arraycopy(values, from, result, 0, to - from);
+    return result;
+  }
+
+  private static class Node {
+    volatile NodeData data;
+
+    Node(NodeData data) {
+      this.data = data;
+    }
+  }
+
+  /**
+   * The immutable contents of a node. A leaf holds values; an inner node holds one more child node
+   * than it has keys, the keys of child i being at least key i - 1 and less than key i.
+   */
+  private static class NodeData {
+    final Object keys;
+    final Object[] values;
+    final boolean leaf;
+    /** All the keys of this node are less than this key; null if next is null */
+    final Object highKey;
+    final Node next;
+
+    NodeData(Object keys, Object[] values, boolean leaf, Object highKey, Node next) {
+      this.keys = keys;
+      this.values = values;
+      this.leaf = leaf;
+      this.highKey = highKey;
+      this.next = next;
+    }
+  }
+
+  /**
+   * Iterates over mappings of the map. {@link #next()} must return true before the current key and
+   * value can be read.
+   */
+  abstract class Cursor {
+    final Node root;
+    final Object from;
+    final boolean fromInclusive;
+    final Object to;
+    final boolean toInclusive;
+    NodeData leaf;
+    int index;
+
+    Cursor(Node root, Object from, boolean fromInclusive, Object to, boolean toInclusive) {
+      this.root = root;
+      this.from = from;
+      this.fromInclusive = fromInclusive;
+      this.to = to;
+      this.toInclusive = toInclusive;
+    }
+
+    /**
+     * Moves to the next mapping, returning false if there are none left.
+     */
+    abstract boolean next();
+
+    Object getKey() {
+      return keyType.get(this.leaf.keys, this.index);
+    }
+
+    Object getValue() {
+      return this.leaf.values[this.index];
+    }
+  }
+
+  private class AscendingCursor extends Cursor {
+    private int nextIndex;
+    private boolean done;
+
+    AscendingCursor(Node root, Object from, boolean fromInclusive, Object to,
+        boolean toInclusive) {
+      super(root, from, fromInclusive, to, toInclusive);
+      this.leaf = findLeaf(root, from, false, null);
+      this.nextIndex = from == null ? 0 : ceiling(this.leaf.keys, from, fromInclusive);
+    }
+
+    @Override
+    boolean next() {
+      if (this.done) {
+        return false;
+      }
+      while (this.nextIndex >= this.leaf.values.length) {
+        if (this.leaf.next == null) {
+          this.done = true;
+          return false;
+        }
+        this.leaf = this.leaf.next.data;
+        this.nextIndex = 0;
+      }
+      if (this.to != null) {
+        int cmp = keyType.compare(this.leaf.keys, this.nextIndex, this.to);
+        if (cmp > 0 || cmp == 0 && !this.toInclusive) {
+          this.done = true;
+          return false;
+        }
+      }
+      this.index = this.nextIndex++;
+      return true;
+    }
+  }
+
+  private class DescendingCursor extends Cursor {
+    private final Object[] lowKeyHolder = new Object[1];
+    private int nextIndex;
+    private boolean done;
+
+    DescendingCursor(Node root, Object from, boolean fromInclusive, Object to,
+        boolean toInclusive) {
+      super(root, from, fromInclusive, to, toInclusive);
+      // find the last key less than, or equal to if inclusive, the upper bound
+      boolean lower = to == null || !toInclusive;
+      this.leaf = findLeaf(root, to, lower, this.lowKeyHolder);
+      this.nextIndex = (to == null ? this.leaf.values.length : ceiling(this.leaf.keys, to, lower))
+          - 1;
+    }
+
+    @Override
+    boolean next() {
+      if (this.done) {
+        return false;
+      }
+      while (this.nextIndex < 0) {
+        // there are no links to the left, so look for the keys below the ones of this leaf
+        Object lowKey = this.lowKeyHolder[0];
+        if (lowKey == null) {
+          this.done = true;
+          return false;
+        }
+        this.leaf = findLeaf(this.root, lowKey, true, this.lowKeyHolder);
+        this.nextIndex = ceiling(this.leaf.keys, lowKey, true) - 1;
+      }
+      if (this.from != null) {
+        int cmp = keyType.compare(this.leaf.keys, this.nextIndex, this.from);
+        if (cmp < 0 || cmp == 0 && !this.fromInclusive) {
+          this.done = true;
+          return false;
+        }
+      }
+      this.index = this.nextIndex--;
+      return true;
+    }
+  }
+
+  /**
+   * The representation of the keys of a map. Keys of the primitive types are compared to keys of
+   * the same class without boxing.
+   */
+  abstract static class KeyType {
+
+    static final KeyType INT = new KeyType() {
+      @Override
+      Object newArray(int length) {
+        return new int[length];
+      }
+
+      @Override
+      int length(Object keys) {
+        return ((int[]) keys).length;
+      }
+
+      @Override
+      Object get(Object keys, int index) {
+        return Integer.valueOf(((int[]) keys)[index]);
+      }
+
+      @Override
+      void set(Object keys, int index, Object key) {
+        ((int[]) keys)[index] = ((Integer) key).intValue();
+      }
+
+      @Override
+      boolean accepts(Object key) {
+        return key.getClass() == Integer.class;
+      }
+
+      @Override
+      int compare(Object keys, int index, Object key) {
+        if (key.getClass() == Integer.class) {
+          return Integer.compare(((int[]) keys)[index], ((Integer) key).intValue());
+        }
+        return super.compare(keys, index, key);
+      }
+    };
+
+    static final KeyType LONG = new KeyType() {
+      @Override
+      Object newArray(int length) {
+        return new long[length];
+      }
+
+      @Override
+      int length(Object keys) {
+        return ((long[]) keys).length;
+      }
+
+      @Override
+      Object get(Object keys, int index) {
+        return Long.valueOf(((long[]) keys)[index]);
+      }
+
+      @Override
+      void set(Object keys, int index, Object key) {
+        ((long[]) keys)[index] = ((Long) key).longValue();
+      }
+
+      @Override
+      boolean accepts(Object key) {
+        return key.getClass() == Long.class;
+      }
+
+      @Override
+      int compare(Object keys, int index, Object key) {
+        if (key.getClass() == Long.class) {
+          return Long.compare(((long[]) keys)[index], ((Long) key).longValue());
+        }
+        return super.compare(keys, index, key);
+      }
+    };
+
+    static final KeyType DOUBLE = new KeyType() {
+      @Override
+      Object newArray(int length) {
+        return new double[length];
+      }
+
+      @Override
+      int length(Object keys) {
+        return ((double[]) keys).length;
+      }
+
+      @Override
+      Object get(Object keys, int index) {
+        return Double.valueOf(((double[]) keys)[index]);
+      }
+
+      @Override
+      void set(Object keys, int index, Object key) {
+        ((double[]) keys)[index] = ((Double) key).doubleValue();
+      }
+
+      @Override
+      boolean accepts(Object key) {
+        return key.getClass() == Double.class;
+      }
+
+      @Override
+      int compare(Object keys, int index, Object key) {
+        if (key.getClass() == Double.class) {
+          // same order as Double.compareTo
+          return Double.compare(((double[]) keys)[index], ((Double) key).doubleValue());
+        }
+        return super.compare(keys, index, key);
+      }
+    };
+
+    static final KeyType OBJECT = new KeyType() {
+      @Override
+      Object newArray(int length) {
+        return new Object[length];
+      }
+
+      @Override
+      int length(Object keys) {
+        return ((Object[]) keys).length;
+      }
+
+      @Override
+      Object get(Object keys, int index) {
+        return ((Object[]) keys)[index];
+      }
+
+      @Override
+      void set(Object keys, int index, Object key) {
+        ((Object[]) keys)[index] = key;
+      }
+
+      @Override
+      boolean accepts(Object key) {
+        return true;
+      }
+    };
+
+    /**
+     * Returns the most compact key type that accepts the given key.
+     */
+    static KeyType forKey(Object key) {
+      Class<?> c = key.getClass();
+      if (c == Integer.class) {
+        return INT;
+      } else if (c == Long.class) {
+        return LONG;
+      } else if (c == Double.class) {
+        return DOUBLE;
+      }
+      return OBJECT;
+    }
+
+    abstract Object newArray(int length);
+
+    abstract int length(Object keys);
+
+    abstract Object get(Object keys, int index);
+
+    abstract void set(Object keys, int index, Object key);
+
+    /**
+     * Returns true if the given key can be stored in arrays of this type without changing its
+     * class.
+     */
+    abstract boolean accepts(Object key);
+
+    /**
+     * Compares the key at the given index to the given key.
+     */
+    int compare(Object keys, int index, Object key) {
+      return COMPARATOR.compare(get(keys, index), key);
+    }
+  }
+}
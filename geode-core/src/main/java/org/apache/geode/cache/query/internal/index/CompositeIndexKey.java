@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.util.Comparator;
+
+import org.apache.geode.cache.query.internal.NullToken;
+import org.apache.geode.cache.query.internal.Undefined;
+import org.apache.geode.cache.query.internal.types.TypeUtils;
+
+/**
+ * The key of a composite index: the values of its indexed expressions, compared in order. Null and
+ * UNDEFINED components sort before all other values of a component.
+ * <p>
+ * A key can also be a bound of a range of keys. A bound may have fewer components than the keys of
+ * the index and sorts before ({@link #lowerBound}) or after ({@link #upperBound}) every key that
+ * starts with its components, so that a lookup on a prefix of the components is a range of the
+ * index.
+ *
+ * @since Geode 1.1
+ */
+public class CompositeIndexKey implements Comparable {
+
+  private static final Comparator comparator = TypeUtils.getExtendedNumericComparator();
+
+  private final Object[] components;
+
+  /** -1 for a lower bound, 1 for an upper bound and 0 for the key of an entry */
+  private final int bound;
+
+  public CompositeIndexKey(Object[] components) {
+    this(components, 0);
+  }
+
+  private CompositeIndexKey(Object[] components, int bound) {
+    this.components = components;
+    this.bound = bound;
+  }
+
+  /**
+   * Returns a bound that sorts before every key starting with the given components.
+   */
+  public static CompositeIndexKey lowerBound(Object[] components) {
+    return new CompositeIndexKey(components, -1);
+  }
+
+  /**
+   * Returns a bound that sorts after every key starting with the given components.
+   */
+  public static CompositeIndexKey upperBound(Object[] components) {
+    return new CompositeIndexKey(components, 1);
+  }
+
+  public int size() {
+    return this.components.length;
+  }
+
+  public Object get(int index) {
+    return this.components[index];
+  }
+
+  public int compareTo(Object obj) {
+    CompositeIndexKey other = (CompositeIndexKey) obj;
+    int size = Math.min(this.components.length, other.components.length);
+    for (int i = 0; i < size; i++) {
+      int result = compareComponents(this.components[i], other.components[i]);
+      if (result != 0) {
+        return result;
+      }
+    }
+    if (this.components.length == other.components.length) {
+      return Integer.compare(this.bound, other.bound);
+    } else if (this.components.length < other.components.length) {
+      return this.bound > 0 ? 1 : -1;
+    } else {
+      return other.bound > 0 ? -1 : 1;
+    }
+  }
+
+  private static int compareComponents(Object value1, Object value2) {
+    int rank1 = rank(value1);
+    int rank2 = rank(value2);
+    if (rank1 != rank2 || rank1 < 2) {
+      return Integer.compare(rank1, rank2);
+    }
+    return comparator.compare(value1, value2);
+  }
+
+  private static int rank(Object value) {
+    if (value == null || value instanceof NullToken) {
+      return 0;
+    } else if (value instanceof Undefined) {
+      return 1;
+    }
+    return 2;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof CompositeIndexKey && compareTo(obj) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = this.bound;
+    for (Object component : this.components) {
+      int componentHash;
+      if (component instanceof Number) {
+        componentHash = hashNumber((Number) component);
+      } else if (rank(component) < 2) {
+        componentHash = rank(component);
+      } else {
+        componentHash = component.hashCode();
+      }
+      hash = 31 * hash + componentHash;
+    }
+    return hash;
+  }
+
+  /**
+   * Equal numbers of different types must hash alike. A float is compared with the other numbers
+   * at float precision, so numbers are hashed at float precision too, and 0.0 and -0.0 are
+   * normalized.
+   */
+  private static int hashNumber(Number number) {
+    float value = (float) number.doubleValue();
+    if (value == 0.0f) {
+      // also true for -0.0
+      value = 0.0f;
+    }
+    return Float.hashCode(value);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("(");
+    for (int i = 0; i < this.components.length; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(this.components[i]);
+    }
+    if (this.bound != 0) {
+      sb.append(this.components.length == 0 ? "" : ", ").append(this.bound < 0 ? "-" : "+")
+          .append("inf");
+    }
+    return sb.append(')').toString();
+  }
+}
@@ -30,9 +30,11 @@ import org.apache.geode.cache.query.AmbiguousNameException;
 import org.apache.geode.cache.query.IndexInvalidException;
 import org.apache.geode.cache.query.IndexType;
 import org.apache.geode.cache.query.NameResolutionException;
+import org.apache.geode.cache.query.QueryInvalidException;
 import org.apache.geode.cache.query.TypeMismatchException;
 import org.apache.geode.cache.query.internal.CompiledBindArgument;
 import org.apache.geode.cache.query.internal.CompiledComparison;
+import org.apache.geode.cache.query.internal.CompiledCompositeIndexKey;
 import org.apache.geode.cache.query.internal.CompiledFunction;
 import org.apache.geode.cache.query.internal.CompiledID;
 import org.apache.geode.cache.query.internal.CompiledIndexOperation;
@@ -85,6 +87,7 @@ class FunctionalIndexCreationHelper extends IndexCreationHelper {
   CompiledValue additionalProj = null;
   ObjectType addnlProjType = null;
   CompiledValue modifiedIndexExpr = null;
+  private String[] canonicalizedIndexedComponents = null;
   boolean isFirstIteratorRegionEntry = false;
   boolean isFirstIteratorRegionKey = false;
   final String imports;
@@ -431,23 +434,43 @@ class FunctionalIndexCreationHelper extends IndexCreationHelper {
    * the 0th iterator.
    */
   private void prepareIndexExpression(String indexedExpression) throws IndexInvalidException {
-    CompiledValue expr = this.compiler.compileQuery(indexedExpression);
-    // List indexedExprs = this.compiler.compileProjectionAttributes(indexedExpression);
+    CompiledValue expr;
+    try {
+      expr = this.compiler.compileQuery(indexedExpression);
+    } catch (QueryInvalidException e) {
+      // a comma separated list of expressions is the indexed expression of a composite index
+      expr = compileCompositeIndexedExpression(indexedExpression);
+      if (expr == null) {
+        throw e;
+      }
+    }
     if (expr == null) {
       throw new IndexInvalidException(
           LocalizedStrings.FunctionalIndexCreationHelper_INVALID_INDEXED_EXPRESSION_0
               .toLocalizedString(indexedExpression));
     }
 
-    if (expr instanceof CompiledUndefined || expr instanceof CompiledLiteral
-        || expr instanceof CompiledComparison || expr instanceof CompiledBindArgument
-        || expr instanceof CompiledNegation)
+    if (!isIndexableExpression(expr)) {
       throw new IndexInvalidException(
           LocalizedStrings.FunctionalIndexCreationHelper_INVALID_INDEXED_EXPRESSION_0
               .toLocalizedString(indexedExpression));
+    }
+    if (expr instanceof CompiledCompositeIndexKey) {
+      for (CompiledValue component : ((CompiledCompositeIndexKey) expr).getComponents()) {
+        if (!isIndexableExpression(component) || component instanceof MapIndexable) {
+          throw new IndexInvalidException(
+              LocalizedStrings.FunctionalIndexCreationHelper_INVALID_INDEXED_EXPRESSION_0
+                  .toLocalizedString(indexedExpression));
+        }
+      }
+    }
     try {
       StringBuffer sb = new StringBuffer();
-      if (expr instanceof MapIndexable) {
+      if (expr instanceof CompiledCompositeIndexKey) {
+        CompiledCompositeIndexKey key = (CompiledCompositeIndexKey) expr;
+        this.canonicalizedIndexedComponents = key.getCanonicalizedComponents(context);
+        key.generateCanonicalizedExpression(sb, context);
+      } else if (expr instanceof MapIndexable) {
         MapIndexable mi = (MapIndexable) expr;
         // CompiledIndexOperation cio = (CompiledIndexOperation)expr;
         List<CompiledValue> indexingKeys = mi.getIndexingKeys();
@@ -510,6 +533,46 @@ class FunctionalIndexCreationHelper extends IndexCreationHelper {
     indexedExpr = expr;
   }
 
+  /**
+   * Returns the indexed expression of a composite index if the given indexed expression is a list
+   * of more than one expression, otherwise null.
+   */
+  private CompiledValue compileCompositeIndexedExpression(String indexedExpression) {
+    List projections;
+    try {
+      projections = this.compiler.compileProjectionAttributes(indexedExpression);
+    } catch (QueryInvalidException e) {
+      return null;
+    }
+    if (projections == null || projections.size() < 2) {
+      return null;
+    }
+    CompiledValue[] components = new CompiledValue[projections.size()];
+    for (int i = 0; i < components.length; i++) {
+      Object[] projection = (Object[]) projections.get(i);
+      if (projection[0] != null) {
+        // aliases mean nothing in an indexed expression
+        return null;
+      }
+      components[i] = (CompiledValue) projection[1];
+    }
+    return new CompiledCompositeIndexKey(components);
+  }
+
+  private static boolean isIndexableExpression(CompiledValue expr) {
+    return !(expr instanceof CompiledUndefined || expr instanceof CompiledLiteral
+        || expr instanceof CompiledComparison || expr instanceof CompiledBindArgument
+        || expr instanceof CompiledNegation);
+  }
+
+  /**
+   * Returns the canonicalized expressions of the components of a composite index, or null if the
+   * indexed expression is not composite.
+   */
+  public String[] getCanonicalizedIndexedComponents() {
+    return this.canonicalizedIndexedComponents;
+  }
+
   private void prepareProjectionAttributes(String projectionAttributes)
       throws IndexInvalidException {
     if (projectionAttributes != null && !projectionAttributes.equals("*")) {
@@ -653,6 +716,16 @@ class FunctionalIndexCreationHelper extends IndexCreationHelper {
         }
       }
       return new CompiledFunction(newCvArray, function);
+    } else if (cv instanceof CompiledCompositeIndexKey) {
+      CompiledValue[] components = ((CompiledCompositeIndexKey) cv).getComponents();
+      CompiledValue[] newComponents = new CompiledValue[components.length];
+      for (int i = 0; i < components.length; ++i) {
+        StringBuffer sbuff = new StringBuffer();
+        components[i].generateCanonicalizedExpression(sbuff, context);
+        newComponents[i] = getModifiedDependentCompiledValue(context, currItrID, components[i],
+            sbuff.toString().startsWith(this.canonicalizedIteratorNames[0]));
+      }
+      return new CompiledCompositeIndexKey(newComponents);
     } else if (cv instanceof CompiledID) {
       CompiledID id = (CompiledID) cv;
       RuntimeIterator rItr0 = (RuntimeIterator) context.getCurrentIterators().get(0);
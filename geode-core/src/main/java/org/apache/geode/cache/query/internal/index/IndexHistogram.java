@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
+import org.apache.geode.cache.query.internal.types.TypeUtils;
+import org.apache.geode.distributed.internal.DistributionConfig;
+
+/**
+ * An equi-depth histogram of the keys of a sorted index, used to estimate how many values a range
+ * condition selects. The keys are split into buckets holding about the same number of values, so
+ * that skewed distributions are estimated as well as uniform ones. Within a bucket the values are
+ * assumed to be spread evenly between its bounds when the keys are numbers, and to be half below
+ * any key otherwise.
+ *
+ * <p>
+ * A histogram is built by adding the keys of the index in ascending order along with the number of
+ * values of each key. It is not updated afterwards; the index builds a new one once it has been
+ * updated {@link #isStale(long) enough}.
+ *
+ * @since Geode 1.1
+ */
+public class IndexHistogram {
+
+  /** The number of buckets of a histogram */
+  static final int NUM_BUCKETS =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "Query.HISTOGRAM_BUCKETS", 64);
+
+  /**
+   * The fraction of the values of an index that have to be updated before its histogram is built
+   * again
+   */
+  static final float REFRESH_RATIO = Float.parseFloat(System
+      .getProperty(DistributionConfig.GEMFIRE_PREFIX + "Query.HISTOGRAM_REFRESH_RATIO", "0.1"));
+
+  /** The number of updates after which the histogram of a small index is built again */
+  private static final int MIN_UPDATES_BEFORE_REFRESH = 100;
+
+  private final Comparator comparator = TypeUtils.getExtendedNumericComparator();
+
+  /** The number of updates of the index when this histogram was built */
+  private final long numUpdates;
+
+  /** The number of values to put in a bucket */
+  private final long bucketDepth;
+
+  /** The smallest key of the index */
+  private Object minKey;
+
+  /** The largest key of each bucket */
+  private final List<Object> upperBounds = new ArrayList<Object>();
+
+  /** The number of values with a key up to the upper bound of each bucket */
+  private final List<Long> cumulativeCounts = new ArrayList<Long>();
+
+  /** The number of distinct keys of each bucket */
+  private final List<Integer> distinctKeys = new ArrayList<Integer>();
+
+  private long total;
+
+  private int bucketKeys;
+
+  private long bucketCount;
+
+  private Object lastKey;
+
+  /**
+   * @param expectedValues the approximate number of values of the index
+   * @param numUpdates the number of updates of the index so far
+   */
+  IndexHistogram(long expectedValues, long numUpdates) {
+    this.numUpdates = numUpdates;
+    this.bucketDepth = Math.max(1, (expectedValues + NUM_BUCKETS - 1) / NUM_BUCKETS);
+  }
+
+  /**
+   * Adds the next key of the index, which must not be smaller than the keys added before.
+   */
+  void add(Object key, long count) {
+    if (count <= 0) {
+      return;
+    }
+    if (this.minKey == null) {
+      this.minKey = key;
+    }
+    this.lastKey = key;
+    this.bucketKeys++;
+    this.bucketCount += count;
+    this.total += count;
+    if (this.bucketCount >= this.bucketDepth) {
+      closeBucket();
+    }
+  }
+
+  /**
+   * Closes the last bucket once all the keys have been added.
+   */
+  IndexHistogram done() {
+    if (this.bucketKeys > 0) {
+      closeBucket();
+    }
+    return this;
+  }
+
+  private void closeBucket() {
+    this.upperBounds.add(this.lastKey);
+    this.cumulativeCounts.add(this.total);
+    this.distinctKeys.add(this.bucketKeys);
+    this.bucketKeys = 0;
+    this.bucketCount = 0;
+  }
+
+  /**
+   * Returns the number of values in the histogram.
+   */
+  public long getTotal() {
+    return this.total;
+  }
+
+  public int getNumBuckets() {
+    return this.upperBounds.size();
+  }
+
+  /**
+   * Returns true if the index has been updated enough since this histogram was built for the
+   * histogram to be built again.
+   *
+   * @param currentUpdates the number of updates of the index so far
+   */
+  boolean isStale(long currentUpdates) {
+    long threshold = Math.max(MIN_UPDATES_BEFORE_REFRESH, (long) (this.total * REFRESH_RATIO));
+    return currentUpdates - this.numUpdates > threshold;
+  }
+
+  /**
+   * Estimates the number of values whose key satisfies the condition <code>indexKey op key</code>.
+   *
+   * @param operator one of the <code>TOK_LT</code>, <code>TOK_LE</code>, <code>TOK_GT</code> or
+   *        <code>TOK_GE</code> tokens
+   * @return the estimate, or -1 if the key cannot be compared with the keys of the index
+   */
+  public int estimate(Object key, int operator) {
+    double below;
+    try {
+      switch (operator) {
+        case OQLLexerTokenTypes.TOK_LT:
+          below = countBelow(key, false);
+          break;
+        case OQLLexerTokenTypes.TOK_LE:
+          below = countBelow(key, true);
+          break;
+        case OQLLexerTokenTypes.TOK_GT:
+          return (int) Math.round(this.total - countBelow(key, true));
+        case OQLLexerTokenTypes.TOK_GE:
+          return (int) Math.round(this.total - countBelow(key, false));
+        default:
+          return -1;
+      }
+    } catch (ClassCastException e) {
+      return -1;
+    }
+    return (int) Math.round(below);
+  }
+
+  /**
+   * Returns the estimated number of values whose key is smaller than the given key, or smaller or
+   * equal to it.
+   */
+  private double countBelow(Object key, boolean inclusive) {
+    int numBuckets = this.upperBounds.size();
+    if (numBuckets == 0 || this.comparator.compare(key, this.minKey) < 0) {
+      return 0;
+    }
+    // find the first bucket whose upper bound is not smaller than the key
+    int low = 0;
+    int high = numBuckets - 1;
+    if (this.comparator.compare(key, this.upperBounds.get(high)) > 0) {
+      return this.total;
+    }
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (this.comparator.compare(this.upperBounds.get(mid), key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    long before = low == 0 ? 0 : this.cumulativeCounts.get(low - 1);
+    long inBucket = this.cumulativeCounts.get(low) - before;
+    double perKey = (double) inBucket / this.distinctKeys.get(low);
+    Object upperBound = this.upperBounds.get(low);
+    if (this.comparator.compare(key, upperBound) == 0) {
+      return before + inBucket - (inclusive ? 0 : perKey);
+    }
+    Object lowerBound = low == 0 ? this.minKey : this.upperBounds.get(low - 1);
+    double fraction = 0.5;
+    if (key instanceof Number && lowerBound instanceof Number && upperBound instanceof Number) {
+      double lower = ((Number) lowerBound).doubleValue();
+      double upper = ((Number) upperBound).doubleValue();
+      if (upper > lower) {
+        fraction = (((Number) key).doubleValue() - lower) / (upper - lower);
+      }
+    }
+    double estimate = before + inBucket * fraction;
+    if (low == 0 && this.comparator.compare(key, this.minKey) == 0) {
+      // the smallest key is the lower bound of the first bucket
+      estimate = inclusive ? perKey : 0;
+    }
+    return estimate;
+  }
+
+  @Override
+  public String toString() {
+    return "IndexHistogram[values=" + this.total + "; buckets=" + this.upperBounds.size() + "]";
+  }
+}
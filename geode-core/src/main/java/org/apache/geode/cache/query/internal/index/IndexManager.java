@@ -30,6 +30,7 @@ import org.apache.geode.internal.Assert;
 import org.apache.geode.internal.cache.*;
 import org.apache.geode.internal.i18n.LocalizedStrings;
 import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.log4j.LocalizedMessage;
 import org.apache.geode.internal.logging.LoggingThreadGroup;
 import org.apache.logging.log4j.Logger;
 
@@ -65,13 +66,32 @@ public class IndexManager {
   private final ConcurrentMap indexes = new ConcurrentHashMap();
   // TODO Asif : Fix the appropriate size of the Map & the concurrency level
   private ConcurrentMap canonicalizedIteratorNameMap = new ConcurrentHashMap();
-  private IndexUpdaterThread updater;
+  private AsyncIndexUpdater updater;
+  private final CopyOnWriteArrayList<ColumnarProjection> columnarProjections =
+      new CopyOnWriteArrayList<ColumnarProjection>();
 
   // Threshold for Queue.
   private final int INDEX_MAINTENANCE_BUFFER =
       Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "AsynchIndexMaintenanceThreshold", -1)
           .intValue();
 
+  /**
+   * Number of threads applying the region updates to the indexes of a region when the index
+   * maintenance is asynchronous. The region of a bucket has a single thread, as the other buckets
+   * of the partitioned region have their own.
+   */
+  private static final int ASYNC_INDEX_MAINTENANCE_THREADS =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "AsynchIndexMaintenanceThreads",
+          Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+  /**
+   * Maximum number of queued region updates an index updater thread applies at once. The updates
+   * of an entry that are followed by another update of it in the same batch are skipped.
+   */
+  private static final int ASYNC_INDEX_MAINTENANCE_BATCH_SIZE =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "AsynchIndexMaintenanceBatchSize",
+          1000);
+
   public static boolean JOIN_OPTIMIZATION =
       !Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "index.DisableJoinOptimization");
 
@@ -106,6 +126,17 @@ public class IndexManager {
 
   /** For test purpose only */
   public static boolean TEST_RANGEINDEX_ONLY = false;
+
+  /**
+   * System property to keep the keys of compact range indexes in a {@link CompactIndexStore}, which
+   * takes less memory than the default {@link MemoryIndexStore} at the cost of serializing index
+   * maintenance.
+   */
+  public static final boolean COMPACT_INDEX_STORE =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "index.COMPACT_INDEX_STORE");
+
+  /** For test purpose only */
+  public static boolean TEST_COMPACT_INDEX_STORE = false;
   public static final String INDEX_ELEMARRAY_THRESHOLD_PROP = "index_elemarray_threshold";
   public static final String INDEX_ELEMARRAY_SIZE_PROP = "index_elemarray_size";
   public static final int INDEX_ELEMARRAY_THRESHOLD =
@@ -136,7 +167,9 @@ public class IndexManager {
     if (!indexMaintenanceSynchronous) {
       final LoggingThreadGroup group =
           LoggingThreadGroup.createThreadGroup("QueryMonitor Thread Group", logger);
-      updater = new IndexUpdaterThread(group, this.INDEX_MAINTENANCE_BUFFER,
+      int numThreads =
+          region instanceof BucketRegion ? 1 : Math.max(1, ASYNC_INDEX_MAINTENANCE_THREADS);
+      updater = new AsyncIndexUpdater(group, numThreads, this.INDEX_MAINTENANCE_BUFFER,
           "OqlIndexUpdater:" + region.getFullPath());
       updater.start();
     }
@@ -221,12 +254,27 @@ public class IndexManager {
   }
 
   /**
-   * Used by tests to access the updater thread to determine its progress
+   * Returns the updater applying the region updates to the indexes when the index maintenance is
+   * asynchronous, or null if it is synchronous.
    */
-  public IndexUpdaterThread getUpdaterThread() {
+  public AsyncIndexUpdater getAsyncIndexUpdater() {
     return this.updater;
   }
 
+  /**
+   * Waits until the region updates made before this call have been applied to the indexes. Returns
+   * immediately if the index maintenance is synchronous.
+   *
+   * @param timeoutMillis how long to wait at most
+   * @return false if the updates were not all applied before the timeout
+   */
+  public boolean waitForIndexUpdates(long timeoutMillis) throws InterruptedException {
+    if (isIndexMaintenanceTypeSynchronous()) {
+      return true;
+    }
+    return this.updater.waitForUpdates(timeoutMillis);
+  }
+
   // @todo need more specific list of exceptions
   /**
    * Create an index that can be used when executing queries.
@@ -288,6 +336,12 @@ public class IndexManager {
       } else {
         throw new AssertionError("Don't know how to set helper for " + indexType);
       }
+      if (helper.getCompiledIndexedExpression() instanceof CompiledCompositeIndexKey
+          && (!isCompactOrHash || indexType != IndexType.FUNCTIONAL)) {
+        throw new IndexInvalidException(
+            "Composite index creation is only supported for functional indexes on path expressions"
+                + " with a single iterator on the region and synchronous index maintenance");
+      }
       if (!isCompactOrHash && indexType != IndexType.PRIMARY_KEY) {
 
         if (indexType == IndexType.HASH) {
@@ -397,6 +451,7 @@ public class IndexManager {
         }
       }
       assert (index != null);
+      clearCompiledQueries();
       if (logger.isDebugEnabled()) {
         logger.debug("Completed creating index with indexName: {} On region: {}", indexName,
             region.getFullPath());
@@ -435,13 +490,18 @@ public class IndexManager {
 
     // indexedExpression requirement
     CompiledValue cv = helper.getCompiledIndexedExpression();
-    int nodeType;
-    do {
-      nodeType = cv.getType();
-      if (nodeType == CompiledValue.PATH) {
-        cv = ((CompiledPath) cv).getReceiver();
+    if (cv instanceof CompiledCompositeIndexKey) {
+      // each component of a composite index must be a path expression
+      for (CompiledValue component : ((CompiledCompositeIndexKey) cv).getComponents()) {
+        int tailType = getPathTailType(component);
+        if (tailType != OQLLexerTokenTypes.Identifier
+            && tailType != OQLLexerTokenTypes.METHOD_INV) {
+          return false;
+        }
       }
-    } while (nodeType == CompiledValue.PATH);
+      cv = ((CompiledCompositeIndexKey) cv).getComponents()[0];
+    }
+    int nodeType = getPathTailType(cv);
     // end of path, nodeType at this point should be an Identifier
     if (nodeType != OQLLexerTokenTypes.Identifier && nodeType != OQLLexerTokenTypes.METHOD_INV) {
       if (nodeType == OQLLexerTokenTypes.TOK_LBRACK && !helper.isMapTypeIndex()
@@ -476,6 +536,17 @@ public class IndexManager {
     return true;
   }
 
+  private static int getPathTailType(CompiledValue cv) {
+    int nodeType;
+    do {
+      nodeType = cv.getType();
+      if (nodeType == CompiledValue.PATH) {
+        cv = ((CompiledPath) cv).getReceiver();
+      }
+    } while (nodeType == CompiledValue.PATH);
+    return nodeType;
+  }
+
   public Index getIndex(String indexName) {
     IndexTask indexTask = new IndexTask(indexName);
     Object ind = this.indexes.get(indexTask);
@@ -490,6 +561,7 @@ public class IndexManager {
   public void addIndex(String indexName, Index index) {
     IndexTask indexTask = new IndexTask(indexName);
     this.indexes.put(indexTask, index);
+    clearCompiledQueries();
   }
 
   /**
@@ -826,6 +898,7 @@ public class IndexManager {
     if (this.indexes.remove(indexTask) != null) {
       AbstractIndex indexHandle = (AbstractIndex) index;
       indexHandle.destroy();
+      clearCompiledQueries();
     }
   }
 
@@ -849,6 +922,9 @@ public class IndexManager {
       IndexTask indexTask = (IndexTask) entry.getKey();
       this.indexes.remove(indexTask);
     }
+    if (numIndexes > 0) {
+      clearCompiledQueries();
+    }
     return numIndexes;
   }
 
@@ -889,6 +965,9 @@ public class IndexManager {
     if (region.getCache().getLogger().infoEnabled()) {
       region.getCache().getLogger().info("Populating indexes for region " + region.getName());
     }
+    // evaluate the indexed expressions on PdxInstances, which only deserialize the indexed fields
+    boolean oldReadSerialized = DefaultQuery.getPdxReadSerialized();
+    DefaultQuery.setPdxReadSerialized(this.region.getCache(), true);
     boolean throwException = false;
     HashMap<String, Exception> exceptionsMap = new HashMap<String, Exception>();
     try {
@@ -931,6 +1010,7 @@ public class IndexManager {
         throw new MultiIndexCreationException(exceptionsMap);
       }
     } finally {
+      DefaultQuery.setPdxReadSerialized(this.region.getCache(), oldReadSerialized);
       notifyAfterUpdate();
     }
   }
@@ -1132,6 +1212,7 @@ public class IndexManager {
               LocalizedStrings.IndexManager_INVALID_ACTION.toLocalizedString());
         }
       }
+      updateColumnarProjections(entry, action, opCode);
     } finally {
       DefaultQuery.setPdxReadSerialized(this.region.getCache(), false);
       if (tx != null) {
@@ -1141,6 +1222,51 @@ public class IndexManager {
     }
   }
 
+  private void updateColumnarProjections(RegionEntry entry, int action, int opCode) {
+    if (this.columnarProjections.isEmpty()) {
+      return;
+    }
+    for (ColumnarProjection projection : this.columnarProjections) {
+      if (action == REMOVE_ENTRY) {
+        // the removal that precedes an update is followed by the update itself
+        if (opCode != IndexProtocol.BEFORE_UPDATE_OP) {
+          projection.remove(entry);
+        }
+      } else {
+        projection.update(entry);
+      }
+    }
+  }
+
+  /**
+   * Creates a columnar projection of the given fields of this region's values and adds a row for
+   * each of its current entries. The projection is then maintained along with the indexes.
+   */
+  public ColumnarProjection createColumnarProjection(String... fieldNames) {
+    ColumnarProjection projection =
+        new ColumnarProjection((LocalRegion) this.region, fieldNames.clone());
+    // add it first so that no concurrent update is missed while populating
+    this.columnarProjections.add(projection);
+    projection.populate();
+    return projection;
+  }
+
+  /**
+   * Returns a columnar projection that contains all of the given fields, or null if there is none.
+   */
+  public ColumnarProjection getColumnarProjection(Collection<String> fieldNames) {
+    for (ColumnarProjection projection : this.columnarProjections) {
+      if (projection.containsFields(fieldNames)) {
+        return projection;
+      }
+    }
+    return null;
+  }
+
+  public boolean removeColumnarProjection(ColumnarProjection projection) {
+    return this.columnarProjections.remove(projection);
+  }
+
   private void waitBeforeUpdate() {
     synchronized (indexes) {
       ++numCreators;
@@ -1209,6 +1335,9 @@ public class IndexManager {
 
         }
       }
+      for (ColumnarProjection projection : this.columnarProjections) {
+        projection.recreate();
+      }
     } catch (Exception e) {
       throw new IndexInvalidException(e);
     } finally {
@@ -1259,6 +1388,20 @@ public class IndexManager {
     }
   }
 
+  /**
+   * Drops the compiled queries of the cache so that queries are prepared again against the current
+   * set of indexes.
+   */
+  private void clearCompiledQueries() {
+    if (this.region.getCache() instanceof GemFireCacheImpl) {
+      CompiledQueryCache compiledQueries =
+          ((GemFireCacheImpl) this.region.getCache()).getCompiledQueryCache();
+      if (compiledQueries != null) {
+        compiledQueries.clear();
+      }
+    }
+  }
+
   private CachePerfStats getCachePerfStats() {
     return ((LocalRegion) this.region).getCachePerfStats();
   }
@@ -1268,6 +1411,8 @@ public class IndexManager {
    */
   public void destroy() throws QueryException {
     this.indexes.clear();
+    clearCompiledQueries();
+    this.columnarProjections.clear();
     if (!isIndexMaintenanceTypeSynchronous())
       updater.shutdown();
   }
@@ -1371,13 +1516,156 @@ public class IndexManager {
 
   ////////////////////// Inner Classes //////////////////////
 
+  /**
+   * Applies the region updates to the indexes when the index maintenance is asynchronous. The
+   * updates are divided among {@link IndexUpdaterThread}s by the key of their entry, so that the
+   * updates of an entry are applied by the same thread, in order.
+   */
+  public class AsyncIndexUpdater {
+
+    private final IndexUpdaterThread[] threads;
+
+    AsyncIndexUpdater(ThreadGroup group, int numThreads, int updateThreshold, String threadName) {
+      this.threads = new IndexUpdaterThread[numThreads];
+      for (int i = 0; i < numThreads; i++) {
+        this.threads[i] = new IndexUpdaterThread(group, updateThreshold,
+            numThreads == 1 ? threadName : threadName + ":" + i);
+      }
+    }
+
+    void start() {
+      for (IndexUpdaterThread thread : this.threads) {
+        thread.start();
+      }
+    }
+
+    public void addTask(int action, RegionEntry entry, int opCode) {
+      if (action == RECREATE_INDEX) {
+        // every thread applies the updates queued before the recreation first, and the first
+        // thread recreates the indexes while the others wait
+        RecreateIndexesTask task = new RecreateIndexesTask(this.threads.length);
+        for (IndexUpdaterThread thread : this.threads) {
+          thread.addTask(task, true);
+        }
+      } else {
+        getThread(entry).addTask(new IndexUpdateTask(action, entry, opCode), false);
+      }
+    }
+
+    private IndexUpdaterThread getThread(RegionEntry entry) {
+      if (this.threads.length == 1) {
+        return this.threads[0];
+      }
+      return this.threads[(entry.getKey().hashCode() & 0x7fffffff) % this.threads.length];
+    }
+
+    /**
+     * Returns the number of region updates queued but not applied yet.
+     */
+    public long getQueueSize() {
+      long size = 0;
+      for (IndexUpdaterThread thread : this.threads) {
+        size += thread.getQueueSize();
+      }
+      return size;
+    }
+
+    /**
+     * Waits until the region updates queued before this call have been applied to the indexes.
+     *
+     * @return false if the updates were not all applied before the timeout
+     */
+    public boolean waitForUpdates(long timeoutMillis) throws InterruptedException {
+      long[] numAdded = new long[this.threads.length];
+      for (int i = 0; i < this.threads.length; i++) {
+        numAdded[i] = this.threads[i].numAdded.get();
+      }
+      long deadline = System.currentTimeMillis() + timeoutMillis;
+      for (int i = 0; i < this.threads.length; i++) {
+        if (!this.threads[i].waitForUpdates(numAdded[i], deadline)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Stops the threads. Does not return until they have stopped.
+     */
+    public void shutdown() {
+      for (IndexUpdaterThread thread : this.threads) {
+        thread.shutdown();
+      }
+    }
+
+    /**
+     * Used by tests to determine if the updater threads have applied all the queued updates.
+     */
+    public boolean isDone() {
+      for (IndexUpdaterThread thread : this.threads) {
+        if (!thread.isDone()) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * A region update queued for an {@link IndexUpdaterThread}.
+   */
+  static class IndexUpdateTask {
+
+    final int action;
+
+    final RegionEntry entry;
+
+    final int opCode;
+
+    final long queueTime = System.currentTimeMillis();
+
+    IndexUpdateTask(int action, RegionEntry entry, int opCode) {
+      this.action = action;
+      this.entry = entry;
+      this.opCode = opCode;
+    }
+
+    boolean isRemovalBeforeUpdate() {
+      return this.action == REMOVE_ENTRY && this.opCode == IndexProtocol.BEFORE_UPDATE_OP;
+    }
+  }
+
+  /**
+   * The recreation of the indexes after the region is cleared, queued for every
+   * {@link IndexUpdaterThread} of the region.
+   */
+  static class RecreateIndexesTask extends IndexUpdateTask {
+
+    private final CountDownLatch arrived;
+
+    private final CountDownLatch recreated = new CountDownLatch(1);
+
+    RecreateIndexesTask(int numThreads) {
+      super(RECREATE_INDEX, null, IndexProtocol.OTHER_OP);
+      this.arrived = new CountDownLatch(numThreads);
+    }
+  }
+
   public class IndexUpdaterThread extends Thread {
 
     private volatile boolean running = true;
 
     private volatile boolean shutdownRequested = false;
 
-    private volatile BlockingQueue pendingTasks;
+    private volatile BlockingQueue<IndexUpdateTask> pendingTasks;
+
+    /** The number of tasks added to the queue */
+    private final AtomicLong numAdded = new AtomicLong();
+
+    /** The number of tasks applied or skipped, only written by this thread */
+    private volatile long numDone;
+
+    private final Object doneLock = new Object();
 
     /**
      * Creates instance of IndexUpdaterThread
@@ -1390,20 +1678,44 @@ public class IndexManager {
       // Check if threshold is set.
       if (updateThreshold > 0) {
         // Create a bounded queue.
-        pendingTasks = new ArrayBlockingQueue(updateThreshold);
+        pendingTasks = new ArrayBlockingQueue<IndexUpdateTask>(updateThreshold);
       } else {
         // Create non-bounded queue.
-        pendingTasks = new LinkedBlockingQueue();
+        pendingTasks = new LinkedBlockingQueue<IndexUpdateTask>();
       }
       this.setDaemon(true);
     }
 
-    public void addTask(int action, RegionEntry entry, int opCode) {
-      Object[] task = new Object[3];
-      task[0] = Integer.valueOf(action);
-      task[1] = entry;
-      task[2] = Integer.valueOf(opCode); // !!!:ezoerner:20081029 change to valueOf jdk 1.5+
-      pendingTasks.add(task);
+    /**
+     * Queues a task. Unless wait is true, throws an IllegalStateException if the queue is full.
+     */
+    void addTask(IndexUpdateTask task, boolean wait) {
+      if (wait) {
+        boolean interrupted = false;
+        try {
+          while (true) {
+            try {
+              pendingTasks.put(task);
+              break;
+            } catch (InterruptedException e) {
+              interrupted = true;
+            }
+          }
+        } finally {
+          if (interrupted) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      } else {
+        pendingTasks.add(task);
+      }
+      // counted once queued, so that waiting for the tasks added never waits for a rejected one
+      numAdded.incrementAndGet();
+      incAsyncUpdateQueueSize(1);
+    }
+
+    long getQueueSize() {
+      return Math.max(0, numAdded.get() - numDone);
     }
 
     /**
@@ -1426,8 +1738,8 @@ public class IndexManager {
     @Override
     public void run() {
       // async writers main loop
-      // logger.debug("DiskRegion writer started (writer=" + this + ")");
       org.apache.geode.CancelCriterion stopper = ((LocalRegion) region).getCancelCriterion();
+      List<IndexUpdateTask> batch = new ArrayList<IndexUpdateTask>();
       try {
         while (!this.shutdownRequested) {
           // Termination checks
@@ -1436,13 +1748,16 @@ public class IndexManager {
             break;
           }
           try {
-            Object[] task = (Object[]) pendingTasks.take();
+            batch.add(pendingTasks.take());
             if (this.shutdownRequested) {
               break;
             }
-            updateIndexes(task);
+            pendingTasks.drainTo(batch, ASYNC_INDEX_MAINTENANCE_BATCH_SIZE - 1);
+            updateIndexes(batch);
           } catch (InterruptedException ignore) {
             return; // give up (exit the thread)
+          } finally {
+            batch.clear();
           }
         }
       } finally {
@@ -1450,42 +1765,158 @@ public class IndexManager {
       }
     }
 
-    private void updateIndexes(Object[] task) {
-      int action = ((Integer) task[0]).intValue();
-      RegionEntry entry = (RegionEntry) task[1];
-      int opCode = ((Integer) task[2]).intValue();
-      // System.out.println("entry = "+entry.getKey());
-      if (entry != null || action == RECREATE_INDEX) {
-        try {
-          if (action == RECREATE_INDEX) {
-            recreateAllIndexesForRegion();
-          } else {
-            if (entry != null) {
-              entry.setUpdateInProgress(true);
-            }
-            processAction(entry, action, opCode);
+    private void updateIndexes(List<IndexUpdateTask> batch) throws InterruptedException {
+      long lag = System.currentTimeMillis() - batch.get(0).queueTime;
+      int[] additions = new int[batch.size()];
+      boolean[] skipped = new boolean[batch.size()];
+      int numCoalesced = coalesce(batch, additions, skipped);
+      try {
+        for (int i = 0; i < batch.size(); i++) {
+          if (skipped[i]) {
+            continue;
           }
-        } catch (Exception e) {
-          e.printStackTrace();
-        } finally {
-          if (entry != null && action != RECREATE_INDEX) {
-            entry.setUpdateInProgress(false);
+          IndexUpdateTask task = batch.get(i);
+          if (task instanceof RecreateIndexesTask) {
+            recreateIndexes((RecreateIndexesTask) task);
+            continue;
+          }
+          updateIndexes(task);
+          if (additions[i] >= 0) {
+            // the indexes keep the old key of the entry for the addition in a thread local, so it
+            // has to follow the removal before another entry is updated
+            updateIndexes(batch.get(additions[i]));
+            skipped[additions[i]] = true;
+          }
+        }
+      } finally {
+        synchronized (this.doneLock) {
+          this.numDone += batch.size();
+          this.doneLock.notifyAll();
+        }
+      }
+      updateAsyncIndexStats(batch.size(), lag, numCoalesced);
+    }
+
+    /**
+     * Marks the updates of the batch that are replaced by a later update of the same entry, as
+     * the indexes are always updated from the current value of the entry, and finds the addition
+     * that completes each removal before an update. Returns the number of updates skipped.
+     */
+    private int coalesce(List<IndexUpdateTask> batch, int[] additions, boolean[] skipped) {
+      // the removal and addition of the update of each entry that was the last task of the entry
+      Map<RegionEntry, int[]> lastUpdates = new IdentityHashMap<RegionEntry, int[]>();
+      // the removal of each entry whose addition is still to come
+      Map<RegionEntry, Integer> removals = new IdentityHashMap<RegionEntry, Integer>();
+      int numCoalesced = 0;
+      for (int i = 0; i < batch.size(); i++) {
+        additions[i] = -1;
+        IndexUpdateTask task = batch.get(i);
+        if (task.entry == null) {
+          // the recreation of the indexes is not reordered with any update
+          lastUpdates.clear();
+          removals.clear();
+        } else if (task.isRemovalBeforeUpdate()) {
+          removals.put(task.entry, i);
+        } else if (task.action == UPDATE_ENTRY && removals.containsKey(task.entry)) {
+          int removal = removals.remove(task.entry);
+          additions[removal] = i;
+          int[] previous = lastUpdates.put(task.entry, new int[] {removal, i});
+          if (previous != null) {
+            skipped[previous[0]] = true;
+            skipped[previous[1]] = true;
+            numCoalesced += 2;
+          }
+        } else {
+          lastUpdates.remove(task.entry);
+          removals.remove(task.entry);
+        }
+      }
+      return numCoalesced;
+    }
+
+    private void updateIndexes(IndexUpdateTask task) {
+      RegionEntry entry = task.entry;
+      try {
+        entry.setUpdateInProgress(true);
+        processAction(entry, task.action, task.opCode);
+      } catch (Exception e) {
+        logger.error(LocalizedMessage.create(
+            LocalizedStrings.IndexManager_EXCEPTION_UPDATING_INDEXES_ASYNCHRONOUSLY,
+            region.getFullPath()), e);
+      } finally {
+        entry.setUpdateInProgress(false);
+      }
+    }
+
+    private void recreateIndexes(RecreateIndexesTask task) throws InterruptedException {
+      task.arrived.countDown();
+      if (this != updater.threads[0]) {
+        task.recreated.await();
+        return;
+      }
+      try {
+        task.arrived.await();
+        recreateAllIndexesForRegion();
+      } catch (Exception e) {
+        logger.error(LocalizedMessage.create(
+            LocalizedStrings.IndexManager_EXCEPTION_RECREATING_INDEXES, region.getFullPath()), e);
+      } finally {
+        task.recreated.countDown();
+      }
+    }
+
+    boolean waitForUpdates(long numAdded, long deadline) throws InterruptedException {
+      synchronized (this.doneLock) {
+        while (this.numDone < numAdded) {
+          long remaining = deadline - System.currentTimeMillis();
+          if (remaining <= 0) {
+            return false;
           }
+          this.doneLock.wait(remaining);
         }
       }
+      return true;
     }
 
     /**
-     * Used by tests to determine if the updater thread has finished updating its indexes. The list
-     * is cleared without synchronization, which makes this methods somewhat unsafe from a threading
-     * point of view.
+     * Used by tests to determine if the updater thread has applied all the queued updates.
      */
-    public synchronized boolean isDone() {
-      return this.pendingTasks.size() == 0;
+    public boolean isDone() {
+      return this.pendingTasks.isEmpty() && this.numDone >= this.numAdded.get();
     }
 
   }
 
+  /**
+   * Adds delta to the number of region updates waiting to be applied to each index when a region
+   * update is queued.
+   */
+  private void incAsyncUpdateQueueSize(long delta) {
+    for (Object ind : this.indexes.values()) {
+      // Check if the value is instance of FutureTask, this means
+      // the index is in create phase.
+      if (ind instanceof FutureTask) {
+        continue;
+      }
+      ((AbstractIndex) ind).incAsyncUpdateQueueSize(delta);
+    }
+  }
+
+  /**
+   * Updates the statistics of the asynchronous maintenance of the indexes after a batch of region
+   * updates has been applied.
+   */
+  private void updateAsyncIndexStats(int numApplied, long lag, int numCoalesced) {
+    for (Object ind : this.indexes.values()) {
+      // Check if the value is instance of FutureTask, this means
+      // the index is in create phase.
+      if (ind instanceof FutureTask) {
+        continue;
+      }
+      ((AbstractIndex) ind).updateAsyncUpdateStats(numApplied, lag, numCoalesced);
+    }
+  }
+
   /**
    * Index Task used to create the index. This is used along with the FutureTask to take care of,
    * same index creation request from multiple threads. At any time only one thread succeeds and
@@ -1647,6 +2078,10 @@ public class IndexManager {
             }
           }
           indexes.put(this, index);
+          if (updater != null) {
+            // the updates already queued are counted by the index once they are applied
+            aIndex.incAsyncUpdateQueueSize(updater.getQueueSize());
+          }
           if (region instanceof BucketRegion && prIndex != null) {
             prIndex.addToBucketIndexes(region, index);
             prIndex.incNumBucketIndexes();
@@ -40,6 +40,9 @@ public class IndexStats {
   private static final int readLockCountId;
   private static final int numMapIndexKeysId;
   private static final int numBucketIndexesId;
+  private static final int asyncUpdateQueueSizeId;
+  private static final int asyncUpdateLagId;
+  private static final int asyncUpdatesCoalescedId;
 
   /** The Statistics object that we delegate most behavior to */
   private final Statistics stats;
@@ -54,6 +57,13 @@ public class IndexStats {
     final String numUpdatesDesc = "Number of updates that have completed on this index";
     final String numUsesDesc = "Number of times this index has been used while executing a query";
     final String updateTimeDesc = "Total time spent updating this index";
+    final String asyncUpdateQueueSizeDesc = "Current number of region updates waiting to be "
+        + "applied to this index by the asynchronous index maintenance";
+    final String asyncUpdateLagDesc = "How long the oldest of the region updates last applied to "
+        + "this index by the asynchronous index maintenance had been waiting";
+    final String asyncUpdatesCoalescedDesc = "Number of region updates that the asynchronous index "
+        + "maintenance did not apply to this index because a later update of the same entry "
+        + "replaced them";
 
     type = f.createType("IndexStats", "Statistics about a query index",
         new StatisticDescriptor[] {f.createLongGauge("numKeys", numKeysDesc, "keys"),
@@ -68,7 +78,10 @@ public class IndexStats {
             f.createIntGauge("readLockCount", "Current number of read locks taken.", "uses"),
             f.createLongGauge("numMapIndexKeys", "Number of keys in this Map index", "keys"),
             f.createIntGauge("numBucketIndexes",
-                "Number of bucket indexes in the partitioned region", "indexes"),});
+                "Number of bucket indexes in the partitioned region", "indexes"),
+            f.createLongGauge("asyncUpdateQueueSize", asyncUpdateQueueSizeDesc, "updates"),
+            f.createLongGauge("asyncUpdateLag", asyncUpdateLagDesc, "milliseconds"),
+            f.createLongCounter("asyncUpdatesCoalesced", asyncUpdatesCoalescedDesc, "updates"),});
 
     // Initialize id fields
     numKeysId = type.nameToId("numKeys");
@@ -82,6 +95,9 @@ public class IndexStats {
     readLockCountId = type.nameToId("readLockCount");
     numMapIndexKeysId = type.nameToId("numMapIndexKeys");
     numBucketIndexesId = type.nameToId("numBucketIndexes");
+    asyncUpdateQueueSizeId = type.nameToId("asyncUpdateQueueSize");
+    asyncUpdateLagId = type.nameToId("asyncUpdateLag");
+    asyncUpdatesCoalescedId = type.nameToId("asyncUpdatesCoalesced");
   }
 
   //////////////////////// Constructors ////////////////////////
@@ -132,6 +148,18 @@ public class IndexStats {
     return stats.getInt(numBucketIndexesId);
   }
 
+  public long getAsyncUpdateQueueSize() {
+    return stats.getLong(asyncUpdateQueueSizeId);
+  }
+
+  public long getAsyncUpdateLag() {
+    return stats.getLong(asyncUpdateLagId);
+  }
+
+  public long getAsyncUpdatesCoalesced() {
+    return stats.getLong(asyncUpdatesCoalescedId);
+  }
+
   ////////////////////// Updating Stats //////////////////////
 
   public void incNumUpdates() {
@@ -189,6 +217,18 @@ public class IndexStats {
   public void incNumBucketIndexes(int delta) {
     this.stats.incInt(numBucketIndexesId, delta);
   }
+
+  public void incAsyncUpdateQueueSize(long delta) {
+    this.stats.incLong(asyncUpdateQueueSizeId, delta);
+  }
+
+  public void setAsyncUpdateLag(long millis) {
+    this.stats.setLong(asyncUpdateLagId, millis);
+  }
+
+  public void incAsyncUpdatesCoalesced(long delta) {
+    this.stats.incLong(asyncUpdatesCoalescedId, delta);
+  }
   ////// Special Instance Methods /////
 
   /**
@@ -766,7 +766,7 @@ public class MemoryIndexStore implements IndexStore {
     }
   }
 
-  class CachedEntryWrapper {
+  static class CachedEntryWrapper {
 
     private Object key, value;
 
@@ -637,6 +637,16 @@ public class RangeIndex extends AbstractIndex {
     }
   }
 
+  @Override
+  boolean addKeysToHistogram(IndexHistogram histogram) {
+    for (Object entry : this.valueToEntriesMap.entrySet()) {
+      Map.Entry keyAndValues = (Map.Entry) entry;
+      histogram.add(keyAndValues.getKey(),
+          ((RegionEntryToValuesMap) keyAndValues.getValue()).getNumValues());
+    }
+    return true;
+  }
+
   public int getSizeEstimate(Object key, int operator, int matchLevel)
       throws TypeMismatchException {
     // Get approx size;
@@ -682,7 +692,10 @@ public class RangeIndex extends AbstractIndex {
             if (RangeIndex.testHook != null) {
               RangeIndex.testHook.hook(1);
             }
-            if (totalSize > 1) {
+            size = totalSize > 1 ? estimateFromHistogram(key, operator) : -1;
+            if (size >= 0) {
+              // estimated from the distribution of the keys
+            } else if (totalSize > 1) {
               Number keyAsNum = (Number) key;
               int x = 0;
               Map.Entry firstEntry = this.valueToEntriesMap.firstEntry();
@@ -710,7 +723,10 @@ public class RangeIndex extends AbstractIndex {
               size = this.valueToEntriesMap.containsKey(key) ? 1 : 0;
             }
           } else {
-            size = Integer.MAX_VALUE;
+            size = matchLevel <= 0 ? estimateFromHistogram(key, operator) : -1;
+            if (size < 0) {
+              size = Integer.MAX_VALUE;
+            }
           }
           break;
 
@@ -721,7 +737,10 @@ public class RangeIndex extends AbstractIndex {
             if (testHook != null) {
               testHook.hook(2);
             }
-            if (totalSize > 1) {
+            size = totalSize > 1 ? estimateFromHistogram(key, operator) : -1;
+            if (size >= 0) {
+              // estimated from the distribution of the keys
+            } else if (totalSize > 1) {
               Number keyAsNum = (Number) key;
               int x = 0;
               Map.Entry firstEntry = this.valueToEntriesMap.firstEntry();
@@ -754,7 +773,10 @@ public class RangeIndex extends AbstractIndex {
               size = this.valueToEntriesMap.containsKey(key) ? 1 : 0;
             }
           } else {
-            size = Integer.MAX_VALUE;
+            size = matchLevel <= 0 ? estimateFromHistogram(key, operator) : -1;
+            if (size < 0) {
+              size = Integer.MAX_VALUE;
+            }
           }
           break;
       }
@@ -1527,6 +1549,30 @@ public class RangeIndex extends AbstractIndex {
       this.vsdStats.incReadLockCount(delta);
     }
 
+    public void incAsyncUpdateQueueSize(long delta) {
+      this.vsdStats.incAsyncUpdateQueueSize(delta);
+    }
+
+    public void setAsyncUpdateLag(long millis) {
+      this.vsdStats.setAsyncUpdateLag(millis);
+    }
+
+    public void incAsyncUpdatesCoalesced(long delta) {
+      this.vsdStats.incAsyncUpdatesCoalesced(delta);
+    }
+
+    public long getAsyncUpdateQueueSize() {
+      return this.vsdStats.getAsyncUpdateQueueSize();
+    }
+
+    public long getAsyncUpdateLag() {
+      return this.vsdStats.getAsyncUpdateLag();
+    }
+
+    public long getAsyncUpdatesCoalesced() {
+      return this.vsdStats.getAsyncUpdatesCoalesced();
+    }
+
     public long getUseTime() {
       return this.vsdStats.getUseTime();
     }
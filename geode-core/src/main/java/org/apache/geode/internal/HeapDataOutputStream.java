@@ -502,12 +502,18 @@ public class HeapDataOutputStream extends OutputStream
     return result;
   }
 
+  /**
+   * Write the contents of this stream to the specified channel using out if a buffer is needed. Any
+   * bytes already in out, from its start to its position, are written ahead of this stream's
+   * contents. Direct chunks are written straight from memory in the same gathering write as those
+   * bytes. On return out has been cleared.
+   */
   public final void sendTo(SocketChannel chan, ByteBuffer out) throws IOException {
     finishWriting();
     if (size() == 0) {
+      flushBuffer(chan, out);
       return;
     }
-    out.clear();
     if (this.chunks != null) {
       for (ByteBuffer bb : this.chunks) {
         sendChunkTo(bb, chan, out);
@@ -525,10 +531,7 @@ public class HeapDataOutputStream extends OutputStream
       throws IOException {
     int bytesSent = in.remaining();
     if (in.isDirect()) {
-      flushBuffer(sc, out);
-      while (in.remaining() > 0) {
-        sc.write(in);
-      }
+      flushBufferAndWrite(sc, out, in);
     } else {
       // copy in to out. If out fills flush it
       int OUT_MAX = out.remaining();
@@ -565,6 +568,28 @@ public class HeapDataOutputStream extends OutputStream
     out.clear();
   }
 
+  /**
+   * Writes the bytes in out, from its start to its position, followed by the remaining bytes of in
+   * to the channel with a single gathering write when possible. This lets a direct buffer, for
+   * example one that wraps an off-heap value, be sent without being copied into out. On return out
+   * has been cleared and in has no remaining bytes.
+   */
+  public static void flushBufferAndWrite(SocketChannel sc, ByteBuffer out, ByteBuffer in)
+      throws IOException {
+    out.flip();
+    if (out.remaining() > 0) {
+      final ByteBuffer[] bufs = new ByteBuffer[] {out, in};
+      do {
+        sc.write(bufs);
+      } while (in.remaining() > 0 || out.remaining() > 0);
+    } else {
+      while (in.remaining() > 0) {
+        sc.write(in);
+      }
+    }
+    out.clear();
+  }
+
   /**
    * Write the contents of this stream to the byte buffer.
    * 
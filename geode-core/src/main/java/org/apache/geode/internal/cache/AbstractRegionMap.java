@@ -221,6 +221,14 @@ public abstract class AbstractRegionMap implements RegionMap {
     return re;
   }
 
+  public RegionEntry getEntryForLongKey(long key) {
+    return (RegionEntry) _getMap().getForLongKey(key);
+  }
+
+  public RegionEntry getEntryForIntKey(int key) {
+    return (RegionEntry) _getMap().getForIntKey(key);
+  }
+
   protected RegionEntry getEntry(EntryEventImpl event) {
     return getEntry(event.getKey());
   }
@@ -248,6 +256,17 @@ public abstract class AbstractRegionMap implements RegionMap {
     return oldRe;
   }
 
+  /**
+   * Frees the off-heap memory of the key of an entry that an operation created but that is not in
+   * the map, because another entry for the same key was there first or the operation failed.
+   * Entries that are in the map free their key when they are removed.
+   */
+  private void releaseKeyIfNotInMap(Object key, RegionEntry newRe) {
+    if (newRe instanceof OffHeapKeyRegionEntry && _getMap().get(key) != newRe) {
+      ((OffHeapKeyRegionEntry) newRe).releaseKey();
+    }
+  }
+
   @Override
   public final RegionEntry getOperationalEntryInVM(Object key) {
     RegionEntry re = (RegionEntry) _getMap().get(key);
@@ -974,6 +993,7 @@ public abstract class AbstractRegionMap implements RegionMap {
                     IndexProtocol.OTHER_OP);
               }
             }
+            releaseKeyIfNotInMap(key, newRe);
           }
         } // synchronized
       } finally {
@@ -1209,6 +1229,7 @@ public abstract class AbstractRegionMap implements RegionMap {
                   } // !opCompleted
                 } // synchronized newRe
               } finally {
+                releaseKeyIfNotInMap(event.getKey(), newRe);
                 if (oqlIndexManager != null) {
                   oqlIndexManager.countDownIndexUpdaters();
                 }
@@ -1232,6 +1253,7 @@ public abstract class AbstractRegionMap implements RegionMap {
                   re = (RegionEntry) _getMap().putIfAbsent(event.getKey(), newRe);
                   if (re != null && re != tombstone) {
                     // concurrent change - try again
+                    releaseKeyIfNotInMap(event.getKey(), newRe);
                     retry = true;
                     // retryEntry = tombstone; // leave this in place for debugging
                     continue;
@@ -1786,6 +1808,7 @@ public abstract class AbstractRegionMap implements RegionMap {
         } catch (RegionClearedException e) {
           // TODO
         } finally {
+          releaseKeyIfNotInMap(key, newRe);
           if (oqlIndexManager != null) {
             oqlIndexManager.countDownIndexUpdaters();
           }
@@ -2041,6 +2064,7 @@ public abstract class AbstractRegionMap implements RegionMap {
                 if (!opCompleted) {
                   removeEntry(event.getKey(), newRe, false);
                 }
+                releaseKeyIfNotInMap(event.getKey(), newRe);
               }
             } // synchronized newRe
           } // forceNewEntry
@@ -2075,6 +2099,7 @@ public abstract class AbstractRegionMap implements RegionMap {
                       continue;
                     }
                     re = putEntryIfAbsent(event.getKey(), newRe);
+                    releaseKeyIfNotInMap(event.getKey(), newRe);
                     if (re == tombstone) {
                       re = null; // pretend we don't have an entry
                     }
@@ -2486,6 +2511,7 @@ public abstract class AbstractRegionMap implements RegionMap {
             if (!opCompleted) {
               removeEntry(key, newRe, false);
             }
+            releaseKeyIfNotInMap(key, newRe);
           }
         }
       } else { /* !forceNewEntry */
@@ -3375,6 +3401,7 @@ public abstract class AbstractRegionMap implements RegionMap {
             if (!opCompleted) {
               removeEntry(key, newRe, false);
             }
+            releaseKeyIfNotInMap(key, newRe);
           }
         }
         if (owner.concurrencyChecksEnabled && txEntryState != null && cbEvent != null) {
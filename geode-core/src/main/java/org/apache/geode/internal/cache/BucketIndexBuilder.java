@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * Builds the indexes of the local buckets of a partitioned region with a fork/join task for each
+ * bucket, instead of indexing one bucket after the other in the thread creating the indexes. The
+ * progress of a long build is logged periodically.
+ *
+ * @since Geode 1.1
+ */
+class BucketIndexBuilder {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The number of threads indexing the buckets of the member. With one thread the buckets are
+   * indexed by the thread creating the indexes.
+   */
+  static final int NUM_THREADS = Integer.getInteger(
+      DistributionConfig.GEMFIRE_PREFIX + "PartitionedRegion.indexCreationThreads",
+      Runtime.getRuntime().availableProcessors()).intValue();
+
+  /** The minimum interval in milliseconds between two logs of the progress of a build */
+  private static final long PROGRESS_LOG_INTERVAL = 10000;
+
+  private static ForkJoinPool forkJoinPool = null;
+
+  /**
+   * Indexes a bucket.
+   */
+  interface BucketIndexTask<E extends Exception> {
+    void run(BucketRegion bucket) throws E;
+  }
+
+  /**
+   * Runs the task on each of the buckets and returns once it has completed on all of them.
+   *
+   * @throws E the first exception thrown by the task, once it has completed on the other buckets
+   */
+  @SuppressWarnings("unchecked")
+  static <E extends Exception> void forEachBucket(PartitionedRegion region,
+      Collection<BucketRegion> buckets, BucketIndexTask<E> task) throws E {
+    if (NUM_THREADS <= 1 || buckets.size() <= 1) {
+      for (BucketRegion bucket : buckets) {
+        task.run(bucket);
+      }
+      return;
+    }
+    final Progress progress = new Progress(region, buckets.size());
+    final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+    List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(buckets.size());
+    for (final BucketRegion bucket : buckets) {
+      tasks.add(getForkJoinPool().submit(() -> {
+        try {
+          task.run(bucket);
+        } catch (Exception e) {
+          failure.compareAndSet(null, e);
+        }
+        progress.bucketIndexed();
+      }));
+    }
+    for (ForkJoinTask<?> forkJoinTask : tasks) {
+      forkJoinTask.quietlyJoin();
+    }
+    for (ForkJoinTask<?> forkJoinTask : tasks) {
+      Throwable t = forkJoinTask.getException();
+      if (t instanceof Error) {
+        throw (Error) t;
+      }
+    }
+    Exception e = failure.get();
+    if (e instanceof RuntimeException) {
+      throw (RuntimeException) e;
+    } else if (e != null) {
+      // the task only throws runtime exceptions and E
+      throw (E) e;
+    }
+  }
+
+  /**
+   * Closes the pool. This is called from
+   * {@link PartitionedRegion#afterRegionsClosedByCacheClose(GemFireCacheImpl)}
+   */
+  static synchronized void shutdown() {
+    if (forkJoinPool != null) {
+      forkJoinPool.shutdown();
+    }
+  }
+
+  private static synchronized ForkJoinPool getForkJoinPool() {
+    if (forkJoinPool == null || forkJoinPool.isShutdown()) {
+      forkJoinPool = new ForkJoinPool(NUM_THREADS, pool -> {
+        ForkJoinWorkerThread thread =
+            ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("Bucket Index Builder Thread " + thread.getPoolIndex());
+        return thread;
+      }, null, false);
+    }
+    return forkJoinPool;
+  }
+
+  private static class Progress {
+
+    private final PartitionedRegion region;
+
+    private final int numBuckets;
+
+    private final AtomicInteger numIndexed = new AtomicInteger();
+
+    private final AtomicLong lastLogTime = new AtomicLong(System.currentTimeMillis());
+
+    Progress(PartitionedRegion region, int numBuckets) {
+      this.region = region;
+      this.numBuckets = numBuckets;
+    }
+
+    void bucketIndexed() {
+      int indexed = this.numIndexed.incrementAndGet();
+      long lastLog = this.lastLogTime.get();
+      long now = System.currentTimeMillis();
+      if (now - lastLog >= PROGRESS_LOG_INTERVAL && this.lastLogTime.compareAndSet(lastLog, now)) {
+        logger.info("Indexed {} of {} local buckets of partitioned region {}", indexed,
+            this.numBuckets, this.region.getFullPath());
+      } else if (logger.isDebugEnabled()) {
+        logger.debug("Indexed {} of {} local buckets of partitioned region {}", indexed,
+            this.numBuckets, this.region.getFullPath());
+      }
+    }
+  }
+}
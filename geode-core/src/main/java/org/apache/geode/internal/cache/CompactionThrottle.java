@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+
+/**
+ * Splits the compaction of an oplog into chunks of live entries. Between two chunks the compactor
+ * releases its locks, so the operations waiting for them do not wait for the whole oplog to be
+ * compacted, and gives way to the foreground writes to the active oplog. If a budget is set the
+ * compactor also sleeps long enough to keep the bytes it copies forward within that budget.
+ * <p>
+ * A throttle is used by a single compactor thread for one compaction run.
+ *
+ * @since Geode 1.1
+ */
+class CompactionThrottle {
+
+  /**
+   * The number of live entries copied forward between two pauses of the compactor. With 0 an
+   * oplog is compacted without pausing.
+   */
+  static final int CHUNK_SIZE =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "disk.compactionChunkSize", 1000)
+          .intValue();
+
+  /**
+   * The maximum number of bytes per second the compactor of a disk store copies forward. With 0
+   * the compaction is not rate limited.
+   */
+  static final long BYTES_PER_SECOND =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "disk.compactionBytesPerSecond", 0)
+          .longValue();
+
+  private final DiskStoreStats stats;
+
+  private final int chunkSize;
+
+  private final long bytesPerSecond;
+
+  private int chunkEntries;
+
+  private long chunkStart;
+
+  private long chunkStartBytes;
+
+  CompactionThrottle(DiskStoreStats stats) {
+    this(stats, CHUNK_SIZE, BYTES_PER_SECOND);
+  }
+
+  CompactionThrottle(DiskStoreStats stats, int chunkSize, long bytesPerSecond) {
+    this.stats = stats;
+    this.chunkSize = chunkSize;
+    this.bytesPerSecond = bytesPerSecond;
+    startChunk(System.nanoTime());
+  }
+
+  /**
+   * Called after a live entry has been copied forward.
+   *
+   * @return true if the chunk is complete and the compactor should call {@link #pause} once it
+   *         has released its locks
+   */
+  boolean entryCompacted() {
+    if (this.chunkSize <= 0) {
+      return false;
+    }
+    return ++this.chunkEntries >= this.chunkSize;
+  }
+
+  /**
+   * Pauses the compactor at the end of a chunk. Must not be called while holding the compactor
+   * locks.
+   */
+  void pause() {
+    long start = System.nanoTime();
+    if (this.bytesPerSecond > 0) {
+      long bytes = this.stats.getCompactedBytes() - this.chunkStartBytes;
+      long minNanos = (long) (bytes * (double) TimeUnit.SECONDS.toNanos(1) / this.bytesPerSecond);
+      long sleepNanos = minNanos - (start - this.chunkStart);
+      if (sleepNanos > 0) {
+        try {
+          TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        } catch (InterruptedException e) {
+          // the compactor checks whether it should keep running once it has its locks again
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+    Thread.yield();
+    long end = System.nanoTime();
+    this.stats.endCompactionYield(end - start);
+    startChunk(end);
+  }
+
+  private void startChunk(long now) {
+    this.chunkEntries = 0;
+    this.chunkStart = now;
+    this.chunkStartBytes = this.stats.getCompactedBytes();
+  }
+}
@@ -537,10 +537,10 @@ public class DiskRegion extends AbstractDiskRegion {
 
 
   /**
-   * returns the active child
+   * returns the active child this region writes to
    */
   final Oplog testHook_getChild() {
-    return getDiskStore().persistentOplogs.getChild();
+    return getDiskStore().persistentOplogs.getChild(this);
   }
 
   /** For Testing * */
@@ -841,7 +841,7 @@ public class DiskRegion extends AbstractDiskRegion {
   public void replaceIncompatibleEntry(DiskEntry old, DiskEntry repl) {
     acquireReadLock();
     try {
-      getOplogSet().getChild().replaceIncompatibleEntry(this, old, repl);
+      getOplogSet().getChild(this).replaceIncompatibleEntry(this, old, repl);
     } finally {
       releaseReadLock();
     }
@@ -378,6 +378,7 @@ public class DiskStoreImpl implements DiskStore {
     this.cache = (GemFireCacheImpl) cache;
     StatisticsFactory factory = cache.getDistributedSystem();
     this.stats = new DiskStoreStats(factory, getName());
+    this.stats.setReclaimableBytesSupplier(this::getReclaimableBytes);
 
     // start simple init
 
@@ -744,7 +745,7 @@ public class DiskStoreImpl implements DiskStore {
 
       PersistentOplogSet oplogSet = getPersistentOplogSet(dr);
 
-      oplogSet.getChild().saveConflictVersionTag(region, tag, async);
+      oplogSet.getChild(dr).saveConflictVersionTag(region, tag, async);
     } finally {
       if (!async) {
         releaseReadLock(dr);
@@ -2561,13 +2562,10 @@ public class DiskStoreImpl implements DiskStore {
 
   boolean basicForceCompaction(DiskRegion dr) {
     PersistentOplogSet oplogSet = persistentOplogs;
-    // see if the current active oplog is compactable; if so
-    {
-      Oplog active = oplogSet.getChild();
-      if (active != null) {
-        if (active.hadLiveEntries() && active.needsCompaction()) {
-          active.forceRolling(dr);
-        }
+    // see if the current active oplogs are compactable; if so
+    for (Oplog active : oplogSet.getChildren()) {
+      if (active.hadLiveEntries() && active.needsCompaction()) {
+        active.forceRolling(dr);
       }
     }
 
@@ -2677,6 +2675,20 @@ public class DiskStoreImpl implements DiskStore {
 
   }
 
+  /**
+   * Returns an estimate of the number of bytes of the oplogs of this disk store that compacting
+   * them would free.
+   */
+  public long getReclaimableBytes() {
+    long result = 0;
+    for (Oplog oplog : this.persistentOplogs.getAllOplogs()) {
+      if (oplog != null) {
+        result += oplog.getReclaimableBytes();
+      }
+    }
+    return result;
+  }
+
   private CompactableOplog[] getOplogsToBeCompacted(boolean all) {
     ArrayList<CompactableOplog> l = new ArrayList<CompactableOplog>();
 
@@ -2816,6 +2828,9 @@ public class DiskStoreImpl implements DiskStore {
 
     private final boolean compactionCompletionRequired;
 
+    /** Paces the compaction run in progress */
+    private CompactionThrottle throttle;
+
     OplogCompactor() {
       this.compactionCompletionRequired =
           Boolean.getBoolean(COMPLETE_COMPACTION_BEFORE_TERMINATION_PROPERTY_NAME);
@@ -2890,6 +2905,7 @@ public class DiskStoreImpl implements DiskStore {
       int totalCount = 0;
       long compactionStart = getStats().startCompaction();
       long start = System.nanoTime();
+      this.throttle = new CompactionThrottle(getStats());
       try {
         for (int i = 0; i < oplogs.length && keepCompactorRunning() /*
                                                                      * @todo && !owner. isDestroyed
@@ -2907,6 +2923,10 @@ public class DiskStoreImpl implements DiskStore {
       return true /* @todo !owner.isDestroyed */;
     }
 
+    CompactionThrottle getThrottle() {
+      return this.throttle;
+    }
+
     private boolean isClosing() {
       if (getCache().isClosed()) {
         return true;
@@ -4115,74 +4135,86 @@ public class DiskStoreImpl implements DiskStore {
     boolean done = false;
     try {
       for (;;) {
-        Oplog childOplog = persistentOplogs.getChild();
-        if (childOplog == null) {
+        List<Oplog> children = persistentOplogs.getChildren();
+        if (children.isEmpty()) {
           this.diskStoreBackup = new DiskStoreBackup(new Oplog[0], targetDir);
           break;
         }
+        if (snapshotWhileLocked(children, 0, targetDir, baselineInspector, restoreScript)) {
+          break;
+        }
+      }
+      done = true;
+    } finally {
+      if (!done) {
+        clearBackup();
+      }
+    }
+  }
 
-        // Get an appropriate lock object for each set of oplogs.
-        Object childLock = childOplog == null ? new Object() : childOplog.lock;;
-
-        // TODO - We really should move this lock into the disk store, but
-        // until then we need to do this magic to make sure we're actually
-        // locking the latest child for both types of oplogs
-
-        // This ensures that all writing to disk is blocked while we are
-        // creating the snapshot
-        synchronized (childLock) {
-          if (persistentOplogs.getChild() != childOplog) {
-            continue;
-          }
+  /**
+   * Takes the locks of the given children, in the order of their stripes, and snapshots the oplogs
+   * while holding all of them. This ensures that all writing to disk is blocked while we are
+   * creating the snapshot.
+   *
+   * @return false if the children changed before their locks were taken
+   */
+  private boolean snapshotWhileLocked(List<Oplog> children, int index, File targetDir,
+      BackupInspector baselineInspector, RestoreScript restoreScript) throws IOException {
+    if (index < children.size()) {
+      synchronized (children.get(index).lock) {
+        return snapshotWhileLocked(children, index + 1, targetDir, baselineInspector,
+            restoreScript);
+      }
+    }
+    if (!persistentOplogs.getChildren().equals(children)) {
+      return false;
+    }
+    snapshotOplogs(targetDir, baselineInspector, restoreScript);
+    return true;
+  }
 
-          if (logger.isDebugEnabled()) {
-            logger.debug("snapshotting oplogs for disk store {}", getName());
-          }
+  private void snapshotOplogs(File targetDir, BackupInspector baselineInspector,
+      RestoreScript restoreScript) throws IOException {
+    if (logger.isDebugEnabled()) {
+      logger.debug("snapshotting oplogs for disk store {}", getName());
+    }
 
-          // Create the directories for this disk store
-          for (int i = 0; i < directories.length; i++) {
-            File dir = getBackupDir(targetDir, i);
-            if (!FileUtil.mkdirs(dir)) {
-              throw new IOException("Could not create directory " + dir);
-            }
-            restoreScript.addFile(directories[i].getDir(), dir);
-          }
+    // Create the directories for this disk store
+    for (int i = 0; i < directories.length; i++) {
+      File dir = getBackupDir(targetDir, i);
+      if (!FileUtil.mkdirs(dir)) {
+        throw new IOException("Could not create directory " + dir);
+      }
+      restoreScript.addFile(directories[i].getDir(), dir);
+    }
 
-          restoreScript.addExistenceTest(this.initFile.getIFFile());
+    restoreScript.addExistenceTest(this.initFile.getIFFile());
 
-          // Contains all oplogs that will backed up
-          Oplog[] allOplogs = null;
+    // Contains all oplogs that will backed up
+    Oplog[] allOplogs = null;
 
-          // Incremental backup so filter out oplogs that have already been
-          // backed up
-          if (null != baselineInspector) {
-            Map<File, File> baselineCopyMap = new HashMap<File, File>();
-            allOplogs = filterBaselineOplogs(baselineInspector, baselineCopyMap);
-            restoreScript.addBaselineFiles(baselineCopyMap);
-          } else {
-            allOplogs = getAllOplogsForBackup();
-          }
+    // Incremental backup so filter out oplogs that have already been
+    // backed up
+    if (null != baselineInspector) {
+      Map<File, File> baselineCopyMap = new HashMap<File, File>();
+      allOplogs = filterBaselineOplogs(baselineInspector, baselineCopyMap);
+      restoreScript.addBaselineFiles(baselineCopyMap);
+    } else {
+      allOplogs = getAllOplogsForBackup();
+    }
 
-          // mark all oplogs as being backed up. This will
-          // prevent the oplogs from being deleted
-          this.diskStoreBackup = new DiskStoreBackup(allOplogs, targetDir);
+    // mark all oplogs as being backed up. This will
+    // prevent the oplogs from being deleted
+    this.diskStoreBackup = new DiskStoreBackup(allOplogs, targetDir);
 
-          // copy the init file
-          File firstDir = getBackupDir(targetDir, infoFileDirIndex);
-          initFile.copyTo(firstDir);
-          persistentOplogs.forceRoll(null);
+    // copy the init file
+    File firstDir = getBackupDir(targetDir, infoFileDirIndex);
+    initFile.copyTo(firstDir);
+    persistentOplogs.forceRoll(null);
 
-          if (logger.isDebugEnabled()) {
-            logger.debug("done snaphotting for disk store {}", getName());
-          }
-          break;
-        }
-      }
-      done = true;
-    } finally {
-      if (!done) {
-        clearBackup();
-      }
+    if (logger.isDebugEnabled()) {
+      logger.debug("done snaphotting for disk store {}", getName());
     }
   }
 
@@ -4456,7 +4488,7 @@ public class DiskStoreImpl implements DiskStore {
   }
 
   public boolean hasPersistedData() {
-    return persistentOplogs.getChild() != null;
+    return persistentOplogs.hasChildren();
   }
 
   public UUID getDiskStoreUUID() {
@@ -4687,7 +4719,7 @@ public class DiskStoreImpl implements DiskStore {
 
       PersistentOplogSet oplogSet = getPersistentOplogSet(dr);
       // persist the new GC RVV information for this region to the DRF
-      oplogSet.getChild().writeGCRVV(dr);
+      oplogSet.getChild(dr).writeGCRVV(dr);
     } finally {
       releaseReadLock(dr);
     }
@@ -4708,7 +4740,7 @@ public class DiskStoreImpl implements DiskStore {
       // persist the new GC RVV information for this region to the CRF
       PersistentOplogSet oplogSet = getPersistentOplogSet(dr);
       // use current dr.rvvTrust
-      oplogSet.getChild().writeRVV(dr, inMemoryRVV, isRVVTrusted);
+      oplogSet.getChild(dr).writeRVV(dr, inMemoryRVV, isRVVTrusted);
     } finally {
       releaseReadLock(dr);
     }
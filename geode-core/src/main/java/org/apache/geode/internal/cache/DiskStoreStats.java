@@ -14,9 +14,12 @@
  */
 package org.apache.geode.internal.cache;
 
+import java.util.function.LongSupplier;
+
 import org.apache.geode.*;
 // import org.apache.geode.cache.Region;
 import org.apache.geode.distributed.internal.DistributionStats;
+import org.apache.geode.internal.HistogramStats;
 import org.apache.geode.internal.statistics.StatisticsTypeFactoryImpl;
 
 /**
@@ -66,6 +69,11 @@ public class DiskStoreStats {
   private static final int compactUpdateTimeId;
   private static final int compactDeletesId;
   private static final int compactDeleteTimeId;
+  private static final int compactedBytesId;
+  private static final int compactYieldsId;
+  private static final int compactYieldTimeId;
+  private static final int reclaimableBytesId;
+  private static final int writeAmplificationId;
 
   private static final int openOplogsId;
   private static final int inactiveOplogsId;
@@ -78,6 +86,10 @@ public class DiskStoreStats {
   private static final int backupsInProgress;
   private static final int backupsCompleted;
 
+  private static final int groupCommitsId;
+  private static final int groupCommitTimeId;
+  private static final int groupCommittedWritesId;
+
   static {
     String statName = "DiskStoreStatistics";
     String statDescription = "Statistics about a Region's use of the disk";
@@ -110,6 +122,11 @@ public class DiskStoreStats {
         "The current number of backups in progress on this disk store";
     final String backupsCompletedDesc =
         "The number of backups of this disk store that have been taking while this VM was alive";
+    final String groupCommitsDesc =
+        "The total number of times the synchronous writes of concurrent operations have been flushed to disk together.";
+    final String groupCommitTimeDesc = "The total amount of time spent doing group commits.";
+    final String groupCommittedWritesDesc =
+        "The total number of synchronous writes flushed to disk by group commits.";
 
     StatisticsTypeFactory f = StatisticsTypeFactoryImpl.singleton();
 
@@ -164,6 +181,20 @@ public class DiskStoreStats {
             f.createLongCounter("compactDeleteTime",
                 "Total amount of time, in nanoseconds, spent doing deletes during a compact",
                 "nanoseconds"),
+            f.createLongCounter("compactedBytes",
+                "Total number of bytes of live entries copied forward to the active oplog by compactions",
+                "bytes"),
+            f.createLongCounter("compactYields",
+                "Total number of times a compaction paused between two chunks of live entries",
+                "yields"),
+            f.createLongCounter("compactYieldTime",
+                "Total amount of time, in nanoseconds, compactions spent paused between two chunks of live entries",
+                "nanoseconds"),
+            f.createLongGauge("reclaimableBytes",
+                "Estimated number of bytes of the oplogs that compacting them would free", "bytes"),
+            f.createDoubleGauge("writeAmplification",
+                "Number of bytes written to the oplogs for each byte written by region operations, compactions included",
+                "ratio"),
             f.createIntGauge("compactsInProgress",
                 "current number of oplog compacts that are in progress", "compacts"),
             f.createIntGauge("writesInProgress",
@@ -186,7 +217,10 @@ public class DiskStoreStats {
                 "The current number of regions that have been recovered but have not yet been created.",
                 "regions"),
             f.createIntGauge("backupsInProgress", backupsInProgressDesc, "backups"),
-            f.createIntCounter("backupsCompleted", backupsCompletedDesc, "backups"),});
+            f.createIntCounter("backupsCompleted", backupsCompletedDesc, "backups"),
+            f.createLongCounter("groupCommits", groupCommitsDesc, "ops"),
+            f.createLongCounter("groupCommitTime", groupCommitTimeDesc, "nanoseconds"),
+            f.createLongCounter("groupCommittedWrites", groupCommittedWritesDesc, "ops"),});
 
     // Initialize id fields
     writesId = type.nameToId("writes");
@@ -225,6 +259,11 @@ public class DiskStoreStats {
     compactInsertTimeId = type.nameToId("compactInsertTime");
     compactUpdatesId = type.nameToId("compactUpdates");
     compactUpdateTimeId = type.nameToId("compactUpdateTime");
+    compactedBytesId = type.nameToId("compactedBytes");
+    compactYieldsId = type.nameToId("compactYields");
+    compactYieldTimeId = type.nameToId("compactYieldTime");
+    reclaimableBytesId = type.nameToId("reclaimableBytes");
+    writeAmplificationId = type.nameToId("writeAmplification");
     oplogReadsId = type.nameToId("oplogReads");
     oplogSeeksId = type.nameToId("oplogSeeks");
 
@@ -234,13 +273,26 @@ public class DiskStoreStats {
     uncreatedRecoveredRegionsId = type.nameToId("uncreatedRecoveredRegions");
     backupsInProgress = type.nameToId("backupsInProgress");
     backupsCompleted = type.nameToId("backupsCompleted");
+    groupCommitsId = type.nameToId("groupCommits");
+    groupCommitTimeId = type.nameToId("groupCommitTime");
+    groupCommittedWritesId = type.nameToId("groupCommittedWrites");
   }
 
+  /**
+   * The break points in nanoseconds of the histogram of the time spent reading values from disk.
+   * The last bucket holds the reads that took longer than the second to last break point.
+   */
+  private static final long[] FAULT_LATENCY_BREAK_POINTS =
+      {10000, 100000, 1000000, 10000000, 100000000, 100000000};
+
   ////////////////////// Instance Fields //////////////////////
 
   /** The Statistics object that we delegate most behavior to */
   private final Statistics stats;
 
+  /** The histogram of the time spent reading values from disk, if clock stats are enabled */
+  private final HistogramStats faultLatency;
+
   /////////////////////// Constructors ///////////////////////
 
   /**
@@ -248,12 +300,16 @@ public class DiskStoreStats {
    */
   public DiskStoreStats(StatisticsFactory f, String name) {
     this.stats = f.createAtomicStatistics(type, name);
+    this.faultLatency = new HistogramStats(name + "FaultLatency", "nanoseconds", f,
+        FAULT_LATENCY_BREAK_POINTS, false);
+    this.stats.setDoubleSupplier(writeAmplificationId, this::getWriteAmplification);
   }
 
   ///////////////////// Instance Methods /////////////////////
 
   public void close() {
     this.stats.close();
+    this.faultLatency.close();
   }
 
   /**
@@ -398,6 +454,9 @@ public class DiskStoreStats {
     this.stats.incLong(readsId, 1);
     this.stats.incLong(readTimeId, end - start);
     this.stats.incLong(bytesReadId, bytesRead);
+    if (DistributionStats.enableClockStats) {
+      this.faultLatency.endOp(end - start);
+    }
     return end;
   }
 
@@ -522,6 +581,51 @@ public class DiskStoreStats {
     this.stats.incLong(compactUpdateTimeId, getStatTime() - start);
   }
 
+  public void incCompactedBytes(long bytes) {
+    this.stats.incLong(compactedBytesId, bytes);
+  }
+
+  /**
+   * Returns the total number of bytes of live entries copied forward by compactions.
+   */
+  public long getCompactedBytes() {
+    return this.stats.getLong(compactedBytesId);
+  }
+
+  /**
+   * Invoked after a compaction has paused between two chunks of live entries
+   *
+   * @param delta The time, in nanoseconds, the compaction was paused
+   */
+  public void endCompactionYield(long delta) {
+    this.stats.incLong(compactYieldsId, 1);
+    this.stats.incLong(compactYieldTimeId, delta);
+  }
+
+  public long getCompactYields() {
+    return this.stats.getLong(compactYieldsId);
+  }
+
+  /**
+   * Sets the supplier of the estimated number of bytes that compacting the oplogs would free
+   */
+  public void setReclaimableBytesSupplier(LongSupplier supplier) {
+    this.stats.setLongSupplier(reclaimableBytesId, supplier);
+  }
+
+  /**
+   * Returns the number of bytes written to the oplogs for each byte written by region operations.
+   * The bytes copied forward by compactions are the difference between the two.
+   */
+  public double getWriteAmplification() {
+    long written = getBytesWritten() + this.stats.getLong(bytesFlushedId);
+    long compacted = getCompactedBytes();
+    if (written <= compacted) {
+      return 1.0;
+    }
+    return (double) written / (written - compacted);
+  }
+
   public long getStatTime() {
     return DistributionStats.getStatTime();
   }
@@ -543,6 +647,26 @@ public class DiskStoreStats {
     this.stats.incInt(backupsCompleted, 1);
   }
 
+  /**
+   * Invoked after the synchronous writes of concurrent operations have been flushed together
+   *
+   * @param start The time at which the commit started
+   * @param numWrites The number of writes that were committed
+   */
+  public void endGroupCommit(long start, long numWrites) {
+    this.stats.incLong(groupCommitsId, 1);
+    this.stats.incLong(groupCommitTimeId, getStatTime() - start);
+    this.stats.incLong(groupCommittedWritesId, numWrites);
+  }
+
+  public long getGroupCommits() {
+    return this.stats.getLong(groupCommitsId);
+  }
+
+  public long getGroupCommittedWrites() {
+    return this.stats.getLong(groupCommittedWritesId);
+  }
+
   public Statistics getStats() {
     return stats;
   }
@@ -58,17 +58,20 @@ import org.apache.geode.cache.asyncqueue.AsyncEventQueue;
 import org.apache.geode.cache.asyncqueue.AsyncEventQueueFactory;
 import org.apache.geode.cache.asyncqueue.internal.AsyncEventQueueFactoryImpl;
 import org.apache.geode.cache.asyncqueue.internal.AsyncEventQueueImpl;
+import org.apache.geode.cache.client.AsyncRegion;
 import org.apache.geode.cache.client.ClientCache;
 import org.apache.geode.cache.client.ClientRegionFactory;
 import org.apache.geode.cache.client.ClientRegionShortcut;
 import org.apache.geode.cache.client.Pool;
 import org.apache.geode.cache.client.PoolFactory;
 import org.apache.geode.cache.client.PoolManager;
+import org.apache.geode.cache.client.internal.AsyncRegionImpl;
 import org.apache.geode.cache.client.internal.ClientMetadataService;
 import org.apache.geode.cache.client.internal.ClientRegionFactoryImpl;
 import org.apache.geode.cache.client.internal.PoolImpl;
 import org.apache.geode.cache.execute.FunctionService;
 import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.internal.CompiledQueryCache;
 import org.apache.geode.cache.query.internal.DefaultQuery;
 import org.apache.geode.cache.query.internal.DefaultQueryService;
 import org.apache.geode.cache.query.internal.QueryMonitor;
@@ -538,6 +541,8 @@ public class GemFireCacheImpl
 
   private final Object queryMonitorLock = new Object();
 
+  private final CompiledQueryCache compiledQueryCache = new CompiledQueryCache();
+
   private final PersistentMemberManager persistentMemberManager;
 
   private ClientMetadataService clientMetadatService = null;
@@ -2928,6 +2933,13 @@ public class GemFireCacheImpl
     }
   }
 
+  /**
+   * @see org.apache.geode.cache.client.ClientCache#getAsyncRegion(Region)
+   */
+  public <K, V> AsyncRegion<K, V> getAsyncRegion(Region<K, V> region) {
+    return new AsyncRegionImpl<K, V>(region);
+  }
+
   public LogWriter getLogger() {
     return this.system.getLogWriter();
   }
@@ -4685,6 +4697,15 @@ public class GemFireCacheImpl
     return QUERY_MONITOR_DISABLED_FOR_LOW_MEM;
   }
 
+  /**
+   * Returns the compiled forms of the queries recently created by the local query service.
+   * 
+   * @since Geode 1.1
+   */
+  public CompiledQueryCache getCompiledQueryCache() {
+    return this.compiledQueryCache;
+  }
+
   /**
    * Returns the QueryMonitor instance based on system property MAX_QUERY_EXECUTION_TIME.
    * 
@@ -24,6 +24,12 @@ public class InlineKeyHelper {
   public static boolean INLINE_REGION_KEYS =
       !Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "DISABLE_INLINE_REGION_KEYS");
 
+  /**
+   * If true then off-heap regions keep string keys that are too long to inline off heap too.
+   */
+  public static boolean OFF_HEAP_STRING_KEYS =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_STRING_KEYS");
+
   /**
    * The maximum number of longs any of region entry subclasses use to store the string key inline.
    */
@@ -56,7 +62,7 @@ public class InlineKeyHelper {
     }
   }
 
-  private static boolean isByteEncodingOk(String skey) {
+  public static boolean isByteEncodingOk(String skey) {
     for (int i = 0; i < skey.length(); i++) {
       if (skey.charAt(i) > 0x7f) {
         return false;
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingThreadGroup;
+import org.apache.geode.internal.logging.log4j.LogMarker;
+
+/**
+ * Reads and parses the krfs of the oplogs of a disk store on several threads while the oplogs are
+ * being recovered. The oplogs are still recovered one after the other in the order of their ids
+ * by the recovering thread, which applies the prefetched records of each krf in the order they
+ * were written, so the recovered entries are the same as with a sequential recovery. At most one
+ * krf per thread is read ahead of the oplog being recovered.
+ *
+ * @since Geode 1.1
+ */
+class KrfPrefetcher {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The number of threads reading the krfs of a disk store during its recovery. With one thread the
+   * krfs are read by the recovering thread.
+   */
+  static final int NUM_THREADS =
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "disk.recoveryThreads",
+          Runtime.getRuntime().availableProcessors()).intValue();
+
+  private final ExecutorService executor;
+
+  /** The oplogs whose krf has not been submitted yet, in recovery order */
+  private final Iterator<Oplog> remaining;
+
+  private final Map<Oplog, Future<List<Oplog.KrfRecord>>> prefetched =
+      new HashMap<Oplog, Future<List<Oplog.KrfRecord>>>();
+
+  /**
+   * Returns a prefetcher for the krfs of the given oplogs, or null if they should be read by the
+   * recovering thread.
+   *
+   * @param oplogs the oplogs in the order they will be recovered
+   */
+  static KrfPrefetcher create(Collection<Oplog> oplogs) {
+    if (NUM_THREADS <= 1 || oplogs.size() <= 1) {
+      return null;
+    }
+    return new KrfPrefetcher(oplogs, Math.min(NUM_THREADS, oplogs.size()));
+  }
+
+  private KrfPrefetcher(Collection<Oplog> oplogs, int numThreads) {
+    final ThreadGroup group =
+        LoggingThreadGroup.createThreadGroup("Oplog Krf Reader Thread Group", logger);
+    this.executor = Executors.newFixedThreadPool(numThreads,
+        GemfireCacheHelper.CreateThreadFactory(group, "Oplog Krf Reader"));
+    this.remaining = oplogs.iterator();
+    for (int i = 0; i < numThreads; i++) {
+      submitNext();
+    }
+  }
+
+  /**
+   * Returns the records of the krf of the given oplog, waiting for them to be read, and starts
+   * reading the krf of the next oplog.
+   *
+   * @return the records of the krf, or null if the recovering thread must read the krf itself
+   */
+  List<Oplog.KrfRecord> take(Oplog oplog) {
+    Future<List<Oplog.KrfRecord>> future = this.prefetched.remove(oplog);
+    submitNext();
+    if (future == null) {
+      return null;
+    }
+    boolean interrupted = false;
+    try {
+      for (;;) {
+        try {
+          return future.get();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException e) {
+          // readKrf reads the krf again and reports the failure
+          if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
+            logger.trace(LogMarker.PERSIST_RECOVERY, "Could not prefetch the krf of {}", oplog,
+                e.getCause());
+          }
+          return null;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Stops the threads, discarding the records that have not been taken.
+   */
+  void close() {
+    this.executor.shutdownNow();
+    this.prefetched.clear();
+  }
+
+  private void submitNext() {
+    if (this.remaining.hasNext()) {
+      final Oplog oplog = this.remaining.next();
+      this.prefetched.put(oplog, this.executor.submit(() -> oplog.readKrfRecords()));
+    }
+  }
+}
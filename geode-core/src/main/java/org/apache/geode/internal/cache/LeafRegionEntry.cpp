@@ -23,7 +23,7 @@ package org.apache.geode.internal.cache;
 #define KEY_TYPE long
 #elif defined(KEY_UUID)
 #define KEY_TYPE UUID
-#elif defined(KEY_STRING1) || defined(KEY_STRING2)
+#elif defined(KEY_STRING1) || defined(KEY_STRING2) || defined(KEY_STRING_OFFHEAP)
 #define KEY_TYPE String
 #else
 #error the KEY_TYPE macro must be defined    
@@ -58,6 +58,9 @@ import org.apache.geode.internal.cache.versions.VersionSource;
 import org.apache.geode.internal.cache.versions.VersionStamp;
 import org.apache.geode.internal.cache.versions.VersionTag;
 #endif
+#ifdef KEY_STRING_OFFHEAP
+import org.apache.geode.internal.offheap.OffHeapKeyHelper;
+#endif
 #ifdef OFFHEAP
 import org.apache.geode.internal.offheap.OffHeapRegionEntryHelper;
 import org.apache.geode.internal.offheap.annotations.Released;
@@ -65,6 +68,12 @@ import org.apache.geode.internal.offheap.annotations.Retained;
 import org.apache.geode.internal.offheap.annotations.Unretained;
 #endif
 import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap.HashEntry;
+#ifdef KEY_INT
+import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap.IntKeyHashEntry;
+#endif
+#ifdef KEY_LONG
+import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap.LongKeyHashEntry;
+#endif
 
 // macros whose definition changes this class:
 // disk: DISK
@@ -84,13 +93,21 @@ import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap.Ha
  * Do not modify this class. It was generated. Instead modify LeafRegionEntry.cpp and then run
  * ./dev-tools/generateRegionEntryClasses.sh (it must be run from the top level directory).
  */
+#ifdef KEY_STRING_OFFHEAP
+public class LEAF_CLASS extends PARENT_CLASS implements OffHeapKeyRegionEntry {
+#elif defined(KEY_INT)
+public class LEAF_CLASS extends PARENT_CLASS implements IntKeyHashEntry {
+#elif defined(KEY_LONG)
+public class LEAF_CLASS extends PARENT_CLASS implements LongKeyHashEntry {
+#else
 public class LEAF_CLASS extends PARENT_CLASS {
+#endif
   public LEAF_CLASS  (RegionEntryContext context, KEY_TYPE key, 
 #ifdef OFFHEAP
       @Retained
 #endif
       Object value
-#if defined(KEY_STRING1) || defined(KEY_STRING2)
+#if defined(KEY_STRING1) || defined(KEY_STRING2) || defined(KEY_STRING_OFFHEAP)
       , boolean byteEncode
 #endif
       ) {
@@ -162,6 +179,8 @@ public class LEAF_CLASS extends PARENT_CLASS {
     tmpBits1 |= key.length();
     this.bits1 = tmpBits1;
     this.bits2 = tmpBits2;
+#elif defined(KEY_STRING_OFFHEAP)
+    this.keyAddress = OffHeapKeyHelper.allocateStringKey(key, byteEncode);
 #endif
   }
 
@@ -234,6 +253,9 @@ public class LEAF_CLASS extends PARENT_CLASS {
 #endif
   public void release() {
     OffHeapRegionEntryHelper.releaseEntry(this);
+#ifdef KEY_STRING_OFFHEAP
+    releaseKey();
+#endif
   }
   
   @Override
@@ -679,6 +701,10 @@ public class LEAF_CLASS extends PARENT_CLASS {
     }
     return false;
   }
+  @Override
+  public boolean isIntKeyEqual(int k) {
+    return k == this.key;
+  }
   
 #elif defined(KEY_LONG)
   private final long key;
@@ -693,6 +719,10 @@ public class LEAF_CLASS extends PARENT_CLASS {
     }
     return false;
   }
+  @Override
+  public boolean isLongKeyEqual(long k) {
+    return k == this.key;
+  }
   
 #elif defined(KEY_UUID)
   private final long keyMostSigBits;
@@ -861,6 +891,36 @@ public class LEAF_CLASS extends PARENT_CLASS {
     }
     return false;
   }
+#elif defined(KEY_STRING_OFFHEAP)
+  /**
+   * The address of the off-heap memory that holds this entry's key. It is set to zero when the
+   * entry is removed from its map or released.
+   */
+  @Retained @Released private volatile long keyAddress;
+  private final static AtomicLongFieldUpdater<LEAF_CLASS> keyAddrUpdater = AtomicLongFieldUpdater.newUpdater(LEAF_CLASS.class, "keyAddress");
+  @Override
+  public final long getKeyAddress() {
+    return this.keyAddress;
+  }
+  @Override
+  public final Object getKey() {
+    return OffHeapKeyHelper.getStringKey(this);
+  }
+  @Override
+  public boolean isKeyEqual(Object k) {
+    if (k instanceof String) {
+      return OffHeapKeyHelper.isStringKeyEqual(this, (String) k);
+    }
+    return false;
+  }
+  @Override
+  public void releaseKey() {
+    final long addr = this.keyAddress;
+    // clear the address before freeing the memory so that readers notice the key is gone
+    if (addr != 0L && keyAddrUpdater.compareAndSet(this, addr, 0L)) {
+      OffHeapKeyHelper.releaseKey(addr);
+    }
+  }
 #endif
   // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
 }
@@ -1382,6 +1382,87 @@ public class LocalRegion extends AbstractRegion implements LoaderHelperFactory,
     }
   }
 
+  /**
+   * Returns the value for the Long key with the given value, like {@link #get(Object)}. A hit on an
+   * entry in this member's own region map does not box the key; anything else, including misses,
+   * transactions, partitioned regions and regions whose key constraint is not Long, is handed to
+   * {@link #get(Object)}.
+   *
+   * @since Geode 1.1
+   */
+  public Object getForLongKey(long key) {
+    if (canGetWithoutBoxing(Long.class)) {
+      CachePerfStats stats = getCachePerfStats();
+      long start = stats.startGet();
+      Object value = getLocalHit(this.entries.getEntryForLongKey(key));
+      if (value != null) {
+        stats.endGet(start, false);
+        return value;
+      }
+    }
+    return get(Long.valueOf(key));
+  }
+
+  /**
+   * Returns the value for the Integer key with the given value, like {@link #get(Object)}. A hit
+   * on an entry in this member's own region map does not box the key; anything else, including
+   * misses, transactions, partitioned regions and regions whose key constraint is not Integer, is
+   * handed to {@link #get(Object)}.
+   *
+   * @since Geode 1.1
+   */
+  public Object getForIntKey(int key) {
+    if (canGetWithoutBoxing(Integer.class)) {
+      CachePerfStats stats = getCachePerfStats();
+      long start = stats.startGet();
+      Object value = getLocalHit(this.entries.getEntryForIntKey(key));
+      if (value != null) {
+        stats.endGet(start, false);
+        return value;
+      }
+    }
+    return get(Integer.valueOf(key));
+  }
+
+  private boolean canGetWithoutBoxing(Class<?> keyClass) {
+    // the entries of a partitioned region are in its buckets, which only the get path reaches
+    if (getDataPolicy().withPartitioning() || isUsedForPartitionedRegionBucket()) {
+      return false;
+    }
+    if (this.keyConstraint != null && !this.keyConstraint.isAssignableFrom(keyClass)) {
+      return false;
+    }
+    checkReadiness();
+    checkForNoAccess();
+    discoverJTA();
+    return !isTX();
+  }
+
+  /**
+   * Returns the value of the given entry if it is a valid one, updating the entry's stats, or null
+   * if the entry is missing, invalid or destroyed.
+   */
+  private Object getLocalHit(RegionEntry re) {
+    if (re == null) {
+      return null;
+    }
+    if (this.diskRegion != null) {
+      this.diskRegion.setClearCountReference();
+    }
+    try {
+      Object value = getDeserialized(re, false, false, false, false);
+      if (value == null || Token.isInvalidOrRemoved(value)) {
+        return null;
+      }
+      updateStatsForGet(re, true);
+      return value;
+    } finally {
+      if (this.diskRegion != null) {
+        this.diskRegion.removeClearCountReference();
+      }
+    }
+  }
+
   /**
    * Update region and potentially entry stats for the miss case
    * 
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.logging.LogService;
+
+/**
+ * A read only memory mapping of the crf of an oplog that is no longer appended to. Values are
+ * faulted in from the mapping with a copy from the page cache, without a system call and without
+ * the lock of the oplog.
+ * <p>
+ * The mapping is released by the garbage collector once the oplog drops it, so on platforms that
+ * do not allow deleting a mapped file the deletion of a compacted crf may be delayed.
+ *
+ * @since Geode 1.1
+ */
+class MappedCrf {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * If true, the values of the oplogs that are no longer appended to are read through a memory
+   * mapping of their crf; not final so tests can set it.
+   */
+  static boolean MMAP_READS =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "disk.mmapReads");
+
+  private final MappedByteBuffer buffer;
+
+  private MappedCrf(MappedByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  /**
+   * Maps the first bytes of a crf.
+   *
+   * @param size the number of bytes of the crf that have been written
+   * @return the mapping, or null if the crf cannot be mapped
+   */
+  static MappedCrf map(File crf, long size) {
+    if (size <= 0 || size > Integer.MAX_VALUE) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(crf.toPath(), StandardOpenOption.READ)) {
+      // the mapping stays valid once the channel is closed
+      return new MappedCrf(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Could not map {}, its values will be read from the file", crf, e);
+      return null;
+    }
+  }
+
+  /**
+   * Returns true if the given bytes are in the mapping.
+   */
+  boolean contains(long offset, int length) {
+    return offset >= 0 && offset + length <= this.buffer.capacity();
+  }
+
+  /**
+   * Copies the given bytes of the crf. They must be in the mapping.
+   */
+  byte[] read(long offset, int length) {
+    ByteBuffer view = this.buffer.duplicate();
+    view.position((int) offset);
+    byte[] bytes = new byte[length];
+    view.get(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+/**
+ * An off-heap RegionEntry that also keeps its key off heap.
+ * 
+ * @see org.apache.geode.internal.offheap.OffHeapKeyHelper
+ * @since Geode 1.1
+ */
+public interface OffHeapKeyRegionEntry extends OffHeapRegionEntry {
+  /**
+   * Returns the address of the off-heap memory that holds this entry's key, or zero if the entry
+   * has been removed from its map or released and its key's memory freed.
+   */
+  public long getKeyAddress();
+
+  /**
+   * Frees the off-heap memory that holds this entry's key. The entry does not keep a copy of its
+   * key, so {@link #getKey()} returns null afterwards; this must only be called once the entry is
+   * no longer in its map. Does nothing if the key has already been freed.
+   */
+  public void releaseKey();
+}
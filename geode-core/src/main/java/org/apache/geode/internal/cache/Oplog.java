@@ -109,6 +109,14 @@ public final class Oplog implements CompactableOplog, Flushable {
   /** oplog id * */
   protected final long oplogId;
 
+  /**
+   * The stripe of the oplog set this oplog was created for, or {@link #NO_STRIPE} if it was
+   * recovered.
+   */
+  private final int stripe;
+
+  static final int NO_STRIPE = -1;
+
   /** recovered gemfire version * */
   protected Version gfversion;
 
@@ -138,6 +146,14 @@ public final class Oplog implements CompactableOplog, Flushable {
   private static final boolean SYNC_WRITES =
       Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "syncWrites");
 
+  /**
+   * Flushes the synchronous writes of concurrent operations together if
+   * {@link OplogGroupCommitter#GROUP_COMMIT} is set, otherwise null and each synchronous write is
+   * flushed while holding the lock.
+   */
+  private final OplogGroupCommitter groupCommitter =
+      OplogGroupCommitter.GROUP_COMMIT ? new OplogGroupCommitter(this) : null;
+
   /**
    * The HighWaterMark of recentValues.
    */
@@ -511,11 +527,25 @@ public final class Oplog implements CompactableOplog, Flushable {
    * @throws DiskAccessException if the disk files can not be initialized
    */
   Oplog(long oplogId, PersistentOplogSet parent, DirectoryHolder dirHolder) {
+    this(oplogId, parent, dirHolder, 0);
+  }
+
+  /**
+   * Creates new <code>Oplog</code> for the given stripe of the oplog set.
+   * 
+   * @param oplogId int identifying the new oplog
+   * @param dirHolder The directory in which to create new Oplog
+   * @param stripe the stripe of the oplog set this oplog is the child of
+   * 
+   * @throws DiskAccessException if the disk files can not be initialized
+   */
+  Oplog(long oplogId, PersistentOplogSet parent, DirectoryHolder dirHolder, int stripe) {
     if (oplogId > DiskId.MAX_OPLOG_ID) {
       throw new IllegalStateException(
           "Too many oplogs. The oplog id can not exceed " + DiskId.MAX_OPLOG_ID);
     }
     this.oplogId = oplogId;
+    this.stripe = stripe;
     this.oplogSet = parent;
     this.parent = parent.getParent();
     this.dirHolder = dirHolder;
@@ -585,6 +615,7 @@ public final class Oplog implements CompactableOplog, Flushable {
           "Too many oplogs. The oplog id can not exceed " + DiskId.MAX_OPLOG_ID);
     }
     this.oplogId = oplogId;
+    this.stripe = prevOplog.stripe;
     this.parent = prevOplog.parent;
     this.oplogSet = prevOplog.oplogSet;
     this.dirHolder = dirHolder;
@@ -638,7 +669,7 @@ public final class Oplog implements CompactableOplog, Flushable {
   public void replaceIncompatibleEntry(DiskRegionView dr, DiskEntry old, DiskEntry repl) {
     boolean useNextOplog = false;
     synchronized (this.lock) {
-      if (getOplogSet().getChild() != this) {
+      if (getOplogSet().getChild(dr) != this) {
         // make sure to only call replaceIncompatibleEntry for child, because
         // this.lock
         // can only sync with compaction thread on child oplog
@@ -676,8 +707,8 @@ public final class Oplog implements CompactableOplog, Flushable {
       if (LocalRegion.ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
         CacheObserverHolder.getInstance().afterSwitchingOplog();
       }
-      Assert.assertTrue(getOplogSet().getChild() != this);
-      getOplogSet().getChild().replaceIncompatibleEntry(dr, old, repl);
+      Assert.assertTrue(getOplogSet().getChild(dr) != this);
+      getOplogSet().getChild(dr).replaceIncompatibleEntry(dr, old, repl);
     }
   }
 
@@ -730,10 +761,29 @@ public final class Oplog implements CompactableOplog, Flushable {
   }
 
   /**
-   * Write an RVV record containing all of the live disk regions.
+   * Write an RVV record containing all of the live disk regions of the stripe of this oplog.
    */
   private void writeRVVRecord(OplogFile olf, boolean writeGCRVV) throws IOException {
-    writeRVVRecord(olf, getParent().getAllDiskRegions(), writeGCRVV);
+    writeRVVRecord(olf, getDiskRegionsOfStripe(), writeGCRVV);
+  }
+
+  /**
+   * Returns the disk regions whose records are written to the stripe of this oplog, or all of them
+   * if this oplog was recovered. Only the oplogs of its stripe record the RVV of a region so that
+   * the newest oplog with an RVV of a region is the one that was written last for it.
+   */
+  private Map<Long, AbstractDiskRegion> getDiskRegionsOfStripe() {
+    Map<Long, AbstractDiskRegion> diskRegions = getParent().getAllDiskRegions();
+    if (this.stripe == NO_STRIPE) {
+      return diskRegions;
+    }
+    Map<Long, AbstractDiskRegion> result = new HashMap<Long, AbstractDiskRegion>();
+    for (Map.Entry<Long, AbstractDiskRegion> me : diskRegions.entrySet()) {
+      if (getOplogSet().getStripe(me.getKey()) == this.stripe) {
+        result.put(me.getKey(), me.getValue());
+      }
+    }
+    return result;
   }
 
   /**
@@ -799,6 +849,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
     this.isRecovering = true;
     this.oplogId = oplogId;
+    this.stripe = NO_STRIPE;
     this.parent = parent.getParent();
     this.oplogSet = parent;
     this.opState = new OpState();
@@ -1051,6 +1102,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     this.crf.RAFClosed = false;
     oplogSet.crfCreate(this.oplogId);
     this.crf.writeBuf = allocateWriteBuf(prevOlf);
+    this.crf.spareBuf = takeSpareBuf(prevOlf);
     logger.info(LocalizedMessage.create(LocalizedStrings.Oplog_CREATE_0_1_2,
         new Object[] {toString(), getFileType(this.crf), getParent().getName()}));
     this.crf.channel = this.crf.raf.getChannel();
@@ -1077,6 +1129,20 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
   }
 
+  /**
+   * Returns the spare write buffer of a group committed oplog file so the next one can reuse it.
+   */
+  private static ByteBuffer takeSpareBuf(OplogFile prevOlf) {
+    if (prevOlf == null) {
+      return null;
+    }
+    synchronized (prevOlf) {
+      ByteBuffer result = prevOlf.spareBuf;
+      prevOlf.spareBuf = null;
+      return result;
+    }
+  }
+
   /**
    * Creates the drf oplog file
    * 
@@ -1093,6 +1159,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     this.drf.RAFClosed = false;
     this.oplogSet.drfCreate(this.oplogId);
     this.drf.writeBuf = allocateWriteBuf(prevOlf);
+    this.drf.spareBuf = takeSpareBuf(prevOlf);
     logger.info(LocalizedMessage.create(LocalizedStrings.Oplog_CREATE_0_1_2,
         new Object[] {toString(), getFileType(this.drf), getParent().getName()}));
     this.drf.channel = this.drf.raf.getChannel();
@@ -1213,6 +1280,14 @@ public final class Oplog implements CompactableOplog, Flushable {
     return this.oplogId;
   }
 
+  /**
+   * Returns the stripe of the oplog set this oplog was created for, or {@link #NO_STRIPE} if it was
+   * recovered.
+   */
+  int getStripe() {
+    return this.stripe;
+  }
+
   /**
    * Returns the unserialized bytes and bits for the given Entry. If Oplog is destroyed while
    * querying, then the DiskRegion is queried again to obatin the value This method should never get
@@ -1639,8 +1714,13 @@ public final class Oplog implements CompactableOplog, Flushable {
    */
   private OplogEntryIdMap skippedKeyBytes;
 
+  /**
+   * @param prefetchedRecords the entry records of the krf read by {@link #readKrfRecords()}, or
+   *        null to read them from the krf
+   */
   private boolean readKrf(OplogEntryIdSet deletedIds, boolean recoverValues,
-      boolean recoverValuesSync, Set<Oplog> oplogsNeedingValueRecovery, boolean latestOplog) {
+      boolean recoverValuesSync, Set<Oplog> oplogsNeedingValueRecovery, boolean latestOplog,
+      List<KrfRecord> prefetchedRecords) {
     File f = new File(this.diskFile.getPath() + KRF_FILE_EXT);
     if (!f.exists()) {
       return false;
@@ -1709,99 +1789,32 @@ public final class Oplog implements CompactableOplog, Flushable {
         readGemfireVersionRecord(dis, f);
         readTotalCountRecord(dis, f);
         readRVVRecord(dis, f, false, latestOplog);
-        long lastOffset = 0;
-        byte[] keyBytes = DataSerializer.readByteArray(dis);
-        while (keyBytes != null) {
-          byte userBits = dis.readByte();
-          int valueLength = InternalDataSerializer.readArrayLength(dis);
-          byte[] valueBytes = null;
-          long drId = DiskInitFile.readDiskRegionID(dis);
-          DiskRecoveryStore drs = getOplogSet().getCurrentlyRecovering(drId);
-
-          // read version
-          VersionTag tag = null;
-          if (EntryBits.isWithVersions(userBits)) {
-            tag = readVersionsFromOplog(dis);
-            if (drs != null && !drs.getDiskRegionView().getFlags()
-                .contains(DiskRegionFlag.IS_WITH_VERSIONING)) {
-              // 50044 Remove version tag from entry if we don't want versioning
-              // for this region
-              tag = null;
-              userBits = EntryBits.setWithVersions(userBits, false);
-            } else {
-              // Update the RVV with the new entry
-              if (drs != null) {
-                drs.recordRecoveredVersionTag(tag);
-              }
+        if (prefetchedRecords != null) {
+          for (KrfRecord record : prefetchedRecords) {
+            if (record.oplogKeyId > oplogKeyIdHWM) {
+              oplogKeyIdHWM = record.oplogKeyId;
             }
-          }
-
-          long oplogKeyId = InternalDataSerializer.readVLOld(dis);
-          long oplogOffset;
-          if (EntryBits.isAnyInvalid(userBits) || EntryBits.isTombstone(userBits)) {
-            oplogOffset = -1;
-          } else {
-            oplogOffset = lastOffset + InternalDataSerializer.readVLOld(dis);
-            lastOffset = oplogOffset;
-          }
-
-          if (oplogKeyId > oplogKeyIdHWM) {
-            oplogKeyIdHWM = oplogKeyId;
-          }
-          if (okToSkipModifyRecord(deletedIds, drId, drs, oplogKeyId, true, tag).skip()) {
-            if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
-              logger.trace(LogMarker.PERSIST_RECOVERY,
-                  "readNewEntry skipping oplogKeyId=<{}> drId={} userBits={} oplogOffset={} valueLen={}",
-                  oplogKeyId, drId, userBits, oplogOffset, valueLength);
+            if (recoverKrfRecord(record, deletedIds, version, in)) {
+              krfEntryCount++;
             }
-            this.stats.incRecoveryRecordsSkipped();
-            incSkipped();
-          } else {
-            if (EntryBits.isAnyInvalid(userBits)) {
-              if (EntryBits.isInvalid(userBits)) {
-                valueBytes = DiskEntry.INVALID_BYTES;
-              } else {
-                valueBytes = DiskEntry.LOCAL_INVALID_BYTES;
-              }
-            } else if (EntryBits.isTombstone(userBits)) {
-              valueBytes = DiskEntry.TOMBSTONE_BYTES;
+          }
+        } else {
+          long lastOffset = 0;
+          byte[] keyBytes = DataSerializer.readByteArray(dis);
+          while (keyBytes != null) {
+            KrfRecord record = readKrfRecord(dis, keyBytes, lastOffset);
+            if (record.oplogOffset != -1) {
+              lastOffset = record.oplogOffset;
             }
-            Object key = deserializeKey(keyBytes, version, in);
-            {
-              Object oldValue = getRecoveryMap().put(oplogKeyId, key);
-              if (oldValue != null) {
-                throw new AssertionError(
-                    LocalizedStrings.Oplog_DUPLICATE_CREATE.toLocalizedString(oplogKeyId));
-              }
+            if (record.oplogKeyId > oplogKeyIdHWM) {
+              oplogKeyIdHWM = record.oplogKeyId;
             }
-            DiskEntry de = drs.getDiskEntry(key);
-            if (de == null) {
-              if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
-                logger.trace(LogMarker.PERSIST_RECOVERY,
-                    "readNewEntry oplogKeyId=<{}> drId={} userBits={} oplogOffset={} valueLen={}",
-                    oplogKeyId, drId, userBits, oplogOffset, valueLength);
-              }
-              DiskEntry.RecoveredEntry re = createRecoveredEntry(valueBytes, valueLength, userBits,
-                  getOplogId(), oplogOffset, oplogKeyId, false, version, in);
-              if (tag != null) {
-                re.setVersionTag(tag);
-              }
-              initRecoveredEntry(drs.getDiskRegionView(), drs.initializeRecoveredEntry(key, re));
-              drs.getDiskRegionView().incRecoveredEntryCount();
-              this.stats.incRecoveredEntryCreates();
+            if (recoverKrfRecord(record, deletedIds, version, in)) {
               krfEntryCount++;
-            } else {
-              DiskId curdid = de.getDiskId();
-              // assert curdid.getOplogId() != getOplogId();
-              if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
-                logger.trace(LogMarker.PERSIST_RECOVERY,
-                    "ignore readNewEntry because getOplogId()={} != curdid.getOplogId()={} for drId={} key={}",
-                    getOplogId(), curdid.getOplogId(), drId, key);
-              }
             }
-          }
-          keyBytes = DataSerializer.readByteArray(dis);
-        } // while
+            keyBytes = DataSerializer.readByteArray(dis);
+          } // while
+        }
         setRecoverNewEntryId(oplogKeyIdHWM);
       } catch (IOException ex) {
         try {
@@ -1841,6 +1854,198 @@ public final class Oplog implements CompactableOplog, Flushable {
     return true;
   }
 
+  /**
+   * Reads the entry records of the krf of this oplog without recovering them, so that a
+   * {@link KrfPrefetcher} thread can read them while other oplogs are being recovered. The keys
+   * are deserialized, except for pdx keys. This must be called once the drf of this oplog has been
+   * recovered.
+   *
+   * @return the entry records in the order of the krf, or null if {@link #readKrf} must read them
+   */
+  List<KrfRecord> readKrfRecords() throws IOException {
+    if (this.crf.f == null || this.gfversion == null) {
+      return null;
+    }
+    File f = new File(this.drf.f.getParentFile(),
+        oplogSet.getPrefix() + getParent().getName() + "_" + this.oplogId + KRF_FILE_EXT);
+    if (!f.exists() || !getParent().getDiskInitFile().hasKrf(this.oplogId)
+        || (getParent().isOffline() && !getParent().FORCE_KRF_RECOVERY)) {
+      return null;
+    }
+    final Version version = getProductVersionIfOld();
+    final ByteArrayDataInput in = new ByteArrayDataInput();
+    List<KrfRecord> records = new ArrayList<KrfRecord>();
+    DataInputStream dis =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(f), 1024 * 1024));
+    try {
+      // krfs without a magic sequence are in the old format, which readKrf handles
+      validateOpcode(dis, OPLOG_MAGIC_SEQ_ID);
+      readOplogMagicSeqRecord(dis, f, OPLOG_TYPE.KRF);
+      validateOpcode(dis, OPLOG_DISK_STORE_ID);
+      readDiskStoreRecord(dis, f);
+      readGemfireVersionRecord(dis, f);
+      // the total count and the rvv are recovered by readKrf
+      InternalDataSerializer.readUnsignedVL(dis);
+      readEndOfRecord(dis);
+      skipRVVRecord(dis);
+      long lastOffset = 0;
+      byte[] keyBytes = DataSerializer.readByteArray(dis);
+      while (keyBytes != null) {
+        KrfRecord record = readKrfRecord(dis, keyBytes, lastOffset);
+        if (record.oplogOffset != -1) {
+          lastOffset = record.oplogOffset;
+        }
+        if (!PdxWriterImpl.isPdx(keyBytes)) {
+          // pdx keys may need types that have not been recovered yet
+          record.key = deserializeKey(keyBytes, version, in);
+        }
+        records.add(record);
+        keyBytes = DataSerializer.readByteArray(dis);
+      }
+    } finally {
+      dis.close();
+    }
+    return records;
+  }
+
+  /**
+   * Reads the rest of an entry record of a krf.
+   *
+   * @param lastOffset the offset of the last record of the krf that has a value in the crf
+   */
+  private KrfRecord readKrfRecord(DataInput dis, byte[] keyBytes, long lastOffset)
+      throws IOException {
+    byte userBits = dis.readByte();
+    int valueLength = InternalDataSerializer.readArrayLength(dis);
+    long drId = DiskInitFile.readDiskRegionID(dis);
+    VersionTag tag = null;
+    if (EntryBits.isWithVersions(userBits)) {
+      tag = readVersionsFromOplog(dis);
+    }
+    long oplogKeyId = InternalDataSerializer.readVLOld(dis);
+    long oplogOffset;
+    if (EntryBits.isAnyInvalid(userBits) || EntryBits.isTombstone(userBits)) {
+      oplogOffset = -1;
+    } else {
+      oplogOffset = lastOffset + InternalDataSerializer.readVLOld(dis);
+    }
+    return new KrfRecord(keyBytes, userBits, valueLength, drId, tag, oplogKeyId, oplogOffset);
+  }
+
+  /**
+   * Recovers an entry record of the krf of this oplog.
+   *
+   * @return true if an entry was created for the record
+   */
+  private boolean recoverKrfRecord(KrfRecord record, OplogEntryIdSet deletedIds,
+      final Version version, final ByteArrayDataInput in) {
+    byte userBits = record.userBits;
+    final long drId = record.drId;
+    final long oplogKeyId = record.oplogKeyId;
+    DiskRecoveryStore drs = getOplogSet().getCurrentlyRecovering(drId);
+
+    VersionTag tag = record.tag;
+    if (EntryBits.isWithVersions(userBits)) {
+      if (drs != null
+          && !drs.getDiskRegionView().getFlags().contains(DiskRegionFlag.IS_WITH_VERSIONING)) {
+        // 50044 Remove version tag from entry if we don't want versioning
+        // for this region
+        tag = null;
+        userBits = EntryBits.setWithVersions(userBits, false);
+      } else {
+        // Update the RVV with the new entry
+        if (drs != null) {
+          drs.recordRecoveredVersionTag(tag);
+        }
+      }
+    }
+
+    if (okToSkipModifyRecord(deletedIds, drId, drs, oplogKeyId, true, tag).skip()) {
+      if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
+        logger.trace(LogMarker.PERSIST_RECOVERY,
+            "readNewEntry skipping oplogKeyId=<{}> drId={} userBits={} oplogOffset={} valueLen={}",
+            oplogKeyId, drId, userBits, record.oplogOffset, record.valueLength);
+      }
+      this.stats.incRecoveryRecordsSkipped();
+      incSkipped();
+      return false;
+    }
+    byte[] valueBytes = null;
+    if (EntryBits.isAnyInvalid(userBits)) {
+      if (EntryBits.isInvalid(userBits)) {
+        valueBytes = DiskEntry.INVALID_BYTES;
+      } else {
+        valueBytes = DiskEntry.LOCAL_INVALID_BYTES;
+      }
+    } else if (EntryBits.isTombstone(userBits)) {
+      valueBytes = DiskEntry.TOMBSTONE_BYTES;
+    }
+    Object key = record.key;
+    if (key == null) {
+      key = deserializeKey(record.keyBytes, version, in);
+    }
+    {
+      Object oldValue = getRecoveryMap().put(oplogKeyId, key);
+      if (oldValue != null) {
+        throw new AssertionError(
+            LocalizedStrings.Oplog_DUPLICATE_CREATE.toLocalizedString(oplogKeyId));
+      }
+    }
+    DiskEntry de = drs.getDiskEntry(key);
+    if (de == null) {
+      if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
+        logger.trace(LogMarker.PERSIST_RECOVERY,
+            "readNewEntry oplogKeyId=<{}> drId={} userBits={} oplogOffset={} valueLen={}",
+            oplogKeyId, drId, userBits, record.oplogOffset, record.valueLength);
+      }
+      DiskEntry.RecoveredEntry re = createRecoveredEntry(valueBytes, record.valueLength, userBits,
+          getOplogId(), record.oplogOffset, oplogKeyId, false, version, in);
+      if (tag != null) {
+        re.setVersionTag(tag);
+      }
+      initRecoveredEntry(drs.getDiskRegionView(), drs.initializeRecoveredEntry(key, re));
+      drs.getDiskRegionView().incRecoveredEntryCount();
+      this.stats.incRecoveredEntryCreates();
+      return true;
+    } else {
+      DiskId curdid = de.getDiskId();
+      // assert curdid.getOplogId() != getOplogId();
+      if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
+        logger.trace(LogMarker.PERSIST_RECOVERY,
+            "ignore readNewEntry because getOplogId()={} != curdid.getOplogId()={} for drId={} key={}",
+            getOplogId(), curdid.getOplogId(), drId, key);
+      }
+      return false;
+    }
+  }
+
+  /**
+   * An entry record of a krf, read by {@link #readKrfRecords()} or {@link #readKrf}.
+   */
+  static class KrfRecord {
+    final byte[] keyBytes;
+    final byte userBits;
+    final int valueLength;
+    final long drId;
+    final VersionTag tag;
+    final long oplogKeyId;
+    /** The offset of the value in the crf, or -1 if the value is not in the crf */
+    final long oplogOffset;
+    /** The deserialized key, or null if it has to be deserialized when recovering the record */
+    Object key;
+
+    KrfRecord(byte[] keyBytes, byte userBits, int valueLength, long drId, VersionTag tag,
+        long oplogKeyId, long oplogOffset) {
+      this.keyBytes = keyBytes;
+      this.userBits = userBits;
+      this.valueLength = valueLength;
+      this.drId = drId;
+      this.tag = tag;
+      this.oplogKeyId = oplogKeyId;
+      this.oplogOffset = oplogOffset;
+    }
+  }
+
   private void validateOpcode(DataInputStream dis, byte expect) throws IOException {
     byte opCode = dis.readByte();
     if (opCode != expect) {
@@ -2175,8 +2380,11 @@ public final class Oplog implements CompactableOplog, Flushable {
         }
       } else {
         boolean rvvTrusted = InternalDataSerializer.readBoolean(dis);
+        // the newest oplog may belong to another stripe so look for the newest one of this region
+        boolean latestRVV =
+            drs != null && (getOplogSet().isLatestRVVOplog(drId, this) || latestOplog);
         if (drs != null) {
-          if (latestOplog) {
+          if (latestRVV) {
             // only set rvvtrust based on the newest oplog recovered
             drs.setRVVTrusted(rvvTrusted);
             if (isPersistRecoveryDebugEnabled) {
@@ -2194,11 +2402,11 @@ public final class Oplog implements CompactableOplog, Flushable {
           RegionVersionHolder versionHolder = new RegionVersionHolder(dis);
           if (drs != null) {
             Object member = getParent().getDiskInitFile().getCanonicalObject((int) memberId);
-            drs.recordRecoveredVersonHolder((VersionSource) member, versionHolder, latestOplog);
+            drs.recordRecoveredVersonHolder((VersionSource) member, versionHolder, latestRVV);
             if (isPersistRecoveryDebugEnabled) {
               logger.trace(LogMarker.PERSIST_RECOVERY,
                   "adding RVV entry drId={},member={},versionHolder={},latestOplog={},oplogId={}",
-                  drId, memberId, versionHolder, latestOplog, getOplogId());
+                  drId, memberId, versionHolder, latestRVV, getOplogId());
             }
           } else {
             if (isPersistRecoveryDebugEnabled) {
@@ -2213,6 +2421,23 @@ public final class Oplog implements CompactableOplog, Flushable {
     readEndOfRecord(dis);
   }
 
+  /**
+   * Reads a regular RVV record without recovering it.
+   */
+  private void skipRVVRecord(DataInput dis) throws IOException {
+    long numRegions = InternalDataSerializer.readUnsignedVL(dis);
+    for (int region = 0; region < numRegions; region++) {
+      InternalDataSerializer.readUnsignedVL(dis);
+      InternalDataSerializer.readBoolean(dis);
+      long rvvSize = InternalDataSerializer.readUnsignedVL(dis);
+      for (int memberNum = 0; memberNum < rvvSize; memberNum++) {
+        InternalDataSerializer.readUnsignedVL(dis);
+        new RegionVersionHolder(dis);
+      }
+    }
+    readEndOfRecord(dis);
+  }
+
   /**
    * Recovers one oplog
    * 
@@ -2220,6 +2445,20 @@ public final class Oplog implements CompactableOplog, Flushable {
    */
   long recoverCrf(OplogEntryIdSet deletedIds, boolean recoverValues, boolean recoverValuesSync,
       boolean alreadyRecoveredOnce, Set<Oplog> oplogsNeedingValueRecovery, boolean latestOplog) {
+    return recoverCrf(deletedIds, recoverValues, recoverValuesSync, alreadyRecoveredOnce,
+        oplogsNeedingValueRecovery, latestOplog, null);
+  }
+
+  /**
+   * Recovers one oplog
+   * 
+   * @param latestOplog - true if this oplog is the latest oplog in the disk store.
+   * @param prefetchedKrfRecords the entry records of the krf read by a {@link KrfPrefetcher}, or
+   *        null to read them from the krf
+   */
+  long recoverCrf(OplogEntryIdSet deletedIds, boolean recoverValues, boolean recoverValuesSync,
+      boolean alreadyRecoveredOnce, Set<Oplog> oplogsNeedingValueRecovery, boolean latestOplog,
+      List<KrfRecord> prefetchedKrfRecords) {
     // crf might not exist; but drf always will
     this.diskFile = new File(this.drf.f.getParentFile(),
         oplogSet.getPrefix() + getParent().getName() + "_" + this.oplogId);
@@ -2244,7 +2483,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       // if we have a KRF then read it and delay reading the CRF.
       // Unless we are in synchronous recovery mode
       if (!readKrf(deletedIds, recoverValues, recoverValuesSync, oplogsNeedingValueRecovery,
-          latestOplog)) {
+          latestOplog, prefetchedKrfRecords)) {
         logger.info(LocalizedMessage.create(LocalizedStrings.DiskRegion_RECOVERING_OPLOG_0_1_2,
             new Object[] {toString(), crfFile.getAbsolutePath(), getParent().getName()}));
         byteCount = readCrf(deletedIds, recoverValues, latestOplog);
@@ -2299,7 +2538,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     // but for upgrade disk store, we have to do it for pure creates oplog
     if (getRecordsSkipped() > 0 || getHasDeletes() || getParent().isUpgradeVersionOnly()) {
       this.offlineCompactPhase2 = true;
-      if (getOplogSet().getChild() == null) {
+      if (!getOplogSet().hasChildren()) {
         getOplogSet().initChild();
       }
       readCrf(deletedIds, true, latestOplog);
@@ -2559,8 +2798,8 @@ public final class Oplog implements CompactableOplog, Flushable {
             this.stats.incRecoveredEntryCreates();
           } else { // phase2
             Assert.assertTrue(p2cr != null, "First pass did not find create a compaction record");
-            getOplogSet().getChild().copyForwardForOfflineCompact(oplogKeyId, p2cr.getKeyBytes(),
-                objValue, userBits, drId, tag);
+            getOplogSet().getChildOfRegion(drId).copyForwardForOfflineCompact(oplogKeyId,
+                p2cr.getKeyBytes(), objValue, userBits, drId, tag);
             if (isPersistRecoveryDebugEnabled) {
               logger.trace(LogMarker.PERSIST_RECOVERY, "readNewEntry copyForward oplogKeyId=<{}>",
                   oplogKeyId);
@@ -2744,8 +2983,8 @@ public final class Oplog implements CompactableOplog, Flushable {
           cr.update(crOffset);
         } else { // phase2
           Assert.assertTrue(p2cr != null, "First pass did not find create a compaction record");
-          getOplogSet().getChild().copyForwardForOfflineCompact(oplogKeyId, p2cr.getKeyBytes(),
-              objValue, userBits, drId, tag);
+          getOplogSet().getChildOfRegion(drId).copyForwardForOfflineCompact(oplogKeyId,
+              p2cr.getKeyBytes(), objValue, userBits, drId, tag);
           if (isPersistRecoveryDebugEnabled) {
             logger.trace(LogMarker.PERSIST_RECOVERY, "readModifyEntry copyForward oplogKeyId=<{}>",
                 oplogKeyId);
@@ -2974,8 +3213,8 @@ public final class Oplog implements CompactableOplog, Flushable {
           this.stats.incRecoveredEntryCreates();
         } else { // phase2
           Assert.assertTrue(p2cr != null, "First pass did not find create a compaction record");
-          getOplogSet().getChild().copyForwardForOfflineCompact(oplogKeyId, p2cr.getKeyBytes(),
-              objValue, userBits, drId, tag);
+          getOplogSet().getChildOfRegion(drId).copyForwardForOfflineCompact(oplogKeyId,
+              p2cr.getKeyBytes(), objValue, userBits, drId, tag);
           if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
             logger.trace(LogMarker.PERSIST_RECOVERY,
                 "readModifyEntryWithKey copyForward oplogKeyId=<{}>", oplogKeyId);
@@ -3296,6 +3535,7 @@ public final class Oplog implements CompactableOplog, Flushable {
   private void basicClose(boolean forceDelete) {
     flushAll();
     synchronized (this.lock/* crf */) {
+      this.mappedCrf = null;
       unpreblow(this.crf, getMaxCrfSize());
       if (!this.crf.RAFClosed) {
         try {
@@ -3442,7 +3682,72 @@ public final class Oplog implements CompactableOplog, Flushable {
    */
   private void initOpState(byte opCode, DiskRegionView dr, DiskEntry entry, ValueWrapper value,
       byte userBits, boolean notToUseUserBits) throws IOException {
-    this.opState.initialize(opCode, dr, entry, value, userBits, notToUseUserBits);
+    initOpState(opCode, dr, entry, value, userBits, notToUseUserBits, null, null);
+  }
+
+  /**
+   * Like {@link #initOpState(byte, DiskRegionView, DiskEntry, ValueWrapper, byte, boolean)}, with
+   * the key and versions of the entry already serialized by
+   * {@link #serializeRecordKey(DiskEntry)} and {@link #serializeRecordVersions(DiskEntry, byte)}.
+   * Either of them is serialized here if it is null and the record needs it.
+   */
+  private void initOpState(byte opCode, DiskRegionView dr, DiskEntry entry, ValueWrapper value,
+      byte userBits, boolean notToUseUserBits, byte[] keyBytes, byte[] versionsBytes)
+      throws IOException {
+    this.opState.initialize(opCode, dr, entry, value, userBits, notToUseUserBits, keyBytes,
+        versionsBytes);
+  }
+
+  /**
+   * Serializes the key of an entry for its create record. This is done before taking the lock,
+   * which every writer of the disk store contends on, so that only the copy of the record into the
+   * write buffer is done while holding it.
+   */
+  private byte[] serializeRecordKey(DiskEntry entry) {
+    return EntryEventImpl.serialize(entry.getKey());
+  }
+
+  /**
+   * Serializes the versions of an entry for its create or modify record, or returns null if the
+   * record has none. Like {@link #serializeRecordKey(DiskEntry)}, this is done before taking the
+   * lock; the caller synchronizes on the entry so its versions cannot change in the meantime.
+   */
+  private byte[] serializeRecordVersions(DiskEntry entry, byte userBits) throws IOException {
+    VersionStamp stamp = entry.getVersionStamp();
+    if (stamp == null || !EntryBits.isWithVersions(EntryBits.getPersistentBits(userBits))) {
+      return null;
+    }
+    return serializeVersionTag(stamp);
+  }
+
+  /**
+   * Test hook that builds the record of a create or modify of the given entry under the lock, as
+   * {@link #basicCreate} and {@link #basicModify} do, and returns its key and versions bytes. If
+   * preSerialize is false they are serialized under the lock instead of before taking it.
+   */
+  byte[][] testHook_getRecordKeyAndVersions(DiskRegionView dr, DiskEntry entry,
+      ValueWrapper value, boolean create, boolean preSerialize) throws IOException {
+    byte userBits = calcUserBits(value);
+    if (entry.getVersionStamp() != null) {
+      userBits = EntryBits.setWithVersions(userBits, true);
+    }
+    byte[] keyBytes = null;
+    byte[] versionsBytes = null;
+    if (preSerialize) {
+      if (create) {
+        keyBytes = serializeRecordKey(entry);
+      }
+      versionsBytes = serializeRecordVersions(entry, userBits);
+    }
+    synchronized (this.lock) {
+      try {
+        initOpState(create ? OPLOG_NEW_ENTRY_0ID : OPLOG_MOD_ENTRY_1ID, dr, entry, value,
+            userBits, false, keyBytes, versionsBytes);
+        return new byte[][] {this.opState.keyBytes, this.opState.versionsBytes};
+      } finally {
+        clearOpState();
+      }
+    }
   }
 
   private void clearOpState() {
@@ -3493,8 +3798,8 @@ public final class Oplog implements CompactableOplog, Flushable {
    */
   public final void create(LocalRegion region, DiskEntry entry, ValueWrapper value, boolean async) {
 
-    if (this != getOplogSet().getChild()) {
-      getOplogSet().getChild().create(region, entry, value, async);
+    if (this != getOplogSet().getChild(region.getDiskRegion())) {
+      getOplogSet().getChild(region.getDiskRegion()).create(region, entry, value, async);
     } else {
       DiskId did = entry.getDiskId();
       boolean exceptionOccured = false;
@@ -3561,22 +3866,26 @@ public final class Oplog implements CompactableOplog, Flushable {
     DiskId id = entry.getDiskId();
     boolean useNextOplog = false;
     long startPosForSynchOp = -1;
+    long commitSequence = 0;
     if (DiskStoreImpl.KRF_DEBUG) {
       // wait for cache close to create krf
       System.out.println("basicCreate KRF_DEBUG");
       Thread.sleep(1000);
     }
+    byte[] keyBytes = serializeRecordKey(entry);
+    byte[] versionsBytes = serializeRecordVersions(entry, userBits);
     synchronized (this.lock) { // TODO soplog perf analysis shows this as a
                                // contention point
       // synchronized (this.crf) {
-      initOpState(OPLOG_NEW_ENTRY_0ID, dr, entry, value, userBits, false);
+      initOpState(OPLOG_NEW_ENTRY_0ID, dr, entry, value, userBits, false, keyBytes,
+          versionsBytes);
       // Asif : Check if the current data in ByteBuffer will cause a
       // potential increase in the size greater than the max allowed
       long temp = (getOpStateSize() + this.crf.currSize);
       if (!this.wroteNewEntryBase) {
         temp += OPLOG_NEW_ENTRY_BASE_REC_SIZE;
       }
-      if (this != getOplogSet().getChild()) {
+      if (this != getOplogSet().getChild(dr)) {
         useNextOplog = true;
       } else if (temp > getMaxCrfSize() && !isFirstRecord()) {
         switchOpLog(dr, getOpStateSize(), entry);
@@ -3627,7 +3936,8 @@ public final class Oplog implements CompactableOplog, Flushable {
         id.setOplogId(getOplogId());
         // do the io while holding lock so that switch can set doneAppending
         // Write the data to the opLog for the synch mode
-        startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
+        startPosForSynchOp = writeOpLogBytes(this.crf, async, this.groupCommitter == null);
+        commitSequence = appendForGroupCommit(async);
         // if (this.crf.currSize != startPosForSynchOp) {
         // assert false;
         // }
@@ -3684,9 +3994,10 @@ public final class Oplog implements CompactableOplog, Flushable {
       if (LocalRegion.ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
         CacheObserverHolder.getInstance().afterSwitchingOplog();
       }
-      Assert.assertTrue(this != getOplogSet().getChild());
-      getOplogSet().getChild().basicCreate(dr, entry, value, userBits, async);
+      Assert.assertTrue(this != getOplogSet().getChild(dr));
+      getOplogSet().getChild(dr).basicCreate(dr, entry, value, userBits, async);
     } else {
+      waitForGroupCommit(commitSequence);
       if (LocalRegion.ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
         CacheObserverHolder.getInstance().afterSettingOplogOffSet(startPosForSynchOp);
       }
@@ -3715,9 +4026,9 @@ public final class Oplog implements CompactableOplog, Flushable {
    * This oplog will be forced to switch to a new oplog
    */
   void forceRolling(DiskRegion dr) {
-    if (getOplogSet().getChild() == this) {
+    if (getOplogSet().isChild(this)) {
       synchronized (this.lock) {
-        if (getOplogSet().getChild() == this) {
+        if (getOplogSet().isChild(this)) {
           switchOpLog(dr, 0, null);
         }
       }
@@ -3794,7 +4105,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     try {
       DirectoryHolder nextDirHolder =
           getOplogSet().getNextDir(lengthOfOperationCausingSwitch, true);
-      Oplog newOplog = new Oplog(this.oplogId + 1, nextDirHolder, this);
+      Oplog newOplog = new Oplog(getOplogSet().newOplogId(), nextDirHolder, this);
       newOplog.firstRecord = true;
       getOplogSet().setChild(newOplog);
 
@@ -4040,7 +4351,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     this.krf.dos.writeByte(END_OF_RECORD_ID);
 
     // Write the RVV to the krf.
-    Map<Long, AbstractDiskRegion> drMap = getParent().getAllDiskRegions();
+    Map<Long, AbstractDiskRegion> drMap = getDiskRegionsOfStripe();
     byte[] rvvBytes = serializeRVVs(drMap, false);
     this.krf.dos.write(rvvBytes);
     this.krf.dos.writeByte(END_OF_RECORD_ID);
@@ -4374,7 +4685,7 @@ public final class Oplog implements CompactableOplog, Flushable {
         if (entry.getDiskId().isPendingAsync()) {
           entry.getDiskId().setPendingAsync(false);
           try {
-            getOplogSet().getChild().basicRemove(dr, entry, false, false);
+            getOplogSet().getChild(dr).basicRemove(dr, entry, false, false);
           } catch (IOException ex) {
             getParent().getCancelCriterion().checkCancelInProgress(ex);
             throw new DiskAccessException(LocalizedStrings.Oplog_FAILED_WRITING_KEY_TO_0
@@ -4420,8 +4731,8 @@ public final class Oplog implements CompactableOplog, Flushable {
    */
   public final void modify(LocalRegion region, DiskEntry entry, ValueWrapper value, boolean async) {
 
-    if (getOplogSet().getChild() != this) {
-      getOplogSet().getChild().modify(region, entry, value, async);
+    if (getOplogSet().getChild(region.getDiskRegion()) != this) {
+      getOplogSet().getChild(region.getDiskRegion()).modify(region, entry, value, async);
     } else {
       DiskId did = entry.getDiskId();
       boolean exceptionOccured = false;
@@ -4500,8 +4811,8 @@ public final class Oplog implements CompactableOplog, Flushable {
   }
 
   public final void saveConflictVersionTag(LocalRegion region, VersionTag tag, boolean async) {
-    if (getOplogSet().getChild() != this) {
-      getOplogSet().getChild().saveConflictVersionTag(region, tag, async);
+    if (getOplogSet().getChild(region.getDiskRegion()) != this) {
+      getOplogSet().getChild(region.getDiskRegion()).saveConflictVersionTag(region, tag, async);
     } else {
       try {
         basicSaveConflictVersionTag(region.getDiskRegion(), tag, async);
@@ -4539,8 +4850,8 @@ public final class Oplog implements CompactableOplog, Flushable {
 
   private final void copyForwardModifyForCompact(DiskRegionView dr, DiskEntry entry,
       BytesAndBitsForCompactor wrapper) {
-    if (getOplogSet().getChild() != this) {
-      getOplogSet().getChild().copyForwardModifyForCompact(dr, entry, wrapper);
+    if (getOplogSet().getChild(dr) != this) {
+      getOplogSet().getChild(dr).copyForwardModifyForCompact(dr, entry, wrapper);
     } else {
       DiskId did = entry.getDiskId();
       boolean exceptionOccured = false;
@@ -4597,6 +4908,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     DiskId id = entry.getDiskId();
     boolean useNextOplog = false;
     long startPosForSynchOp = -1L;
+    long commitSequence = 0;
     int adjustment = 0;
     Oplog emptyOplog = null;
     if (DiskStoreImpl.KRF_DEBUG) {
@@ -4604,12 +4916,15 @@ public final class Oplog implements CompactableOplog, Flushable {
       System.out.println("basicModify KRF_DEBUG");
       Thread.sleep(1000);
     }
+    // the key is only needed by the first record of the entry in this oplog
+    byte[] versionsBytes = serializeRecordVersions(entry, userBits);
     synchronized (this.lock) {
       // synchronized (this.crf) {
-      if (getOplogSet().getChild() != this) {
+      if (getOplogSet().getChild(dr) != this) {
         useNextOplog = true;
       } else {
-        initOpState(OPLOG_MOD_ENTRY_1ID, dr, entry, value, userBits, false);
+        initOpState(OPLOG_MOD_ENTRY_1ID, dr, entry, value, userBits, false, null,
+            versionsBytes);
         adjustment = getOpStateSize();
         assert adjustment > 0;
         long temp = (this.crf.currSize + adjustment);
@@ -4627,7 +4942,8 @@ public final class Oplog implements CompactableOplog, Flushable {
           long oldOplogId;
           // do the io while holding lock so that switch can set doneAppending
           // Write the data to the opLog for the synch mode
-          startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
+          startPosForSynchOp = writeOpLogBytes(this.crf, async, this.groupCommitter == null);
+          commitSequence = appendForGroupCommit(async);
           this.crf.currSize = temp;
           startPosForSynchOp += getOpStateValueOffset();
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
@@ -4665,6 +4981,9 @@ public final class Oplog implements CompactableOplog, Flushable {
           // Set the oplog size change for stats
           this.dirHolder.incrementTotalOplogSize(adjustment);
           this.incTotalCount();
+          if (calledByCompactor) {
+            getStats().incCompactedBytes(adjustment);
+          }
 
           EntryLogger.logPersistPut(dr.getName(), entry.getKey(), dr.getDiskStoreID());
           if (oldOplogId != getOplogId()) {
@@ -4699,9 +5018,10 @@ public final class Oplog implements CompactableOplog, Flushable {
       if (LocalRegion.ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
         CacheObserverHolder.getInstance().afterSwitchingOplog();
       }
-      Assert.assertTrue(getOplogSet().getChild() != this);
-      getOplogSet().getChild().basicModify(dr, entry, value, userBits, async, calledByCompactor);
+      Assert.assertTrue(getOplogSet().getChild(dr) != this);
+      getOplogSet().getChild(dr).basicModify(dr, entry, value, userBits, async, calledByCompactor);
     } else {
+      waitForGroupCommit(commitSequence);
       if (LocalRegion.ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
         CacheObserverHolder.getInstance().afterSettingOplogOffSet(startPosForSynchOp);
       }
@@ -4726,9 +5046,10 @@ public final class Oplog implements CompactableOplog, Flushable {
   private void basicSaveConflictVersionTag(DiskRegionView dr, VersionTag tag, boolean async)
       throws IOException, InterruptedException {
     boolean useNextOplog = false;
+    long commitSequence = 0;
     int adjustment = 0;
     synchronized (this.lock) {
-      if (getOplogSet().getChild() != this) {
+      if (getOplogSet().getChild(dr) != this) {
         useNextOplog = true;
       } else {
         this.opState.initialize(OPLOG_CONFLICT_VERSION, dr.getId(), tag);
@@ -4746,7 +5067,8 @@ public final class Oplog implements CompactableOplog, Flushable {
             throw cce;
           }
           this.firstRecord = false;
-          writeOpLogBytes(this.crf, async, true);
+          writeOpLogBytes(this.crf, async, this.groupCommitter == null);
+          commitSequence = appendForGroupCommit(async);
           this.crf.currSize = temp;
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
             logger.trace(LogMarker.PERSIST_WRITES,
@@ -4769,8 +5091,10 @@ public final class Oplog implements CompactableOplog, Flushable {
       if (LocalRegion.ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
         CacheObserverHolder.getInstance().afterSwitchingOplog();
       }
-      Assert.assertTrue(getOplogSet().getChild() != this);
-      getOplogSet().getChild().basicSaveConflictVersionTag(dr, tag, async);
+      Assert.assertTrue(getOplogSet().getChild(dr) != this);
+      getOplogSet().getChild(dr).basicSaveConflictVersionTag(dr, tag, async);
+    } else {
+      waitForGroupCommit(commitSequence);
     }
   }
 
@@ -4782,7 +5106,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     int adjustment = 0;
     synchronized (this.lock) {
       // synchronized (this.crf) {
-      if (getOplogSet().getChild() != this) {
+      if (getOplogSet().getChildOfRegion(drId) != this) {
         useNextOplog = true;
       } else {
         this.opState.initialize(oplogKeyId, keyBytes, valueBytes, userBits, drId, tag, false);
@@ -4800,8 +5124,8 @@ public final class Oplog implements CompactableOplog, Flushable {
           startPosForSynchOp = writeOpLogBytes(this.crf, true, true);
           this.crf.currSize = temp;
           startPosForSynchOp += getOpStateValueOffset();
-          getOplogSet().getChild().writeOneKeyEntryForKRF(keyBytes, userBits, valueBytes.length,
-              drId, oplogKeyId, startPosForSynchOp, tag);
+          getOplogSet().getChildOfRegion(drId).writeOneKeyEntryForKRF(keyBytes, userBits,
+              valueBytes.length, drId, oplogKeyId, startPosForSynchOp, tag);
 
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
             logger.trace(LogMarker.PERSIST_WRITES,
@@ -4821,9 +5145,9 @@ public final class Oplog implements CompactableOplog, Flushable {
       if (LocalRegion.ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
         CacheObserverHolder.getInstance().afterSwitchingOplog();
       }
-      Assert.assertTrue(getOplogSet().getChild() != this);
-      getOplogSet().getChild().basicCopyForwardForOfflineCompact(oplogKeyId, keyBytes, valueBytes,
-          userBits, drId, tag);
+      Assert.assertTrue(getOplogSet().getChildOfRegion(drId) != this);
+      getOplogSet().getChildOfRegion(drId).basicCopyForwardForOfflineCompact(oplogKeyId, keyBytes,
+          valueBytes, userBits, drId, tag);
     }
   }
 
@@ -4897,8 +5221,8 @@ public final class Oplog implements CompactableOplog, Flushable {
    */
   public final void remove(LocalRegion region, DiskEntry entry, boolean async, boolean isClear) {
     DiskRegion dr = region.getDiskRegion();
-    if (getOplogSet().getChild() != this) {
-      getOplogSet().getChild().remove(region, entry, async, isClear);
+    if (getOplogSet().getChild(dr) != this) {
+      getOplogSet().getChild(dr).remove(region, entry, async, isClear);
     } else {
       DiskId did = entry.getDiskId();
       boolean exceptionOccured = false;
@@ -4936,7 +5260,7 @@ public final class Oplog implements CompactableOplog, Flushable {
   public final void writeGCRVV(DiskRegion dr) {
     boolean useNextOplog = false;
     synchronized (this.lock) {
-      if (getOplogSet().getChild() != this) {
+      if (getOplogSet().getChild(dr) != this) {
         useNextOplog = true;
       } else {
         try {
@@ -4950,7 +5274,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       }
     }
     if (useNextOplog) {
-      getOplogSet().getChild().writeGCRVV(dr);
+      getOplogSet().getChild(dr).writeGCRVV(dr);
     } else {
       DiskStoreObserver.endWriteGCRVV(dr);
     }
@@ -4965,7 +5289,7 @@ public final class Oplog implements CompactableOplog, Flushable {
   public void writeRVV(DiskRegion dr, RegionVersionVector sourceRVV, Boolean isRVVTrusted) {
     boolean useNextOplog = false;
     synchronized (this.lock) {
-      if (getOplogSet().getChild() != this) {
+      if (getOplogSet().getChild(dr) != this) {
         useNextOplog = true;
       } else {
 
@@ -4996,7 +5320,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       }
     }
     if (useNextOplog) {
-      getOplogSet().getChild().writeRVV(dr, sourceRVV, isRVVTrusted);
+      getOplogSet().getChild(dr).writeRVV(dr, sourceRVV, isRVVTrusted);
     }
   }
 
@@ -5034,6 +5358,7 @@ public final class Oplog implements CompactableOplog, Flushable {
 
     boolean useNextOplog = false;
     long startPosForSynchOp = -1;
+    long commitSequence = 0;
     Oplog emptyOplog = null;
     if (DiskStoreImpl.KRF_DEBUG) {
       // wait for cache close to create krf
@@ -5041,7 +5366,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       Thread.sleep(1000);
     }
     synchronized (this.lock) {
-      if (getOplogSet().getChild() != this) {
+      if (getOplogSet().getChild(dr) != this) {
         useNextOplog = true;
       } else if ((this.drf.currSize + MAX_DELETE_ENTRY_RECORD_BYTES) > getMaxDrfSize()
           && !isFirstRecord()) {
@@ -5080,7 +5405,8 @@ public final class Oplog implements CompactableOplog, Flushable {
           // before we flush the crf.
           // However we can't have removes by async if we are doing a sync write
           // because we might be killed right after we do this write.
-          startPosForSynchOp = writeOpLogBytes(this.drf, async, true);
+          startPosForSynchOp = writeOpLogBytes(this.drf, async, this.groupCommitter == null);
+          commitSequence = appendForGroupCommit(async);
           setHasDeletes(true);
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
             logger.debug("basicRemove: id=<{}> key=<{}> drId={} oplog#{}", abs(id.getKeyId()),
@@ -5117,9 +5443,10 @@ public final class Oplog implements CompactableOplog, Flushable {
       if (LocalRegion.ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
         CacheObserverHolder.getInstance().afterSwitchingOplog();
       }
-      Assert.assertTrue(getOplogSet().getChild() != this);
-      getOplogSet().getChild().basicRemove(dr, entry, async, isClear);
+      Assert.assertTrue(getOplogSet().getChild(dr) != this);
+      getOplogSet().getChild(dr).basicRemove(dr, entry, async, isClear);
     } else {
+      waitForGroupCommit(commitSequence);
       if (LocalRegion.ISSUE_CALLBACKS_TO_CACHE_OBSERVER) {
         CacheObserverHolder.getInstance().afterSettingOplogOffSet(startPosForSynchOp);
       }
@@ -5142,6 +5469,15 @@ public final class Oplog implements CompactableOplog, Flushable {
     return this.crf.writeBuf;
   }
 
+  /**
+   * test hook
+   */
+  final ByteBuffer getSpareWriteBuf() {
+    synchronized (this.crf) {
+      return this.crf.spareBuf;
+    }
+  }
+
   private final void flushNoSync(OplogFile olf) throws IOException {
     flushAllNoSync(false); // @todo
     // flush(olf, false);
@@ -5174,6 +5510,7 @@ public final class Oplog implements CompactableOplog, Flushable {
         if (olf.RAFClosed) {
           return;
         }
+        waitForGroupCommitWrite(olf);
         ByteBuffer bb = olf.writeBuf;
         if (bb != null && bb.position() != 0) {
           bb.flip();
@@ -5208,6 +5545,7 @@ public final class Oplog implements CompactableOplog, Flushable {
         if (olf.RAFClosed) {
           return;
         }
+        waitForGroupCommitWrite(olf);
         this.bbArray[0] = b1;
         this.bbArray[1] = b2;
         b1.flip();
@@ -5254,6 +5592,121 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
   }
 
+  /**
+   * Writes the records appended to the write buffers so far, and forces them to disk if doSync,
+   * without holding the lock during the io. Under the lock the write buffers are swapped for spare
+   * ones and the file range of their records is reserved by moving the channel position past it,
+   * so the records appended meanwhile are written after them. Only called by the
+   * {@link OplogGroupCommitter}, which never commits concurrently.
+   */
+  final void groupCommit(boolean doSync) {
+    try {
+      long drfPosition;
+      long crfPosition;
+      synchronized (this.lock) {
+        drfPosition = swapWriteBuf(this.drf);
+        crfPosition = swapWriteBuf(this.crf);
+      }
+      try {
+        writeCommittingBuf(this.drf, drfPosition, doSync);
+      } finally {
+        writeCommittingBuf(this.crf, crfPosition, doSync);
+      }
+    } catch (IOException ex) {
+      getParent().getCancelCriterion().checkCancelInProgress(ex);
+      throw new DiskAccessException(
+          LocalizedStrings.Oplog_FAILED_WRITING_KEY_TO_0.toLocalizedString(this.diskFile.getPath()),
+          ex, getParent());
+    }
+  }
+
+  /**
+   * Takes the write buffer of olf for a group commit, putting a spare one in its place. This must
+   * be called while holding the lock.
+   * 
+   * @return the position in the file to write the taken buffer at, or -1 if there is nothing to
+   *         write
+   */
+  private long swapWriteBuf(OplogFile olf) throws IOException {
+    ByteBuffer bb = olf.writeBuf;
+    if (olf.RAFClosed || bb == null || bb.position() == 0) {
+      return -1;
+    }
+    long position = olf.channel.position();
+    olf.channel.position(position + bb.position());
+    bb.flip();
+    synchronized (olf) {
+      olf.writeBuf = olf.spareBuf != null ? olf.spareBuf : ByteBuffer.allocateDirect(bb.capacity());
+      olf.spareBuf = null;
+      olf.committingBuf = bb;
+    }
+    return position;
+  }
+
+  /**
+   * Writes the buffer taken by {@link #swapWriteBuf(OplogFile)} at the given position without
+   * holding the lock and releases the flushes waiting for it. The file is forced even if there was
+   * nothing to write since the records being committed may have been flushed without a sync when
+   * the write buffer filled up.
+   */
+  private void writeCommittingBuf(OplogFile olf, long position, boolean doSync)
+      throws IOException {
+    if (position == -1 && olf.RAFClosed) {
+      return;
+    }
+    try {
+      if (position != -1) {
+        ByteBuffer bb;
+        synchronized (olf) {
+          bb = olf.committingBuf;
+        }
+        long flushed = 0;
+        try {
+          while (bb.hasRemaining()) {
+            flushed += olf.channel.write(bb, position + flushed);
+          }
+        } finally {
+          synchronized (olf) {
+            olf.bytesFlushed += flushed;
+            bb.clear();
+            olf.spareBuf = bb;
+            olf.committingBuf = null;
+            olf.notifyAll();
+          }
+        }
+      }
+      if (doSync) {
+        if (SYNC_WRITES) {
+          // Synch Meta Data as well as content
+          olf.channel.force(true);
+        }
+      }
+    } catch (ClosedChannelException ignore) {
+      // the channel was closed by an interrupted io op; see flush(OplogFile, boolean)
+    }
+  }
+
+  /**
+   * Waits for a group commit to finish writing the previous write buffer of olf, so that the bytes
+   * flushed are written after it and the file is complete up to bytesFlushed. This must be called
+   * while holding the lock.
+   */
+  private static void waitForGroupCommitWrite(OplogFile olf) {
+    boolean interrupted = false;
+    synchronized (olf) {
+      while (olf.committingBuf != null) {
+        try {
+          olf.wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   /**
    * Asif: Since the ByteBuffer being writen to can have additional bytes which are used for
    * extending the size of the file, it is necessary that the ByteBuffer provided should have limit
@@ -5303,6 +5756,28 @@ public final class Oplog implements CompactableOplog, Flushable {
     return startPos;
   }
 
+  /**
+   * Returns the sequence number of a synchronous write that was appended without being flushed, to
+   * pass to {@link #waitForGroupCommit(long)} once the lock is released, or 0 if the write is not
+   * group committed. This must be called while holding the lock.
+   */
+  private long appendForGroupCommit(boolean async) {
+    if (async || this.groupCommitter == null) {
+      return 0;
+    }
+    return this.groupCommitter.append();
+  }
+
+  /**
+   * Returns once the synchronous write with the given sequence number has been flushed along with
+   * the writes of concurrent operations. This must not be called while holding the lock.
+   */
+  private void waitForGroupCommit(long commitSequence) {
+    if (commitSequence != 0) {
+      this.groupCommitter.awaitCommit(commitSequence);
+    }
+  }
+
   boolean isRAFOpen() {
     return !this.crf.RAFClosed; // volatile read
   }
@@ -5334,6 +5809,31 @@ public final class Oplog implements CompactableOplog, Flushable {
 
   private volatile boolean beingRead;
 
+  /** The memory mapping of the crf once it is no longer appended to, if values are read from one */
+  private volatile MappedCrf mappedCrf;
+
+  /** True if the crf could not be mapped; guarded by lock */
+  private boolean crfMapFailed;
+
+  /**
+   * Returns the memory mapping of the crf, mapping it on the first read once this oplog is no
+   * longer appended to, or null if values are read from the file.
+   */
+  private MappedCrf getMappedCrf() {
+    MappedCrf mapped = this.mappedCrf;
+    if (mapped != null || !MappedCrf.MMAP_READS) {
+      return mapped;
+    }
+    synchronized (this.lock/* crf */) {
+      if (this.mappedCrf == null && this.doneAppending && !this.closed && !this.crfMapFailed
+          && this.crf.f != null) {
+        this.mappedCrf = MappedCrf.map(this.crf.f, this.crf.bytesFlushed);
+        this.crfMapFailed = this.mappedCrf == null;
+      }
+      return this.mappedCrf;
+    }
+  }
+
   /**
    * If crfRAF has been closed then attempt to reopen the oplog for this read. Verify that this only
    * happens when test methods are invoked.
@@ -5476,6 +5976,17 @@ public final class Oplog implements CompactableOplog, Flushable {
     } else {
       if (offsetInOplog == -1)
         return null;
+      MappedCrf mapped = getMappedCrf();
+      if (mapped != null && mapped.contains(offsetInOplog, valueLength)) {
+        bb = new BytesAndBits(mapped.read(offsetInOplog, valueLength), userBits);
+        this.stats.incOplogReads();
+        // also set the product version for an older product
+        final Version version = getProductVersionIfOld();
+        if (version != null) {
+          bb.setVersion(version);
+        }
+        return bb;
+      }
       try {
         for (;;) {
           dr.getCancelCriterion().checkCancelInProgress(null);
@@ -6017,6 +6528,20 @@ public final class Oplog implements CompactableOplog, Flushable {
     this.compactorLock.unlock();
   }
 
+  /**
+   * Returns an estimate of the number of bytes of the crf that compacting this oplog would free,
+   * assuming its records that are no longer live are of the average size of its records.
+   */
+  long getReclaimableBytes() {
+    long size = this.crf.currSize;
+    long total = this.totalCount.get();
+    if (total <= 0) {
+      return size;
+    }
+    long live = Math.min(total, Math.max(0, this.totalLiveCount.get()));
+    return (long) (size * ((double) (total - live) / total));
+  }
+
   /**
    * Copy any live entries last stored in this oplog to the current oplog. No need to copy deletes
    * in the drf. Backup only needs them until all the older crfs are empty.
@@ -6046,6 +6571,7 @@ public final class Oplog implements CompactableOplog, Flushable {
         long opStart = getStats().getStatTime();
         BytesAndBitsForCompactor wrapper = new BytesAndBitsForCompactor();
 
+        CompactionThrottle throttle = compactor.getThrottle();
         DiskEntry de;
         DiskEntry lastDe = null;
         boolean compactFailed = /*
@@ -6093,7 +6619,7 @@ public final class Oplog implements CompactableOplog, Flushable {
                     continue;
                   }
                   // write it to the current oplog
-                  getOplogSet().getChild().copyForwardModifyForCompact(dr, de, wrapper);
+                  getOplogSet().getChild(dr).copyForwardModifyForCompact(dr, de, wrapper);
                   // the did's oplogId will now be set to the current active oplog
                   didCompact = true;
                 }
@@ -6113,8 +6639,28 @@ public final class Oplog implements CompactableOplog, Flushable {
               if (!wrapper.isReusable()) {
                 wrapper = new BytesAndBitsForCompactor();
               }
+              if (throttle.entryCompacted()) {
+                // let the operations waiting for the compactor locks go ahead of the rest of
+                // this oplog; the live entries list is consumed from its tail so we resume
+                // where we stopped
+                unlockCompactor();
+                getParent().releaseCompactorReadLock();
+                try {
+                  throttle.pause();
+                } finally {
+                  getParent().acquireCompactorReadLock();
+                  lockCompactor();
+                }
+                if (this.closed || isDeleted() || !compactor.keepCompactorRunning()) {
+                  compactFailed = true;
+                  break;
+                }
+              }
             }
           }
+          if (compactFailed) {
+            break;
+          }
         }
 
         if (!compactFailed) {
@@ -6379,6 +6925,10 @@ public final class Oplog implements CompactableOplog, Flushable {
     public long currSize;
     public long bytesFlushed;
     public boolean unpreblown;
+    /** The write buffer to swap in when a group commit takes the current one */
+    public ByteBuffer spareBuf;
+    /** The write buffer a group commit is writing without the lock; guarded by this */
+    public ByteBuffer committingBuf;
   }
 
   private static class KRFile {
@@ -6632,7 +7182,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       }
     }
 
-    private void initVersionsBytes(DiskEntry entry) throws IOException {
+    private void initVersionsBytes(DiskEntry entry, byte[] versionsBytes) throws IOException {
       // persist entry version, region version and memberId
       // The versions in entry are initialized to 0. So we will not persist the
       // 3
@@ -6644,13 +7194,18 @@ public final class Oplog implements CompactableOplog, Flushable {
       VersionStamp stamp = entry.getVersionStamp();
       if (EntryBits.isWithVersions(this.userBits)) {
         assert (stamp != null);
-        this.versionsBytes = serializeVersionTag(stamp);
+        if (versionsBytes != null) {
+          this.versionsBytes = versionsBytes;
+        } else {
+          this.versionsBytes = serializeVersionTag(stamp);
+        }
         this.size += this.versionsBytes.length;
       }
     }
 
     public void initialize(byte opCode, DiskRegionView dr, DiskEntry entry, ValueWrapper value,
-        byte userBits, boolean notToUseUserBits) throws IOException {
+        byte userBits, boolean notToUseUserBits, byte[] keyBytes, byte[] versionsBytes)
+        throws IOException {
       this.opCode = opCode;
       this.size = 1;// for the opcode
       saveUserBits(notToUseUserBits, userBits);
@@ -6667,19 +7222,23 @@ public final class Oplog implements CompactableOplog, Flushable {
           this.opCode = OPLOG_MOD_ENTRY_WITH_KEY_1ID;
         }
         this.needsValue = EntryBits.isNeedsValue(this.userBits);
-        initVersionsBytes(entry);
+        initVersionsBytes(entry, versionsBytes);
       } else if (this.opCode == OPLOG_NEW_ENTRY_0ID) {
         needsKey = true;
         this.needsValue = EntryBits.isNeedsValue(this.userBits);
-        initVersionsBytes(entry);
+        initVersionsBytes(entry, versionsBytes);
       } else if (this.opCode == OPLOG_DEL_ENTRY_1ID) {
         needsKey = false;
         this.needsValue = false;
       }
 
       if (needsKey) {
-        Object key = entry.getKey();
-        this.keyBytes = EntryEventImpl.serialize(key);
+        if (keyBytes != null) {
+          this.keyBytes = keyBytes;
+        } else {
+          Object key = entry.getKey();
+          this.keyBytes = EntryEventImpl.serialize(key);
+        }
         this.size += (4 + this.keyBytes.length);
       } else {
         this.keyBytes = null;
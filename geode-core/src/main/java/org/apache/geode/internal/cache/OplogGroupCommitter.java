@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+
+/**
+ * Flushes the synchronous writes of concurrent operations on an {@link Oplog} together. Each
+ * operation appends its record to the write buffer of the oplog without flushing it, releases the
+ * lock of the oplog and waits for its record to be committed. The first waiting thread becomes the
+ * committer: it flushes everything appended so far and releases all the threads whose records were
+ * flushed, while the records appended during the flush wait for the next commit.
+ * <p>
+ * The committer flushes with {@link Oplog#groupCommit(boolean)}, which only swaps the write
+ * buffers of the oplog under its lock. The write of the swapped buffers to the channel and the
+ * fsync, done when the gemfire.syncWrites property is set, happen outside the lock, so operations
+ * keep appending to the oplog while a commit is in progress.
+ *
+ * @since Geode 1.1
+ */
+class OplogGroupCommitter {
+
+  /**
+   * If true, the synchronous writes of an oplog are group committed instead of being flushed by
+   * each operation while it holds the lock of the oplog; not final so tests can set it.
+   */
+  static boolean GROUP_COMMIT =
+      Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "disk.groupCommit");
+
+  private final Oplog oplog;
+
+  /** The sequence number of the last appended record */
+  private final AtomicLong appended = new AtomicLong();
+
+  private final Object commitLock = new Object();
+
+  /** The sequence number of the last committed record; guarded by commitLock */
+  private long committed = 0;
+
+  /** True while a thread is committing; guarded by commitLock */
+  private boolean committing = false;
+
+  /**
+   * The sequence number of the last record of a failed commit; guarded by commitLock. The records
+   * of a failed commit are no longer in the write buffer, so they cannot be committed again.
+   */
+  private long failed = 0;
+
+  /** Why the last failed commit failed; guarded by commitLock */
+  private RuntimeException failure;
+
+  OplogGroupCommitter(Oplog oplog) {
+    this.oplog = oplog;
+  }
+
+  /**
+   * Records that a synchronous write has been appended to the write buffer of the oplog. This must
+   * be called while holding the lock of the oplog.
+   *
+   * @return the sequence number to pass to {@link #awaitCommit(long)}
+   */
+  long append() {
+    return this.appended.incrementAndGet();
+  }
+
+  /**
+   * Returns once the record with the given sequence number has been flushed, flushing it along with
+   * the records appended by other threads unless another thread is already doing so. This must not
+   * be called while holding the lock of the oplog.
+   *
+   * @throws org.apache.geode.cache.DiskAccessException if the record could not be flushed
+   */
+  void awaitCommit(long sequence) {
+    boolean interrupted = false;
+    try {
+      for (;;) {
+        synchronized (this.commitLock) {
+          while (this.committed < sequence && this.committing) {
+            try {
+              this.commitLock.wait();
+            } catch (InterruptedException e) {
+              // the record is already in the write buffer, so wait for it to be flushed anyway
+              interrupted = true;
+            }
+          }
+          if (this.committed >= sequence) {
+            return;
+          }
+          if (this.failed >= sequence) {
+            throw this.failure;
+          }
+          this.committing = true;
+        }
+        commit();
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void commit() {
+    DiskStoreStats stats = this.oplog.getStats();
+    long start = stats.getStatTime();
+    long sequence = this.appended.get();
+    boolean flushed = false;
+    RuntimeException failure = null;
+    try {
+      this.oplog.groupCommit(true);
+      flushed = true;
+    } catch (RuntimeException e) {
+      failure = e;
+      throw e;
+    } finally {
+      synchronized (this.commitLock) {
+        if (flushed) {
+          stats.endGroupCommit(start, sequence - this.committed);
+          this.committed = sequence;
+        } else if (failure != null) {
+          // the waiting threads of this commit fail too instead of committing nothing
+          this.failed = sequence;
+          this.failure = failure;
+        }
+        this.committing = false;
+        this.commitLock.notifyAll();
+      }
+    }
+  }
+}
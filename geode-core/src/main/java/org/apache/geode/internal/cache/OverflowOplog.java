@@ -448,6 +448,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
   private void basicClose() {
     flushAll();
     synchronized (this.crf) {
+      this.mappedCrf = null;
       if (!this.crf.RAFClosed) {
         try {
           this.crf.channel.close();
@@ -545,7 +546,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
   public final boolean modify(DiskRegion dr, DiskEntry entry, ValueWrapper value, boolean async) {
     try {
       byte userBits = calcUserBits(value);
-      return basicModify(entry, value, userBits, async);
+      return basicModify(entry, value, userBits, async, false);
     } catch (IOException ex) {
       throw new DiskAccessException(
           LocalizedStrings.Oplog_FAILED_WRITING_KEY_TO_0.toLocalizedString(this.diskFile.getPath()),
@@ -564,7 +565,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
       byte userBits) {
     try {
       ValueWrapper vw = new DiskEntry.Helper.CompactorValueWrapper(value, length);
-      return basicModify(entry, vw, userBits, true);
+      return basicModify(entry, vw, userBits, true, true);
     } catch (IOException ex) {
       throw new DiskAccessException(
           LocalizedStrings.Oplog_FAILED_WRITING_KEY_TO_0.toLocalizedString(this.diskFile.getPath()),
@@ -591,8 +592,8 @@ class OverflowOplog implements CompactableOplog, Flushable {
    * @throws IOException
    * @throws InterruptedException
    */
-  private boolean basicModify(DiskEntry entry, ValueWrapper value, byte userBits, boolean async)
-      throws IOException, InterruptedException {
+  private boolean basicModify(DiskEntry entry, ValueWrapper value, byte userBits, boolean async,
+      boolean calledByCompactor) throws IOException, InterruptedException {
     DiskId id = entry.getDiskId();
     long startPosForSynchOp = -1L;
     OverflowOplog emptyOplog = null;
@@ -607,6 +608,9 @@ class OverflowOplog implements CompactableOplog, Flushable {
       if (startPosForSynchOp == -1) {
         return false;
       } else {
+        if (calledByCompactor) {
+          getStats().incCompactedBytes(adjustment);
+        }
         if (logger.isTraceEnabled()) {
           logger.trace("Oplog::basicModify:Released ByteBuffer with data for Disk ID = {}", id);
         }
@@ -850,6 +854,30 @@ class OverflowOplog implements CompactableOplog, Flushable {
     return startPos;
   }
 
+  /** The memory mapping of the crf once it is no longer appended to, if values are read from one */
+  private volatile MappedCrf mappedCrf;
+
+  /** True if the crf could not be mapped; guarded by crf */
+  private boolean crfMapFailed;
+
+  /**
+   * Returns the memory mapping of the crf, mapping it on the first read once this oplog is no
+   * longer appended to, or null if values are read from the file.
+   */
+  private MappedCrf getMappedCrf() {
+    MappedCrf mapped = this.mappedCrf;
+    if (mapped != null || !MappedCrf.MMAP_READS) {
+      return mapped;
+    }
+    synchronized (this.crf) {
+      if (this.mappedCrf == null && this.doneAppending && !this.closed && !this.crfMapFailed) {
+        this.mappedCrf = MappedCrf.map(this.crf.f, this.crf.bytesFlushed);
+        this.crfMapFailed = this.mappedCrf == null;
+      }
+      return this.mappedCrf;
+    }
+  }
+
   private BytesAndBits attemptGet(DiskRegionView dr, long offsetInOplog, int valueLength,
       byte userBits) throws IOException {
     synchronized (this.crf) {
@@ -950,6 +978,11 @@ class OverflowOplog implements CompactableOplog, Flushable {
     } else {
       if (offsetInOplog == -1)
         return null;
+      MappedCrf mapped = getMappedCrf();
+      if (mapped != null && mapped.contains(offsetInOplog, valueLength)) {
+        this.stats.incOplogReads();
+        return new BytesAndBits(mapped.read(offsetInOplog, valueLength), userBits);
+      }
       try {
         for (;;) {
           dr.getCancelCriterion().checkCancelInProgress(null);
@@ -1327,6 +1360,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
         // exceptional, it gets garbage collected.
         long opStart = getStats().getStatTime();
         BytesAndBitsForCompactor wrapper = new BytesAndBitsForCompactor();
+        CompactionThrottle throttle = compactor.getThrottle();
 
         DiskEntry de;
         DiskEntry lastDe = null;
@@ -1402,6 +1436,22 @@ class OverflowOplog implements CompactableOplog, Flushable {
             if (!wrapper.isReusable()) {
               wrapper = new BytesAndBitsForCompactor();
             }
+            if (throttle.entryCompacted()) {
+              // let the operations waiting for the compactor locks go ahead of the rest of this
+              // oplog
+              unlockCompactor();
+              getParent().releaseCompactorReadLock();
+              try {
+                throttle.pause();
+              } finally {
+                getParent().acquireCompactorReadLock();
+                lockCompactor();
+              }
+              if (this.closed || this.deleted.get() || !compactor.keepCompactorRunning()) {
+                compactFailed = true;
+                break;
+              }
+            }
           }
         }
 
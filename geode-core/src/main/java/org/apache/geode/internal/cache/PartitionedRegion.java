@@ -5732,6 +5732,7 @@ public class PartitionedRegion extends LocalRegion
    */
   static void afterRegionsClosedByCacheClose(GemFireCacheImpl cache) {
     PRQueryProcessor.shutdown();
+    BucketIndexBuilder.shutdown();
     clearPRIdMap();
   }
 
@@ -8821,28 +8822,40 @@ public class PartitionedRegion extends LocalRegion
       HashMap<String, Exception> exceptionsMap) {
     boolean throwException = false;
     if (getDataStore() != null && indexes.size() > 0) {
-      Set localBuckets = getDataStore().getAllLocalBuckets();
-      Iterator it = localBuckets.iterator();
-      while (it.hasNext()) {
-        Map.Entry entry = (Map.Entry) it.next();
-        Region bucket = (Region) entry.getValue();
-
-        if (bucket == null) {
-          continue;
-        }
-        IndexManager bucketIndexManager = IndexUtils.getIndexManager(bucket, true);
-        Set<Index> bucketIndexes = getBucketIndexesForPRIndexes(bucket, indexes);
-        try {
-          bucketIndexManager.populateIndexes(bucketIndexes);
-        } catch (MultiIndexCreationException ex) {
-          exceptionsMap.putAll(ex.getExceptionsMap());
-          throwException = true;
-        }
+      final Map<String, Exception> bucketExceptionsMap =
+          Collections.synchronizedMap(new HashMap<String, Exception>());
+      BucketIndexBuilder.<RuntimeException>forEachBucket(this, getLocalBucketsToIndex(),
+          bucket -> {
+            IndexManager bucketIndexManager = IndexUtils.getIndexManager(bucket, true);
+            Set<Index> bucketIndexes = getBucketIndexesForPRIndexes(bucket, indexes);
+            try {
+              bucketIndexManager.populateIndexes(bucketIndexes);
+            } catch (MultiIndexCreationException ex) {
+              bucketExceptionsMap.putAll(ex.getExceptionsMap());
+            }
+          });
+      if (!bucketExceptionsMap.isEmpty()) {
+        exceptionsMap.putAll(bucketExceptionsMap);
+        throwException = true;
       }
     }
     return throwException;
   }
 
+  /**
+   * Returns the local buckets whose indexes are created or populated, leaving out those that are
+   * not created yet.
+   */
+  private List<BucketRegion> getLocalBucketsToIndex() {
+    List<BucketRegion> buckets = new ArrayList<BucketRegion>();
+    for (Map.Entry<Integer, BucketRegion> entry : getDataStore().getAllLocalBuckets()) {
+      if (entry.getValue() != null) {
+        buckets.add(entry.getValue());
+      }
+    }
+    return buckets;
+  }
+
   private Set<Index> getBucketIndexesForPRIndexes(Region bucket, Set<Index> indexes) {
     Set<Index> bucketIndexes = new HashSet<Index>();
     for (Index ind : indexes) {
@@ -9968,8 +9981,7 @@ public class PartitionedRegion extends LocalRegion
         throws IndexNameConflictException, IndexExistsException, IndexCreationException {
       // List list = p_list;
 
-      Set localBuckets = getDataStore().getAllLocalBuckets();
-      Iterator it = localBuckets.iterator();
+      List<BucketRegion> localBuckets = getLocalBucketsToIndex();
       QCompiler compiler = new QCompiler();
       if (imports != null) {
         compiler.compileImports(imports);
@@ -9987,34 +9999,35 @@ public class PartitionedRegion extends LocalRegion
       // However if the region is empty, we should set this flag to true so it will be reported as
       // used even though
       // there is no data in the region
-      if (!it.hasNext()) {
+      if (localBuckets.isEmpty()) {
         parIndex.setPopulated(true);
       }
-      while (it.hasNext()) {
-        Map.Entry entry = (Map.Entry) it.next();
-        Region bucket = (Region) entry.getValue();
-
-        if (bucket == null) {
-          continue;
-        }
-
-        ExecutionContext externalContext = new ExecutionContext(null, cache);
-        externalContext.setBucketRegion(PartitionedRegion.this, (BucketRegion) bucket);
-        IndexManager indMng = IndexUtils.getIndexManager(bucket, true);
-        try {
-          Index bucketIndex = indMng.createIndex(indexName, indexType, indexedExpression,
-              fromClause, imports, externalContext, parIndex, loadEntries);
-          // parIndex.addToBucketIndexes(bucketIndex);
-        } catch (IndexNameConflictException ince) {
-          if (!remotelyOriginated) {
-            throw ince;
-          }
-        } catch (IndexExistsException iee) {
-          if (!remotelyOriginated) {
-            throw iee;
-          }
-        }
-      } // End of bucket list
+      try {
+        BucketIndexBuilder.<QueryException>forEachBucket(PartitionedRegion.this, localBuckets,
+            bucket -> {
+              ExecutionContext externalContext = new ExecutionContext(null, cache);
+              externalContext.setBucketRegion(PartitionedRegion.this, bucket);
+              IndexManager indMng = IndexUtils.getIndexManager(bucket, true);
+              try {
+                Index bucketIndex = indMng.createIndex(indexName, indexType, indexedExpression,
+                    fromClause, imports, externalContext, parIndex, loadEntries);
+                // parIndex.addToBucketIndexes(bucketIndex);
+              } catch (IndexNameConflictException ince) {
+                if (!remotelyOriginated) {
+                  throw ince;
+                }
+              } catch (IndexExistsException iee) {
+                if (!remotelyOriginated) {
+                  throw iee;
+                }
+              }
+            });
+      } catch (IndexNameConflictException | IndexExistsException e) {
+        throw e;
+      } catch (QueryException e) {
+        // not thrown by the bucket index creation
+        throw new IndexCreationException(e.getMessage(), e);
+      }
       return parIndex;
     }
 
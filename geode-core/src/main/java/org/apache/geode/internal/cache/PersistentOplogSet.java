@@ -19,6 +19,7 @@ import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -31,10 +32,12 @@ import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.logging.log4j.Logger;
 
 import org.apache.geode.cache.DiskAccessException;
+import org.apache.geode.distributed.internal.DistributionConfig;
 import org.apache.geode.internal.FileUtil;
 import org.apache.geode.internal.cache.DiskEntry.Helper.ValueWrapper;
 import org.apache.geode.internal.cache.DiskStoreImpl.OplogEntryIdSet;
@@ -52,8 +55,29 @@ import org.apache.geode.internal.sequencelog.EntryLogger;
 public class PersistentOplogSet implements OplogSet {
   private static final Logger logger = LogService.getLogger();
 
-  /** The active oplog * */
-  protected volatile Oplog child;
+  /**
+   * The number of oplogs of a disk store that are written to at once. The records of a disk region,
+   * and so of a bucket, always go to the same stripe, chosen by the id of the disk region, so
+   * regions of different stripes do not contend for the lock of a single active oplog. Each stripe
+   * rolls to a new oplog on its own and its oplogs get the next oplog id of the disk store, so the
+   * records of a region are still ordered by oplog id when they are recovered. An offline disk
+   * store always uses a single stripe. Not final so tests can set it.
+   */
+  static int OPLOG_STRIPES = Math.max(1,
+      Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "disk.oplogStripes", 1).intValue());
+
+  /** The active oplog of each stripe * */
+  private final AtomicReferenceArray<Oplog> children =
+      new AtomicReferenceArray<Oplog>(OPLOG_STRIPES);
+
+  /** The id of the last oplog created */
+  private final AtomicLong lastOplogId = new AtomicLong();
+
+  /**
+   * The ids of the disk regions whose RVV is being recovered, mapped to the oplog recovered first
+   * that had an RVV of that region. Guarded by itself.
+   */
+  private final Map<Long, Oplog> latestRVVOplogs = new HashMap<Long, Oplog>();
 
   /** variable to generate sequential unique oplogEntryId's* */
   private final AtomicLong oplogEntryId = new AtomicLong(DiskStoreImpl.INVALID_ID);
@@ -93,52 +117,137 @@ public class PersistentOplogSet implements OplogSet {
   }
 
   /**
-   * returns the active child
+   * Returns the number of stripes of this oplog set.
+   */
+  int getStripeCount() {
+    return this.parent.isOffline() ? 1 : this.children.length();
+  }
+
+  /**
+   * Returns the stripe whose oplogs the records of the disk region with the given id are written
+   * to.
+   */
+  int getStripe(long drId) {
+    return (int) Math.floorMod(drId, (long) getStripeCount());
+  }
+
+  /**
+   * returns the active child that the records of the given disk region are written to
+   */
+  public final Oplog getChild(DiskRegionView dr) {
+    return getChildOfRegion(dr.getId());
+  }
+
+  /**
+   * returns the active child that the records of the disk region with the given id are written to
+   */
+  final Oplog getChildOfRegion(long drId) {
+    return this.children.get(getStripe(drId));
+  }
+
+  /**
+   * Returns true if the given oplog is the active child of its stripe.
+   */
+  final boolean isChild(Oplog oplog) {
+    int stripe = oplog.getStripe();
+    return stripe >= 0 && stripe < getStripeCount() && this.children.get(stripe) == oplog;
+  }
+
+  /**
+   * Returns the active children of all the stripes that have one.
    */
-  public final Oplog getChild() {
-    return this.child;
+  final List<Oplog> getChildren() {
+    int stripes = getStripeCount();
+    List<Oplog> result = new ArrayList<Oplog>(stripes);
+    for (int i = 0; i < stripes; i++) {
+      Oplog child = this.children.get(i);
+      if (child != null) {
+        result.add(child);
+      }
+    }
+    return result;
   }
 
   /**
-   * set the child to a new oplog
+   * Returns true if at least one stripe has an active child.
+   */
+  final boolean hasChildren() {
+    return !getChildren().isEmpty();
+  }
+
+  /**
+   * set the child of the stripe of the given oplog to that oplog
    *
    */
   void setChild(Oplog oplog) {
-    this.child = oplog;
-    // oplogSetAdd(oplog);
+    this.children.set(oplog.getStripe(), oplog);
+    updateLastOplogId(oplog.getOplogId());
+  }
+
+  /**
+   * Returns the id of a new oplog, greater than the ids of all the existing oplogs.
+   */
+  long newOplogId() {
+    return this.lastOplogId.incrementAndGet();
+  }
+
+  private void updateLastOplogId(long id) {
+    long last;
+    do {
+      last = this.lastOplogId.get();
+      if (last >= id) {
+        return;
+      }
+    } while (!this.lastOplogId.compareAndSet(last, id));
+  }
+
+  /**
+   * Returns true if the RVV records of the given disk region read from the given oplog are the
+   * most recent ones. Only the oplogs of the stripe of a region record its RVV, and a region only
+   * changes stripe on a restart, so these are the records of the first oplog recovered, newest
+   * first, that has any.
+   */
+  boolean isLatestRVVOplog(long drId, Oplog oplog) {
+    synchronized (this.latestRVVOplogs) {
+      Oplog latest = this.latestRVVOplogs.get(drId);
+      if (latest == null) {
+        this.latestRVVOplogs.put(drId, oplog);
+        return true;
+      }
+      return latest == oplog;
+    }
   }
 
   public Oplog[] getAllOplogs() {
     synchronized (this.oplogIdToOplog) {
+      List<Oplog> children = getChildren();
+      int childNum = children.size();
       int rollNum = this.oplogIdToOplog.size();
       int inactiveNum = this.inactiveOplogs.size();
       int drfOnlyNum = this.drfOnlyOplogs.size();
-      int num = rollNum + inactiveNum + drfOnlyNum + 1;
+      int num = childNum + rollNum + inactiveNum + drfOnlyNum;
       Oplog[] oplogs = new Oplog[num];
-      oplogs[0] = getChild();
+      for (int i = 0; i < childNum; i++) {
+        oplogs[i] = children.get(i);
+      }
       {
         Iterator<Oplog> itr = this.oplogIdToOplog.values().iterator();
-        for (int i = 1; i <= rollNum; i++) {
-          oplogs[i] = itr.next();
+        for (int i = 0; i < rollNum; i++) {
+          oplogs[i + childNum] = itr.next();
         }
       }
       {
         Iterator<Oplog> itr = this.inactiveOplogs.values().iterator();
-        for (int i = 1; i <= inactiveNum; i++) {
-          oplogs[i + rollNum] = itr.next();
+        for (int i = 0; i < inactiveNum; i++) {
+          oplogs[i + childNum + rollNum] = itr.next();
         }
       }
       {
         Iterator<Oplog> itr = this.drfOnlyOplogs.values().iterator();
-        for (int i = 1; i <= drfOnlyNum; i++) {
-          oplogs[i + rollNum + inactiveNum] = itr.next();
+        for (int i = 0; i < drfOnlyNum; i++) {
+          oplogs[i + childNum + rollNum + inactiveNum] = itr.next();
         }
       }
-
-      // Special case - no oplogs found
-      if (oplogs.length == 1 && oplogs[0] == null) {
-        return new Oplog[0];
-      }
       return oplogs;
     }
 
@@ -165,45 +274,57 @@ public class PersistentOplogSet implements OplogSet {
    * @return Oplogs the oplog corresponding to the oplodId, id
    */
   public Oplog getChild(long id) {
-    Oplog localOplog = this.child;
-    if (localOplog != null && id == localOplog.getOplogId()) {
-      return localOplog;
-    } else {
-      Long key = Long.valueOf(id);
-      synchronized (this.oplogIdToOplog) {
-        Oplog result = oplogIdToOplog.get(key);
-        if (result == null) {
-          result = inactiveOplogs.get(key);
-        }
-        return result;
+    int stripes = getStripeCount();
+    for (int i = 0; i < stripes; i++) {
+      Oplog localOplog = this.children.get(i);
+      if (localOplog != null && id == localOplog.getOplogId()) {
+        return localOplog;
       }
     }
+    Long key = Long.valueOf(id);
+    synchronized (this.oplogIdToOplog) {
+      Oplog result = oplogIdToOplog.get(key);
+      if (result == null) {
+        result = inactiveOplogs.get(key);
+      }
+      return result;
+    }
   }
 
   @Override
   public void create(LocalRegion region, DiskEntry entry, ValueWrapper value, boolean async) {
-    getChild().create(region, entry, value, async);
+    getChild(region.getDiskRegion()).create(region, entry, value, async);
   }
 
   @Override
   public void modify(LocalRegion region, DiskEntry entry, ValueWrapper value, boolean async) {
-    getChild().modify(region, entry, value, async);
+    getChild(region.getDiskRegion()).modify(region, entry, value, async);
   }
 
   public void offlineModify(DiskRegionView drv, DiskEntry entry, byte[] value,
       boolean isSerializedObject) {
-    getChild().offlineModify(drv, entry, value, isSerializedObject);
+    getChild(drv).offlineModify(drv, entry, value, isSerializedObject);
   }
 
   @Override
   public void remove(LocalRegion region, DiskEntry entry, boolean async, boolean isClear) {
-    getChild().remove(region, entry, async, isClear);
+    getChild(region.getDiskRegion()).remove(region, entry, async, isClear);
   }
 
+  /**
+   * Rolls the child of the stripe of the given disk region, or the children of all the stripes if
+   * it is null.
+   */
   public void forceRoll(DiskRegion dr) {
-    Oplog child = getChild();
-    if (child != null) {
-      child.forceRolling(dr);
+    if (dr != null) {
+      Oplog child = getChild(dr);
+      if (child != null) {
+        child.forceRolling(dr);
+      }
+    } else {
+      for (Oplog child : getChildren()) {
+        child.forceRolling(null);
+      }
     }
   }
 
@@ -434,13 +555,18 @@ public class PersistentOplogSet implements OplogSet {
     TreeSet<Oplog> oplogSet = getSortedOplogs();
     Set<Oplog> oplogsNeedingValueRecovery = new HashSet<Oplog>();
     if (!this.alreadyRecoveredOnce.get()) {
-      if (getChild() != null && !getChild().hasBeenUsed()) {
-        // Then remove the current child since it is empty
-        // and does not need to be recovered from
-        // and it is important to not call initAfterRecovery on it.
-        oplogSet.remove(getChild());
+      for (Oplog child : getChildren()) {
+        if (!child.hasBeenUsed()) {
+          // Then remove the current child since it is empty
+          // and does not need to be recovered from
+          // and it is important to not call initAfterRecovery on it.
+          oplogSet.remove(child);
+        }
       }
     }
+    synchronized (this.latestRVVOplogs) {
+      this.latestRVVOplogs.clear();
+    }
     if (oplogSet.size() > 0) {
       long startOpLogRecovery = System.currentTimeMillis();
       // first figure out all entries that have been destroyed
@@ -455,23 +581,32 @@ public class PersistentOplogSet implements OplogSet {
       parent.incDeadRecordCount(deletedIds.size());
       // now figure out live entries
       latestOplog = true;
-      for (Oplog oplog : oplogSet) {
-        long startOpLogRead = parent.getStats().startOplogRead();
-        long bytesRead = oplog.recoverCrf(deletedIds,
-            // @todo make recoverValues per region
-            recoverValues(), recoverValuesSync(), this.alreadyRecoveredOnce.get(),
-            oplogsNeedingValueRecovery, latestOplog);
-        latestOplog = false;
-        if (!this.alreadyRecoveredOnce.get()) {
-          updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
-        }
-        byteCount += bytesRead;
-        parent.getStats().endOplogRead(startOpLogRead, bytesRead);
+      // the krfs are read ahead on other threads but recovered in order
+      KrfPrefetcher krfPrefetcher = recoverValuesSync() ? null : KrfPrefetcher.create(oplogSet);
+      try {
+        for (Oplog oplog : oplogSet) {
+          long startOpLogRead = parent.getStats().startOplogRead();
+          long bytesRead = oplog.recoverCrf(deletedIds,
+              // @todo make recoverValues per region
+              recoverValues(), recoverValuesSync(), this.alreadyRecoveredOnce.get(),
+              oplogsNeedingValueRecovery, latestOplog,
+              krfPrefetcher == null ? null : krfPrefetcher.take(oplog));
+          latestOplog = false;
+          if (!this.alreadyRecoveredOnce.get()) {
+            updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+          }
+          byteCount += bytesRead;
+          parent.getStats().endOplogRead(startOpLogRead, bytesRead);
 
-        // Callback to the disk regions to indicate the oplog is recovered
-        // Used for offline export
-        for (DiskRecoveryStore drs : this.currentRecoveryMap.values()) {
-          drs.getDiskRegionView().oplogRecovered(oplog.oplogId);
+          // Callback to the disk regions to indicate the oplog is recovered
+          // Used for offline export
+          for (DiskRecoveryStore drs : this.currentRecoveryMap.values()) {
+            drs.getDiskRegionView().oplogRecovered(oplog.oplogId);
+          }
+        }
+      } finally {
+        if (krfPrefetcher != null) {
+          krfPrefetcher.close();
         }
       }
       long endOpLogRecovery = System.currentTimeMillis();
@@ -488,11 +623,11 @@ public class PersistentOplogSet implements OplogSet {
       }
       if (!this.alreadyRecoveredOnce.get()) {
         for (Oplog oplog : oplogSet) {
-          if (oplog != getChild()) {
+          if (!isChild(oplog)) {
             oplog.initAfterRecovery(parent.isOffline());
           }
         }
-        if (getChild() == null) {
+        if (!hasChildren()) {
           setFirstChild(getSortedOplogs(), false);
         }
       }
@@ -545,7 +680,12 @@ public class PersistentOplogSet implements OplogSet {
       // This fixes bug 41822.
     }
     if (force || maxRecoveredOplogId > 0) {
-      setChild(new Oplog(maxRecoveredOplogId + 1, this, getNextDir()));
+      // each stripe starts in the directory after the one of the previous stripe
+      updateLastOplogId(maxRecoveredOplogId);
+      int stripes = getStripeCount();
+      for (int i = 0; i < stripes; i++) {
+        setChild(new Oplog(newOplogId(), this, getNextDir(), i));
+      }
     }
   }
 
@@ -849,12 +989,7 @@ public class PersistentOplogSet implements OplogSet {
       for (Oplog oplog : this.inactiveOplogs.values()) {
         oplogsToClear.add(oplog);
       }
-      {
-        Oplog child = getChild();
-        if (child != null) {
-          oplogsToClear.add(child);
-        }
-      }
+      oplogsToClear.addAll(getChildren());
     }
     for (Oplog oplog : oplogsToClear) {
       oplog.clear(dr, rvv);
@@ -878,9 +1013,9 @@ public class PersistentOplogSet implements OplogSet {
       }
     }
 
-    if (this.child != null) {
+    for (Oplog child : getChildren()) {
       try {
-        this.child.finishKrf();
+        child.finishKrf();
       } catch (RuntimeException e) {
         if (rte != null) {
           rte = e;
@@ -888,7 +1023,7 @@ public class PersistentOplogSet implements OplogSet {
       }
 
       try {
-        this.child.close();
+        child.close();
       } catch (RuntimeException e) {
         if (rte != null) {
           rte = e;
@@ -899,16 +1034,19 @@ public class PersistentOplogSet implements OplogSet {
     return rte;
   }
 
-  /** closes all the oplogs except the current one * */
+  /** closes all the oplogs except the current ones * */
   private void closeOtherOplogs() {
     // get a snapshot to prevent CME
     Oplog[] oplogs = getAllOplogs();
     // if there are oplogs which are to be compacted, destroy them
-    // do not do oplogs[0]
-    for (int i = 1; i < oplogs.length; i++) {
-      oplogs[i].finishKrf();
-      oplogs[i].close();
-      removeOplog(oplogs[i].getOplogId());
+    // do not do the children
+    for (Oplog oplog : oplogs) {
+      if (isChild(oplog)) {
+        continue;
+      }
+      oplog.finishKrf();
+      oplog.close();
+      removeOplog(oplog.getOplogId());
     }
   }
 
@@ -969,12 +1107,7 @@ public class PersistentOplogSet implements OplogSet {
       oplogsToClose.addAll(this.oplogIdToOplog.values());
       oplogsToClose.addAll(this.inactiveOplogs.values());
       oplogsToClose.addAll(this.drfOnlyOplogs.values());
-      {
-        Oplog child = getChild();
-        if (child != null) {
-          oplogsToClose.add(child);
-        }
-      }
+      oplogsToClose.addAll(getChildren());
     }
     for (Oplog oplog : oplogsToClose) {
       oplog.close(dr);
@@ -987,16 +1120,13 @@ public class PersistentOplogSet implements OplogSet {
       oplogsToPrepare.addAll(this.oplogIdToOplog.values());
       oplogsToPrepare.addAll(this.inactiveOplogs.values());
     }
-    boolean childPreparedForClose = false;
-    long child_oplogid = this.getChild() == null ? -1 : this.getChild().oplogId;
+    List<Oplog> children = getChildren();
     for (Oplog oplog : oplogsToPrepare) {
       oplog.prepareForClose();
-      if (child_oplogid != -1 && oplog.oplogId == child_oplogid) {
-        childPreparedForClose = true;
-      }
+      children.remove(oplog);
     }
-    if (!childPreparedForClose && this.getChild() != null) {
-      this.getChild().prepareForClose();
+    for (Oplog child : children) {
+      child.prepareForClose();
     }
   }
 
@@ -1012,12 +1142,7 @@ public class PersistentOplogSet implements OplogSet {
       for (Oplog oplog : this.drfOnlyOplogs.values()) {
         oplogsToDestroy.add(oplog);
       }
-      {
-        Oplog child = getChild();
-        if (child != null) {
-          oplogsToDestroy.add(child);
-        }
-      }
+      oplogsToDestroy.addAll(getChildren());
     }
     for (Oplog oplog : oplogsToDestroy) {
       oplog.destroy(dr);
@@ -1035,30 +1160,34 @@ public class PersistentOplogSet implements OplogSet {
   }
 
   /**
-   * Add compactable oplogs to the list, up to the maximum size.
+   * Add compactable oplogs to the list, up to the maximum size. The oplogs that compacting would
+   * free the most bytes from are added first; oplogs with as much garbage are added oldest first.
    * 
    * @param l
    * @param max
    */
   public void getCompactableOplogs(List<CompactableOplog> l, int max) {
+    List<Oplog> candidates = new ArrayList<Oplog>();
     synchronized (this.oplogIdToOplog) {
-      // Sort this list so we compact the oldest first instead of the one
-      // that was
-      // compactable first.
-      // ArrayList<CompactableOplog> l = new
-      // ArrayList<CompactableOplog>(this.oplogIdToOplog.values());
-      // Collections.sort(l);
-      // Iterator<Oplog> itr = l.iterator();
-      {
-        Iterator<Oplog> itr = this.oplogIdToOplog.values().iterator();
-        while (itr.hasNext() && l.size() < max) {
-          Oplog oplog = itr.next();
-          if (oplog.needsCompaction()) {
-            l.add(oplog);
-          }
+      for (Oplog oplog : this.oplogIdToOplog.values()) {
+        if (oplog.needsCompaction()) {
+          candidates.add(oplog);
         }
       }
     }
+    final Map<Oplog, Long> reclaimableBytes = new HashMap<Oplog, Long>();
+    for (Oplog oplog : candidates) {
+      reclaimableBytes.put(oplog, oplog.getReclaimableBytes());
+    }
+    Collections.sort(candidates, new Comparator<Oplog>() {
+      public int compare(Oplog o1, Oplog o2) {
+        return Long.compare(reclaimableBytes.get(o2), reclaimableBytes.get(o1));
+      }
+    });
+    Iterator<Oplog> itr = candidates.iterator();
+    while (itr.hasNext() && l.size() < max) {
+      l.add(itr.next());
+    }
   }
 
   public void scheduleForRecovery(DiskRecoveryStore drs) {
@@ -1081,17 +1210,17 @@ public class PersistentOplogSet implements OplogSet {
   }
 
   public void initChild() {
-    if (getChild() == null) {
+    if (!hasChildren()) {
       setFirstChild(getSortedOplogs(), true);
     }
   }
 
   public void offlineCompact() {
-    if (getChild() != null) {
+    for (Oplog child : getChildren()) {
       // check active oplog and if it is empty delete it
-      getChild().krfClose();
-      if (getChild().isOplogEmpty()) {
-        getChild().destroy();
+      child.krfClose();
+      if (child.isOplogEmpty()) {
+        child.destroy();
       }
     }
 
@@ -1126,8 +1255,7 @@ public class PersistentOplogSet implements OplogSet {
   }
 
   public void flushChild() {
-    Oplog oplog = getChild();
-    if (oplog != null) {
+    for (Oplog oplog : getChildren()) {
       oplog.flushAll();
     }
   }
@@ -70,6 +70,10 @@ public class PoolStats {
   private final static int clientOpTimedOutId;
   private final static int clientOpFailedId;
   private final static int clientOpDurationId;
+  private final static int asyncOpInProgressId;
+  private final static int asyncOpId;
+  private final static int asyncOpFailedId;
+  private final static int asyncOpDurationId;
 
   static {
     String statName = "PoolStats";
@@ -139,7 +143,16 @@ public class PoolStats {
             f.createLongCounter("clientOpSendTime",
                 "Total amount of time, in nanoseconds spent doing clientOp sends", "nanoseconds"),
             f.createLongCounter("clientOpTime",
-                "Total amount of time, in nanoseconds spent doing clientOps", "nanoseconds"),});
+                "Total amount of time, in nanoseconds spent doing clientOps", "nanoseconds"),
+            f.createIntGauge("asyncOpsInProgress",
+                "Current number of async operations submitted but not yet completed", "asyncOps"),
+            f.createLongCounter("asyncOps",
+                "Total number of async operations completed successfully", "asyncOps"),
+            f.createLongCounter("asyncOpFailures",
+                "Total number of async operations that completed exceptionally", "asyncOps"),
+            f.createLongCounter("asyncOpTime",
+                "Total amount of time, in nanoseconds, from submitting async operations to their completion",
+                "nanoseconds"),});
 
     // Initialize id fields
     _INITIAL_CONTACTS = _type.nameToId(INITIAL_CONTACTS);
@@ -175,6 +188,10 @@ public class PoolStats {
     clientOpTimedOutId = _type.nameToId("clientOpTimeouts");
     clientOpFailedId = _type.nameToId("clientOpFailures");
     clientOpDurationId = _type.nameToId("clientOpTime");
+    asyncOpInProgressId = _type.nameToId("asyncOpsInProgress");
+    asyncOpId = _type.nameToId("asyncOps");
+    asyncOpFailedId = _type.nameToId("asyncOpFailures");
+    asyncOpDurationId = _type.nameToId("asyncOpTime");
   }
 
   ////////////////////// Instance Fields //////////////////////
@@ -364,4 +381,19 @@ public class PoolStats {
     this._stats.incInt(endClientOpId, 1);
     this._stats.incLong(clientOpDurationId, duration);
   }
+
+  public long startAsyncOp() {
+    this._stats.incInt(asyncOpInProgressId, 1);
+    return getStatTime();
+  }
+
+  public void endAsyncOp(long start, boolean failed) {
+    this._stats.incInt(asyncOpInProgressId, -1);
+    this._stats.incLong(failed ? asyncOpFailedId : asyncOpId, 1);
+    this._stats.incLong(asyncOpDurationId, getStatTime() - start);
+  }
+
+  public int getAsyncOpsInProgress() {
+    return this._stats.getInt(asyncOpInProgressId);
+  }
 }
@@ -122,6 +122,24 @@ public interface RegionMap extends LRUMapCallbacks {
    */
   public RegionEntry getEntry(Object key);
 
+  /**
+   * fetches the entry whose key is the Long with the given value without boxing the key
+   * 
+   * @param key
+   * @return the RegionEntry from memory or disk
+   * @since Geode 1.1
+   */
+  public RegionEntry getEntryForLongKey(long key);
+
+  /**
+   * fetches the entry whose key is the Integer with the given value without boxing the key
+   * 
+   * @param key
+   * @return the RegionEntry from memory or disk
+   * @since Geode 1.1
+   */
+  public RegionEntry getEntryForIntKey(int key);
+
   public RegionEntry putEntryIfAbsent(Object key, RegionEntry re);
 
   /**
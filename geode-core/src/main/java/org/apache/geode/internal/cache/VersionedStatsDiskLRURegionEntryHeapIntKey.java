@@ -27,6 +27,7 @@ import org.apache.geode.internal.cache.versions.VersionSource;
 import org.apache.geode.internal.cache.versions.VersionStamp;
 import org.apache.geode.internal.cache.versions.VersionTag;
 import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap.HashEntry;
+import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap.IntKeyHashEntry;
 
 // macros whose definition changes this class:
 // disk: DISK
@@ -46,7 +47,7 @@ import org.apache.geode.internal.util.concurrent.CustomEntryConcurrentHashMap.Ha
  * ./dev-tools/generateRegionEntryClasses.sh (it must be run from the top level directory).
  */
 public class VersionedStatsDiskLRURegionEntryHeapIntKey
-    extends VersionedStatsDiskLRURegionEntryHeap {
+    extends VersionedStatsDiskLRURegionEntryHeap implements IntKeyHashEntry {
   public VersionedStatsDiskLRURegionEntryHeapIntKey(RegionEntryContext context, int key,
       Object value) {
     super(context, (value instanceof RecoveredEntry ? null : value));
@@ -486,5 +487,10 @@ public class VersionedStatsDiskLRURegionEntryHeapIntKey
     }
     return false;
   }
+
+  @Override
+  public boolean isIntKeyEqual(int k) {
+    return k == this.key;
+  }
   // DO NOT modify this class. It was generated from LeafRegionEntry.cpp
 }
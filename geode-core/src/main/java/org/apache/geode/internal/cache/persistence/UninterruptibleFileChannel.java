@@ -15,6 +15,7 @@
 package org.apache.geode.internal.cache.persistence;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
 import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ScatteringByteChannel;
@@ -25,4 +26,12 @@ public interface UninterruptibleFileChannel
 
   void force(boolean b) throws IOException;
 
+  /**
+   * Writes the bytes of src at the given position of the file without changing the position of
+   * this channel.
+   * 
+   * @see java.nio.channels.FileChannel#write(ByteBuffer, long)
+   */
+  int write(ByteBuffer src, long position) throws IOException;
+
 }
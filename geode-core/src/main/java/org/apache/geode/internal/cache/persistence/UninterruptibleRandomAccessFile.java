@@ -185,6 +185,15 @@ public class UninterruptibleRandomAccessFile {
       });
     }
 
+    @Override
+    public int write(final ByteBuffer src, final long position) throws IOException {
+      return (int) doUninterruptibly(new FileOperation() {
+        public long doOp(FileChannel channel) throws IOException {
+          return channel.write(src, position);
+        }
+      });
+    }
+
     @Override
     public long position() throws IOException {
       return doUninterruptibly(new FileOperation() {
@@ -382,10 +382,31 @@ public class MessageType {
   public static final int PUT_ALL_WITH_CALLBACK = 108;
 
   public static final int REMOVE_ALL = 109;
+
+  /**
+   * A query request whose results are kept on the server and read by the client a page at a time
+   *
+   * @since Geode 1.1
+   */
+  public static final int QUERY_CURSOR_OPEN = 110;
+
+  /**
+   * A request for the next page of results of a query opened by {@link #QUERY_CURSOR_OPEN}
+   *
+   * @since Geode 1.1
+   */
+  public static final int QUERY_CURSOR_NEXT = 111;
+
+  /**
+   * A request to release the results of a query opened by {@link #QUERY_CURSOR_OPEN}
+   *
+   * @since Geode 1.1
+   */
+  public static final int QUERY_CURSOR_CLOSE = 112;
   /**
    * Must be equal to last valid message id.
    */
-  private static final int LAST_VALID_MESSAGE_ID = REMOVE_ALL;
+  private static final int LAST_VALID_MESSAGE_ID = QUERY_CURSOR_CLOSE;
 
 
   public static boolean validate(int messageType) {
@@ -605,6 +626,12 @@ public class MessageType {
         return "PUT_ALL_WITH_CALLBACK";
       case REMOVE_ALL:
         return "REMOVE_ALL";
+      case QUERY_CURSOR_OPEN:
+        return "QUERY_CURSOR_OPEN";
+      case QUERY_CURSOR_NEXT:
+        return "QUERY_CURSOR_NEXT";
+      case QUERY_CURSOR_CLOSE:
+        return "QUERY_CURSOR_CLOSE";
       default:
         return Integer.toString(type);
     }
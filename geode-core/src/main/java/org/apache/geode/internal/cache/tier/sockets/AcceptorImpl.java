@@ -1056,6 +1056,11 @@ public class AcceptorImpl extends Acceptor implements Runnable {
               if (key.isValid() && key.isReadable()) {
                 // this is the only event we currently register for
                 try {
+                  if (!sc.assembleMessage()) {
+                    // the rest of the message has not arrived yet so stay registered
+                    // rather than tying up a pool thread waiting for it
+                    continue;
+                  }
                   key.cancel();
                   this.selectorRegistrations.remove(sc);
                   registeredKeys--;
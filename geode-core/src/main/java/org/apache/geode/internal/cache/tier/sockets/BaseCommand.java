@@ -113,6 +113,18 @@ public abstract class BaseCommand implements Command {
 
   }
 
+  static Semaphore getIncomingDataLimiter() {
+    return incomingDataLimiter;
+  }
+
+  static Semaphore getIncomingMsgLimiter() {
+    return incomingMsgLimiter;
+  }
+
+  static int getMaxIncomingData() {
+    return MAX_INCOMING_DATA;
+  }
+
   protected SecurityService securityService = IntegratedSecurityService.getSecurityService();
 
   final public void execute(Message msg, ServerConnection servConn) {
@@ -155,6 +155,14 @@ public abstract class BaseCommandQuery extends BaseCommand {
               selectResults.size());
         }
 
+        if (cqQuery == null && sendResults
+            && sendFirstPage(msg, query, selectResults, servConn)) {
+          // the rest of the results are kept for the client to fetch them page by page
+          msg.clearParts();
+          stats.incWriteQueryResponseTime(DistributionStats.getStatTime() - start);
+          return true;
+        }
+
         CollectionType collectionType = null;
         boolean sendCqResultsWithKey = true;
         boolean isStructs = false;
@@ -300,6 +308,16 @@ public abstract class BaseCommandQuery extends BaseCommand {
     return true;
   }
 
+  /**
+   * Sends the first page of the results of a query that the client reads through a cursor.
+   *
+   * @return false if the client reads all the results at once, in which case nothing was sent
+   */
+  protected boolean sendFirstPage(Message msg, Query query, SelectResults selectResults,
+      ServerConnection servConn) throws IOException {
+    return false;
+  }
+
   protected CollectionType getCollectionType(SelectResults results) {
     return results.getCollectionType();
   }
@@ -515,7 +533,7 @@ public abstract class BaseCommandQuery extends BaseCommand {
     }
   }
 
-  private void addToObjectPartList(ObjectPartList serializedObjs, Object res,
+  protected void addToObjectPartList(ObjectPartList serializedObjs, Object res,
       CollectionType collectionType, boolean lastChunk, ServerConnection servConn,
       boolean isStructs) throws IOException {
     if (isStructs && (res instanceof Struct)) {
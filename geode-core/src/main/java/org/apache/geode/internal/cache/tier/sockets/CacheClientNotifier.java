@@ -1659,6 +1659,7 @@ public class CacheClientNotifier {
         }
       }
       this.clearCompiledQueries();
+      this.queryCursors.clear();
       blackListedClients.clear();
 
       // cancel the ping task
@@ -2416,6 +2417,78 @@ public class CacheClientNotifier {
     }
   }
 
+  /**
+   * Keeps the results of a query for the client to read them a page at a time, until they are
+   * removed with {@link #removeQueryCursor(long)} or the cursor is left unused for longer than
+   * {@link ServerQueryCursor#IDLE_TIME}.
+   */
+  public void addQueryCursor(ServerQueryCursor cursor) {
+    this.queryCursors.put(cursor.getId(), cursor);
+    startQueryCursorCleanupThread();
+  }
+
+  public ServerQueryCursor getQueryCursor(long id) {
+    return this.queryCursors.get(id);
+  }
+
+  public ServerQueryCursor removeQueryCursor(long id) {
+    return this.queryCursors.remove(id);
+  }
+
+  /**
+   * Returns the number of query cursors kept for clients.
+   */
+  public int getQueryCursorCount() {
+    return this.queryCursors.size();
+  }
+
+  /**
+   * Removes the query cursors of a client that has gone, instead of keeping them until they have
+   * been unused for {@link ServerQueryCursor#IDLE_TIME}.
+   */
+  public void removeQueryCursors(ClientProxyMembershipID owner) {
+    for (Iterator<ServerQueryCursor> it = this.queryCursors.values().iterator(); it.hasNext();) {
+      ServerQueryCursor cursor = it.next();
+      if (cursor.getOwner().equals(owner)) {
+        it.remove();
+        if (logger.isDebugEnabled()) {
+          logger.debug("Removed query cursor {} of departed client", cursor);
+        }
+      }
+    }
+  }
+
+  /**
+   * This starts the cleanup thread that periodically (ServerQueryCursor.IDLE_TIME) removes the
+   * query cursors that have not been read from since the previous run.
+   */
+  private void startQueryCursorCleanupThread() {
+    if (isQueryCursorCleanupThreadStarted) {
+      return;
+    }
+
+    SystemTimer.SystemTimerTask task = new SystemTimer.SystemTimerTask() {
+      @Override
+      public void run2() {
+        for (ServerQueryCursor cursor : queryCursors.values()) {
+          if (!cursor.checkAndClearLastUsed() && queryCursors.remove(cursor.getId()) != null) {
+            if (logger.isDebugEnabled()) {
+              logger.debug("Removed idle query cursor {}", cursor);
+            }
+          }
+        }
+      }
+    };
+
+    synchronized (lockIsQueryCursorCleanupThreadStarted) {
+      if (!isQueryCursorCleanupThreadStarted) {
+        _cache.getCCPTimer().scheduleAtFixedRate(task, ServerQueryCursor.IDLE_TIME,
+            ServerQueryCursor.IDLE_TIME);
+      }
+      isQueryCursorCleanupThreadStarted = true;
+    }
+  }
+
   protected void scheduleClientPingTask() {
     this.clientPingTask = new SystemTimer.SystemTimerTask() {
 
@@ -2606,6 +2679,13 @@ public class CacheClientNotifier {
 
   private final Object lockIsCompiledQueryCleanupThreadStarted = new Object();
 
+  private final ConcurrentHashMap<Long, ServerQueryCursor> queryCursors =
+      new ConcurrentHashMap<Long, ServerQueryCursor>();
+
+  private volatile boolean isQueryCursorCleanupThreadStarted = false;
+
+  private final Object lockIsQueryCursorCleanupThreadStarted = new Object();
+
   private SystemTimer.SystemTimerTask clientPingTask;
 
   private final SocketCloser socketCloser;
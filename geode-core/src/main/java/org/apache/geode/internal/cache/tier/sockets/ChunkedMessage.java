@@ -333,8 +333,17 @@ public class ChunkedMessage extends Message {
     return (this.securePart != null) ? 1 : 0;
   }
 
+  /**
+   * Chunked responses are not tagged with a correlation id so they are never pipelined.
+   */
+  @Override
+  protected int getCorrelationIdForSending() {
+    return NO_CORRELATION_ID;
+  }
+
   @Override
-  protected void packHeaderInfoForSending(int msgLen, boolean isSecurityHeader) {
+  protected void packHeaderInfoForSending(int msgLen, boolean isSecurityHeader,
+      int correlationId) {
     final ByteBuffer cb = getCommBuffer();
     cb.putInt(msgLen);
     byte isLastChunk = 0x00;
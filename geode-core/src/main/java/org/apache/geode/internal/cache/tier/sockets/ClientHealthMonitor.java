@@ -244,6 +244,7 @@ public class ClientHealthMonitor {
     if (acceptor != null) {
       CacheClientNotifier ccn = acceptor.getCacheClientNotifier();
       if (ccn != null) {
+        ccn.removeQueryCursors(proxyID);
         try {
           ccn.unregisterClient(proxyID, clientDisconnectedCleanly);
         } catch (CancelException ignore) {
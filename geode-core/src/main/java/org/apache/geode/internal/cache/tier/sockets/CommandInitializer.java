@@ -81,6 +81,7 @@ import org.apache.geode.internal.cache.tier.sockets.command.PutAll80;
 import org.apache.geode.internal.cache.tier.sockets.command.PutAllWithCallback;
 import org.apache.geode.internal.cache.tier.sockets.command.PutUserCredentials;
 import org.apache.geode.internal.cache.tier.sockets.command.Query651;
+import org.apache.geode.internal.cache.tier.sockets.command.QueryCursor;
 import org.apache.geode.internal.cache.tier.sockets.command.QueryGeode10;
 import org.apache.geode.internal.cache.tier.sockets.command.QueryWithParametersGeode10;
 import org.apache.geode.internal.cache.tier.sockets.command.RegisterDataSerializers;
@@ -333,6 +334,9 @@ public class CommandInitializer {
     {
       Map<Integer, Command> gfe91Commands = new HashMap<Integer, Command>();
       gfe91Commands.putAll(ALL_COMMANDS.get(Version.GFE_90));
+      gfe91Commands.put(MessageType.QUERY_CURSOR_OPEN, QueryCursor.getCommand());
+      gfe91Commands.put(MessageType.QUERY_CURSOR_NEXT, QueryCursor.getCommand());
+      gfe91Commands.put(MessageType.QUERY_CURSOR_CLOSE, QueryCursor.getCommand());
       ALL_COMMANDS.put(Version.GFE_91, gfe91Commands);
     }
 
@@ -226,6 +226,37 @@ public class HandShake implements ClientHandShake {
    */
   private byte[] overrides = null;
 
+  /**
+   * Bit set in the client's override byte to ask the server to accept pipelined requests on the
+   * connection. Servers that predate pipelining ignore it.
+   *
+   * @since Geode 1.1
+   */
+  private static final byte OVERRIDE_PIPELINING = (byte) 0x40;
+
+  /**
+   * Bit set in the endpoint type byte of the server's reply when it has accepted pipelining.
+   *
+   * @since Geode 1.1
+   */
+  private static final byte EP_TYPE_PIPELINING_ACCEPTED = (byte) 0x40;
+
+  /**
+   * On the client, true if pipelining should be requested. On the server, true if the client
+   * requested it.
+   *
+   * @since Geode 1.1
+   */
+  private boolean pipeliningRequested = false;
+
+  /**
+   * True once both sides have agreed that requests on this connection may be pipelined and their
+   * replies tagged with correlation ids.
+   *
+   * @since Geode 1.1
+   */
+  private boolean pipelined = false;
+
   /**
    * Test hooks for per client conflation
    * 
@@ -422,6 +453,7 @@ public class HandShake implements ClientHandShake {
   private void setOverrides(byte[] values) {
     byte override = values[0];
     setClientConflation(((byte) (override & 0x03)));
+    this.pipeliningRequested = (override & OVERRIDE_PIPELINING) != 0;
     /*
      * override = (byte)(override >>> 2); setRemoveUnresponsiveClientOverride(((byte)(override &
      * 0x03))); override = (byte)(override >>> 2); setNotifyBySubscriptionOverride(((byte)(override
@@ -440,6 +472,25 @@ public class HandShake implements ClientHandShake {
     return overrides;
   }
 
+  /**
+   * Asks the server to accept pipelined requests on the connection this handshake is used for. Used
+   * by the client side before greeting the server.
+   *
+   * @since Geode 1.1
+   */
+  public void requestPipelining() {
+    this.pipeliningRequested = true;
+  }
+
+  /**
+   * Returns true if the client and server agreed to pipeline requests on this connection.
+   *
+   * @since Geode 1.1
+   */
+  public boolean isPipelined() {
+    return this.pipelined;
+  }
+
   public static void setVersionForTesting(short ver) {
     if (ver > Version.CURRENT_ORDINAL) {
       overrideClientVersion = ver;
@@ -480,7 +531,11 @@ public class HandShake implements ClientHandShake {
 
       if (currentClientVersion.compareTo(Version.GFE_603) >= 0) {
         for (int bytes = 0; bytes < this.overrides.length; bytes++) {
-          hdos.writeByte(this.overrides[bytes]);
+          byte override = this.overrides[bytes];
+          if (bytes == 0 && this.pipeliningRequested) {
+            override |= OVERRIDE_PIPELINING;
+          }
+          hdos.writeByte(override);
         }
       } else {
         // write the client conflation setting byte
@@ -1141,7 +1196,12 @@ public class HandShake implements ClientHandShake {
       Version.writeOrdinal(dos, ServerHandShakeProcessor.currentServerVersion.ordinal(), true);
     }
 
-    dos.writeByte(epType);
+    if (this.pipeliningRequested && communicationMode == Acceptor.CLIENT_TO_SERVER) {
+      this.pipelined = true;
+      dos.writeByte(epType | EP_TYPE_PIPELINING_ACCEPTED);
+    } else {
+      dos.writeByte(epType);
+    }
     dos.writeInt(qSize);
 
     // Write the server's member
@@ -1250,6 +1310,10 @@ public class HandShake implements ClientHandShake {
       // No need to check for return value since DataInputStream already throws
       // EOFException in case of EOF
       byte epType = dis.readByte();
+      if (this.pipeliningRequested && (epType & EP_TYPE_PIPELINING_ACCEPTED) != 0) {
+        this.pipelined = true;
+        epType &= ~EP_TYPE_PIPELINING_ACCEPTED;
+      }
       int qSize = dis.readInt();
 
       // Read the server member
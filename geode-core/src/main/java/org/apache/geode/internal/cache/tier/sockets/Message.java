@@ -89,11 +89,20 @@ public class Message {
       Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "client.max-message-size",
           DEFAULT_MAX_MESSAGE_SIZE).intValue();
 
+  /**
+   * Off-heap parts at least this large are written to a socket channel straight from off-heap
+   * memory, in a gathering write with the bytes buffered ahead of them, instead of being copied
+   * into the comm buffer.
+   */
+  static final int MIN_DIRECT_WRITE_SIZE = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "Message.MIN_DIRECT_WRITE_SIZE", 1024)
+      .intValue();
+
   private static final Logger logger = LogService.getLogger();
 
   private static final int PART_HEADER_SIZE = 5; // 4 bytes for length, 1 byte for isObject
 
-  private static final int FIXED_LENGTH = 17;
+  static final int FIXED_LENGTH = 17;
 
   private static final ThreadLocal<ByteBuffer> tlCommBuffer = new ThreadLocal<>();
 
@@ -133,6 +142,8 @@ public class Message {
   /** is this message a retry of a previously sent message? */
   protected boolean isRetry;
   private byte flags = 0x00;
+  /** the id used to match a pipelined request with its response */
+  private int correlationId = NO_CORRELATION_ID;
   protected MessageStats msgStats = null;
   protected ServerConnection sc = null;
   private int maxIncomingMessageLength = -1;
@@ -151,6 +162,22 @@ public class Message {
   // is left in place
   public static final byte MESSAGE_HAS_SECURE_PART = (byte) 0x02;
   public static final byte MESSAGE_IS_RETRY = (byte) 0x04;
+  /**
+   * Set when the payload starts with a 4 byte correlation id. Only sent on connections whose
+   * handshake negotiated pipelining.
+   *
+   * @since Geode 1.1
+   */
+  public static final byte MESSAGE_HAS_CORRELATION_ID = (byte) 0x08;
+
+  /**
+   * The correlation id of a message that does not have one.
+   *
+   * @since Geode 1.1
+   */
+  public static final int NO_CORRELATION_ID = 0;
+
+  private static final int CORRELATION_ID_LENGTH = 4;
 
   public static final byte MESSAGE_IS_RETRY_MASK = (byte) 0xFB;
 
@@ -244,6 +271,39 @@ public class Message {
     this.isRetry = true;
   }
 
+  /**
+   * Sets the id that the server will tag the response to this message with. Must only be set when
+   * sending on a connection that negotiated pipelining during its handshake.
+   *
+   * @since Geode 1.1
+   */
+  public void setCorrelationId(int correlationId) {
+    this.correlationId = correlationId;
+  }
+
+  /**
+   * Returns the correlation id this message was received with, or {@link #NO_CORRELATION_ID}.
+   *
+   * @since Geode 1.1
+   */
+  public int getCorrelationId() {
+    return this.correlationId;
+  }
+
+  /**
+   * Returns the correlation id to send this message with. A server's reply is tagged with the id of
+   * the request it is replying to.
+   */
+  protected int getCorrelationIdForSending() {
+    if (this.correlationId != NO_CORRELATION_ID) {
+      return this.correlationId;
+    }
+    if (this.sc != null) {
+      return this.sc.getRequestCorrelationId();
+    }
+    return NO_CORRELATION_ID;
+  }
+
   /**
    * This returns true if the message has been marked as having been previously transmitted to a
    * different server.
@@ -476,6 +536,7 @@ public class Message {
 
   public void clear() {
     this.isRetry = false;
+    this.correlationId = NO_CORRELATION_ID;
     int len = this.payloadLength;
     if (len != 0) {
       this.payloadLength = 0;
@@ -505,7 +566,8 @@ public class Message {
     this.flags = 0;
   }
 
-  protected void packHeaderInfoForSending(int msgLen, boolean isSecurityHeader) {
+  protected void packHeaderInfoForSending(int msgLen, boolean isSecurityHeader,
+      int correlationId) {
     // hitesh: setting second bit of flags byte for client
     // this is not require but this makes all changes easily at client side right now
     // just see this bit and process security header
@@ -516,8 +578,14 @@ public class Message {
     if (this.isRetry) {
       flagsByte |= MESSAGE_IS_RETRY;
     }
+    if (correlationId != NO_CORRELATION_ID) {
+      flagsByte |= MESSAGE_HAS_CORRELATION_ID;
+    }
     getCommBuffer().putInt(this.msgType).putInt(msgLen).putInt(this.numberOfParts)
         .putInt(this.transactionId).put(flagsByte);
+    if (correlationId != NO_CORRELATION_ID) {
+      getCommBuffer().putInt(correlationId);
+    }
   }
 
   protected Part getSecurityPart() {
@@ -564,6 +632,10 @@ public class Message {
         long totalPartLen = 0;
         long headerLen = 0;
         int partsToTransmit = this.numberOfParts;
+        final int correlationIdToSend = getCorrelationIdForSending();
+        if (correlationIdToSend != NO_CORRELATION_ID) {
+          headerLen += CORRELATION_ID_LENGTH;
+        }
 
         for (int i = 0; i < this.numberOfParts; i++) {
           Part part = this.partsList[i];
@@ -594,7 +666,7 @@ public class Message {
         }
 
         cb.clear();
-        packHeaderInfoForSending(msgLen, (securityPart != null));
+        packHeaderInfoForSending(msgLen, (securityPart != null), correlationIdToSend);
         for (int i = 0; i < partsToTransmit; i++) {
           Part part = (i == this.numberOfParts) ? securityPart : partsList[i];
 
@@ -605,15 +677,19 @@ public class Message {
           int partLen = part.getLength();
           cb.putInt(partLen);
           cb.put(part.getTypeCode());
-          if (partLen <= cb.remaining()) {
+          if (this.sockCh != null && (partLen > cb.remaining()
+              || (partLen >= MIN_DIRECT_WRITE_SIZE && part.isOffHeap()))) {
+            // the part takes what is buffered ahead of it out to the socket with it
+            int buffered = cb.position();
+            part.writeTo(this.sockCh, cb);
+            if (this.msgStats != null) {
+              this.msgStats.incSentBytes(buffered + partLen);
+            }
+          } else if (partLen <= cb.remaining()) {
             part.writeTo(cb);
           } else {
             flushBuffer();
-            if (this.sockCh != null) {
-              part.writeTo(this.sockCh, cb);
-            } else {
-              part.writeTo(this.os, cb);
-            }
+            part.writeTo(this.os, cb);
             if (this.msgStats != null) {
               this.msgStats.incSentBytes(partLen);
             }
@@ -673,7 +749,7 @@ public class Message {
     if (this.sockCh != null) {
       cb.limit(headerLength);
       do {
-        int bytesRead = this.sockCh.read(cb);
+        int bytesRead = channelRead(cb);
         // System.out.println("DEBUG: fetchHeader read " + bytesRead + " bytes commBuffer=" + cb);
         if (bytesRead == -1) {
           throw new EOFException(
@@ -705,6 +781,30 @@ public class Message {
     }
   }
 
+  /**
+   * Reads from our socket channel. On a server connection any bytes of this message that were
+   * already assembled by the acceptor's selector thread are returned first.
+   */
+  private int channelRead(ByteBuffer dst) throws IOException {
+    if (this.sc != null) {
+      MessageAssembler assembler = this.sc.getMessageAssembler();
+      if (assembler != null) {
+        return assembler.read(this.sockCh, dst);
+      }
+    }
+    return this.sockCh.read(dst);
+  }
+
+  private boolean takeAssembledLimiterPermits() {
+    if (this.sc != null) {
+      MessageAssembler assembler = this.sc.getMessageAssembler();
+      if (assembler != null) {
+        return assembler.takeLimiterPermits();
+      }
+    }
+    return false;
+  }
+
   private void readHeaderAndPayload() throws IOException {
     fetchHeader();
     final ByteBuffer cb = getCommBuffer();
@@ -726,7 +826,9 @@ public class Message {
       timeToWait = sc.getClientReadTimeout();
     }
     this.hdrRead = true;
-    if (this.msgLimiter != null) {
+    // the selector thread may already have acquired the limiter permits while assembling
+    final boolean limiterPermitsHeld = takeAssembledLimiterPermits();
+    if (this.msgLimiter != null && !limiterPermitsHeld) {
       for (;;) {
         this.sc.getCachedRegionHelper().checkCancelInProgress(null);
         boolean interrupted = Thread.interrupted();
@@ -759,7 +861,10 @@ public class Message {
             .toLocalizedString(new Object[] {Integer.valueOf(len),
                 Integer.valueOf(this.maxIncomingMessageLength)}));
       }
-      if (this.dataLimiter != null) {
+      if (this.dataLimiter != null && limiterPermitsHeld) {
+        this.payloadLength = len; // makes sure payloadLength gets set now so we will release
+                                  // the semaphore
+      } else if (this.dataLimiter != null) {
         for (;;) {
           if (sc != null) {
             this.sc.getCachedRegionHelper().checkCancelInProgress(null);
@@ -804,7 +909,14 @@ public class Message {
     this.flags = bits;
     this.msgType = type;
 
-    readPayloadFields(numParts, len);
+    int partsLen = len;
+    if ((bits & MESSAGE_HAS_CORRELATION_ID) != 0) {
+      this.correlationId = readCorrelationId();
+      partsLen -= CORRELATION_ID_LENGTH;
+    } else {
+      this.correlationId = NO_CORRELATION_ID;
+    }
+    readPayloadFields(numParts, partsLen);
 
     // Set the header and payload fields only after receiving all the
     // socket data, providing better message consistency in the face
@@ -819,6 +931,45 @@ public class Message {
     }
   }
 
+  /**
+   * Reads the correlation id that precedes the parts of a pipelined message.
+   */
+  private int readCorrelationId() throws IOException {
+    final ByteBuffer cb = getCommBuffer();
+    cb.clear();
+    if (this.sockCh != null) {
+      cb.limit(CORRELATION_ID_LENGTH);
+      do {
+        int bytesRead = channelRead(cb);
+        if (bytesRead == -1) {
+          throw new EOFException(
+              LocalizedStrings.Message_THE_CONNECTION_HAS_BEEN_RESET_WHILE_READING_THE_PAYLOAD
+                  .toLocalizedString());
+        }
+        if (this.msgStats != null) {
+          this.msgStats.incReceivedBytes(bytesRead);
+        }
+      } while (cb.remaining() > 0);
+    } else {
+      int pos = 0;
+      do {
+        int bytesRead = this.is.read(cb.array(), pos, CORRELATION_ID_LENGTH - pos);
+        if (bytesRead == -1) {
+          throw new EOFException(
+              LocalizedStrings.Message_THE_CONNECTION_HAS_BEEN_RESET_WHILE_READING_THE_PAYLOAD
+                  .toLocalizedString());
+        }
+        pos += bytesRead;
+        if (this.msgStats != null) {
+          this.msgStats.incReceivedBytes(bytesRead);
+        }
+      } while (pos < CORRELATION_ID_LENGTH);
+    }
+    int result = cb.getInt(0);
+    cb.clear();
+    return result;
+  }
+
   protected void readPayloadFields(final int numParts, final int len) throws IOException {
     if (len > 0 && numParts <= 0 || len <= 0 && numParts > 0) {
       throw new IOException(
@@ -889,7 +1040,7 @@ public class Message {
               bytesThisTime = cb.capacity();
             }
             cb.limit(bytesThisTime);
-            int res = this.sockCh.read(cb);
+            int res = channelRead(cb);
             if (res != -1) {
               cb.flip();
               bytesRemaining -= res;
@@ -964,7 +1115,7 @@ public class Message {
         cb.limit(cb.position() + bytesRemaining);
       }
       while (remaining > 0) {
-        int res = this.sockCh.read(cb);
+        int res = channelRead(cb);
         if (res != -1) {
           remaining -= res;
           bytesRead += res;
@@ -0,0 +1,358 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Assembles an incoming client {@link Message} from a non-blocking channel so that the acceptor's
+ * selector thread, rather than a thread from the server's thread pool, waits for the bytes of a
+ * partially sent message. Once a whole message has arrived its {@link ServerConnection} is
+ * dispatched and {@link Message} consumes the assembled bytes through
+ * {@link #read(ReadableByteChannel, ByteBuffer)} before reading anything further from the channel.
+ * <p>
+ * Messages whose payload is larger than {@link #MAX_ASSEMBLED_SIZE} are not assembled. Their
+ * connection is dispatched as soon as the header has arrived and the worker thread reads the rest of
+ * the message from the socket as it always has.
+ * <p>
+ * The server's limits on incoming messages apply before a payload buffer is taken. A message longer
+ * than the server's maximum message length is not assembled, so the worker rejects it as before.
+ * The permits of the server's message and data limiters, and of a cap on the bytes assembled by all
+ * connections, {@link #MAX_ASSEMBLED_TOTAL_SIZE}, are acquired without waiting. If any of them is
+ * not available the message is not assembled and the worker waits for the limiters as it always
+ * has. Otherwise the permits of the limiters are handed to the {@link Message} that reads the
+ * assembled bytes, see {@link #takeLimiterPermits()}.
+ * <p>
+ * An assembler is used by the selector thread while its connection is registered with the selector
+ * and by a single worker thread after it has been dispatched.
+ *
+ * @since Geode 1.1
+ */
+public class MessageAssembler {
+
+  /**
+   * The largest message payload, in bytes, that will be assembled by the selector thread.
+   */
+  public static final int MAX_ASSEMBLED_SIZE =
+      Integer.getInteger("BridgeServer.SELECTOR_ASSEMBLY_MAX_SIZE", 64 * 1024).intValue();
+
+  /**
+   * The most bytes of payload buffers that may be held by the assemblers of all connections at once.
+   */
+  public static final int MAX_ASSEMBLED_TOTAL_SIZE = Integer
+      .getInteger("BridgeServer.SELECTOR_ASSEMBLY_MAX_TOTAL_SIZE", 64 * 1024 * 1024).intValue();
+
+  private static final Semaphore assembledBytesLimiter = new Semaphore(MAX_ASSEMBLED_TOTAL_SIZE);
+
+  /**
+   * The number of idle payload buffers of each size that are kept for reuse.
+   */
+  private static final int POOLED_BUFFERS_PER_SIZE =
+      Integer.getInteger("BridgeServer.SELECTOR_ASSEMBLY_POOL_SIZE", 256).intValue();
+
+  private static final int MIN_BUFFER_SIZE = 1024;
+
+  // The key is the size of each ByteBuffer. The value is a queue of byte buffers all of that size.
+  private static final ConcurrentHashMap<Integer, LinkedBlockingQueue<ByteBuffer>> bufferPool =
+      new ConcurrentHashMap<>(16, 0.75f, 1);
+
+  private final Semaphore assembledBytes;
+
+  private final Semaphore msgLimiter;
+
+  private final Semaphore dataLimiter;
+
+  private final int maxMessageLength;
+
+  private final ByteBuffer header = ByteBuffer.allocate(Message.FIXED_LENGTH);
+
+  private ByteBuffer payload;
+
+  /**
+   * True once the bytes assembled so far have been handed to the worker thread.
+   */
+  private boolean dispatched;
+
+  /**
+   * True once we have seen the end of the stream. Reported by {@link #read} after the assembled
+   * bytes have been consumed.
+   */
+  private boolean eof;
+
+  /**
+   * The permits of assembledBytes held for the payload buffer.
+   */
+  private int heldAssembledBytes;
+
+  /**
+   * True while we hold the msgLimiter and dataLimiter permits of the message being assembled.
+   */
+  private boolean limiterPermitsHeld;
+
+  /**
+   * The number of dataLimiter permits held for the message being assembled.
+   */
+  private int heldDataPermits;
+
+  /**
+   * Creates an assembler bound by the server's limits on incoming client messages.
+   */
+  public MessageAssembler() {
+    this(assembledBytesLimiter, BaseCommand.getIncomingMsgLimiter(),
+        BaseCommand.getIncomingDataLimiter(), BaseCommand.getMaxIncomingData());
+  }
+
+  /**
+   * @param assembledBytes limits the bytes of payload buffers held by all assemblers
+   * @param msgLimiter the server's limiter of concurrent incoming messages, or null
+   * @param dataLimiter the server's limiter of concurrent incoming message bytes, or null
+   * @param maxMessageLength the longest message payload the server accepts, if greater than zero
+   */
+  MessageAssembler(Semaphore assembledBytes, Semaphore msgLimiter, Semaphore dataLimiter,
+      int maxMessageLength) {
+    this.assembledBytes = assembledBytes;
+    this.msgLimiter = msgLimiter;
+    this.dataLimiter = dataLimiter;
+    this.maxMessageLength = maxMessageLength;
+  }
+
+  /**
+   * Reads whatever is available from the given non-blocking channel into the message being
+   * assembled.
+   *
+   * @return true if the connection should now be dispatched to a worker thread; false if more bytes
+   *         are needed and the connection should stay registered with the selector
+   */
+  public synchronized boolean assemble(ReadableByteChannel channel) throws IOException {
+    if (this.header.hasRemaining()) {
+      if (!fill(channel, this.header)) {
+        return this.eof;
+      }
+      int len = this.header.getInt(4);
+      if (len < 0 || len > MAX_ASSEMBLED_SIZE
+          || (this.maxMessageLength > 0 && len > this.maxMessageLength)) {
+        // let the worker validate the length or stream the payload itself
+        return true;
+      }
+      if (!acquirePermits(len)) {
+        // the server is at one of its limits so let the worker wait for it
+        return true;
+      }
+      this.payload = takeBuffer(len);
+      this.payload.limit(len);
+    }
+    if (this.payload == null) {
+      return true;
+    }
+    return fill(channel, this.payload) || this.eof;
+  }
+
+  /**
+   * Acquires, without waiting, the permits needed to assemble a payload of the given length.
+   *
+   * @return true if they were all acquired; false if none are held
+   */
+  private boolean acquirePermits(int len) {
+    int size = bufferSizeFor(len);
+    if (!this.assembledBytes.tryAcquire(size)) {
+      return false;
+    }
+    if (this.msgLimiter != null && !this.msgLimiter.tryAcquire()) {
+      this.assembledBytes.release(size);
+      return false;
+    }
+    int dataPermits = this.dataLimiter != null ? len : 0;
+    if (dataPermits > 0 && !this.dataLimiter.tryAcquire(dataPermits)) {
+      if (this.msgLimiter != null) {
+        this.msgLimiter.release();
+      }
+      this.assembledBytes.release(size);
+      return false;
+    }
+    this.heldAssembledBytes = size;
+    this.heldDataPermits = dataPermits;
+    this.limiterPermitsHeld = true;
+    return true;
+  }
+
+  /**
+   * Called by {@link Message} once it has read the header of the dispatched message. If the permits
+   * of the server's message and data limiters were acquired while assembling it, the caller now
+   * owns them and releases them when it is cleared, just as if it had acquired them itself.
+   *
+   * @return true if the caller now holds the limiter permits of the message
+   */
+  public synchronized boolean takeLimiterPermits() {
+    if (!this.dispatched || !this.limiterPermitsHeld) {
+      return false;
+    }
+    this.limiterPermitsHeld = false;
+    this.heldDataPermits = 0;
+    return true;
+  }
+
+  /**
+   * Reads from channel until buffer is full or the channel has no more bytes available.
+   *
+   * @return true if buffer is full
+   */
+  private boolean fill(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      int bytesRead = channel.read(buffer);
+      if (bytesRead == -1) {
+        this.eof = true;
+        return false;
+      }
+      if (bytesRead == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Prepares whatever has been assembled, which may be an incomplete message, to be consumed by
+   * {@link #read}. Called by the worker thread before it reads the message.
+   */
+  public synchronized void dispatch() {
+    if (!this.dispatched) {
+      this.dispatched = true;
+      this.header.flip();
+      if (this.payload != null) {
+        this.payload.flip();
+      }
+    }
+  }
+
+  /**
+   * Reads into dst the assembled bytes that have not yet been consumed. Once they are gone reads
+   * come directly from the given channel.
+   */
+  public synchronized int read(ReadableByteChannel channel, ByteBuffer dst) throws IOException {
+    if (this.dispatched) {
+      int bytesRead = transfer(this.header, dst);
+      if (this.payload != null) {
+        bytesRead += transfer(this.payload, dst);
+      }
+      if (bytesRead > 0 || !dst.hasRemaining()) {
+        return bytesRead;
+      }
+      if (this.eof) {
+        return -1;
+      }
+    }
+    return channel.read(dst);
+  }
+
+  private static int transfer(ByteBuffer src, ByteBuffer dst) {
+    int count = Math.min(src.remaining(), dst.remaining());
+    if (count > 0) {
+      if (count == src.remaining()) {
+        dst.put(src);
+      } else {
+        int oldLimit = src.limit();
+        src.limit(src.position() + count);
+        dst.put(src);
+        src.limit(oldLimit);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Discards anything assembled, releases the permits still held for it and gets ready to assemble
+   * the next message. This must be called before the connection is registered with the selector
+   * again, since the selector thread may start assembling the next message right away.
+   */
+  public synchronized void reset() {
+    this.header.clear();
+    this.dispatched = false;
+    this.eof = false;
+    ByteBuffer bb = this.payload;
+    if (bb != null) {
+      this.payload = null;
+      releaseBuffer(bb);
+    }
+    if (this.limiterPermitsHeld) {
+      this.limiterPermitsHeld = false;
+      if (this.msgLimiter != null) {
+        this.msgLimiter.release();
+      }
+      if (this.heldDataPermits > 0) {
+        this.dataLimiter.release(this.heldDataPermits);
+        this.heldDataPermits = 0;
+      }
+    }
+    if (this.heldAssembledBytes > 0) {
+      this.assembledBytes.release(this.heldAssembledBytes);
+      this.heldAssembledBytes = 0;
+    }
+  }
+
+  /**
+   * Returns the number of bytes assembled so far. For testing.
+   */
+  synchronized int getAssembledBytes() {
+    int result = this.dispatched ? this.header.limit() : this.header.position();
+    if (this.payload != null) {
+      result += this.dispatched ? this.payload.limit() : this.payload.position();
+    }
+    return result;
+  }
+
+  private static int bufferSizeFor(int len) {
+    if (len <= MIN_BUFFER_SIZE) {
+      return MIN_BUFFER_SIZE;
+    }
+    return Integer.highestOneBit(len - 1) << 1;
+  }
+
+  static ByteBuffer takeBuffer(int len) {
+    int size = bufferSizeFor(len);
+    LinkedBlockingQueue<ByteBuffer> q = bufferPool.get(size);
+    ByteBuffer result = null;
+    if (q != null) {
+      result = q.poll();
+    }
+    if (result == null) {
+      result = ByteBuffer.allocate(size);
+    } else {
+      result.clear();
+    }
+    return result;
+  }
+
+  static void releaseBuffer(ByteBuffer bb) {
+    LinkedBlockingQueue<ByteBuffer> q = bufferPool.get(bb.capacity());
+    if (q == null) {
+      q = new LinkedBlockingQueue<>(POOLED_BUFFERS_PER_SIZE);
+      LinkedBlockingQueue<ByteBuffer> oldQ = bufferPool.putIfAbsent(bb.capacity(), q);
+      if (oldQ != null) {
+        q = oldQ;
+      }
+    }
+    // if the queue is full the buffer is simply dropped
+    q.offer(bb);
+  }
+
+  public static void emptyBufferPool() {
+    bufferPool.clear();
+  }
+}
@@ -353,30 +353,26 @@ public class Part {
 
   /**
    * Write the contents of this part to the specified socket channel using the specified byte
-   * buffer. This is only called for parts that will not fit into the commBuffer so they need to be
-   * written directly to the socket. Precondition: buf contains nothing that needs to be sent
+   * buffer. This is called for parts that will not fit into the commBuffer, and for off-heap parts,
+   * so they can be written directly to the socket. Any bytes already in buf, from its start to its
+   * position, are sent ahead of this part. An off-heap part is written straight from off-heap
+   * memory in the same gathering write as those bytes. On return buf has been cleared.
    */
   public final void writeTo(SocketChannel sc, ByteBuffer buf) throws IOException {
     if (getLength() > 0) {
-      final int BUF_MAX = buf.capacity();
       if (this.part instanceof byte[]) {
         final byte[] bytes = (byte[]) this.part;
         int off = 0;
         int len = bytes.length;
-        buf.clear();
         while (len > 0) {
           int bytesThisTime = len;
-          if (bytesThisTime > BUF_MAX) {
-            bytesThisTime = BUF_MAX;
+          if (bytesThisTime > buf.remaining()) {
+            bytesThisTime = buf.remaining();
           }
           buf.put(bytes, off, bytesThisTime);
           len -= bytesThisTime;
           off += bytesThisTime;
-          buf.flip();
-          while (buf.remaining() > 0) {
-            sc.write(buf);
-          }
-          buf.clear();
+          flushBuffer(sc, buf);
         }
       } else if (this.part instanceof StoredObject) {
         // instead of copying the StoredObject to buf try to create a direct ByteBuffer and
@@ -384,17 +380,14 @@ public class Part {
         StoredObject c = (StoredObject) this.part;
         ByteBuffer bb = c.createDirectByteBuffer();
         if (bb != null) {
-          while (bb.remaining() > 0) {
-            sc.write(bb);
-          }
+          HeapDataOutputStream.flushBufferAndWrite(sc, buf, bb);
         } else {
           int len = c.getDataSize();
           long addr = c.getAddressForReadingData(0, len);
-          buf.clear();
           while (len > 0) {
             int bytesThisTime = len;
-            if (bytesThisTime > BUF_MAX) {
-              bytesThisTime = BUF_MAX;
+            if (bytesThisTime > buf.remaining()) {
+              bytesThisTime = buf.remaining();
             }
             len -= bytesThisTime;
             while (bytesThisTime > 0) {
@@ -402,11 +395,7 @@ public class Part {
               addr++;
               bytesThisTime--;
             }
-            buf.flip();
-            while (buf.remaining() > 0) {
-              sc.write(buf);
-            }
-            buf.clear();
+            flushBuffer(sc, buf);
           }
         }
       } else {
@@ -414,9 +403,27 @@ public class Part {
         hdos.sendTo(sc, buf);
         hdos.rewind();
       }
+    } else {
+      flushBuffer(sc, buf);
     }
   }
 
+  private static void flushBuffer(SocketChannel sc, ByteBuffer buf) throws IOException {
+    buf.flip();
+    while (buf.remaining() > 0) {
+      sc.write(buf);
+    }
+    buf.clear();
+  }
+
+  /**
+   * Returns true if this part refers to an off-heap value. Such a part must stay retained until
+   * the message containing it has been sent.
+   */
+  public boolean isOffHeap() {
+    return this.part instanceof StoredObject;
+  }
+
   static private String typeCodeToString(byte c) {
     switch (c) {
       case BYTE_CODE:
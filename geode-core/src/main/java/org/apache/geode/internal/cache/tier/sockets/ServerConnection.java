@@ -168,6 +168,12 @@ public class ServerConnection implements Runnable {
   final private AcceptorImpl acceptor;
   private Thread owner;
 
+  /**
+   * Assembles incoming messages while we are registered with the acceptor's selector. Null if the
+   * acceptor does not use a selector.
+   */
+  private final MessageAssembler messageAssembler;
+
   /**
    * Handshake reference uniquely identifying a client
    */
@@ -265,6 +271,7 @@ public class ServerConnection implements Runnable {
 
     this.stats = stats;
     this.acceptor = (AcceptorImpl) acceptor;
+    this.messageAssembler = this.acceptor.isSelector() ? new MessageAssembler() : null;
     this.crHelper = helper;
     this.logWriter = (InternalLogWriter) c.getLoggerI18n();
     this.securityLogWriter = (InternalLogWriter) c.getSecurityLoggerI18n();
@@ -302,6 +309,18 @@ public class ServerConnection implements Runnable {
     return this.acceptor;
   }
 
+  MessageAssembler getMessageAssembler() {
+    return this.messageAssembler;
+  }
+
+  /**
+   * Returns the correlation id of the request currently being processed. Replies to a pipelined
+   * request are tagged with it so the client can match them up.
+   */
+  int getRequestCorrelationId() {
+    return this.requestMsg.getCorrelationId();
+  }
+
   static private final ThreadLocal<Byte> executeFunctionOnLocalNodeOnly = new ThreadLocal<Byte>() {
     @Override
     protected Byte initialValue() {
@@ -1125,8 +1144,12 @@ public class ServerConnection implements Runnable {
         this.stats.decThreadQueueSize();
         if (!isTerminated()) {
           Message.setTLCommBuffer(getAcceptor().takeCommBuffer());
+          this.messageAssembler.dispatch();
           doOneMessage();
           if (this.processMessages && !(this.crHelper.isShutdown())) {
+            // reset before reregistering since the selector thread may start assembling the next
+            // message as soon as we are registered
+            this.messageAssembler.reset();
             registerWithSelector(); // finished msg so reregister
             finishedMsg = true;
           }
@@ -1140,6 +1163,9 @@ public class ServerConnection implements Runnable {
             LocalizedMessage.create(LocalizedStrings.ServerConnection_0__UNEXPECTED_EXCEPTION, ex));
       } finally {
         getAcceptor().releaseCommBuffer(Message.setTLCommBuffer(null));
+        if (!finishedMsg) {
+          this.messageAssembler.reset();
+        }
         // DistributedSystem.releaseThreadsSockets();
         unsetOwner();
         setNotProcessingMessage();
@@ -1177,6 +1203,20 @@ public class ServerConnection implements Runnable {
     }
   }
 
+  /**
+   * Called by the acceptor's selector thread when our channel is readable. Reads what is available
+   * into the message being assembled. The handshake is not assembled; it is always done by a thread
+   * from the acceptor's pool.
+   *
+   * @return true if we should now be dispatched to a thread from the acceptor's pool
+   */
+  public boolean assembleMessage() throws IOException {
+    if (this.doHandshake) {
+      return true;
+    }
+    return this.messageAssembler.assemble(this.theSocket.getChannel());
+  }
+
   /**
    * If registered with a selector then this will be the key we are registered with.
    */
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.internal.DefaultQuery;
+import org.apache.geode.cache.query.types.CollectionType;
+import org.apache.geode.distributed.internal.DistributionConfig;
+
+/**
+ * The results of a query kept on a server for a client that reads them a page at a time. The
+ * results are released once the client has read all of them, closes the cursor, leaves it unused
+ * for longer than {@link #IDLE_TIME} milliseconds or departs.
+ *
+ * @see CacheClientNotifier#addQueryCursor(ServerQueryCursor)
+ * @since Geode 1.1
+ */
+public class ServerQueryCursor {
+
+  /**
+   * The time in milliseconds after which a cursor that the client has not read from is closed.
+   */
+  public static final long IDLE_TIME =
+      Long.getLong(DistributionConfig.GEMFIRE_PREFIX + "QueryCursor.IDLE_TIME", 5 * 60 * 1000);
+
+  /**
+   * The maximum number of results sent in a page, whatever the page size requested by the client.
+   */
+  public static final int MAXIMUM_PAGE_SIZE = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "QueryCursor.MAXIMUM_PAGE_SIZE", 10000);
+
+  private static final AtomicLong nextId = new AtomicLong();
+
+  private final long id = nextId.incrementAndGet();
+
+  private final ClientProxyMembershipID owner;
+
+  private final DefaultQuery query;
+
+  private final CollectionType collectionType;
+
+  private final boolean keepSerialized;
+
+  private final Iterator results;
+
+  private volatile boolean lastUsed = true;
+
+  public ServerQueryCursor(ClientProxyMembershipID owner, DefaultQuery query,
+      SelectResults results, CollectionType collectionType, boolean keepSerialized) {
+    this.owner = owner;
+    this.query = query;
+    this.results = results.iterator();
+    this.collectionType = collectionType;
+    this.keepSerialized = keepSerialized;
+  }
+
+  public long getId() {
+    return this.id;
+  }
+
+  public ClientProxyMembershipID getOwner() {
+    return this.owner;
+  }
+
+  /**
+   * Returns the query whose results are read, which is monitored while a page is read.
+   */
+  public DefaultQuery getQuery() {
+    return this.query;
+  }
+
+  public CollectionType getCollectionType() {
+    return this.collectionType;
+  }
+
+  /**
+   * Returns true if the results are sent to the client as serialized bytes.
+   */
+  public boolean isKeepSerialized() {
+    return this.keepSerialized;
+  }
+
+  /**
+   * Returns the iterator over the results that have not been sent yet. Callers synchronize on the
+   * cursor while they use it.
+   */
+  public Iterator getResults() {
+    this.lastUsed = true;
+    return this.results;
+  }
+
+  /**
+   * Returns true, and clears the flag, if the cursor has been read from since the last call.
+   */
+  boolean checkAndClearLastUsed() {
+    boolean used = this.lastUsed;
+    this.lastUsed = false;
+    return used;
+  }
+
+  @Override
+  public String toString() {
+    return "ServerQueryCursor[id=" + this.id + "; owner=" + this.owner + "]";
+  }
+}
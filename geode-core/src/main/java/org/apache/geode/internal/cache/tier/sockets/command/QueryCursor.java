@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets.command;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.geode.cache.CacheRuntimeException;
+import org.apache.geode.cache.operations.QueryOperationContext;
+import org.apache.geode.cache.query.Query;
+import org.apache.geode.cache.query.QueryException;
+import org.apache.geode.cache.query.QueryInvalidException;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.Struct;
+import org.apache.geode.cache.query.internal.DefaultQuery;
+import org.apache.geode.cache.query.internal.QueryExecutionCanceledException;
+import org.apache.geode.cache.query.internal.QueryMonitor;
+import org.apache.geode.cache.query.internal.types.CollectionTypeImpl;
+import org.apache.geode.cache.query.types.CollectionType;
+import org.apache.geode.internal.cache.GemFireCacheImpl;
+import org.apache.geode.internal.cache.tier.Command;
+import org.apache.geode.internal.cache.tier.MessageType;
+import org.apache.geode.internal.cache.tier.sockets.BaseCommandQuery;
+import org.apache.geode.internal.cache.tier.sockets.CacheClientNotifier;
+import org.apache.geode.internal.cache.tier.sockets.ChunkedMessage;
+import org.apache.geode.internal.cache.tier.sockets.Message;
+import org.apache.geode.internal.cache.tier.sockets.ObjectPartList;
+import org.apache.geode.internal.cache.tier.sockets.ServerConnection;
+import org.apache.geode.internal.cache.tier.sockets.ServerQueryCursor;
+import org.apache.geode.internal.security.AuthorizeRequest;
+
+/**
+ * Executes a query whose results are read by the client a page at a time. The results are kept in
+ * a {@link ServerQueryCursor} and each page is sent in chunks of three parts: the collection type,
+ * the results and the id of the cursor, or 0 once the last result has been sent.
+ *
+ * @since Geode 1.1
+ */
+public class QueryCursor extends BaseCommandQuery {
+
+  private final static QueryCursor singleton = new QueryCursor();
+
+  public static Command getCommand() {
+    return singleton;
+  }
+
+  private QueryCursor() {}
+
+  @Override
+  public void cmdExecute(Message msg, ServerConnection servConn, long start)
+      throws IOException, InterruptedException {
+    switch (msg.getMessageType()) {
+      case MessageType.QUERY_CURSOR_OPEN:
+        open(msg, servConn, start);
+        break;
+      case MessageType.QUERY_CURSOR_NEXT:
+        next(msg, servConn);
+        break;
+      default:
+        close(msg, servConn);
+        break;
+    }
+  }
+
+  private void open(Message msg, ServerConnection servConn, long start)
+      throws IOException, InterruptedException {
+    servConn.setAsTrue(REQUIRES_RESPONSE);
+    servConn.setAsTrue(REQUIRES_CHUNKED_RESPONSE);
+    // Parts: query string, page size, number of parameters, parameters
+    String queryString = msg.getPart(0).getString();
+    Object[] queryParams;
+    try {
+      queryParams = new Object[msg.getPart(2).getInt()];
+      for (int i = 0; i < queryParams.length; i++) {
+        queryParams[i] = msg.getPart(i + 3).getObject();
+      }
+    } catch (ClassNotFoundException cne) {
+      throw new QueryInvalidException(cne.getMessage() + queryString);
+    }
+
+    if (logger.isDebugEnabled()) {
+      logger.debug("{}: Received query cursor request from {} queryString: {}", servConn.getName(),
+          servConn.getSocketString(), queryString);
+    }
+    try {
+      QueryService queryService =
+          ((GemFireCacheImpl) servConn.getCachedRegionHelper().getCache()).getLocalQueryService();
+      Query query = queryService.newQuery(queryString);
+      Set regionNames = ((DefaultQuery) query).getRegionsInQuery(queryParams);
+
+      // Authorization check
+      QueryOperationContext queryContext = null;
+      AuthorizeRequest authzRequest = servConn.getAuthzRequest();
+      if (authzRequest != null) {
+        queryContext = authzRequest.queryAuthorize(queryString, regionNames, queryParams);
+        String newQueryString = queryContext.getQuery();
+        if (queryString != null && !queryString.equals(newQueryString)) {
+          query = queryService.newQuery(newQueryString);
+          queryString = newQueryString;
+          regionNames = queryContext.getRegionNames();
+          if (regionNames == null) {
+            regionNames = ((DefaultQuery) query).getRegionsInQuery(null);
+          }
+        }
+      }
+
+      processQueryUsingParams(msg, query, queryString, regionNames, start, null, queryContext,
+          servConn, true, queryParams);
+    } catch (QueryInvalidException e) {
+      throw new QueryInvalidException(e.getMessage() + queryString);
+    }
+  }
+
+  @Override
+  protected boolean sendFirstPage(Message msg, Query query, SelectResults selectResults,
+      ServerConnection servConn) throws IOException {
+    int pageSize = msg.getPart(1).getInt();
+    // a list so that the client keeps the results in the order they are sent
+    CollectionType collectionType =
+        new CollectionTypeImpl(List.class, selectResults.getCollectionType().getElementType());
+    ServerQueryCursor cursor = new ServerQueryCursor(servConn.getProxyID(), (DefaultQuery) query,
+        selectResults, collectionType, ((DefaultQuery) query).isKeepSerialized());
+    CacheClientNotifier ccn = servConn.getAcceptor().getCacheClientNotifier();
+    ccn.addQueryCursor(cursor);
+    try {
+      sendPage(msg, cursor, pageSize, servConn);
+    } catch (RuntimeException e) {
+      ccn.removeQueryCursor(cursor.getId());
+      throw e;
+    }
+    return true;
+  }
+
+  private void next(Message msg, ServerConnection servConn) throws IOException {
+    servConn.setAsTrue(REQUIRES_RESPONSE);
+    servConn.setAsTrue(REQUIRES_CHUNKED_RESPONSE);
+    long cursorId = msg.getPart(0).getLong();
+    int pageSize = msg.getPart(1).getInt();
+    ServerQueryCursor cursor = getCursor(cursorId, servConn);
+    if (cursor == null) {
+      writeQueryResponseException(msg,
+          new QueryException("The query cursor " + cursorId + " has been closed"), false,
+          servConn);
+      return;
+    }
+    try {
+      sendPage(msg, cursor, pageSize, servConn);
+    } catch (RuntimeException e) {
+      servConn.getAcceptor().getCacheClientNotifier().removeQueryCursor(cursorId);
+      writeQueryResponseException(msg, e, false, servConn);
+    }
+  }
+
+  private void close(Message msg, ServerConnection servConn) throws IOException {
+    servConn.setAsTrue(REQUIRES_RESPONSE);
+    long cursorId = msg.getPart(0).getLong();
+    if (getCursor(cursorId, servConn) != null) {
+      servConn.getAcceptor().getCacheClientNotifier().removeQueryCursor(cursorId);
+    }
+    writeReply(msg, servConn);
+  }
+
+  /**
+   * Returns the cursor with the given id if it has been opened by the same client.
+   */
+  private ServerQueryCursor getCursor(long cursorId, ServerConnection servConn) {
+    ServerQueryCursor cursor =
+        servConn.getAcceptor().getCacheClientNotifier().getQueryCursor(cursorId);
+    if (cursor == null || !cursor.getOwner().equals(servConn.getProxyID())) {
+      return null;
+    }
+    return cursor;
+  }
+
+  /**
+   * Sends the next <code>pageSize</code> results of the cursor, removing the cursor once all its
+   * results have been sent. The thread reading the page is monitored like the one that executed the
+   * query, so that a page is canceled when it takes longer than the maximum query execution time or
+   * memory is low.
+   */
+  private void sendPage(Message msg, ServerQueryCursor cursor, int pageSize,
+      ServerConnection servConn) throws IOException {
+    pageSize = Math.max(1, Math.min(pageSize, ServerQueryCursor.MAXIMUM_PAGE_SIZE));
+    DefaultQuery query = cursor.getQuery();
+    QueryMonitor queryMonitor =
+        ((GemFireCacheImpl) servConn.getCachedRegionHelper().getCache()).getQueryMonitor();
+
+    ChunkedMessage queryResponseMsg = servConn.getQueryResponseMessage();
+    queryResponseMsg.setMessageType(MessageType.RESPONSE);
+    queryResponseMsg.setTransactionId(msg.getTransactionId());
+    queryResponseMsg.setNumberOfParts(3);
+    synchronized (cursor) {
+      if (query.isCanceled()) {
+        throw query.getQueryCanceledException();
+      }
+      if (queryMonitor != null) {
+        // the query completed when its first page was read
+        query.setQueryCompletedForMonitoring(false);
+        queryMonitor.monitorQueryThread(Thread.currentThread(), query);
+      }
+      try {
+        queryResponseMsg.sendHeader();
+        sendChunks(queryResponseMsg, cursor, pageSize, servConn);
+      } catch (QueryExecutionCanceledException e) {
+        // the canceled exception is set when the query monitor cancels the page
+        CacheRuntimeException canceledException = query.getQueryCanceledException();
+        throw canceledException != null ? canceledException : e;
+      } finally {
+        if (queryMonitor != null) {
+          queryMonitor.stopMonitoringQueryThread(Thread.currentThread(), query);
+        }
+      }
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug("{}: Sent a page of query cursor {}", servConn.getName(), cursor);
+    }
+  }
+
+  private void sendChunks(ChunkedMessage queryResponseMsg, ServerQueryCursor cursor, int pageSize,
+      ServerConnection servConn) throws IOException {
+    CacheClientNotifier ccn = servConn.getAcceptor().getCacheClientNotifier();
+    CollectionType collectionType = cursor.getCollectionType();
+    boolean isStructs = collectionType.getElementType().isStructType();
+    Iterator results = cursor.getResults();
+    int numSent = 0;
+    boolean lastChunk;
+    do {
+      int chunkSize = Math.min(maximumChunkSize, pageSize - numSent);
+      Object chunk;
+      if (cursor.isKeepSerialized()) {
+        // for select * queries, the serialized values are sent as they are stored
+        ObjectPartList serializedObjs = new ObjectPartList(chunkSize, false);
+        for (int i = 0; i < chunkSize && results.hasNext(); i++) {
+          QueryMonitor.isQueryExecutionCanceled();
+          addToObjectPartList(serializedObjs, results.next(), collectionType, false, servConn,
+              isStructs);
+          numSent++;
+        }
+        chunk = serializedObjs;
+      } else {
+        List values = new ArrayList(chunkSize);
+        for (int i = 0; i < chunkSize && results.hasNext(); i++) {
+          QueryMonitor.isQueryExecutionCanceled();
+          Object result = results.next();
+          if (isStructs && result instanceof Struct) {
+            result = ((Struct) result).getFieldValues();
+          }
+          values.add(result);
+          numSent++;
+        }
+        chunk = values.toArray();
+      }
+      boolean exhausted = !results.hasNext();
+      if (exhausted) {
+        ccn.removeQueryCursor(cursor.getId());
+      }
+      lastChunk = exhausted || numSent == pageSize;
+      queryResponseMsg.setNumberOfParts(3);
+      queryResponseMsg.setLastChunk(lastChunk);
+      queryResponseMsg.addObjPart(collectionType, zipValues);
+      queryResponseMsg.addObjPart(chunk, zipValues);
+      queryResponseMsg.addLongPart(exhausted ? 0 : cursor.getId());
+      queryResponseMsg.sendChunk(servConn);
+    } while (!lastChunk);
+  }
+}
@@ -7658,6 +7658,11 @@ public class LocalizedStrings {
       new StringId(6646,
           "An unexpected exception occurred processing a BatchException. The thread will continue.");
 
+  public static final StringId IndexManager_EXCEPTION_UPDATING_INDEXES_ASYNCHRONOUSLY =
+      new StringId(6647, "Exception while asynchronously updating the indexes of region {0}");
+  public static final StringId IndexManager_EXCEPTION_RECREATING_INDEXES =
+      new StringId(6648, "Exception while recreating the indexes of region {0}");
+
   /** Testing strings, messageId 90000-99999 **/
 
   /**
@@ -101,6 +101,13 @@ public class AddressableMemoryManager {
     return unsafe.getLongVolatile(null, addr);
   }
 
+  /**
+   * Ensures that reads made before this call are not reordered with reads made after it.
+   */
+  public static void loadFence() {
+    unsafe.loadFence();
+  }
+
   public static void writeByte(long addr, byte value) {
     unsafe.putByte(addr, value);
   }
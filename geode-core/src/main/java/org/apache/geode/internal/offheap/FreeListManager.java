@@ -47,7 +47,7 @@ public class FreeListManager {
       new ConcurrentSkipListSet<OffHeapStoredObject>();
   private final AtomicLong allocatedSize = new AtomicLong(0L);
 
-  private int getNearestTinyMultiple(int size) {
+  int getNearestTinyMultiple(int size) {
     return (size - 1) / TINY_MULTIPLE;
   }
 
@@ -211,7 +211,7 @@ public class FreeListManager {
     }
   }
 
-  private OffHeapStoredObject allocateFromFragments(int chunkSize) {
+  OffHeapStoredObject allocateFromFragments(int chunkSize) {
     do {
       final int lastAllocationId = this.lastFragmentAllocation.get();
       for (int i = lastAllocationId; i < this.fragmentList.size(); i++) {
@@ -378,6 +378,115 @@ public class FreeListManager {
     }
   }
 
+  /**
+   * A run of coalesced free chunks at least this big becomes a new Fragment so that allocations of
+   * any size can be carved from it. Smaller runs go back on the free list for their new size so
+   * that the fragment list, which allocations scan, stays short.
+   */
+  static final int MIN_COALESCED_FRAGMENT_SIZE = 64 * 1024;
+
+  /**
+   * The tiny free list the next incremental defragmentation starts at. Guarded by this.
+   */
+  private int nextIncrementalFreeList = 0;
+
+  /**
+   * Coalesces adjacent free chunks without stopping concurrent allocations and frees. At most
+   * maxChunks chunks are taken off the free lists, sorted by address and merged. Merged runs that
+   * are big enough become new fragments, everything else is put back on the free lists. Fragments
+   * that have been completely allocated are dropped. Allocations only wait for this if they need a
+   * full defragmentation at the same time.
+   *
+   * @return the number of bytes in free chunks that were merged with an adjacent chunk
+   */
+  long defragmentIncrementally(int maxChunks) {
+    final OffHeapMemoryStats stats = this.ma.getStats();
+    final long startTime = stats.startIncrementalDefragmentation();
+    long coalesced = 0;
+    try {
+      synchronized (this) {
+        coalesced = doDefragmentIncrementally(maxChunks);
+      }
+    } finally {
+      stats.endIncrementalDefragmentation(startTime, coalesced);
+    }
+    return coalesced;
+  }
+
+  /**
+   * The work of defragmentIncrementally. The caller must hold the sync on this.
+   */
+  long doDefragmentIncrementally(int maxChunks) {
+    this.fragmentList.removeIf(f -> f.freeSpace() == 0);
+
+    ResizableLongArray batch = new ResizableLongArray();
+    final int listCount = this.tinyFreeLists.length();
+    int idx = this.nextIncrementalFreeList;
+    for (int i = 0; i < listCount && batch.size() < maxChunks; i++) {
+      OffHeapStoredObjectAddressStack cl = this.tinyFreeLists.get(idx);
+      if (cl != null) {
+        long addr;
+        while (batch.size() < maxChunks && (addr = cl.poll()) != 0L) {
+          batch.add(addr);
+        }
+      }
+      idx = (idx + 1) % listCount;
+    }
+    this.nextIncrementalFreeList = idx;
+    while (batch.size() < maxChunks) {
+      long addr = pollFreeHugeChunk();
+      if (addr == 0L) {
+        break;
+      }
+      batch.add(addr);
+    }
+    batch.sort();
+
+    long coalesced = 0;
+    ArrayList<Fragment> newFragments = new ArrayList<Fragment>();
+    int i = 0;
+    while (i < batch.size()) {
+      final long runAddr = batch.get(i);
+      int next = i + 1;
+      while (next < batch.size() && combineIfAdjacentAndSmallEnough(runAddr, batch.get(next))) {
+        next++;
+      }
+      if (next - i > 1) {
+        int runSize = OffHeapStoredObject.getSize(runAddr);
+        coalesced += runSize;
+        if (runSize >= MIN_COALESCED_FRAGMENT_SIZE) {
+          Fragment f = createFragment(runAddr, runSize);
+          if (this.validateMemoryWithFill) {
+            f.fill();
+          }
+          newFragments.add(f);
+        } else {
+          if (this.validateMemoryWithFill) {
+            // the headers of the merged chunks are now free space
+            OffHeapStoredObject.fill(runAddr);
+          }
+          returnFreeChunk(runAddr);
+        }
+      } else {
+        returnFreeChunk(runAddr);
+      }
+      i = next;
+    }
+    if (!newFragments.isEmpty()) {
+      this.fragmentList.addAll(newFragments);
+    }
+
+    int largestFragment = 0;
+    for (Fragment f : this.fragmentList) {
+      largestFragment = Math.max(largestFragment, f.freeSpace());
+    }
+    OffHeapMemoryStats stats = this.ma.getStats();
+    stats.setLargestFragment(largestFragment);
+    stats.setFragments(this.fragmentList.size());
+    stats.setFragmentation(getFragmentation());
+    return coalesced;
+  }
+
   /**
    * Simple interface the represents a "stack" of primitive longs. Currently this interface only
    * allows supports poll but more could be added if needed in the future. This interface was
@@ -437,6 +546,10 @@ public class FreeListManager {
       }
       size++;
     }
+
+    public void sort() {
+      Arrays.sort(data, 0, size);
+    }
   }
 
   /**
@@ -574,7 +687,7 @@ public class FreeListManager {
     }
   }
 
-  private void collectFreeChunks(List<LongStack> l) {
+  void collectFreeChunks(List<LongStack> l) {
     collectFreeFragmentChunks(l);
     collectFreeHugeChunks(l);
     collectFreeTinyChunks(l);
@@ -691,7 +804,7 @@ public class FreeListManager {
     return (int) ((((long) value + (multiple - 1)) / multiple) * multiple);
   }
 
-  private OffHeapStoredObject allocateTiny(int size, boolean useFragments) {
+  OffHeapStoredObject allocateTiny(int size, boolean useFragments) {
     return basicAllocate(getNearestTinyMultiple(size), TINY_MULTIPLE, 0, this.tinyFreeLists,
         useFragments);
   }
@@ -715,7 +828,7 @@ public class FreeListManager {
     }
   }
 
-  private OffHeapStoredObject allocateHuge(int size, boolean useFragments) {
+  OffHeapStoredObject allocateHuge(int size, boolean useFragments) {
     // sizeHolder is a fake Chunk used to search our sorted hugeChunkSet.
     OffHeapStoredObject sizeHolder = new SearchMarker(size);
     NavigableSet<OffHeapStoredObject> ts = this.hugeChunkSet.tailSet(sizeHolder);
@@ -739,7 +852,7 @@ public class FreeListManager {
     }
   }
 
-  private void checkDataIntegrity(OffHeapStoredObject data) {
+  void checkDataIntegrity(OffHeapStoredObject data) {
     if (this.validateMemoryWithFill) {
       data.validateFill();
     }
@@ -789,7 +902,15 @@ public class FreeListManager {
     }
   }
 
-  private void freeTiny(long addr, int cSize) {
+  /**
+   * Puts a free chunk that a defragmentation took off the free lists back on the shared free list
+   * for its size.
+   */
+  void returnFreeChunk(long addr) {
+    free(addr, false);
+  }
+
+  void freeTiny(long addr, int cSize) {
     basicFree(addr, getNearestTinyMultiple(cSize), this.tinyFreeLists);
   }
 
@@ -816,10 +937,18 @@ public class FreeListManager {
     return new OffHeapStoredObjectAddressStack();
   }
 
-  private void freeHuge(long addr, int cSize) {
+  void freeHuge(long addr, int cSize) {
     this.hugeChunkSet.add(new OffHeapStoredObject(addr)); // TODO make this a collection of longs
   }
 
+  /**
+   * Removes a free huge chunk and returns its address, or returns 0 if there are none.
+   */
+  long pollFreeHugeChunk() {
+    OffHeapStoredObject c = this.hugeChunkSet.pollFirst();
+    return c == null ? 0L : c.getAddress();
+  }
+
   List<MemoryBlock> getOrderedBlocks() {
     final List<MemoryBlock> value = new ArrayList<MemoryBlock>();
     addBlocksFromFragments(this.fragmentList, value); // unused fragments
@@ -33,7 +33,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * allocation will always try to find a chunk in a free list that is a close fit to the requested
  * size. If no close fits exist then it allocates the next slice from the front of one the original
  * large chunks. If we can not find enough free memory then all the existing free memory is
- * defragmented. If we still do not have enough to make the allocation an exception is thrown.
+ * defragmented. If we still do not have enough to make the allocation an exception is thrown. An
+ * optional {@link OffHeapDefragmenter} coalesces free memory in the background so that this is
+ * rarely needed.
  * 
  * @since Geode 1.0
  */
@@ -44,6 +46,13 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
   public static final String FREE_OFF_HEAP_MEMORY_PROPERTY =
       DistributionConfig.GEMFIRE_PREFIX + "free-off-heap-memory";
 
+  /**
+   * Set this to "true" to manage off-heap memory with a {@link SizeClassFreeListManager}. It is
+   * read when the off-heap memory is created.
+   */
+  public static final String SIZE_CLASS_ALLOCATOR_PROPERTY =
+      DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_SIZE_CLASS_ALLOCATOR";
+
   private volatile OffHeapMemoryStats stats;
 
   private volatile OutOfOffHeapMemoryListener ooohml;
@@ -56,6 +65,11 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
 
   private MemoryInspector memoryInspector;
 
+  /**
+   * Null unless {@link OffHeapDefragmenter#INTERVAL_MS} is set.
+   */
+  private final OffHeapDefragmenter defragmenter;
+
   private volatile MemoryUsageListener[] memoryUsageListeners = new MemoryUsageListener[0];
 
   private static MemoryAllocatorImpl singleton = null;
@@ -204,11 +218,23 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
     this.stats.setFragments(slabs.length);
     this.stats.setLargestFragment(slabs[0].getSize());
 
-    this.freeList = new FreeListManager(this, slabs);
+    if (Boolean.getBoolean(SIZE_CLASS_ALLOCATOR_PROPERTY)) {
+      this.freeList = new SizeClassFreeListManager(this, slabs);
+    } else {
+      this.freeList = new FreeListManager(this, slabs);
+    }
     this.memoryInspector = new MemoryInspectorImpl(this.freeList);
 
     this.stats.incMaxMemory(this.freeList.getTotalMemory());
     this.stats.incFreeMemory(this.freeList.getTotalMemory());
+
+    if (OffHeapDefragmenter.INTERVAL_MS > 0) {
+      this.defragmenter = new OffHeapDefragmenter(this.freeList, OffHeapDefragmenter.INTERVAL_MS,
+          OffHeapDefragmenter.BATCH_SIZE);
+      this.defragmenter.start();
+    } else {
+      this.defragmenter = null;
+    }
   }
 
   public List<OffHeapStoredObject> getLostChunks() {
@@ -374,6 +400,9 @@ public class MemoryAllocatorImpl implements MemoryAllocator {
   private void realClose() {
     // Removing this memory immediately can lead to a SEGV. See 47885.
     if (setClosed()) {
+      if (this.defragmenter != null) {
+        this.defragmenter.stop();
+      }
       this.freeList.freeSlabs();
       this.stats.close();
       singleton = null;
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import org.apache.logging.log4j.Logger;
+
+import org.apache.geode.SystemFailure;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.internal.logging.LogService;
+import org.apache.geode.internal.logging.LoggingThreadGroup;
+
+/**
+ * A background thread that keeps coalescing free off-heap memory while allocations continue, so
+ * that allocations rarely have to wait for a full defragmentation. Each pass takes a bounded batch
+ * of chunks off the free lists; see {@link FreeListManager#defragmentIncrementally(int)}.
+ *
+ * @since Geode 1.1
+ */
+public class OffHeapDefragmenter implements Runnable {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * Milliseconds between incremental defragmentation passes. Zero, the default, disables the
+   * defragmenter.
+   */
+  public static final long INTERVAL_MS = Long
+      .getLong(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_DEFRAGMENTER_INTERVAL_MS", 0L)
+      .longValue();
+
+  /**
+   * The most free chunks one pass takes off the free lists.
+   */
+  public static final int BATCH_SIZE = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_DEFRAGMENTER_BATCH_SIZE", 4096)
+      .intValue();
+
+  private final FreeListManager freeList;
+  private final long intervalMs;
+  private final int batchSize;
+  private final Thread thread;
+  private volatile boolean stopRequested;
+
+  OffHeapDefragmenter(FreeListManager freeList, long intervalMs, int batchSize) {
+    this.freeList = freeList;
+    this.intervalMs = intervalMs;
+    this.batchSize = batchSize;
+    ThreadGroup group = LoggingThreadGroup.createThreadGroup("OffHeapDefragmenter Threads", logger);
+    this.thread = new Thread(group, this, "OffHeapDefragmenter");
+    this.thread.setDaemon(true);
+  }
+
+  void start() {
+    this.thread.start();
+  }
+
+  /**
+   * Stops the defragmenter and waits for a pass in progress to finish. Must be called before the
+   * slabs are freed.
+   */
+  void stop() {
+    this.stopRequested = true;
+    this.thread.interrupt();
+    boolean interrupted = false;
+    while (this.thread.isAlive()) {
+      try {
+        this.thread.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void run() {
+    while (!this.stopRequested) {
+      try {
+        Thread.sleep(this.intervalMs);
+      } catch (InterruptedException e) {
+        // stop has been called
+        continue;
+      }
+      try {
+        this.freeList.defragmentIncrementally(this.batchSize);
+      } catch (VirtualMachineError err) {
+        SystemFailure.initiateFailure(err);
+        // If this ever returns, rethrow the error. We're poisoned
+        // now, so don't let this thread continue.
+        throw err;
+      } catch (Throwable t) {
+        // Whenever you catch Error or Throwable, you must also
+        // catch VirtualMachineError (see above). However, there is
+        // _still_ a possibility that you are dealing with a cascading
+        // error condition, so you also need to check to see if the JVM
+        // is still usable:
+        SystemFailure.checkFailure();
+        logger.warn("Incremental off-heap defragmentation failed", t);
+      }
+    }
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import org.apache.geode.internal.cache.OffHeapKeyRegionEntry;
+import org.apache.geode.internal.offheap.annotations.Released;
+import org.apache.geode.internal.offheap.annotations.Retained;
+
+/**
+ * The class is used to keep the keys of off-heap region entries in off-heap memory. Only string
+ * keys too long to be inlined in the entry are stored this way. The first data byte of a key's
+ * off-heap memory says how it is encoded. It is followed by one byte per char if every char is <=
+ * 0x7f, otherwise by two bytes per char.
+ * <p>
+ * Keys are compared in place by {@link #isStringKeyEqual}, which is how the region map finds an
+ * entry, so lookups do not copy the key to the heap. Only {@link #getStringKey} creates a String.
+ * <p>
+ * An entry frees its key's memory once it has been removed from its map or released, but other
+ * threads may still be reading the entry. So readers copy or compare the key and then check that
+ * the entry still has the same key address. If it does not the memory may have been freed while
+ * they read it, and the entry no longer has a key. Readers never write to a key's memory.
+ *
+ * @since Geode 1.1
+ */
+public class OffHeapKeyHelper {
+
+  private static final byte CHAR_ENCODED = 0;
+  private static final byte BYTE_ENCODED = 1;
+
+  private OffHeapKeyHelper() {
+    // no instances allowed
+  }
+
+  /**
+   * Copies the given key into newly allocated off-heap memory and returns its address.
+   *
+   * @param byteEncode true if every char of key is <= 0x7f
+   */
+  @Retained
+  public static long allocateStringKey(String key, boolean byteEncode) {
+    final int len = key.length();
+    final int dataSize = 1 + (byteEncode ? len : len * 2);
+    final long addr = MemoryAllocatorImpl.getAllocator().allocate(dataSize).getAddress();
+    long dataAddr = addr + OffHeapStoredObject.HEADER_SIZE;
+    if (byteEncode) {
+      AddressableMemoryManager.writeByte(dataAddr++, BYTE_ENCODED);
+      for (int i = 0; i < len; i++) {
+        AddressableMemoryManager.writeByte(dataAddr++, (byte) key.charAt(i));
+      }
+    } else {
+      AddressableMemoryManager.writeByte(dataAddr++, CHAR_ENCODED);
+      for (int i = 0; i < len; i++) {
+        char c = key.charAt(i);
+        AddressableMemoryManager.writeByte(dataAddr++, (byte) (c >> 8));
+        AddressableMemoryManager.writeByte(dataAddr++, (byte) c);
+      }
+    }
+    return addr;
+  }
+
+  /**
+   * Frees the memory of a key allocated by {@link #allocateStringKey}.
+   */
+  public static void releaseKey(@Released long addr) {
+    OffHeapStoredObject.release(addr);
+  }
+
+  /**
+   * Returns a heap copy of the given entry's key, or null if the entry's key has been freed.
+   */
+  public static String getStringKey(OffHeapKeyRegionEntry re) {
+    final long addr = re.getKeyAddress();
+    if (addr == 0L) {
+      return null;
+    }
+    final int dataSize = OffHeapStoredObject.getDataSize(addr);
+    if (!isStillKeyAddress(re, addr)) {
+      return null;
+    }
+    long dataAddr = addr + OffHeapStoredObject.HEADER_SIZE;
+    final char[] chars;
+    if (AddressableMemoryManager.readByte(dataAddr++) == BYTE_ENCODED) {
+      chars = new char[dataSize - 1];
+      for (int i = 0; i < chars.length; i++) {
+        chars[i] = (char) (AddressableMemoryManager.readByte(dataAddr++) & 0xff);
+      }
+    } else {
+      chars = new char[(dataSize - 1) / 2];
+      for (int i = 0; i < chars.length; i++) {
+        int hi = AddressableMemoryManager.readByte(dataAddr++) & 0xff;
+        int lo = AddressableMemoryManager.readByte(dataAddr++) & 0xff;
+        chars[i] = (char) ((hi << 8) | lo);
+      }
+    }
+    if (!isStillKeyAddress(re, addr)) {
+      return null;
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Returns true if the given entry's key equals k, or false if it does not or if the entry's key
+   * has been freed. The key is compared in place so no heap copy of it is made.
+   */
+  public static boolean isStringKeyEqual(OffHeapKeyRegionEntry re, String k) {
+    final long addr = re.getKeyAddress();
+    if (addr == 0L) {
+      return false;
+    }
+    final int dataSize = OffHeapStoredObject.getDataSize(addr);
+    if (!isStillKeyAddress(re, addr)) {
+      return false;
+    }
+    final boolean result = stringKeyEquals(addr + OffHeapStoredObject.HEADER_SIZE, dataSize, k);
+    return result && isStillKeyAddress(re, addr);
+  }
+
+  private static boolean stringKeyEquals(long dataAddr, int dataSize, String k) {
+    final int len = k.length();
+    if (AddressableMemoryManager.readByte(dataAddr++) == BYTE_ENCODED) {
+      if (dataSize - 1 != len) {
+        return false;
+      }
+      for (int i = 0; i < len; i++) {
+        if ((AddressableMemoryManager.readByte(dataAddr++) & 0xff) != k.charAt(i)) {
+          return false;
+        }
+      }
+    } else {
+      if (dataSize - 1 != len * 2) {
+        return false;
+      }
+      for (int i = 0; i < len; i++) {
+        int hi = AddressableMemoryManager.readByte(dataAddr++) & 0xff;
+        int lo = AddressableMemoryManager.readByte(dataAddr++) & 0xff;
+        if (((hi << 8) | lo) != k.charAt(i)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns true if the memory at addr was not freed before the reads that preceded this call.
+   * Memory is only freed after the entry's key address has been cleared.
+   */
+  private static boolean isStillKeyAddress(OffHeapKeyRegionEntry re, long addr) {
+    AddressableMemoryManager.loadFence();
+    return re.getKeyAddress() == addr;
+  }
+}
@@ -43,6 +43,10 @@ public interface OffHeapMemoryStats {
 
   public void setFragmentation(int value);
 
+  public long startIncrementalDefragmentation();
+
+  public void endIncrementalDefragmentation(long start, long bytesCoalesced);
+
   public long getFreeMemory();
 
   public long getMaxMemory();
@@ -65,6 +69,12 @@ public interface OffHeapMemoryStats {
 
   public long getDefragmentationTime();
 
+  public int getIncrementalDefragmentations();
+
+  public long getIncrementalDefragmentationTime();
+
+  public long getCoalescedBytes();
+
   public Statistics getStats();
 
   public void close();
@@ -56,6 +56,9 @@ public class OffHeapStorage implements OffHeapMemoryStats {
   private static final int defragmentationTimeId;
   private static final int fragmentationId;
   private static final int defragmentationsInProgressId;
+  private static final int incrementalDefragmentationsId;
+  private static final int incrementalDefragmentationTimeId;
+  private static final int coalescedBytesId;
   // NOTE!!!! When adding new stats make sure and update the initialize method on this class
 
   // creates and registers the statistics type
@@ -69,6 +72,12 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     final String defragmentationsInProgressDesc =
         "Current number of defragment operations currently in progress.";
     final String defragmentationTimeDesc = "The total time spent defragmenting off-heap memory.";
+    final String incrementalDefragmentationsDesc =
+        "The total number of times free off-heap memory has been coalesced incrementally while allocations continued.";
+    final String incrementalDefragmentationTimeDesc =
+        "The total time spent coalescing free off-heap memory incrementally.";
+    final String coalescedBytesDesc =
+        "The total number of bytes of free off-heap memory merged with adjacent free memory by incremental defragmentation.";
     final String fragmentationDesc =
         "The percentage of off-heap free memory that is fragmented.  Updated every time a defragmentation is performed.";
     final String fragmentsDesc =
@@ -87,6 +96,9 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     final String defragmentations = "defragmentations";
     final String defragmentationsInProgress = "defragmentationsInProgress";
     final String defragmentationTime = "defragmentationTime";
+    final String incrementalDefragmentations = "incrementalDefragmentations";
+    final String incrementalDefragmentationTime = "incrementalDefragmentationTime";
+    final String coalescedBytes = "coalescedBytes";
     final String fragmentation = "fragmentation";
     final String fragments = "fragments";
     final String freeMemory = "freeMemory";
@@ -101,6 +113,11 @@ public class OffHeapStorage implements OffHeapMemoryStats {
             f.createIntGauge(defragmentationsInProgress, defragmentationsInProgressDesc,
                 "operations"),
             f.createLongCounter(defragmentationTime, defragmentationTimeDesc, "nanoseconds", false),
+            f.createIntCounter(incrementalDefragmentations, incrementalDefragmentationsDesc,
+                "operations"),
+            f.createLongCounter(incrementalDefragmentationTime, incrementalDefragmentationTimeDesc,
+                "nanoseconds", false),
+            f.createLongCounter(coalescedBytes, coalescedBytesDesc, "bytes"),
             f.createIntGauge(fragmentation, fragmentationDesc, "percentage"),
             f.createLongGauge(fragments, fragmentsDesc, "fragments"),
             f.createLongGauge(freeMemory, freeMemoryDesc, "bytes"),
@@ -113,6 +130,9 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     defragmentationId = statsType.nameToId(defragmentations);
     defragmentationsInProgressId = statsType.nameToId(defragmentationsInProgress);
     defragmentationTimeId = statsType.nameToId(defragmentationTime);
+    incrementalDefragmentationsId = statsType.nameToId(incrementalDefragmentations);
+    incrementalDefragmentationTimeId = statsType.nameToId(incrementalDefragmentationTime);
+    coalescedBytesId = statsType.nameToId(coalescedBytes);
     fragmentationId = statsType.nameToId(fragmentation);
     fragmentsId = statsType.nameToId(fragments);
     freeMemoryId = statsType.nameToId(freeMemory);
@@ -360,6 +380,35 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     return stats.getLong(defragmentationTimeId);
   }
 
+  @Override
+  public long startIncrementalDefragmentation() {
+    return DistributionStats.getStatTime();
+  }
+
+  @Override
+  public void endIncrementalDefragmentation(long start, long bytesCoalesced) {
+    this.stats.incInt(incrementalDefragmentationsId, 1);
+    this.stats.incLong(coalescedBytesId, bytesCoalesced);
+    if (DistributionStats.enableClockStats) {
+      stats.incLong(incrementalDefragmentationTimeId, DistributionStats.getStatTime() - start);
+    }
+  }
+
+  @Override
+  public int getIncrementalDefragmentations() {
+    return this.stats.getInt(incrementalDefragmentationsId);
+  }
+
+  @Override
+  public long getIncrementalDefragmentationTime() {
+    return this.stats.getLong(incrementalDefragmentationTimeId);
+  }
+
+  @Override
+  public long getCoalescedBytes() {
+    return this.stats.getLong(coalescedBytesId);
+  }
+
   @Override
   public void setFragmentation(int value) {
     this.stats.setInt(fragmentationId, value);
@@ -392,6 +441,9 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     setLargestFragment(oldStats.getLargestFragment());
     setDefragmentationTime(oldStats.getDefragmentationTime());
     setFragmentation(oldStats.getFragmentation());
+    setIncrementalDefragmentations(oldStats.getIncrementalDefragmentations());
+    setIncrementalDefragmentationTime(oldStats.getIncrementalDefragmentationTime());
+    setCoalescedBytes(oldStats.getCoalescedBytes());
 
     oldStats.close();
   }
@@ -408,6 +460,18 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     this.stats.setInt(defragmentationsInProgressId, value);
   }
 
+  private void setIncrementalDefragmentations(int value) {
+    this.stats.setInt(incrementalDefragmentationsId, value);
+  }
+
+  private void setIncrementalDefragmentationTime(long value) {
+    this.stats.setLong(incrementalDefragmentationTimeId, value);
+  }
+
+  private void setCoalescedBytes(long value) {
+    this.stats.setLong(coalescedBytesId, value);
+  }
+
   private void setReads(long value) {
     this.stats.setLong(readsId, value);
   }
@@ -0,0 +1,289 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.geode.distributed.internal.DistributionConfig;
+
+/**
+ * A FreeListManager that keeps a cache of free tiny chunks for each thread and keeps free huge
+ * chunks in segregated size classes instead of a sorted set.
+ * <p>
+ * A thread frees small chunks into its own cache and allocates from it before trying the shared
+ * tiny free lists, so put/destroy churn on one thread does not touch shared state. Each cache holds
+ * at most {@link #THREAD_CACHE_DEPTH} chunks of each size up to {@link #THREAD_CACHE_MAX_SIZE}.
+ * Chunks in the caches are still counted as free memory and a defragmentation takes them back,
+ * including those of threads that have died.
+ * <p>
+ * Huge allocations are rounded up to a multiple of {@link #HUGE_CLASS_SPACING}. A free huge chunk
+ * is kept on the stack of the largest size class it can satisfy, which makes finding one a hash
+ * lookup and a poll instead of a search of a skip list.
+ *
+ * @since Geode 1.1
+ */
+public class SizeClassFreeListManager extends FreeListManager {
+
+  /**
+   * Chunks up to this size, including their header, are cached per thread.
+   */
+  public static final int THREAD_CACHE_MAX_SIZE = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_THREAD_CACHE_MAX_SIZE", 1024)
+      .intValue();
+
+  /**
+   * The most chunks of one size a thread cache holds.
+   */
+  public static final int THREAD_CACHE_DEPTH = Integer
+      .getInteger(DistributionConfig.GEMFIRE_PREFIX + "OFF_HEAP_THREAD_CACHE_DEPTH", 64)
+      .intValue();
+
+  /**
+   * The distance between huge size classes. A chunk's header can only record up to
+   * {@link FreeListManager#HUGE_MULTIPLE} unused bytes, so a chunk taken from the next larger class
+   * than the requested size must still be within that of it. Huge chunks smaller than this are
+   * only possible with a tiny OFF_HEAP_FREE_LIST_COUNT and are managed by the superclass.
+   */
+  static final int HUGE_CLASS_SPACING = 128;
+
+  private final int cachedListCount;
+
+  /**
+   * Maps a huge size class to the stack of free chunks at least that big but smaller than the next
+   * class.
+   */
+  private final ConcurrentHashMap<Integer, OffHeapStoredObjectAddressStack> hugeClassLists =
+      new ConcurrentHashMap<Integer, OffHeapStoredObjectAddressStack>();
+
+  private final ThreadLocal<ThreadCache> threadCache = new ThreadLocal<ThreadCache>() {
+    @Override
+    protected ThreadCache initialValue() {
+      ThreadCache result = new ThreadCache(Thread.currentThread(), cachedListCount);
+      threadCaches.add(result);
+      return result;
+    }
+  };
+
+  private final CopyOnWriteArrayList<ThreadCache> threadCaches =
+      new CopyOnWriteArrayList<ThreadCache>();
+
+  public SizeClassFreeListManager(MemoryAllocatorImpl ma, Slab[] slabs) {
+    super(ma, slabs);
+    this.cachedListCount = getNearestTinyMultiple(Math.min(THREAD_CACHE_MAX_SIZE, MAX_TINY)) + 1;
+  }
+
+  /**
+   * Returns the smallest huge size class that is >= size.
+   */
+  static int sizeClassCeiling(int size) {
+    long result =
+        ((size + (long) HUGE_CLASS_SPACING - 1) / HUGE_CLASS_SPACING) * HUGE_CLASS_SPACING;
+    return (int) Math.min(result, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns the largest huge size class that is <= size.
+   */
+  static int sizeClassFloor(int size) {
+    return (size / HUGE_CLASS_SPACING) * HUGE_CLASS_SPACING;
+  }
+
+  @Override
+  OffHeapStoredObject allocateTiny(int size, boolean useFragments) {
+    if (useFragments) {
+      int idx = getNearestTinyMultiple(size);
+      if (idx < this.cachedListCount) {
+        long addr = this.threadCache.get().poll(idx);
+        if (addr != 0L) {
+          OffHeapStoredObject result = new OffHeapStoredObject(addr);
+          checkDataIntegrity(result);
+          result.readyForAllocation();
+          return result;
+        }
+      }
+    }
+    return super.allocateTiny(size, useFragments);
+  }
+
+  @Override
+  void freeTiny(long addr, int cSize) {
+    int idx = getNearestTinyMultiple(cSize);
+    if (idx < this.cachedListCount && this.threadCache.get().offer(idx, addr)) {
+      return;
+    }
+    super.freeTiny(addr, cSize);
+  }
+
+  @Override
+  void returnFreeChunk(long addr) {
+    int cSize = OffHeapStoredObject.getSize(addr);
+    if (cSize <= MAX_TINY) {
+      // not into the cache of the defragmenting thread
+      super.freeTiny(addr, cSize);
+    } else {
+      freeHuge(addr, cSize);
+    }
+  }
+
+  @Override
+  OffHeapStoredObject allocateHuge(int size, boolean useFragments) {
+    int sizeClass = sizeClassCeiling(size);
+    OffHeapStoredObjectAddressStack clq = this.hugeClassLists.get(sizeClass);
+    if (clq != null) {
+      long addr = clq.poll();
+      if (addr != 0L) {
+        OffHeapStoredObject result = new OffHeapStoredObject(addr);
+        checkDataIntegrity(result);
+        result.readyForAllocation();
+        return result;
+      }
+    }
+    // huge chunks smaller than a size class are kept in the sorted set of the superclass
+    OffHeapStoredObject result = super.allocateHuge(size, false);
+    if (result != null || !useFragments) {
+      return result;
+    }
+    if (sizeClass > getLargestSlabSize()) {
+      // the size class would not fit in any slab but the requested size might
+      return super.allocateHuge(size, true);
+    }
+    return allocateFromFragments(sizeClass);
+  }
+
+  @Override
+  void freeHuge(long addr, int cSize) {
+    if (cSize < HUGE_CLASS_SPACING) {
+      super.freeHuge(addr, cSize);
+      return;
+    }
+    this.hugeClassLists
+        .computeIfAbsent(sizeClassFloor(cSize), k -> new OffHeapStoredObjectAddressStack())
+        .offer(addr);
+  }
+
+  @Override
+  long pollFreeHugeChunk() {
+    long result = super.pollFreeHugeChunk();
+    if (result != 0L) {
+      return result;
+    }
+    for (OffHeapStoredObjectAddressStack clq : this.hugeClassLists.values()) {
+      long addr = clq.poll();
+      if (addr != 0L) {
+        return addr;
+      }
+    }
+    return 0L;
+  }
+
+  @Override
+  void collectFreeChunks(List<LongStack> l) {
+    super.collectFreeChunks(l);
+    for (OffHeapStoredObjectAddressStack clq : this.hugeClassLists.values()) {
+      long head = clq.clear();
+      if (head != 0L) {
+        l.add(new OffHeapStoredObjectAddressStack(head));
+      }
+    }
+    OffHeapStoredObjectAddressStack cached = new OffHeapStoredObjectAddressStack();
+    for (ThreadCache cache : this.threadCaches) {
+      cache.drainTo(cached);
+      if (!cache.owner.isAlive()) {
+        this.threadCaches.remove(cache);
+      }
+    }
+    if (!cached.isEmpty()) {
+      l.add(cached);
+    }
+  }
+
+  @Override
+  long getFreeTinyMemory() {
+    long result = super.getFreeTinyMemory();
+    for (ThreadCache cache : this.threadCaches) {
+      result += cache.computeTotalSize();
+    }
+    return result;
+  }
+
+  @Override
+  long getFreeHugeMemory() {
+    long result = super.getFreeHugeMemory();
+    for (OffHeapStoredObjectAddressStack clq : this.hugeClassLists.values()) {
+      result += clq.computeTotalSize();
+    }
+    return result;
+  }
+
+  /**
+   * The free chunks cached by one thread. Only the owning thread adds and removes chunks except
+   * during a defragmentation, so the sync is almost never contended.
+   */
+  private static class ThreadCache {
+    private final Thread owner;
+    private final long[][] chunks;
+    private final int[] counts;
+
+    ThreadCache(Thread owner, int listCount) {
+      this.owner = owner;
+      this.chunks = new long[listCount][];
+      this.counts = new int[listCount];
+    }
+
+    synchronized long poll(int idx) {
+      int count = this.counts[idx];
+      if (count == 0) {
+        return 0L;
+      }
+      count--;
+      this.counts[idx] = count;
+      return this.chunks[idx][count];
+    }
+
+    synchronized boolean offer(int idx, long addr) {
+      int count = this.counts[idx];
+      if (count == THREAD_CACHE_DEPTH) {
+        return false;
+      }
+      if (this.chunks[idx] == null) {
+        this.chunks[idx] = new long[THREAD_CACHE_DEPTH];
+      }
+      this.chunks[idx][count] = addr;
+      this.counts[idx] = count + 1;
+      return true;
+    }
+
+    synchronized void drainTo(OffHeapStoredObjectAddressStack stack) {
+      for (int i = 0; i < this.counts.length; i++) {
+        for (int j = 0; j < this.counts[i]; j++) {
+          stack.offer(this.chunks[i][j]);
+        }
+        this.counts[i] = 0;
+      }
+    }
+
+    synchronized long computeTotalSize() {
+      long result = 0;
+      for (int i = 0; i < this.counts.length; i++) {
+        for (int j = 0; j < this.counts[i]; j++) {
+          result += OffHeapStoredObject.getSize(this.chunks[i][j]);
+        }
+      }
+      return result;
+    }
+  }
+}
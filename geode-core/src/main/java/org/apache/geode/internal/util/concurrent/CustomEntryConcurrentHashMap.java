@@ -62,6 +62,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.geode.CancelException;
 import org.apache.geode.distributed.internal.InternalDistributedSystem;
 import org.apache.geode.internal.cache.wan.GatewaySenderEventImpl;
+import org.apache.geode.internal.cache.OffHeapKeyRegionEntry;
 import org.apache.geode.internal.cache.OffHeapRegionEntry;
 import org.apache.geode.internal.cache.RegionEntry;
 import org.apache.geode.internal.offheap.OffHeapRegionEntryHelper;
@@ -219,7 +220,26 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V>
    * bits.
    */
   public static final int keyHash(final Object o, final boolean compareValues) {
-    int h = compareValues ? o.hashCode() : System.identityHashCode(o);
+    return spreadHash(compareValues ? o.hashCode() : System.identityHashCode(o));
+  }
+
+  /**
+   * Returns the same hash as {@link #keyHash(Object, boolean)} would for a Long key with the given
+   * value and value comparison, without boxing it.
+   */
+  public static final int longKeyHash(final long key) {
+    return spreadHash((int) (key ^ (key >>> 32)));
+  }
+
+  /**
+   * Returns the same hash as {@link #keyHash(Object, boolean)} would for an Integer key with the
+   * given value and value comparison, without boxing it.
+   */
+  public static final int intKeyHash(final int key) {
+    return spreadHash(key);
+  }
+
+  private static int spreadHash(int h) {
     // Spread bits to regularize both segment and index locations,
     // using variant of single-word Wang/Jenkins hash.
     h += (h << 15) ^ 0xffffcd7d;
@@ -296,6 +316,30 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V>
     void setNextEntry(HashEntry<K, V> n);
   }
 
+  /**
+   * Implemented by {@link HashEntry}s that store an Integer key as an int so that
+   * {@link CustomEntryConcurrentHashMap#getForIntKey(int)} can compare keys without boxing.
+   */
+  public static interface IntKeyHashEntry {
+
+    /**
+     * Return true if the entry's key is an Integer equal to k.
+     */
+    boolean isIntKeyEqual(int k);
+  }
+
+  /**
+   * Implemented by {@link HashEntry}s that store a Long key as a long so that
+   * {@link CustomEntryConcurrentHashMap#getForLongKey(long)} can compare keys without boxing.
+   */
+  public static interface LongKeyHashEntry {
+
+    /**
+     * Return true if the entry's key is a Long equal to k.
+     */
+    boolean isLongKeyEqual(long k);
+  }
+
   /**
    * ConcurrentHashMap list entry. Note that this is never exported out as a user-visible Map.Entry.
    * 
@@ -582,6 +626,78 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V>
       return null;
     }
 
+    final V getForLongKey(final long key, final int hash) {
+      if (this.count != 0) { // read-volatile
+        final ReentrantReadWriteLock.ReadLock listLock = this.listUpdateLock.readLock();
+        listLock.lock();
+        boolean lockAcquired = true;
+        HashEntry<K, V> e = getFirst(hash);
+        try {
+          while (e != null) {
+            if (e.getEntryHash() == hash && isLongKeyEqual(key, e)) {
+              final V v = e.getMapValue();
+              if (v != null) {
+                return v;
+              }
+              listLock.unlock();
+              lockAcquired = false;
+              return readValueUnderLock(e); // recheck
+            }
+            e = e.getNextEntry();
+          }
+        } finally {
+          if (lockAcquired) {
+            listLock.unlock();
+          }
+        }
+      }
+      return null;
+    }
+
+    final V getForIntKey(final int key, final int hash) {
+      if (this.count != 0) { // read-volatile
+        final ReentrantReadWriteLock.ReadLock listLock = this.listUpdateLock.readLock();
+        listLock.lock();
+        boolean lockAcquired = true;
+        HashEntry<K, V> e = getFirst(hash);
+        try {
+          while (e != null) {
+            if (e.getEntryHash() == hash && isIntKeyEqual(key, e)) {
+              final V v = e.getMapValue();
+              if (v != null) {
+                return v;
+              }
+              listLock.unlock();
+              lockAcquired = false;
+              return readValueUnderLock(e); // recheck
+            }
+            e = e.getNextEntry();
+          }
+        } finally {
+          if (lockAcquired) {
+            listLock.unlock();
+          }
+        }
+      }
+      return null;
+    }
+
+    private static boolean isLongKeyEqual(final long key, final HashEntry<?, ?> e) {
+      if (e instanceof LongKeyHashEntry) {
+        return ((LongKeyHashEntry) e).isLongKeyEqual(key);
+      }
+      final Object k = e.getKey();
+      return k instanceof Long && ((Long) k).longValue() == key;
+    }
+
+    private static boolean isIntKeyEqual(final int key, final HashEntry<?, ?> e) {
+      if (e instanceof IntKeyHashEntry) {
+        return ((IntKeyHashEntry) e).isIntKeyEqual(key);
+      }
+      final Object k = e.getKey();
+      return k instanceof Integer && ((Integer) k).intValue() == key;
+    }
+
     final V getNoLock(final Object key, final int hash, final boolean lockListForRead) {
       if (this.count != 0) { // read-volatile
         // GemStone change to acquire the read lock on list updates
@@ -985,6 +1101,10 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V>
             } finally {
               listWriteLock.unlock();
             }
+            if (e instanceof OffHeapKeyRegionEntry) {
+              // the key is only needed to find the entry in this map
+              ((OffHeapKeyRegionEntry) e).releaseKey();
+            }
             /*
              * (original code) HashEntry<K, V> newFirst = e.next; for (HashEntry<K, V> p = first; p
              * != e; p = p.next) { newFirst = this.entryCreator.newEntry(p.key, p.hash, newFirst,
@@ -1388,6 +1508,36 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V>
     return segmentFor(hash).get(key, hash);
   }
 
+  /**
+   * Returns the value to which the Long key with the given value is mapped, or {@code null} if this
+   * map contains no mapping for it. Unlike {@code get(Long.valueOf(key))} this does not allocate
+   * when the key's entry implements {@link LongKeyHashEntry}. The map's {@link HashEntryCreator}
+   * must hash keys with {@link #keyHash(Object, boolean)}, as the default one and the region entry
+   * creator do.
+   */
+  public final V getForLongKey(final long key) {
+    if (!this.compareValues) {
+      return get(Long.valueOf(key));
+    }
+    final int hash = longKeyHash(key);
+    return segmentFor(hash).getForLongKey(key, hash);
+  }
+
+  /**
+   * Returns the value to which the Integer key with the given value is mapped, or {@code null} if
+   * this map contains no mapping for it. Unlike {@code get(Integer.valueOf(key))} this does not
+   * allocate when the key's entry implements {@link IntKeyHashEntry}. The map's
+   * {@link HashEntryCreator} must hash keys with {@link #keyHash(Object, boolean)}, as the default
+   * one and the region entry creator do.
+   */
+  public final V getForIntKey(final int key) {
+    if (!this.compareValues) {
+      return get(Integer.valueOf(key));
+    }
+    final int hash = intKeyHash(key);
+    return segmentFor(hash).getForIntKey(key, hash);
+  }
+
   /**
    * Tests if the specified object is a key in this table.
    * 
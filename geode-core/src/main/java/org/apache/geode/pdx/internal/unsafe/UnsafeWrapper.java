@@ -195,4 +195,8 @@ public class UnsafeWrapper {
   public void setMemory(long addr, long size, byte v) {
     this.unsafe.setMemory(addr, size, v);
   }
+
+  public void loadFence() {
+    this.unsafe.loadFence();
+  }
 }
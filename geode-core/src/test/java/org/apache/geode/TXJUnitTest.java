@@ -6603,8 +6603,8 @@ public class TXJUnitTest {
       assertEquals(3, index0.getStatistics().getNumberOfKeys());
       assertEquals(3, index0.getStatistics().getNumberOfValues());
       aIregion.put("qkey2", val2);
-      final IndexManager.IndexUpdaterThread upThread =
-          ((AbstractRegion) aIregion).getIndexManager().getUpdaterThread();
+      final IndexManager.AsyncIndexUpdater upThread =
+          ((AbstractRegion) aIregion).getIndexManager().getAsyncIndexUpdater();
       while (!upThread.isDone()) {
         pause(20);
       }
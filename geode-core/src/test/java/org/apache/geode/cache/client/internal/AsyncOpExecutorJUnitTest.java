@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.CancelCriterion;
+import org.apache.geode.CancelException;
+import org.apache.geode.distributed.PoolCancelledException;
+import org.apache.geode.internal.cache.PoolStats;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category({UnitTest.class, ClientServerTest.class})
+public class AsyncOpExecutorJUnitTest {
+
+  private volatile boolean cancelled;
+  private PoolStats stats;
+  private AsyncOpExecutor executor;
+
+  @Before
+  public void setUp() {
+    stats = mock(PoolStats.class);
+    executor = new AsyncOpExecutor("test", 2, 2, new CancelCriterion() {
+      @Override
+      public String cancelInProgress() {
+        return cancelled ? "cancelled" : null;
+      }
+
+      @Override
+      public RuntimeException generateCancelledException(Throwable e) {
+        return cancelled ? new PoolCancelledException("cancelled", e) : null;
+      }
+    }, stats);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdown(1000);
+  }
+
+  @Test
+  public void futureCompletesWithResult() throws Exception {
+    CompletableFuture<String> future = executor.submit(new Callable<String>() {
+      public String call() {
+        return "value";
+      }
+    });
+    assertEquals("value", future.get(10, TimeUnit.SECONDS));
+    verify(stats, timeout(10000)).endAsyncOp(anyLong(), eq(false));
+  }
+
+  @Test
+  public void futureCompletesExceptionallyWithTaskException() throws Exception {
+    final IllegalStateException failure = new IllegalStateException("expected");
+    CompletableFuture<Object> future = executor.submit(new Callable<Object>() {
+      public Object call() {
+        throw failure;
+      }
+    });
+    try {
+      future.get(10, TimeUnit.SECONDS);
+      fail("expected ExecutionException");
+    } catch (ExecutionException e) {
+      assertSame(failure, e.getCause());
+    }
+    verify(stats, timeout(10000)).endAsyncOp(anyLong(), eq(true));
+  }
+
+  @Test
+  public void submitFailsWhenMaxInFlightReached() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    Callable<Object> blocker = new Callable<Object>() {
+      public Object call() throws Exception {
+        release.await();
+        return null;
+      }
+    };
+    CompletableFuture<Object> first = executor.submit(blocker);
+    CompletableFuture<Object> second = executor.submit(blocker);
+    assertEquals(2, executor.getInFlightCount());
+
+    final AtomicBoolean called = new AtomicBoolean();
+    CompletableFuture<Object> third = executor.submit(new Callable<Object>() {
+      public Object call() {
+        called.set(true);
+        return "third";
+      }
+    });
+    assertTrue(third.isCompletedExceptionally());
+    try {
+      third.get();
+      fail("expected ExecutionException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+    assertEquals(2, executor.getInFlightCount());
+
+    release.countDown();
+    first.get(10, TimeUnit.SECONDS);
+    second.get(10, TimeUnit.SECONDS);
+    // the slots are released before the ops are counted as ended
+    verify(stats, timeout(10000).times(2)).endAsyncOp(anyLong(), eq(false));
+    assertFalse(called.get());
+    verify(stats, times(2)).startAsyncOp();
+
+    CompletableFuture<Object> fourth = executor.submit(new Callable<Object>() {
+      public Object call() {
+        return "fourth";
+      }
+    });
+    assertEquals("fourth", fourth.get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void submitAfterCancelThrowsCancelException() {
+    cancelled = true;
+    try {
+      executor.submit(new Callable<Object>() {
+        public Object call() {
+          return null;
+        }
+      });
+      fail("expected CancelException");
+    } catch (CancelException expected) {
+      // expected
+    }
+    verify(stats, never()).startAsyncOp();
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.client.PoolManager;
+import org.apache.geode.cache.server.CacheServer;
+import org.apache.geode.distributed.internal.ServerLocation;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Negotiates pipelining in the handshake with a real cache server and sends pipelined gets to it.
+ */
+@Category({IntegrationTest.class, ClientServerTest.class})
+public class PipelinedConnectionIntegrationTest {
+
+  private static final int NUM_KEYS = 20;
+
+  private Cache cache;
+  private Region<String, String> region;
+  private PoolImpl pool;
+  private ServerLocation server;
+
+  @Before
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    cache = new CacheFactory(props).create();
+    region = cache.<String, String>createRegionFactory(RegionShortcut.REPLICATE).create("region");
+    for (int i = 0; i < NUM_KEYS; i++) {
+      region.put("key" + i, "value" + i);
+    }
+    CacheServer cacheServer = cache.addCacheServer();
+    cacheServer.setPort(0);
+    cacheServer.start();
+    pool = (PoolImpl) PoolManager.createFactory().addServer("localhost", cacheServer.getPort())
+        .create("pool");
+    server = new ServerLocation("localhost", cacheServer.getPort());
+  }
+
+  @After
+  public void tearDown() {
+    if (cache != null && !cache.isClosed()) {
+      cache.close();
+    }
+  }
+
+  @Test
+  public void serverAcceptsPipeliningWhenAskedInTheHandshake() throws Exception {
+    ConnectionImpl cnx = pool.getConnectionFactory().createPipelinedConnection(server);
+    try {
+      assertTrue(cnx.getHandShake().isPipelined());
+    } finally {
+      cnx.destroy();
+    }
+  }
+
+  @Test
+  public void ordinaryConnectionIsNotPipelined() throws Exception {
+    ConnectionImpl cnx =
+        (ConnectionImpl) pool.getConnectionFactory().createClientToServerConnection(server, false);
+    try {
+      assertFalse(cnx.getHandShake().isPipelined());
+    } finally {
+      cnx.destroy();
+    }
+  }
+
+  @Test
+  public void getsArePipelinedOnTheNegotiatedConnection() throws Exception {
+    assertPipelinedGets(server, 1);
+  }
+
+  /**
+   * A server with a selector assembles the next request of a connection as soon as it is registered
+   * with the selector again, which happens while back to back requests are still arriving.
+   */
+  @Test
+  public void backToBackRequestsToAServerWithASelector() throws Exception {
+    CacheServer cacheServer = cache.addCacheServer();
+    cacheServer.setPort(0);
+    cacheServer.setMaxThreads(2);
+    cacheServer.start();
+    assertPipelinedGets(new ServerLocation("localhost", cacheServer.getPort()), 50);
+  }
+
+  private void assertPipelinedGets(ServerLocation location, int rounds) throws Exception {
+    ConnectionImpl cnx = pool.getConnectionFactory().createPipelinedConnection(location);
+    PipelinedConnection connection =
+        new PipelinedConnection(cnx, NUM_KEYS, pool.getCancelCriterion());
+    connection.start();
+    try {
+      for (int round = 0; round < rounds; round++) {
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < NUM_KEYS; i++) {
+          futures.add(connection.execute(
+              new GetOp.GetOpImpl((LocalRegion) region, "key" + i, null, false, null)));
+        }
+        for (int i = 0; i < NUM_KEYS; i++) {
+          assertEquals("value" + i, futures.get(i).get(30, TimeUnit.SECONDS));
+        }
+      }
+      assertFalse(connection.isFailed());
+      assertEquals(0, connection.getOutstandingCount());
+    } finally {
+      connection.close();
+    }
+  }
+}
@@ -0,0 +1,326 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.CancelCriterion;
+import org.apache.geode.Statistics;
+import org.apache.geode.StatisticsFactory;
+import org.apache.geode.StatisticsType;
+import org.apache.geode.cache.client.ServerConnectivityException;
+import org.apache.geode.cache.client.ServerOperationException;
+import org.apache.geode.distributed.internal.ServerLocation;
+import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.PoolStats;
+import org.apache.geode.internal.cache.tier.MessageType;
+import org.apache.geode.internal.cache.tier.sockets.HandShake;
+import org.apache.geode.internal.cache.tier.sockets.Message;
+import org.apache.geode.internal.cache.tier.sockets.MessageStats;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+/**
+ * Runs a {@link PipelinedConnection} against a fake server on a loopback socket that answers the
+ * requests when, and in whatever order, each test tells it to.
+ */
+@Category({UnitTest.class, ClientServerTest.class})
+public class PipelinedConnectionJUnitTest {
+
+  private static final int BUFFER_SIZE = 32768;
+  private static final int DEPTH = 8;
+
+  private ServerSocket serverSocket;
+  private Socket clientSocket;
+  private Socket serverSide;
+  private MessageStats serverStats;
+  private ConnectionImpl cnx;
+  private PipelinedConnection connection;
+
+  @Before
+  public void setUp() throws Exception {
+    serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    clientSocket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+    serverSide = serverSocket.accept();
+    serverStats = mock(MessageStats.class);
+
+    HandShake handShake = mock(HandShake.class);
+    when(handShake.isPipelined()).thenReturn(true);
+    cnx = mock(ConnectionImpl.class);
+    when(cnx.getHandShake()).thenReturn(handShake);
+    when(cnx.getSocket()).thenReturn(clientSocket);
+    when(cnx.getInputStream()).thenReturn(clientSocket.getInputStream());
+    when(cnx.getOutputStream()).thenReturn(clientSocket.getOutputStream());
+    when(cnx.getCommBuffer()).thenReturn(ByteBuffer.allocate(BUFFER_SIZE));
+    StatisticsFactory statisticsFactory = mock(StatisticsFactory.class);
+    Statistics statistics = mock(Statistics.class);
+    when(statisticsFactory.createAtomicStatistics(any(StatisticsType.class), anyString()))
+        .thenReturn(statistics);
+    PoolStats poolStats = mock(PoolStats.class);
+    ConnectionStats stats = new ConnectionStats(statisticsFactory, "test", poolStats);
+    when(cnx.getStats()).thenReturn(stats);
+    when(cnx.getServer()).thenReturn(new ServerLocation("localhost", serverSocket.getLocalPort()));
+    doAnswer(invocation -> {
+      clientSocket.close();
+      return null;
+    }).when(cnx).destroy();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (connection != null) {
+      connection.close();
+    }
+    clientSocket.close();
+    serverSide.close();
+    serverSocket.close();
+  }
+
+  @Test
+  public void connectionWithoutPipeliningIsRejected() throws Exception {
+    when(cnx.getHandShake().isPipelined()).thenReturn(false);
+    try {
+      new PipelinedConnection(cnx, DEPTH, new TestCancelCriterion());
+      fail("expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+  }
+
+  @Test
+  public void responsesAreDispatchedByCorrelationId() throws Exception {
+    startConnection();
+    List<CompletableFuture<Object>> futures = new ArrayList<>();
+    for (int i = 0; i < DEPTH; i++) {
+      futures.add(connection.execute(new TestOp(i)));
+    }
+
+    int[] correlationIds = new int[DEPTH];
+    Set<Integer> distinctIds = new HashSet<>();
+    for (int i = 0; i < DEPTH; i++) {
+      Message request = readRequest();
+      assertEquals(i, request.getPart(0).getInt());
+      correlationIds[i] = request.getCorrelationId();
+      assertNotEquals(Message.NO_CORRELATION_ID, correlationIds[i]);
+      distinctIds.add(correlationIds[i]);
+    }
+    assertEquals(DEPTH, distinctIds.size());
+    assertEquals(DEPTH, connection.getOutstandingCount());
+
+    // answer them back to front so every response arrives out of order
+    for (int i = DEPTH - 1; i >= 0; i--) {
+      sendResponse(correlationIds[i], i * 10);
+    }
+    for (int i = 0; i < DEPTH; i++) {
+      assertEquals(i * 10, futures.get(i).get(10, TimeUnit.SECONDS));
+    }
+    assertEquals(0, connection.getOutstandingCount());
+    assertFalse(connection.isFailed());
+  }
+
+  @Test
+  public void droppedConnectionFailsEveryOutstandingOp() throws Exception {
+    startConnection();
+    List<CompletableFuture<Object>> futures = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      futures.add(connection.execute(new TestOp(i)));
+    }
+    // answer only the first before the server goes away
+    sendResponse(readRequest().getCorrelationId(), 0);
+    readRequest();
+    readRequest();
+    serverSide.close();
+
+    assertEquals(0, futures.get(0).get(10, TimeUnit.SECONDS));
+    for (int i = 1; i < 3; i++) {
+      assertFailsWith(futures.get(i), ServerConnectivityException.class);
+    }
+    assertTrue(connection.isFailed());
+    assertEquals(0, connection.getOutstandingCount());
+    verify(cnx).destroy();
+
+    try {
+      connection.execute(new TestOp(3));
+      fail("expected ServerConnectivityException");
+    } catch (ServerConnectivityException expected) {
+      // expected
+    }
+  }
+
+  @Test
+  public void errorResponseFailsOnlyItsOp() throws Exception {
+    startConnection();
+    CompletableFuture<Object> failed = connection.execute(new TestOp(1));
+    sendException(readRequest().getCorrelationId(), "expected");
+
+    Throwable cause = assertFailsWith(failed, ServerOperationException.class);
+    assertTrue(cause.getMessage(), cause.getMessage().endsWith("expected"));
+    assertFalse(connection.isFailed());
+
+    CompletableFuture<Object> next = connection.execute(new TestOp(2));
+    sendResponse(readRequest().getCorrelationId(), 20);
+    assertEquals(20, next.get(10, TimeUnit.SECONDS));
+    verify(cnx, never()).destroy();
+  }
+
+  @Test
+  public void readTimeoutFailsAnOutstandingOp() throws Exception {
+    clientSocket.setSoTimeout(200);
+    startConnection();
+    CompletableFuture<Object> future = connection.execute(new TestOp(1));
+    readRequest();
+
+    assertFailsWith(future, ServerConnectivityException.class);
+    assertTrue(connection.isFailed());
+    verify(cnx).destroy();
+  }
+
+  @Test
+  public void readTimeoutWhileIdleDoesNotFailTheConnection() throws Exception {
+    clientSocket.setSoTimeout(100);
+    startConnection();
+    Thread.sleep(500);
+    assertFalse(connection.isFailed());
+
+    CompletableFuture<Object> future = connection.execute(new TestOp(1));
+    sendResponse(readRequest().getCorrelationId(), 10);
+    assertEquals(10, future.get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void responseWithUnknownCorrelationIdFailsTheConnection() throws Exception {
+    startConnection();
+    CompletableFuture<Object> future = connection.execute(new TestOp(1));
+    int correlationId = readRequest().getCorrelationId();
+    sendResponse(correlationId + 1, 10);
+
+    assertFailsWith(future, ServerConnectivityException.class);
+    assertTrue(connection.isFailed());
+  }
+
+  private void startConnection() throws Exception {
+    connection = new PipelinedConnection(cnx, DEPTH, new TestCancelCriterion());
+    connection.start();
+  }
+
+  private Message readRequest() throws IOException {
+    Message request = new Message(1, Version.CURRENT);
+    request.setComms(serverSide, serverSide.getInputStream(), serverSide.getOutputStream(),
+        ByteBuffer.allocate(BUFFER_SIZE), serverStats);
+    request.recv();
+    return request;
+  }
+
+  private void sendResponse(int correlationId, int value) throws IOException {
+    Message response = new Message(1, Version.CURRENT);
+    response.setMessageType(MessageType.RESPONSE);
+    response.addIntPart(value);
+    send(response, correlationId);
+  }
+
+  private void sendException(int correlationId, String message) throws IOException {
+    Message response = new Message(1, Version.CURRENT);
+    response.setMessageType(MessageType.EXCEPTION);
+    response.addStringPart(message);
+    send(response, correlationId);
+  }
+
+  private void send(Message response, int correlationId) throws IOException {
+    response.setCorrelationId(correlationId);
+    response.setComms(serverSide, serverSide.getInputStream(), serverSide.getOutputStream(),
+        ByteBuffer.allocate(BUFFER_SIZE), serverStats);
+    response.send();
+  }
+
+  private static Throwable assertFailsWith(CompletableFuture<Object> future,
+      Class<? extends Throwable> expected) throws Exception {
+    try {
+      future.get(10, TimeUnit.SECONDS);
+      fail("expected " + expected.getSimpleName());
+      return null;
+    } catch (ExecutionException e) {
+      assertTrue("unexpected " + e.getCause(), expected.isInstance(e.getCause()));
+      return e.getCause();
+    }
+  }
+
+  /**
+   * Sends an int and expects it back, or fails if the server replies with an exception.
+   */
+  private static class TestOp extends AbstractOp {
+
+    TestOp(int value) {
+      super(MessageType.PING, 1);
+      getMessage().addIntPart(value);
+    }
+
+    @Override
+    protected Object processResponse(Message msg) throws Exception {
+      if (msg.getMessageType() == MessageType.EXCEPTION) {
+        throw new ServerOperationException(msg.getPart(0).getString());
+      }
+      return msg.getPart(0).getInt();
+    }
+
+    @Override
+    protected boolean isErrorResponse(int msgType) {
+      return false;
+    }
+
+    @Override
+    protected long startAttempt(ConnectionStats stats) {
+      return 0;
+    }
+
+    @Override
+    protected void endSendAttempt(ConnectionStats stats, long start) {}
+
+    @Override
+    protected void endAttempt(ConnectionStats stats, long start) {}
+  }
+
+  private static class TestCancelCriterion extends CancelCriterion {
+
+    @Override
+    public String cancelInProgress() {
+      return null;
+    }
+
+    @Override
+    public RuntimeException generateCancelledException(Throwable e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.client.internal;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.CancelCriterion;
+import org.apache.geode.cache.client.ServerConnectivityException;
+import org.apache.geode.distributed.internal.ServerLocation;
+import org.apache.geode.internal.cache.PoolStats;
+import org.apache.geode.internal.cache.tier.sockets.HandShake;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+/**
+ * Checks that operations given to a {@link PipelinedOpExecutor} are executed by the pool in the
+ * ordinary way when no pipelined connection can be had.
+ */
+@Category({UnitTest.class, ClientServerTest.class})
+public class PipelinedOpExecutorJUnitTest {
+
+  private final ServerLocation server = new ServerLocation("localhost", 40404);
+
+  private CancelCriterion cancelCriterion;
+  private ConnectionSource source;
+  private AsyncOpExecutor asyncOpExecutor;
+  private PoolImpl pool;
+  private ConnectionFactoryImpl connectionFactory;
+  private PipelinedOpExecutor executor;
+
+  @Before
+  public void setUp() {
+    cancelCriterion = new CancelCriterion() {
+      @Override
+      public String cancelInProgress() {
+        return null;
+      }
+
+      @Override
+      public RuntimeException generateCancelledException(Throwable e) {
+        return null;
+      }
+    };
+    asyncOpExecutor = new AsyncOpExecutor("test", 1, 10, cancelCriterion, mock(PoolStats.class));
+
+    source = mock(ConnectionSource.class);
+    // the server is offered until the executor excludes it
+    when(source.findServer(anySet())).thenAnswer(invocation -> {
+      Set<?> excluded = (Set<?>) invocation.getArguments()[0];
+      return excluded.contains(server) ? null : server;
+    });
+    pool = mock(PoolImpl.class);
+    when(pool.getConnectionSource()).thenReturn(source);
+    when(pool.getAsyncOpExecutor()).thenReturn(asyncOpExecutor);
+    when(pool.execute(any(Op.class))).thenReturn("from pool");
+
+    ServerBlackList blackList = mock(ServerBlackList.class);
+    when(blackList.getBadServers()).thenReturn(Collections.emptySet());
+    connectionFactory = mock(ConnectionFactoryImpl.class);
+    when(connectionFactory.getBlackList()).thenReturn(blackList);
+
+    executor = new PipelinedOpExecutor(pool, connectionFactory, 8, cancelCriterion);
+  }
+
+  @After
+  public void tearDown() {
+    executor.close();
+    asyncOpExecutor.shutdown(1000);
+  }
+
+  @Test
+  public void serverThatRefusesPipeliningIsNotAskedAgain() throws Exception {
+    ConnectionImpl cnx = createConnection(false);
+    when(connectionFactory.createPipelinedConnection(server)).thenReturn(cnx);
+
+    assertEquals("from pool", execute());
+    verify(cnx).destroy();
+
+    assertEquals("from pool", execute());
+    verify(connectionFactory, times(1)).createPipelinedConnection(server);
+    verify(pool, times(2)).execute(any(Op.class));
+  }
+
+  @Test
+  public void serverThatRequiresCredentialsIsNotPipelined() throws Exception {
+    ConnectionImpl cnx = createConnection(true);
+    when(connectionFactory.createPipelinedConnection(server)).thenReturn(cnx);
+    server.setRequiresCredentials(true);
+
+    assertEquals("from pool", execute());
+    verify(cnx).destroy();
+    verify(pool).execute(any(Op.class));
+  }
+
+  @Test
+  public void failureToConnectFallsBackToThePool() throws Exception {
+    when(connectionFactory.createPipelinedConnection(server))
+        .thenThrow(new ServerConnectivityException("expected"));
+
+    assertEquals("from pool", execute());
+    verify(pool).execute(any(Op.class));
+  }
+
+  @Test
+  public void noServerFallsBackToThePool() throws Exception {
+    doReturn(null).when(source).findServer(anySet());
+
+    assertEquals("from pool", execute());
+    verify(connectionFactory, never()).createPipelinedConnection(any(ServerLocation.class));
+  }
+
+  private Object execute() throws Exception {
+    return executor.execute(new PingOp.PingOpImpl()).get(10, TimeUnit.SECONDS);
+  }
+
+  private ConnectionImpl createConnection(boolean pipelined) {
+    HandShake handShake = mock(HandShake.class);
+    when(handShake.isPipelined()).thenReturn(pipelined);
+    ConnectionImpl cnx = mock(ConnectionImpl.class);
+    when(cnx.getHandShake()).thenReturn(handShake);
+    when(cnx.getServer()).thenReturn(server);
+    return cnx;
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.EntryDestroyedException;
+import org.apache.geode.cache.query.NameNotFoundException;
+import org.apache.geode.cache.query.QueryInvocationTargetException;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class AttributeDescriptorJUnitTest {
+
+  @Test
+  public void readsGettersFieldsAndMethodsOfPublicClass() throws Exception {
+    Bean bean = new Bean(7);
+    assertThat(new AttributeDescriptor("id").read(bean)).isEqualTo(7);
+    assertThat(new AttributeDescriptor("name").read(bean)).isEqualTo("bean7");
+    assertThat(new AttributeDescriptor("active").read(bean)).isEqualTo(Boolean.TRUE);
+    assertThat(new AttributeDescriptor("field").read(bean)).isEqualTo(14L);
+    assertThat(new AttributeDescriptor("nothing").read(bean)).isNull();
+    assertThat(new AttributeDescriptor("constant").read(bean)).isEqualTo("constant");
+  }
+
+  @Test
+  public void readsPublicMembersOfNonPublicClass() throws Exception {
+    assertThat(new AttributeDescriptor("value").read(new Hidden())).isEqualTo("hidden");
+    assertThat(new AttributeDescriptor("id").read(new HiddenBean())).isEqualTo(3);
+  }
+
+  @Test
+  public void descriptorFollowsTheClassOfTheTarget() throws Exception {
+    AttributeDescriptor descriptor = new AttributeDescriptor("id");
+    assertThat(descriptor.read(new Bean(1))).isEqualTo(1);
+    assertThat(descriptor.read(new HiddenBean())).isEqualTo(3);
+    assertThat(descriptor.read(new Bean(2))).isEqualTo(2);
+    assertThat(descriptor.read(null)).isSameAs(QueryService.UNDEFINED);
+  }
+
+  @Test
+  public void exceptionsOfReadMethodAreWrapped() throws Exception {
+    Bean bean = new Bean(1);
+    assertThat(new AttributeDescriptor("destroyed").read(bean)).isSameAs(QueryService.UNDEFINED);
+    Throwable thrown = catchThrowable(() -> new AttributeDescriptor("failure").read(bean));
+    assertThat(thrown).isInstanceOf(QueryInvocationTargetException.class)
+        .hasCauseInstanceOf(IllegalStateException.class);
+    assertThat(catchThrowable(() -> new AttributeDescriptor("missing").read(bean)))
+        .isInstanceOf(NameNotFoundException.class);
+  }
+
+  @Test
+  public void methodDispatchConvertsArgumentsLikeReflection() throws Exception {
+    Bean bean = new Bean(5);
+    MethodDispatch plus =
+        new MethodDispatch(Bean.class, "plus", Arrays.asList(new Class[] {Integer.class}));
+    assertThat(plus.invoke(bean, Collections.singletonList(Integer.valueOf(3)))).isEqualTo(8L);
+
+    MethodDispatch join = new MethodDispatch(Bean.class, "join",
+        Arrays.asList(new Class[] {String.class, String[].class}));
+    assertThat(join.invoke(bean, Arrays.asList("-", new String[] {"a", "b"}))).isEqualTo("a-b");
+
+    MethodDispatch name = new MethodDispatch(Bean.class, "name", Collections.emptyList());
+    assertThat(name.invoke(bean, Collections.emptyList())).isEqualTo("bean5");
+
+    Throwable thrown = catchThrowable(() -> new MethodDispatch(Bean.class, "getFailure",
+        Collections.emptyList()).invoke(bean, Collections.emptyList()));
+    assertThat(thrown).isInstanceOf(QueryInvocationTargetException.class)
+        .hasCauseInstanceOf(IllegalStateException.class);
+  }
+
+  public static class Bean {
+    public final long field;
+    private final int id;
+
+    public Bean(int id) {
+      this.id = id;
+      this.field = id * 2L;
+    }
+
+    public int getId() {
+      return this.id;
+    }
+
+    public String name() {
+      return "bean" + this.id;
+    }
+
+    public boolean getActive() {
+      return true;
+    }
+
+    public void nothing() {}
+
+    public static String getConstant() {
+      return "constant";
+    }
+
+    public Object getDestroyed() {
+      throw new EntryDestroyedException();
+    }
+
+    public Object getFailure() {
+      throw new IllegalStateException();
+    }
+
+    public long plus(long other) {
+      return this.id + other;
+    }
+
+    public String join(String separator, String... parts) {
+      return String.join(separator, parts);
+    }
+  }
+
+  static class Hidden {
+    public String value = "hidden";
+  }
+
+  private static class HiddenBean {
+    public int getId() {
+      return 3;
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.internal.cache.GemFireCacheImpl;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class CompiledQueryCacheJUnitTest {
+
+  private QueryService queryService;
+  private CompiledQueryCache compiledQueries;
+
+  @Before
+  public void setUp() {
+    CacheUtils.startCache();
+    this.queryService = CacheUtils.getQueryService();
+    this.compiledQueries = ((GemFireCacheImpl) CacheUtils.getCache()).getCompiledQueryCache();
+    Region region = CacheUtils.createRegion("portfolios", Portfolio.class);
+    for (int i = 0; i < 100; i++) {
+      region.put(i, new Portfolio(i));
+    }
+  }
+
+  @After
+  public void tearDown() {
+    CacheUtils.closeCache();
+  }
+
+  @Test
+  public void normalizeIgnoresWhiteSpaceAndCommentsOutsideOfLiterals() {
+    assertThat(CompiledQueryCache.normalize("  select *\n\tfrom  /r -- all\nwhere  x = 1 "))
+        .isEqualTo("select * from /r where x = 1");
+    assertThat(CompiledQueryCache.normalize("select /* c */ * from /r where s = ' a  b '"))
+        .isEqualTo("select * from /r where s = ' a  b '");
+    assertThat(CompiledQueryCache.normalize("select * from /r where s = 'it''s  --  '"))
+        .isEqualTo("select * from /r where s = 'it''s  --  '");
+  }
+
+  @Test
+  public void queriesDifferingInWhiteSpaceShareTheCompiledQuery() throws Exception {
+    DefaultQuery q1 =
+        (DefaultQuery) this.queryService.newQuery("select * from /portfolios p where p.ID < $1");
+    DefaultQuery q2 = (DefaultQuery) this.queryService
+        .newQuery("select *  from /portfolios p\n where p.ID < $1");
+
+    assertThat(q2.getSimpleSelect()).isSameAs(q1.getSimpleSelect());
+    assertThat(q2.getQueryString()).isEqualTo("select *  from /portfolios p\n where p.ID < $1");
+    assertThat(((SelectResults) q1.execute(new Object[] {10})).size()).isEqualTo(10);
+    assertThat(((SelectResults) q2.execute(new Object[] {20})).size()).isEqualTo(20);
+  }
+
+  @Test
+  public void creatingOrRemovingAnIndexClearsTheCache() throws Exception {
+    String query = "select * from /portfolios p where p.ID = 5";
+    CompiledSelect select = ((DefaultQuery) this.queryService.newQuery(query)).getSimpleSelect();
+    assertThat(this.compiledQueries.size()).isEqualTo(1);
+
+    this.queryService.createIndex("idIndex", "p.ID", "/portfolios p");
+    assertThat(this.compiledQueries.size()).isZero();
+    DefaultQuery indexed = (DefaultQuery) this.queryService.newQuery(query);
+    assertThat(indexed.getSimpleSelect()).isNotSameAs(select);
+    assertThat(((SelectResults) indexed.execute()).size()).isEqualTo(1);
+
+    this.queryService.removeIndexes();
+    assertThat(this.compiledQueries.size()).isZero();
+  }
+
+  @Test
+  public void leastRecentlyUsedQueryIsDropped() {
+    CompiledQueryCache cache = new CompiledQueryCache(2);
+    String q1 = "select * from /portfolios where ID = 1";
+    String q2 = "select * from /portfolios where ID = 2";
+    cache.getCompiledQuery(q1, CacheUtils.getCache());
+    cache.getCompiledQuery(q2, CacheUtils.getCache());
+    cache.getCompiledQuery(q1, CacheUtils.getCache());
+    cache.getCompiledQuery("select * from /portfolios where ID = 3", CacheUtils.getCache());
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.getHits()).isEqualTo(1);
+    cache.getCompiledQuery(q1, CacheUtils.getCache());
+    assertThat(cache.getHits()).isEqualTo(2);
+    cache.getCompiledQuery(q2, CacheUtils.getCache());
+    assertThat(cache.getMisses()).isEqualTo(4);
+  }
+
+  @Test
+  public void sharedCountQueryCountsEachExecutionSeparately() throws Exception {
+    final String query = "select count(*) from /portfolios p where p.ID < $1";
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+      for (int t = 0; t < 4; t++) {
+        final int limit = 10 * (t + 1);
+        futures.add(executor.submit(new Callable<Boolean>() {
+          @Override
+          public Boolean call() throws Exception {
+            for (int i = 0; i < 200; i++) {
+              SelectResults sr = (SelectResults) queryService.newQuery(query)
+                  .execute(new Object[] {limit});
+              if (!sr.asList().get(0).equals(limit)) {
+                return false;
+              }
+            }
+            return true;
+          }
+        }));
+      }
+      for (Future<Boolean> future : futures) {
+        assertThat(future.get()).isTrue();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(this.compiledQueries.size()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class CompositeIndexFilterIntegrationTest {
+
+  private Region<Integer, Portfolio> region;
+
+  private ExecutionContext context;
+
+  private RuntimeIterator iterator;
+
+  @Before
+  public void setUp() throws Exception {
+    CacheUtils.startCache();
+    this.region = CacheUtils.createRegion("portfolios", Portfolio.class);
+    for (int i = 0; i < 100; i++) {
+      this.region.put(i, new Portfolio(i));
+    }
+    CacheUtils.getQueryService().createIndex("composite", "p.status, p.ID", "/portfolios p");
+
+    List fromClause = new QCompiler().compileFromClause("/portfolios p");
+    DefaultQuery query =
+        (DefaultQuery) CacheUtils.getQueryService().newQuery("select * from /portfolios p");
+    this.context = new QueryExecutionContext(null, CacheUtils.getCache(), query);
+    this.context.newScope(this.context.assosciateScopeID());
+    CompiledIteratorDef iterDef = (CompiledIteratorDef) fromClause.get(0);
+    this.context.addDependencies(new CompiledID("dummy"),
+        iterDef.computeDependencies(this.context));
+    this.iterator = iterDef.getRuntimeIterator(this.context);
+    this.context.bindIterator(this.iterator);
+    this.context.addToIndependentRuntimeItrMap(iterDef);
+  }
+
+  @After
+  public void tearDown() {
+    CacheUtils.closeCache();
+  }
+
+  @Test
+  public void auxFilterEvaluateIntersectsTheLookupWithTheIntermediateResults()
+      throws Exception {
+    // p.status = 'active' and p.ID < 50
+    CompiledValue[] operands = new CompiledValue[] {
+        new CompiledComparison(new CompiledPath(new CompiledID("p"), "status"),
+            new CompiledLiteral("active"), OQLLexerTokenTypes.TOK_EQ),
+        new CompiledComparison(new CompiledPath(new CompiledID("p"), "ID"),
+            new CompiledLiteral(50), OQLLexerTokenTypes.TOK_LT)};
+    CompiledJunction junction = new CompiledJunction(operands, OQLLexerTokenTypes.LITERAL_and);
+    this.context.addDependencies(new CompiledID("dummy"),
+        junction.computeDependencies(this.context));
+    CompositeIndexFilter filter =
+        CompositeIndexFilter.getCompositeIndexFilter(new Object(), operands, this.context);
+    assertThat(filter).isNotNull();
+
+    assertThat(getIds(filter.auxFilterEvaluate(this.context, null))).hasSize(25);
+
+    SelectResults intermediateResults =
+        QueryUtils.createResultCollection(this.context, this.iterator.getElementType());
+    for (int i = 0; i < 20; i++) {
+      intermediateResults.add(this.region.get(i));
+    }
+    Set<Integer> ids = getIds(filter.auxFilterEvaluate(this.context, intermediateResults));
+    assertThat(ids).containsOnly(0, 2, 4, 6, 8, 10, 12, 14, 16, 18);
+  }
+
+  private static Set<Integer> getIds(SelectResults results) {
+    Set<Integer> ids = new HashSet<Integer>();
+    for (Object result : results) {
+      ids.add(((Portfolio) result).ID);
+    }
+    return ids;
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Properties;
+
+import org.assertj.core.data.Offset;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.cache.query.internal.QueryExplanation.Step;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class CostBasedIndexSelectionIntegrationTest {
+
+  private static final int NUM_PORTFOLIOS = 2000;
+
+  private Cache cache;
+  private QueryService queryService;
+
+  @Before
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    this.cache = new CacheFactory(props).create();
+    Region<Integer, Portfolio> region =
+        this.cache.<Integer, Portfolio>createRegionFactory(RegionShortcut.REPLICATE)
+            .create("portfolios");
+    for (int i = 0; i < NUM_PORTFOLIOS; i++) {
+      region.put(i, new Portfolio(i));
+    }
+    this.queryService = this.cache.getQueryService();
+    this.queryService.createIndex("idIndex", "p.ID", "/portfolios p");
+    this.queryService.createIndex("statusIndex", "p.status", "/portfolios p");
+  }
+
+  @After
+  public void tearDown() {
+    if (this.cache != null && !this.cache.isClosed()) {
+      this.cache.close();
+    }
+  }
+
+  @Test
+  public void selectiveRangeIsEvaluatedWithTheIndex() throws Exception {
+    List<Step> steps = explain("select * from /portfolios p where p.ID < 100");
+    assertThat(steps).hasSize(1);
+    assertThat(steps.get(0).getDescription()).startsWith("Lookup of index idIndex");
+    assertThat(steps.get(0).getEstimatedRows()).isCloseTo(100, Offset.offset(10));
+    assertThat(steps.get(0).getActualRows()).isEqualTo(100);
+  }
+
+  @Test
+  public void regionIsScannedWhenTheRangeSelectsMostOfIt() throws Exception {
+    String queryString = "select * from /portfolios p where p.ID >= 100";
+    List<Step> steps = explain(queryString);
+    assertThat(steps).hasSize(1);
+    assertThat(steps.get(0).getDescription())
+        .startsWith("Scan of /portfolios, cheaper than a lookup of index idIndex");
+    assertThat(steps.get(0).getEstimatedRows()).isEqualTo(NUM_PORTFOLIOS);
+    assertThat(steps.get(0).getActualRows()).isEqualTo(NUM_PORTFOLIOS - 100);
+    SelectResults results = (SelectResults) this.queryService.newQuery(queryString).execute();
+    assertThat(results).hasSize(NUM_PORTFOLIOS - 100);
+  }
+
+  @Test
+  public void rangeWithFewerResultsIsPreferredToEquality() throws Exception {
+    String queryString = "select * from /portfolios p where p.status = 'active' and p.ID < 50";
+    List<Step> steps = explain(queryString);
+    assertThat(steps).hasSize(1);
+    assertThat(steps.get(0).getDescription()).startsWith("Lookup of index idIndex")
+        .endsWith("and evaluation of the other conditions on its results");
+    assertThat(steps.get(0).getEstimatedRows()).isCloseTo(50, Offset.offset(10));
+    assertThat(steps.get(0).getActualRows()).isEqualTo(25);
+  }
+
+  @Test
+  public void unselectiveIndexesAreIntersected() throws Exception {
+    String queryString = "select * from /portfolios p where p.status = 'active' and p.ID < 900";
+    List<Step> steps = explain(queryString);
+    assertThat(steps).hasSize(2);
+    assertThat(steps.get(0).getDescription()).startsWith("Lookup of index ");
+    assertThat(steps.get(0).getActualRows()).isEqualTo(900);
+    assertThat(steps.get(1).getDescription()).startsWith("Lookup of index ")
+        .endsWith("within the previous results");
+    assertThat(steps.get(0).getDescription()).isNotEqualTo(steps.get(1).getDescription());
+    assertThat(steps.get(1).getActualRows()).isEqualTo(450);
+    SelectResults results = (SelectResults) this.queryService.newQuery(queryString).execute();
+    assertThat(results).hasSize(450);
+  }
+
+  @Test
+  public void estimatesFollowUpdatesOfTheIndex() throws Exception {
+    explain("select * from /portfolios p where p.ID < 100");
+    Region<Integer, Portfolio> region = this.cache.getRegion("portfolios");
+    for (int i = 0; i < NUM_PORTFOLIOS / 2; i++) {
+      Portfolio portfolio = new Portfolio(i);
+      portfolio.ID = 0;
+      region.put(i, portfolio);
+    }
+    List<Step> steps = explain("select * from /portfolios p where p.ID > 0");
+    assertThat(steps.get(0).getDescription()).startsWith("Lookup of index idIndex");
+    assertThat(steps.get(0).getEstimatedRows()).isCloseTo(NUM_PORTFOLIOS / 2, Offset.offset(50));
+    assertThat(steps.get(0).getActualRows()).isEqualTo(NUM_PORTFOLIOS / 2);
+  }
+
+  private List<Step> explain(String queryString) throws Exception {
+    QueryExplanation explanation =
+        ((DefaultQuery) this.queryService.newQuery(queryString)).explain(new Object[0]);
+    assertThat(explanation.getQueryString()).isEqualTo(queryString);
+    return explanation.getSteps();
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.Struct;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.cache.query.data.Position;
+import org.apache.geode.cache.query.internal.QueryExplanation.Step;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class HashJoinIntegrationTest {
+
+  private static final int NUM_PORTFOLIOS = 100;
+
+  private static final int NUM_POSITIONS = 300;
+
+  private Cache cache;
+  private QueryService queryService;
+
+  @Before
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    this.cache = new CacheFactory(props).create();
+    Region<Integer, Portfolio> portfolios =
+        this.cache.<Integer, Portfolio>createRegionFactory(RegionShortcut.REPLICATE)
+            .create("portfolios");
+    for (int i = 0; i < NUM_PORTFOLIOS; i++) {
+      portfolios.put(i, new Portfolio(i));
+    }
+    Region<Integer, Position> positions =
+        this.cache.<Integer, Position>createRegionFactory(RegionShortcut.REPLICATE)
+            .create("positions");
+    for (int i = 0; i < NUM_POSITIONS; i++) {
+      Position position = new Position("SUN", i);
+      // two positions for each portfolio, and 100 positions of no portfolio
+      position.portfolioId = i % 150;
+      position.mktValue = position.portfolioId;
+      positions.put(i, position);
+    }
+    this.queryService = this.cache.getQueryService();
+  }
+
+  @After
+  public void tearDown() {
+    HashJoin.MAX_BUILD_SIZE = Integer.getInteger(
+        DistributionConfig.GEMFIRE_PREFIX + "Query.HASH_JOIN_MAX_BUILD_SIZE", 100000);
+    if (this.cache != null && !this.cache.isClosed()) {
+      this.cache.close();
+    }
+  }
+
+  @Test
+  public void equiJoinReturnsTheMatchingPairs() throws Exception {
+    String queryString = "select p.ID, pos.portfolioId from /portfolios p, /positions pos "
+        + "where p.ID = pos.portfolioId";
+    SelectResults results = execute(queryString);
+    assertThat(results).hasSize(2 * NUM_PORTFOLIOS);
+    for (Object result : results) {
+      Object[] values = ((Struct) result).getFieldValues();
+      assertThat(values[0]).isEqualTo(values[1]);
+    }
+    List<Step> steps = explain(queryString);
+    assertThat(steps).hasSize(1);
+    assertThat(steps.get(0).getDescription())
+        .isEqualTo("Hash join of /portfolios with /positions");
+    assertThat(steps.get(0).getActualRows()).isEqualTo(2 * NUM_PORTFOLIOS);
+  }
+
+  @Test
+  public void otherConditionsAreEvaluatedOnTheMatchingPairs() throws Exception {
+    SelectResults results = execute("select * from /portfolios p, /positions pos "
+        + "where pos.portfolioId = p.ID and p.status = 'active'");
+    assertThat(results).hasSize(NUM_PORTFOLIOS);
+    for (Object result : results) {
+      Portfolio portfolio = (Portfolio) ((Struct) result).get("p");
+      Position position = (Position) ((Struct) result).get("pos");
+      assertThat(portfolio.status).isEqualTo("active");
+      assertThat(position.portfolioId).isEqualTo(portfolio.ID);
+    }
+  }
+
+  @Test
+  public void keysOfDifferentNumericTypesAreJoined() throws Exception {
+    SelectResults results =
+        execute("select * from /portfolios p, /positions pos where p.ID = pos.mktValue");
+    assertThat(results).hasSize(2 * NUM_PORTFOLIOS);
+  }
+
+  @Test
+  public void nullKeysAreJoinedAsWhenIteratingInNestedLoops() throws Exception {
+    SelectResults results = execute("select * from /portfolios p, /portfolios q "
+        + "where p.description = q.description and p.ID < 10");
+    SelectResults nestedResults = execute("select * from /portfolios p, /portfolios q "
+        + "where (p.description = q.description or false) and p.ID < 10");
+    assertThat(explain("select * from /portfolios p, /portfolios q "
+        + "where (p.description = q.description or false) and p.ID < 10").get(0).getDescription())
+            .startsWith("Scan of");
+    assertThat(results).hasSize(nestedResults.size());
+    assertThat(results.asList()).containsOnlyElementsOf(nestedResults.asList());
+  }
+
+  @Test
+  public void joinStopsAtTheLimit() throws Exception {
+    SelectResults results = execute("select * from /portfolios p, /positions pos "
+        + "where p.ID = pos.portfolioId limit 10");
+    assertThat(results).hasSize(10);
+  }
+
+  @Test
+  public void largeCollectionsAreJoinedInSeveralPasses() throws Exception {
+    HashJoin.MAX_BUILD_SIZE = 7;
+    SelectResults results = execute("select * from /portfolios p, /positions pos "
+        + "where p.ID = pos.portfolioId and pos.portfolioId >= 50");
+    assertThat(results).hasSize(NUM_PORTFOLIOS);
+  }
+
+  private SelectResults execute(String queryString) throws Exception {
+    return (SelectResults) this.queryService.newQuery(queryString).execute();
+  }
+
+  private List<Step> explain(String queryString) throws Exception {
+    return ((DefaultQuery) this.queryService.newQuery(queryString)).explain(new Object[0])
+        .getSteps();
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.jayway.awaitility.Awaitility;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.client.Pool;
+import org.apache.geode.cache.client.PoolManager;
+import org.apache.geode.cache.query.QueryExecutionLowMemoryException;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.ResultsCursor;
+import org.apache.geode.cache.query.Struct;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.cache.server.CacheServer;
+import org.apache.geode.internal.AvailablePort;
+import org.apache.geode.internal.cache.GemFireCacheImpl;
+import org.apache.geode.internal.cache.tier.sockets.CacheClientNotifier;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category({IntegrationTest.class, ClientServerTest.class})
+public class QueryCursorIntegrationTest {
+
+  private Cache cache;
+  private Pool pool;
+  private QueryService queryService;
+
+  @Before
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    this.cache = new CacheFactory(props).create();
+    Region<Integer, Portfolio> region =
+        this.cache.<Integer, Portfolio>createRegionFactory(RegionShortcut.REPLICATE)
+            .create("portfolios");
+    for (int i = 0; i < 250; i++) {
+      region.put(i, new Portfolio(i));
+    }
+    int port = AvailablePort.getRandomAvailablePort(AvailablePort.SOCKET);
+    CacheServer server = this.cache.addCacheServer();
+    server.setPort(port);
+    server.start();
+    this.pool = PoolManager.createFactory().addServer("localhost", port).create("cursorPool");
+    this.queryService = this.pool.getQueryService();
+  }
+
+  @After
+  public void tearDown() {
+    QueryMonitor.setLowMemory(false, 0);
+    if (this.cache != null && !this.cache.isClosed()) {
+      this.cache.close();
+    }
+  }
+
+  @Test
+  public void allResultsAreReadInOrderAPageAtATime() throws Exception {
+    List<Object> ids = new ArrayList<Object>();
+    try (ResultsCursor cursor = this.queryService
+        .newQuery("select distinct p.ID from /portfolios p order by p.ID desc")
+        .executeStream(17)) {
+      while (cursor.hasNext()) {
+        ids.add(cursor.next());
+      }
+      assertThat(cursor.hasNext()).isFalse();
+    }
+    assertThat(ids).hasSize(250);
+    for (int i = 0; i < 250; i++) {
+      assertThat(ids.get(i)).isEqualTo(249 - i);
+    }
+  }
+
+  @Test
+  public void selectStarResultsAreDeserialized() throws Exception {
+    int count = 0;
+    try (ResultsCursor cursor = this.queryService
+        .newQuery("select * from /portfolios p where p.ID < $1").executeStream(7,
+            new Object[] {100})) {
+      while (cursor.hasNext()) {
+        assertThat(((Portfolio) cursor.next()).ID).isLessThan(100);
+        count++;
+      }
+    }
+    assertThat(count).isEqualTo(100);
+  }
+
+  @Test
+  public void structsAreRebuiltOnTheClient() throws Exception {
+    List<Object> statuses = new ArrayList<Object>();
+    try (ResultsCursor cursor = this.queryService
+        .newQuery("select distinct p.ID, p.status from /portfolios p where p.ID < 5 order by p.ID")
+        .executeStream(2)) {
+      while (cursor.hasNext()) {
+        Struct struct = (Struct) cursor.next();
+        assertThat(struct.get("ID")).isEqualTo(statuses.size());
+        statuses.add(struct.get("status"));
+      }
+    }
+    assertThat(statuses).containsExactly("active", "inactive", "active", "inactive", "active");
+  }
+
+  @Test
+  public void closedCursorReturnsNoMoreResults() throws Exception {
+    ResultsCursor cursor =
+        this.queryService.newQuery("select * from /portfolios p").executeStream(10);
+    for (int i = 0; i < 15; i++) {
+      assertThat(cursor.next()).isInstanceOf(Portfolio.class);
+    }
+    cursor.close();
+    assertThat(cursor.hasNext()).isFalse();
+    cursor.close();
+  }
+
+  @Test
+  public void resultOfANonSelectQueryIsTheOnlyElement() throws Exception {
+    try (ResultsCursor cursor = this.queryService
+        .newQuery("select count(*) from /portfolios p where p.ID >= 200").executeStream(5)) {
+      assertThat(cursor.next()).isEqualTo(50);
+      assertThat(cursor.hasNext()).isFalse();
+    }
+  }
+
+  @Test
+  public void cursorsOfADepartedClientAreRemoved() throws Exception {
+    ResultsCursor cursor =
+        this.queryService.newQuery("select * from /portfolios p").executeStream(10);
+    assertThat(cursor.next()).isInstanceOf(Portfolio.class);
+    assertThat(getQueryCursorCount()).isEqualTo(1);
+
+    this.pool.destroy();
+    Awaitility.await().atMost(30, TimeUnit.SECONDS)
+        .until(() -> assertThat(getQueryCursorCount()).isEqualTo(0));
+  }
+
+  @Test
+  public void laterPagesAreMonitoredLikeTheQueryExecution() throws Exception {
+    ((GemFireCacheImpl) this.cache).TEST_MAX_QUERY_EXECUTION_TIME = 60000;
+    try (ResultsCursor cursor =
+        this.queryService.newQuery("select * from /portfolios p").executeStream(10)) {
+      for (int i = 0; i < 20; i++) {
+        assertThat(cursor.next()).isInstanceOf(Portfolio.class);
+      }
+      QueryMonitor.setLowMemory(true, 1);
+      assertThatThrownBy(() -> cursor.hasNext())
+          .hasStackTraceContaining(QueryExecutionLowMemoryException.class.getName());
+      assertThat(getQueryCursorCount()).isEqualTo(0);
+    } finally {
+      ((GemFireCacheImpl) this.cache).TEST_MAX_QUERY_EXECUTION_TIME = -1;
+    }
+  }
+
+  private int getQueryCursorCount() {
+    return CacheClientNotifier.getInstance().getQueryCursorCount();
+  }
+}
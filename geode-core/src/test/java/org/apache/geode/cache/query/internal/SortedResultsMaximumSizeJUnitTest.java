@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.query.Struct;
+import org.apache.geode.cache.query.internal.types.ObjectTypeImpl;
+import org.apache.geode.cache.query.internal.types.StructTypeImpl;
+import org.apache.geode.cache.query.types.ObjectType;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class SortedResultsMaximumSizeJUnitTest {
+
+  private static final Comparator<Integer> ascending = new Comparator<Integer>() {
+    public int compare(Integer i1, Integer i2) {
+      return i1.compareTo(i2);
+    }
+  };
+
+  private final Random random = new Random(17);
+
+  private List<Integer> randomValues(int count, int bound) {
+    List<Integer> values = new ArrayList<Integer>();
+    for (int i = 0; i < count; i++) {
+      values.add(this.random.nextInt(bound));
+    }
+    return values;
+  }
+
+  @Test
+  public void bagKeepsTheFirstElementsWithDuplicates() {
+    List<Integer> values = randomValues(1000, 50);
+    SortedResultsBag<Integer> bag = new SortedResultsBag<Integer>(ascending, true);
+    bag.setMaximumSize(30);
+    for (Integer value : values) {
+      bag.addAndGetOccurence(value);
+    }
+    Collections.sort(values);
+    assertThat(bag.size()).isEqualTo(30);
+    assertThat(bag.asList()).isEqualTo(values.subList(0, 30));
+  }
+
+  @Test
+  public void bagDropsNullsThatSortLast() {
+    SortedResultsBag<Integer> bag = new SortedResultsBag<Integer>(ascending, false);
+    bag.setMaximumSize(3);
+    bag.add(null);
+    bag.add(5);
+    bag.add(null);
+    bag.add(7);
+    assertThat(bag.asList()).containsExactly(5, 7, null);
+    bag.add(1);
+    assertThat(bag.asList()).containsExactly(1, 5, 7);
+    bag.add(null);
+    assertThat(bag.asList()).containsExactly(1, 5, 7);
+  }
+
+  @Test
+  public void bagKeepsNullsThatSortFirst() {
+    SortedResultsBag<Integer> bag = new SortedResultsBag<Integer>(ascending, true);
+    bag.setMaximumSize(3);
+    bag.add(5);
+    bag.add(7);
+    bag.add(9);
+    bag.add(null);
+    assertThat(bag.asList()).containsExactly(null, 5, 7);
+    bag.add(null);
+    bag.add(null);
+    bag.add(1);
+    assertThat(bag.asList()).containsExactly(null, null, null);
+  }
+
+  @Test
+  public void setKeepsTheFirstDistinctElements() {
+    List<Integer> values = randomValues(1000, 500);
+    SortedResultSet set = new SortedResultSet(Collections.reverseOrder());
+    set.setElementType(new ObjectTypeImpl(Integer.class));
+    set.setMaximumSize(10);
+    set.addAll(values);
+    List<Integer> expected = new ArrayList<Integer>(new TreeSet<Integer>(values));
+    Collections.reverse(expected);
+    assertThat(set.asList()).isEqualTo(expected.subList(0, 10));
+  }
+
+  @Test
+  public void structSetKeepsTheFirstDistinctElements() {
+    StructTypeImpl type = new StructTypeImpl(new String[] {"id", "name"},
+        new ObjectType[] {new ObjectTypeImpl(Integer.class), new ObjectTypeImpl(String.class)});
+    SortedStructSet set = new SortedStructSet(new Comparator<Object[]>() {
+      public int compare(Object[] fields1, Object[] fields2) {
+        return ((Integer) fields1[0]).compareTo((Integer) fields2[0]);
+      }
+    }, type);
+    set.setMaximumSize(2);
+    for (int i = 10; i > 0; i--) {
+      set.addFieldValues(new Object[] {i, "name" + i});
+    }
+    set.addFieldValues(new Object[] {1, "name1"});
+    List<Integer> ids = new ArrayList<Integer>();
+    for (Object struct : set) {
+      ids.add((Integer) ((Struct) struct).get("id"));
+    }
+    assertThat(ids).containsExactly(1, 2);
+  }
+
+  @Test
+  public void unboundedBagKeepsEveryElement() {
+    List<Integer> values = randomValues(100, 10);
+    SortedResultsBag<Integer> bag = new SortedResultsBag<Integer>(ascending, true);
+    bag.addAll(values);
+    assertThat(bag.size()).isEqualTo(100);
+  }
+}
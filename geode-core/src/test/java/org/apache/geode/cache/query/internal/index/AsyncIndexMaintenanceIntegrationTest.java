@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.query.Index;
+import org.apache.geode.cache.query.Query;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.cache.query.internal.index.AbstractIndex.InternalIndexStatistics;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class AsyncIndexMaintenanceIntegrationTest {
+
+  private static final int NUM_PORTFOLIOS = 1000;
+
+  private Cache cache;
+  private QueryService queryService;
+
+  @Before
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    this.cache = new CacheFactory(props).create();
+    this.queryService = this.cache.getQueryService();
+  }
+
+  @After
+  public void tearDown() {
+    IndexManager.testHook = null;
+    if (this.cache != null && !this.cache.isClosed()) {
+      this.cache.close();
+    }
+  }
+
+  @Test
+  public void queryWaitsForTheIndexUpdates() throws Exception {
+    Region<Integer, Portfolio> region = createRegion(RegionShortcut.REPLICATE);
+    this.queryService.createIndex("idIndex", "p.ID", "/portfolios p");
+    for (int i = 0; i < NUM_PORTFOLIOS; i++) {
+      region.put(i, new Portfolio(i));
+    }
+    assertThat(executeAfterIndexUpdates("select * from /portfolios p where p.ID >= 0"))
+        .hasSize(NUM_PORTFOLIOS);
+    assertThat(((LocalRegion) region).getIndexManager().getAsyncIndexUpdater().isDone()).isTrue();
+  }
+
+  @Test
+  public void queryOnPartitionedRegionCannotWaitForTheIndexUpdates() throws Exception {
+    Region<Integer, Portfolio> region = createRegion(RegionShortcut.PARTITION);
+    this.queryService.createIndex("idIndex", "p.ID", "/portfolios p");
+    for (int i = 0; i < NUM_PORTFOLIOS; i++) {
+      region.put(i, new Portfolio(i));
+    }
+    assertThatThrownBy(() -> executeAfterIndexUpdates("select * from /portfolios p"))
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  public void repeatedUpdatesOfAnEntryAreCoalesced() throws Exception {
+    Region<Integer, Portfolio> region = createRegion(RegionShortcut.REPLICATE);
+    Index index = this.queryService.createIndex("idIndex", "p.ID", "/portfolios p");
+    final CountDownLatch blocked = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    IndexManager.testHook = new IndexManager.TestHook() {
+      public void hook(int spot) {
+        if (blocked.getCount() > 0) {
+          blocked.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      }
+    };
+    // the updater thread blocks on the creation while the updates are queued
+    region.put(0, new Portfolio(0));
+    assertThat(blocked.await(30, TimeUnit.SECONDS)).isTrue();
+    for (int i = 1; i <= 10; i++) {
+      Portfolio portfolio = new Portfolio(0);
+      portfolio.ID = i;
+      region.put(0, portfolio);
+    }
+    Thread.sleep(200);
+    InternalIndexStatistics stats = (InternalIndexStatistics) index.getStatistics();
+    assertThat(stats.getAsyncUpdateQueueSize()).isGreaterThanOrEqualTo(10);
+    release.countDown();
+
+    assertThat(executeAfterIndexUpdates("select * from /portfolios p where p.ID = 10")).hasSize(1);
+    assertThat(executeAfterIndexUpdates("select * from /portfolios p where p.ID < 10")).isEmpty();
+    // the removals and additions of the first nine updates are replaced by the last one
+    assertThat(stats.getAsyncUpdatesCoalesced()).isEqualTo(18);
+    assertThat(stats.getAsyncUpdateLag()).isGreaterThanOrEqualTo(100);
+    assertThat(stats.getAsyncUpdateQueueSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void indexesAreRecreatedAfterTheQueuedUpdatesWhenTheRegionIsCleared() throws Exception {
+    Region<Integer, Portfolio> region = createRegion(RegionShortcut.REPLICATE);
+    this.queryService.createIndex("idIndex", "p.ID", "/portfolios p");
+    for (int i = 0; i < NUM_PORTFOLIOS; i++) {
+      region.put(i, new Portfolio(i));
+    }
+    region.clear();
+    for (int i = 0; i < NUM_PORTFOLIOS / 2; i++) {
+      region.put(i, new Portfolio(i));
+    }
+    assertThat(executeAfterIndexUpdates("select * from /portfolios p where p.ID >= 0"))
+        .hasSize(NUM_PORTFOLIOS / 2);
+  }
+
+  private Region<Integer, Portfolio> createRegion(RegionShortcut shortcut) {
+    return this.cache.<Integer, Portfolio>createRegionFactory(shortcut)
+        .setIndexMaintenanceSynchronous(false).create("portfolios");
+  }
+
+  private SelectResults executeAfterIndexUpdates(String queryString) throws Exception {
+    Query query = this.queryService.newQuery(queryString);
+    query.setWaitForIndexUpdates(30000);
+    return (SelectResults) query.execute();
+  }
+}
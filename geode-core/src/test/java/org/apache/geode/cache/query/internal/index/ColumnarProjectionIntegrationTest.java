@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.internal.DefaultQueryService;
+import org.apache.geode.cache.query.internal.QueryObserverAdapter;
+import org.apache.geode.cache.query.internal.QueryObserverHolder;
+import org.apache.geode.internal.cache.GemFireCacheImpl;
+import org.apache.geode.pdx.PdxInstance;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class ColumnarProjectionIntegrationTest {
+
+  private static final String[] QUERIES = {"select sum(t.qty) from /trades t",
+      "select count(*), sum(t.price) from /trades t where t.price > 50.5",
+      "select avg(t.price), max(t.qty), min(t.qty) from /trades t"
+          + " where t.qty >= 10 and (t.sym = 'A' or t.price < 20)",
+      "select count(t.sym) from /trades t where t.qty < $1 or t.qty = 500L",
+      "select max(t.sym) from /trades t where 100 > t.qty",
+      "select sum(qty) from /trades where qty > 100000",};
+
+  private DefaultQueryService queryService;
+  private Region<Integer, PdxInstance> region;
+  private int iterations;
+
+  @Before
+  public void setUp() {
+    CacheUtils.startCache();
+    this.queryService = (DefaultQueryService) CacheUtils.getQueryService();
+    this.region = CacheUtils.createRegion("trades", null);
+    for (int i = 0; i < 1000; i++) {
+      this.region.put(i, createTrade(i, i % 7 == 0 ? "A" : "B", i * 0.25));
+    }
+    QueryObserverHolder.setInstance(new QueryObserverAdapter() {
+      @Override
+      public void afterIterationEvaluation(Object result) {
+        iterations++;
+      }
+    });
+  }
+
+  @After
+  public void tearDown() {
+    QueryObserverHolder.reset();
+    CacheUtils.closeCache();
+  }
+
+  private PdxInstance createTrade(int qty, String sym, double price) {
+    return ((GemFireCacheImpl) CacheUtils.getCache()).createPdxInstanceFactory("Trade", false).writeInt("qty", qty)
+        .writeString("sym", sym).writeDouble("price", price).create();
+  }
+
+  private List<List<Object>> runQueries() throws Exception {
+    List<List<Object>> results = new ArrayList<List<Object>>();
+    for (String query : QUERIES) {
+      SelectResults sr = (SelectResults) this.queryService.newQuery(query)
+          .execute(new Object[] {Integer.valueOf(300)});
+      results.add(sr.asList());
+    }
+    return results;
+  }
+
+  @Test
+  public void aggregatesFromProjectionMatchEvaluationOverValues() throws Exception {
+    List<List<Object>> expected = runQueries();
+    assertThat(this.iterations).isGreaterThan(0);
+
+    ColumnarProjection projection =
+        this.queryService.createColumnarProjection(this.region, "qty", "sym", "price");
+    assertThat(projection.size()).isEqualTo(1000);
+    this.iterations = 0;
+
+    assertThat(runQueries()).isEqualTo(expected);
+    assertThat(this.iterations).isZero();
+  }
+
+  @Test
+  public void projectionFollowsRegionOperations() throws Exception {
+    ColumnarProjection projection =
+        this.queryService.createColumnarProjection(this.region, "qty", "sym", "price");
+    for (int i = 0; i < 100; i++) {
+      this.region.put(i, createTrade(i * 3, "A", i));
+      this.region.destroy(i + 100);
+      this.region.invalidate(i + 200);
+    }
+    this.region.put(5000, createTrade(5000, "C", 1.5));
+    assertThat(projection.size()).isEqualTo(801);
+    List<List<Object>> actual = runQueries();
+    IndexUtils.getIndexManager(this.region, false).removeColumnarProjection(projection);
+    assertThat(runQueries()).isEqualTo(actual);
+
+    projection = this.queryService.createColumnarProjection(this.region, "qty");
+    assertThat(projection.size()).isEqualTo(801);
+
+    this.region.clear();
+    assertThat(projection.size()).isZero();
+    for (int i = 0; i < 1000; i++) {
+      this.region.put(i, createTrade(i, "B", i));
+    }
+    assertThat(projection.size()).isEqualTo(1000);
+  }
+
+  @Test
+  public void valuesMissingAFieldAreAggregatedAsOverValues() throws Exception {
+    this.region.put(2000, ((GemFireCacheImpl) CacheUtils.getCache()).createPdxInstanceFactory("Other", false)
+        .writeString("sym", "Z").create());
+    List<List<Object>> expected = runQueries();
+    this.queryService.createColumnarProjection(this.region, "qty", "sym", "price");
+    this.iterations = 0;
+
+    assertThat(runQueries()).isEqualTo(expected);
+    assertThat(this.iterations).isZero();
+  }
+}
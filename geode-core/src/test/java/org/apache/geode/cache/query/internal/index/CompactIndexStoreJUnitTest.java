@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.internal.index.AbstractIndex.InternalIndexStatistics;
+import org.apache.geode.cache.query.internal.index.IndexStore.IndexStoreEntry;
+import org.apache.geode.internal.cache.GemFireCacheImpl;
+import org.apache.geode.internal.cache.LocalRegion;
+import org.apache.geode.internal.cache.RegionEntry;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CompactIndexStoreJUnitTest {
+
+  private GemFireCacheImpl actualInstance;
+  private InternalIndexStatistics mockStats;
+  private CompactIndexStore store;
+
+  @Before
+  public void setup() {
+    actualInstance = GemFireCacheImpl.setInstanceForTests(mock(GemFireCacheImpl.class));
+    mockStats = mock(InternalIndexStatistics.class);
+    store = new CompactIndexStore(mock(LocalRegion.class), mockStats);
+    store.setIndexOnValues(true);
+  }
+
+  @After
+  public void teardown() {
+    GemFireCacheImpl.setInstanceForTests(actualInstance);
+  }
+
+  @Test
+  public void rangesOfManyKeysAreInOrder() throws Exception {
+    for (int i = 0; i < 10000; i++) {
+      store.addMapping(i, createRegionEntry(i));
+    }
+    assertThat(store.size()).isEqualTo(10000);
+    assertThat(keys(store.iterator(100, true, 200, false, null))).hasSize(100)
+        .startsWith(100, 101).endsWith(198, 199);
+    assertThat(keys(store.descendingIterator(9990, false, null))).containsExactly(9999, 9998,
+        9997, 9996, 9995, 9994, 9993, 9992, 9991);
+    assertThat(keys(store.iterator(9990.5d, true, Collections.singleton(9995L))))
+        .containsExactly(9991, 9992, 9993, 9994, 9996, 9997, 9998, 9999);
+    assertThat(keys(store.get(5000L))).containsExactly(5000);
+    verify(mockStats, times(10000)).incNumKeys(1);
+  }
+
+  @Test
+  public void keysOfAnotherTypeAreKeptAsObjects() throws Exception {
+    store.addMapping(2, createRegionEntry(2));
+    store.addMapping(3L, createRegionEntry(3));
+    store.addMapping((short) 1, createRegionEntry(1));
+    List<Object> keys = keys(store.iterator(null));
+    assertThat(keys).containsExactly(1, 2, 3L);
+    assertThat(keys.get(2)).isInstanceOf(Long.class);
+
+    store.clear();
+    store.addMapping("b", createRegionEntry("b"));
+    store.addMapping("a", createRegionEntry("a"));
+    assertThat(keys(store.descendingIterator(null))).containsExactly("b", "a");
+  }
+
+  @Test
+  public void nullAndUndefinedKeysAreOnlyReturnedByGet() throws Exception {
+    store.addMapping(QueryService.UNDEFINED, createRegionEntry(1));
+    store.addMapping(IndexManager.NULL, createRegionEntry(2));
+    store.addMapping(IndexManager.NULL, createRegionEntry(3));
+    store.addMapping(4, createRegionEntry(4));
+    assertThat(store.size()).isEqualTo(3);
+    assertThat(store.size(IndexManager.NULL)).isEqualTo(2);
+    assertThat(keys(store.iterator(null))).containsExactly(4);
+    assertThat(keys(store.descendingIterator(null))).containsExactly(4);
+    assertThat(keys(store.get(QueryService.UNDEFINED))).containsExactly(QueryService.UNDEFINED);
+    assertThat(keys(store.get(IndexManager.NULL))).containsExactly(IndexManager.NULL,
+        IndexManager.NULL);
+  }
+
+  @Test
+  public void entriesOfAKeyMoveToASetWhenThereAreMany() throws Exception {
+    List<RegionEntry> entries = new ArrayList<RegionEntry>();
+    for (int i = 0; i < 150; i++) {
+      RegionEntry entry = createRegionEntry(i);
+      entries.add(entry);
+      store.addMapping(1, entry);
+    }
+    assertThat(store.size()).isEqualTo(1);
+    assertThat(store.size(1)).isEqualTo(150);
+    assertThat(keys(store.get(1))).hasSize(150);
+
+    store.updateMapping(2, 1, entries.get(0), null);
+    assertThat(store.size(1)).isEqualTo(149);
+    assertThat(store.size(2)).isEqualTo(1);
+    for (RegionEntry entry : entries.subList(1, entries.size())) {
+      store.removeMapping(1, entry);
+    }
+    assertThat(store.size()).isEqualTo(1);
+    assertThat(keys(store.iterator(null))).containsExactly(2);
+  }
+
+  @Test
+  public void removeFindsTheEntryUnderItsOldKey() throws Exception {
+    RegionEntry entry = createRegionEntry(1);
+    store.addMapping(1, entry);
+    store.removeMapping(2, entry);
+    assertThat(store.size()).isZero();
+    assertThat(keys(store.iterator(null))).isEmpty();
+  }
+
+  @Test
+  public void removingMostKeysShrinksTheMap() throws Exception {
+    List<RegionEntry> entries = new ArrayList<RegionEntry>();
+    for (int i = 0; i < 10000; i++) {
+      RegionEntry entry = createRegionEntry(i);
+      entries.add(entry);
+      store.addMapping(i, entry);
+    }
+    for (int i = 0; i < 10000; i++) {
+      if (i % 100 != 0) {
+        store.removeMapping(i, entries.get(i));
+      }
+    }
+    assertThat(store.size()).isEqualTo(100);
+    assertThat(keys(store.iterator(500, false, 1000, true, null))).containsExactly(600, 700, 800,
+        900, 1000);
+    assertThat(keys(store.descendingIterator(null))).hasSize(100).startsWith(9900, 9800);
+  }
+
+  private List<Object> keys(Iterator<IndexStoreEntry> iterator) {
+    List<Object> keys = new ArrayList<Object>();
+    while (iterator.hasNext()) {
+      keys.add(iterator.next().getDeserializedKey());
+    }
+    return keys;
+  }
+
+  private RegionEntry createRegionEntry(Object key) {
+    RegionEntry mockEntry = mock(RegionEntry.class);
+    when(mockEntry.getValue(any())).thenReturn(new Object());
+    when(mockEntry.getKey()).thenReturn(key);
+    return mockEntry;
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.internal.index.CompactSortedMap.Cursor;
+import org.apache.geode.cache.query.internal.index.CompactSortedMap.KeyType;
+import org.apache.geode.cache.query.internal.types.TypeUtils;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CompactSortedMapJUnitTest {
+
+  @Test
+  public void randomPutsAndRemovesMatchTreeMap() {
+    Random random = new Random(17);
+    CompactSortedMap map = new CompactSortedMap(KeyType.INT, 4);
+    TreeMap<Integer, Object> expected = new TreeMap<Integer, Object>();
+    for (int i = 0; i < 20000; i++) {
+      Integer key = random.nextInt(2000);
+      if (random.nextInt(3) == 0) {
+        assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+      } else {
+        String value = "v" + i;
+        assertThat(map.put(key, value)).isEqualTo(expected.put(key, value));
+      }
+      if (map.isSparse()) {
+        map = map.copy(KeyType.INT);
+      }
+    }
+    assertThat(map.size()).isEqualTo(expected.size());
+    for (int key = -1; key <= 2000; key++) {
+      assertThat(map.get(key)).isEqualTo(expected.get(key));
+    }
+    assertRangesMatch(map, expected, random);
+  }
+
+  @Test
+  public void ascendingKeysFillTheLeaves() {
+    CompactSortedMap map = new CompactSortedMap(KeyType.LONG, 8);
+    for (long key = 0; key < 1000; key++) {
+      map.put(key, key);
+    }
+    assertThat(map.isSparse()).isFalse();
+    for (long key = 0; key < 1000; key++) {
+      if (key % 8 != 7) {
+        map.remove(key);
+      }
+    }
+    assertThat(map.size()).isEqualTo(125);
+    assertThat(map.isSparse()).isTrue();
+
+    CompactSortedMap copy = map.copy(KeyType.LONG);
+    assertThat(copy.isSparse()).isFalse();
+    assertThat(keys(copy.cursor(null, false, null, false, false)))
+        .isEqualTo(keys(map.cursor(null, false, null, false, false)));
+    assertThat(keys(copy.cursor(null, false, null, false, true)))
+        .isEqualTo(keys(map.cursor(null, false, null, false, true)));
+  }
+
+  @Test
+  public void primitiveKeysAreComparedToKeysOfOtherTypes() {
+    CompactSortedMap map = new CompactSortedMap(KeyType.INT, 4);
+    for (int key = 0; key < 20; key++) {
+      map.put(key, key);
+    }
+    assertThat(map.get(5L)).isEqualTo(5);
+    assertThat(map.get(5.0d)).isEqualTo(5);
+    assertThat(map.get(5.5d)).isNull();
+    assertThat(map.cursor(5.5d, true, null, false, false).next()).isTrue();
+    assertThat(keys(map.cursor(5.5d, false, 8L, true, false))).containsExactly(6, 7, 8);
+    assertThat(keys(map.cursor(5.5d, false, 8.5f, true, true))).containsExactly(8, 7, 6);
+    assertThat(keys(map.cursor(QueryService.UNDEFINED, false, 1, true, false)))
+        .containsExactly(0, 1);
+    assertThat(keys(map.cursor(null, false, IndexManager.NULL, true, false))).isEmpty();
+
+    CompactSortedMap doubles = new CompactSortedMap(KeyType.DOUBLE, 4);
+    doubles.put(Double.NaN, "nan");
+    doubles.put(-0.0d, "-0");
+    doubles.put(0.0d, "0");
+    doubles.put(Double.NEGATIVE_INFINITY, "-inf");
+    assertThat(keys(doubles.cursor(null, false, null, false, false)))
+        .containsExactly(Double.NEGATIVE_INFINITY, -0.0d, 0.0d, Double.NaN);
+    assertThat(doubles.get(0)).isEqualTo("0");
+  }
+
+  @Test
+  public void copyChangesTheTypeOfTheKeys() {
+    CompactSortedMap map = new CompactSortedMap(KeyType.INT, 4);
+    for (int key = 0; key < 100; key++) {
+      map.put(key, key);
+    }
+    CompactSortedMap copy = map.copy(KeyType.OBJECT);
+    copy.put(50L, "long");
+    copy.put(100L, "long");
+    assertThat(copy.size()).isEqualTo(101);
+    assertThat(copy.get(50)).isEqualTo("long");
+    List<Object> keys = keys(copy.cursor(98, true, null, false, false));
+    assertThat(keys).containsExactly(98, 99, 100L);
+    assertThat(keys.get(0)).isInstanceOf(Integer.class);
+  }
+
+  @Test
+  public void readersSeeTheKeysNotChangedWhileTheyIterate() throws Exception {
+    final CompactSortedMap map = new CompactSortedMap(KeyType.INT, 4);
+    // the even keys stay in the map while the odd ones come and go
+    for (int key = 0; key < 2000; key += 2) {
+      map.put(key, key);
+    }
+    final AtomicBoolean done = new AtomicBoolean();
+    Thread writer = new Thread(() -> {
+      Random random = new Random(3);
+      while (!done.get()) {
+        int key = random.nextInt(1000) * 2 + 1;
+        if (map.get(key) == null) {
+          map.put(key, key);
+        } else {
+          map.remove(key);
+        }
+      }
+    });
+    writer.start();
+    try {
+      for (int i = 0; i < 200; i++) {
+        boolean descending = i % 2 == 0;
+        List<Object> keys = keys(map.cursor(null, false, null, false, descending));
+        int even = 0;
+        Integer previous = null;
+        for (Object key : keys) {
+          int k = (Integer) key;
+          if (previous != null) {
+            assertThat(descending ? k < previous : k > previous).isTrue();
+          }
+          previous = k;
+          if (k % 2 == 0) {
+            even++;
+          }
+        }
+        assertThat(even).isEqualTo(1000);
+      }
+    } finally {
+      done.set(true);
+      writer.join();
+    }
+  }
+
+  private void assertRangesMatch(CompactSortedMap map, TreeMap<Integer, Object> expected,
+      Random random) {
+    assertThat(entries(map.cursor(null, false, null, false, false))).isEqualTo(expected);
+    assertThat(keys(map.cursor(null, false, null, false, true)))
+        .isEqualTo(new ArrayList<Object>(expected.descendingMap().keySet()));
+    for (int i = 0; i < 500; i++) {
+      int from = random.nextInt(2100) - 50;
+      int to = from + random.nextInt(300);
+      boolean fromInclusive = random.nextBoolean();
+      boolean toInclusive = random.nextBoolean();
+      NavigableMap<Integer, Object> range = expected.subMap(from, fromInclusive, to, toInclusive);
+      assertThat(entries(map.cursor(from, fromInclusive, to, toInclusive, false)))
+          .isEqualTo(range);
+      assertThat(keys(map.cursor(from, fromInclusive, to, toInclusive, true)))
+          .isEqualTo(new ArrayList<Object>(range.descendingMap().keySet()));
+      assertThat(entries(map.cursor(from, fromInclusive, null, false, false)))
+          .isEqualTo(expected.tailMap(from, fromInclusive));
+      assertThat(keys(map.cursor(null, false, to, toInclusive, true)))
+          .isEqualTo(new ArrayList<Object>(expected.headMap(to, toInclusive).descendingKeySet()));
+    }
+  }
+
+  private static List<Object> keys(Cursor cursor) {
+    List<Object> keys = new ArrayList<Object>();
+    while (cursor.next()) {
+      keys.add(cursor.getKey());
+    }
+    return keys;
+  }
+
+  private static Map<Object, Object> entries(Cursor cursor) {
+    Map<Object, Object> entries = new TreeMap<Object, Object>(
+        TypeUtils.getExtendedNumericComparator());
+    while (cursor.next()) {
+      entries.put(cursor.getKey(), cursor.getValue());
+    }
+    return entries;
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.query.CacheUtils;
+import org.apache.geode.cache.query.Index;
+import org.apache.geode.cache.query.IndexInvalidException;
+import org.apache.geode.cache.query.IndexType;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.cache.query.internal.QueryObserverAdapter;
+import org.apache.geode.cache.query.internal.QueryObserverHolder;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class CompositeIndexIntegrationTest {
+
+  private static final String[] QUERIES = {
+      "select * from /portfolios p where p.status = 'active' and p.\"type\" = 'type1'",
+      "select * from /portfolios p where p.status = 'active' and p.\"type\" = 'type1'"
+          + " and p.ID > 100 and p.ID <= 200",
+      "select * from /portfolios p where p.\"type\" = $1 and 'inactive' = p.status"
+          + " and 150 > p.ID",
+      "select * from /portfolios p where p.status = 'inactive' and p.ID < 50",
+      "select * from /portfolios p where p.status = 'active' and p.\"type\" = 'type0'"
+          + " and p.ID >= 30 and p.description = null",
+      "select * from /portfolios p where p.status = 'active' and p.\"type\" = 'type2'"
+          + " and p.ID = 20",
+      "select * from /portfolios p where p.status = 'active' and p.\"type\" = 'type2'"
+          + " and p.ID > 290",
+      "select * from /portfolios p where p.status = 'active' and p.\"type\" = 'type2'"
+          + " and p.ID > 9 and p.ID < 3",
+      "select * from /portfolios p where p.status = 'active' and p.\"type\" = 'type2'"
+          + " and p.ID > null",};
+
+  private QueryService queryService;
+  private Region<Integer, Portfolio> region;
+  private Set<String> lookedUpIndexes = new HashSet<String>();
+
+  @Before
+  public void setUp() {
+    CacheUtils.startCache();
+    this.queryService = CacheUtils.getQueryService();
+    this.region = CacheUtils.createRegion("portfolios", Portfolio.class);
+    for (int i = 0; i < 300; i++) {
+      this.region.put(i, new Portfolio(i));
+    }
+    QueryObserverHolder.setInstance(new QueryObserverAdapter() {
+      @Override
+      public void beforeIndexLookup(Index index, int lowerBoundOperator, Object lowerBoundKey,
+          int upperBoundOperator, Object upperBoundKey, Set notEqualKeys) {
+        lookedUpIndexes.add(index.getName());
+      }
+    });
+  }
+
+  @After
+  public void tearDown() {
+    QueryObserverHolder.reset();
+    CacheUtils.closeCache();
+  }
+
+  private List<Set<Integer>> runQueries() throws Exception {
+    List<Set<Integer>> results = new ArrayList<Set<Integer>>();
+    for (String query : QUERIES) {
+      SelectResults sr =
+          (SelectResults) this.queryService.newQuery(query).execute(new Object[] {"type2"});
+      Set<Integer> ids = new HashSet<Integer>();
+      for (Object value : sr) {
+        ids.add(((Portfolio) value).ID);
+      }
+      assertThat(ids).hasSize(sr.size());
+      results.add(ids);
+    }
+    return results;
+  }
+
+  @Test
+  public void resultsWithCompositeIndexMatchResultsWithout() throws Exception {
+    List<Set<Integer>> expected = runQueries();
+    assertThat(expected.get(1)).isNotEmpty();
+    assertThat(expected.get(4)).isNotEmpty();
+    assertThat(expected.get(5)).containsExactly(20);
+    assertThat(this.lookedUpIndexes).isEmpty();
+
+    Index index =
+        this.queryService.createIndex("composite", "p.status, p.\"type\", p.ID", "/portfolios p");
+    assertThat(runQueries()).isEqualTo(expected);
+    assertThat(this.lookedUpIndexes).containsExactly("composite");
+    assertThat(index.getStatistics().getReadLockCount()).isZero();
+  }
+
+  @Test
+  public void indexWithOnlyAPrefixOfTheConditionsIsUsed() throws Exception {
+    this.queryService.createIndex("statusAndId", "p.status, p.ID", "/portfolios p");
+    SelectResults sr = (SelectResults) this.queryService
+        .newQuery("select * from /portfolios p where p.ID < 100 and p.\"type\" = 'type1'"
+            + " and p.status = 'inactive'")
+        .execute();
+    assertThat(this.lookedUpIndexes).containsExactly("statusAndId");
+    for (Object value : sr) {
+      Portfolio portfolio = (Portfolio) value;
+      assertThat(portfolio.ID).isLessThan(100);
+      assertThat(portfolio.getType()).isEqualTo("type1");
+      assertThat(portfolio.status).isEqualTo("inactive");
+    }
+    assertThat(sr.size()).isEqualTo(17);
+
+    // a condition on the second component alone cannot use the index
+    this.lookedUpIndexes.clear();
+    sr = (SelectResults) this.queryService
+        .newQuery("select * from /portfolios p where p.ID < 100 and p.\"type\" = 'type1'")
+        .execute();
+    assertThat(sr.size()).isEqualTo(33);
+    assertThat(this.lookedUpIndexes).isEmpty();
+
+    // nor is it used for a single condition that has an index of its own
+    Index statusIndex = this.queryService.createIndex("status", "p.status", "/portfolios p");
+    sr = (SelectResults) this.queryService
+        .newQuery("select * from /portfolios p where p.status = 'active' and p.pkid = '10'")
+        .execute();
+    assertThat(sr.size()).isEqualTo(1);
+    assertThat(this.queryService.getIndex(this.region, "statusAndId").getStatistics()
+        .getTotalUses()).isEqualTo(1);
+    assertThat(statusIndex.getStatistics().getTotalUses()).isEqualTo(1);
+    assertThat(this.queryService.getIndex(this.region, "statusAndId").getStatistics()
+        .getReadLockCount()).isZero();
+  }
+
+  @Test
+  public void orderByAndLimitAreAppliedByTheIndex() throws Exception {
+    this.queryService.createIndex("composite", "p.status, p.\"type\", p.ID", "/portfolios p");
+    SelectResults sr = (SelectResults) this.queryService
+        .newQuery("select distinct * from /portfolios p where p.status = 'active'"
+            + " and p.\"type\" = 'type1' and p.ID < 200 order by p.ID desc limit 4")
+        .execute();
+    List<Integer> ids = new ArrayList<Integer>();
+    for (Object value : sr) {
+      ids.add(((Portfolio) value).ID);
+    }
+    assertThat(ids).containsExactly(196, 190, 184, 178);
+    assertThat(this.lookedUpIndexes).containsExactly("composite");
+  }
+
+  @Test
+  public void indexFollowsRegionOperations() throws Exception {
+    this.queryService.createIndex("composite", "p.status, p.ID", "/portfolios p");
+    for (int i = 0; i < 100; i++) {
+      Portfolio portfolio = new Portfolio(i);
+      portfolio.status = "closed";
+      this.region.put(i, portfolio);
+      this.region.destroy(i + 100);
+    }
+    SelectResults sr = (SelectResults) this.queryService
+        .newQuery("select * from /portfolios p where p.status = 'closed' and p.ID >= 50")
+        .execute();
+    assertThat(sr.size()).isEqualTo(50);
+    sr = (SelectResults) this.queryService
+        .newQuery("select * from /portfolios p where p.status = 'active' and p.ID < 210")
+        .execute();
+    assertThat(sr.size()).isEqualTo(5);
+    assertThat(this.lookedUpIndexes).containsExactly("composite");
+  }
+
+  @Test
+  public void partitionedRegionQueriesUseTheIndexOfEachBucket() throws Exception {
+    Region<Integer, Portfolio> partitioned = CacheUtils.getCache()
+        .<Integer, Portfolio>createRegionFactory(RegionShortcut.PARTITION).create("partitioned");
+    for (int i = 0; i < 300; i++) {
+      partitioned.put(i, new Portfolio(i));
+    }
+    String query = "select * from /partitioned p where p.status = 'active' and p.ID >= 100"
+        + " and p.ID < 120";
+    SelectResults expected = (SelectResults) this.queryService.newQuery(query).execute();
+    assertThat(expected.size()).isEqualTo(10);
+
+    this.queryService.createIndex("composite", "p.status, p.ID", "/partitioned p");
+    assertThat(((SelectResults) this.queryService.newQuery(query).execute()).asList())
+        .containsOnlyElementsOf(expected.asList()).hasSize(10);
+    assertThat(this.lookedUpIndexes).containsExactly("composite");
+  }
+
+  @Test
+  public void compositeIndexRequiresACompactFunctionalIndex() throws Exception {
+    Throwable thrown = catchThrowable(() -> this.queryService.createIndex("hash",
+        IndexType.HASH, "p.status, p.ID", "/portfolios p"));
+    assertThat(thrown).isInstanceOf(IndexInvalidException.class);
+
+    thrown = catchThrowable(() -> this.queryService.createIndex("multi", "p.status, pos.secId",
+        "/portfolios p, p.positions.values pos"));
+    assertThat(thrown).isInstanceOf(IndexInvalidException.class);
+
+    Index index = this.queryService.createIndex("composite", "p.status, p.ID", "/portfolios p");
+    assertThat(index).isInstanceOf(CompactRangeIndex.class);
+    assertThat(index.getCanonicalizedIndexedExpression()).isEqualTo("index_iter1.status, "
+        + "index_iter1.ID");
+    assertThat(index.getStatistics().getNumberOfKeys()).isEqualTo(300);
+  }
+}
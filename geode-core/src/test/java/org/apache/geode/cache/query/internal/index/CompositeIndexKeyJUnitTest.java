@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CompositeIndexKeyJUnitTest {
+
+  @Test
+  public void negativeAndPositiveZeroHashAlike() {
+    assertThat(key(-0.0d, "a").hashCode()).isEqualTo(key(0.0d, "a").hashCode());
+    assertThat(key(-0.0f, "a").hashCode()).isEqualTo(key(0, "a").hashCode());
+  }
+
+  @Test
+  public void equalNumbersOfDifferentTypesHashAlike() {
+    assertEqualKeysHashAlike(key(7, "a"), key(7L, "a"));
+    assertEqualKeysHashAlike(key(7, "a"), key(7.0d, "a"));
+    assertEqualKeysHashAlike(key(7L, "a"), key(7.0f, "a"));
+    // a long is compared with a float at float precision
+    assertEqualKeysHashAlike(key(16777217L, "a"), key(16777216.0f, "a"));
+    assertEqualKeysHashAlike(key(Double.NaN, "a"), key(Double.NaN, "a"));
+  }
+
+  @Test
+  public void boundsAreNotEqualToKeys() {
+    Object[] components = new Object[] {1, "a"};
+    assertThat(CompositeIndexKey.lowerBound(components)).isNotEqualTo(key(1, "a"));
+    assertThat(CompositeIndexKey.lowerBound(components).compareTo(key(1, "a"))).isNegative();
+    assertThat(CompositeIndexKey.upperBound(components)).isNotEqualTo(key(1, "a"));
+    assertThat(CompositeIndexKey.upperBound(components).compareTo(key(1, "a"))).isPositive();
+  }
+
+  private static void assertEqualKeysHashAlike(CompositeIndexKey key1, CompositeIndexKey key2) {
+    assertThat(key1).isEqualTo(key2);
+    assertThat(key1.hashCode()).isEqualTo(key2.hashCode());
+  }
+
+  private static CompositeIndexKey key(Object... components) {
+    return new CompositeIndexKey(components);
+  }
+}
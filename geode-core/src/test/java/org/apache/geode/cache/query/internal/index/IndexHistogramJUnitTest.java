@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.cache.query.internal.index;
+
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.TOK_EQ;
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.TOK_GE;
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.TOK_GT;
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.TOK_LE;
+import static org.apache.geode.cache.query.internal.parse.OQLLexerTokenTypes.TOK_LT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.assertj.core.data.Offset;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class IndexHistogramJUnitTest {
+
+  @Test
+  public void uniformKeysAreEstimatedByInterpolation() {
+    IndexHistogram histogram = new IndexHistogram(10000, 0);
+    for (int i = 0; i < 10000; i++) {
+      histogram.add(i, 1);
+    }
+    histogram.done();
+    assertThat(histogram.getTotal()).isEqualTo(10000);
+    assertThat(histogram.getNumBuckets()).isEqualTo(IndexHistogram.NUM_BUCKETS);
+    assertThat(histogram.estimate(2500, TOK_LT)).isCloseTo(2500, Offset.offset(2));
+    assertThat(histogram.estimate(2500, TOK_GE)).isCloseTo(7500, Offset.offset(2));
+    assertThat(histogram.estimate(9999, TOK_LE)).isEqualTo(10000);
+    assertThat(histogram.estimate(9999, TOK_GT)).isEqualTo(0);
+  }
+
+  @Test
+  public void skewedKeysAreEstimatedFromTheirBuckets() {
+    IndexHistogram histogram = new IndexHistogram(1100, 0);
+    histogram.add(0, 1000);
+    for (int i = 1; i <= 100; i++) {
+      histogram.add(i, 1);
+    }
+    histogram.done();
+    assertThat(histogram.estimate(0, TOK_LE)).isEqualTo(1000);
+    assertThat(histogram.estimate(0, TOK_LT)).isEqualTo(0);
+    assertThat(histogram.estimate(0, TOK_GT)).isEqualTo(100);
+    assertThat(histogram.estimate(50, TOK_GT)).isCloseTo(50, Offset.offset(20));
+  }
+
+  @Test
+  public void keysOutsideTheRangeOfTheIndex() {
+    IndexHistogram histogram = new IndexHistogram(100, 0);
+    for (int i = 10; i < 110; i++) {
+      histogram.add(i, 2);
+    }
+    histogram.done();
+    assertThat(histogram.estimate(5, TOK_LT)).isEqualTo(0);
+    assertThat(histogram.estimate(5, TOK_GE)).isEqualTo(200);
+    assertThat(histogram.estimate(500, TOK_LE)).isEqualTo(200);
+    assertThat(histogram.estimate(500, TOK_GT)).isEqualTo(0);
+  }
+
+  @Test
+  public void stringKeysAreAssumedToBeHalfwayThroughTheirBucket() {
+    IndexHistogram histogram = new IndexHistogram(26, 0);
+    for (char c = 'a'; c <= 'z'; c++) {
+      histogram.add(String.valueOf(c), 4);
+    }
+    histogram.done();
+    assertThat(histogram.estimate("m", TOK_LE)).isEqualTo(52);
+    assertThat(histogram.estimate("mm", TOK_LT)).isBetween(48, 56);
+  }
+
+  @Test
+  public void operatorsOtherThanRangesAreNotEstimated() {
+    IndexHistogram histogram = new IndexHistogram(10, 0);
+    histogram.add(1, 10);
+    histogram.done();
+    assertThat(histogram.estimate(1, TOK_EQ)).isEqualTo(-1);
+  }
+
+  @Test
+  public void histogramIsStaleOnceEnoughOfTheIndexHasBeenUpdated() {
+    IndexHistogram histogram = new IndexHistogram(10000, 500);
+    for (int i = 0; i < 10000; i++) {
+      histogram.add(i, 1);
+    }
+    histogram.done();
+    long threshold = (long) (10000 * IndexHistogram.REFRESH_RATIO);
+    assertThat(histogram.isStale(500 + threshold)).isFalse();
+    assertThat(histogram.isStale(501 + threshold)).isTrue();
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.cache.query.Index;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.data.Portfolio;
+import org.apache.geode.cache.query.internal.index.IndexManager;
+import org.apache.geode.cache.query.internal.index.PartitionedIndex;
+import org.apache.geode.pdx.PdxInstance;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class BucketIndexBuilderIntegrationTest {
+
+  private static final int NUM_ENTRIES = 2000;
+
+  private Cache cache;
+  private QueryService queryService;
+
+  @Before
+  public void setUp() throws Exception {
+    IndexManager.TEST_RANGEINDEX_ONLY = false;
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    this.cache = new CacheFactory(props).create();
+    this.queryService = this.cache.getQueryService();
+  }
+
+  @After
+  public void tearDown() {
+    if (this.cache != null && !this.cache.isClosed()) {
+      this.cache.close();
+    }
+  }
+
+  @Test
+  public void indexIsCreatedOnEveryLocalBucket() throws Exception {
+    Region<Integer, Portfolio> region = createRegion();
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      region.put(i, new Portfolio(i));
+    }
+    Index index = this.queryService.createIndex("idIndex", "p.ID", "/portfolios p");
+    assertThat(((PartitionedIndex) index).getNumberOfIndexedBuckets())
+        .isEqualTo(getNumLocalBuckets(region));
+    assertThat(index.getStatistics().getNumberOfKeys()).isEqualTo(NUM_ENTRIES);
+    assertThat(execute("select * from /portfolios p where p.ID < 100")).hasSize(100);
+  }
+
+  @Test
+  public void definedIndexesArePopulatedOnEveryLocalBucket() throws Exception {
+    Region<Integer, Portfolio> region = createRegion();
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      region.put(i, new Portfolio(i));
+    }
+    this.queryService.defineIndex("idIndex", "p.ID", "/portfolios p");
+    this.queryService.defineIndex("statusIndex", "p.status", "/portfolios p");
+    List<Index> indexes = this.queryService.createDefinedIndexes();
+    assertThat(indexes).hasSize(2);
+    for (Index index : indexes) {
+      assertThat(((PartitionedIndex) index).getNumberOfIndexedBuckets())
+          .isEqualTo(getNumLocalBuckets(region));
+    }
+    assertThat(this.queryService.getIndex(region, "statusIndex").getStatistics()
+        .getNumberOfValues()).isEqualTo(NUM_ENTRIES);
+    assertThat(execute("select * from /portfolios p where p.status = 'active' and p.ID < 100"))
+        .hasSize(50);
+  }
+
+  @Test
+  public void bucketsAreIndexedByTheBuilderThreads() throws Exception {
+    Region<Integer, Portfolio> region = createRegion();
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      region.put(i, new Portfolio(i));
+    }
+    List<BucketRegion> buckets =
+        new ArrayList<BucketRegion>(((PartitionedRegion) region).getDataStore()
+            .getAllLocalBucketRegions());
+    final Set<String> threadNames = ConcurrentHashMap.newKeySet();
+    BucketIndexBuilder.<RuntimeException>forEachBucket((PartitionedRegion) region, buckets,
+        bucket -> threadNames.add(Thread.currentThread().getName()));
+    if (BucketIndexBuilder.NUM_THREADS > 1) {
+      assertThat(threadNames).allMatch(name -> name.startsWith("Bucket Index Builder Thread"));
+    } else {
+      assertThat(threadNames).containsExactly(Thread.currentThread().getName());
+    }
+  }
+
+  @Test
+  public void firstExceptionIsThrownOnceEveryBucketIsIndexed() throws Exception {
+    Region<Integer, Portfolio> region = createRegion();
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      region.put(i, new Portfolio(i));
+    }
+    List<BucketRegion> buckets =
+        new ArrayList<BucketRegion>(((PartitionedRegion) region).getDataStore()
+            .getAllLocalBucketRegions());
+    final Set<BucketRegion> indexed = ConcurrentHashMap.newKeySet();
+    assertThatThrownBy(() -> BucketIndexBuilder.<Exception>forEachBucket(
+        (PartitionedRegion) region, buckets, bucket -> {
+          indexed.add(bucket);
+          throw new Exception("bucket " + bucket.getId());
+        })).hasMessageStartingWith("bucket ");
+    if (BucketIndexBuilder.NUM_THREADS > 1) {
+      assertThat(indexed).hasSameSizeAs(buckets);
+    }
+  }
+
+  @Test
+  public void pdxValuesAreIndexedWithoutDeserializingThem() throws Exception {
+    Region<Integer, PdxInstance> region =
+        this.cache.<Integer, PdxInstance>createRegionFactory(RegionShortcut.PARTITION)
+            .create("values");
+    for (int i = 0; i < NUM_ENTRIES; i++) {
+      // the class is not on the classpath, so deserializing the values would fail
+      region.put(i, this.cache.createPdxInstanceFactory("org.example.UnknownValue")
+          .writeInt("id", i).writeString("name", "value" + i).create());
+    }
+    this.queryService.defineIndex("idIndex", "v.id", "/values v");
+    assertThat(this.queryService.createDefinedIndexes()).hasSize(1);
+    assertThat(execute("select * from /values v where v.id < 100")).hasSize(100);
+  }
+
+  private Region<Integer, Portfolio> createRegion() {
+    return this.cache.<Integer, Portfolio>createRegionFactory(RegionShortcut.PARTITION)
+        .create("portfolios");
+  }
+
+  private int getNumLocalBuckets(Region region) {
+    return ((PartitionedRegion) region).getDataStore().getAllLocalBucketRegions().size();
+  }
+
+  private SelectResults execute(String queryString) throws Exception {
+    return (SelectResults) this.queryService.newQuery(queryString).execute();
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.internal.statistics.StatisticsImpl;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class CompactionThrottleIntegrationTest {
+
+  private static final int NUM_KEYS = 3000;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Cache cache;
+
+  private File diskDir;
+
+  @Before
+  public void setUp() throws Exception {
+    this.diskDir = this.temporaryFolder.newFolder();
+    this.cache = createCache();
+  }
+
+  @After
+  public void tearDown() {
+    if (this.cache != null && !this.cache.isClosed()) {
+      this.cache.close();
+    }
+  }
+
+  @Test
+  public void oplogWithTheMostGarbageIsCompactedFirst() throws Exception {
+    Region<Integer, String> region = createRegion();
+    DiskStoreImpl diskStore = getDiskStore();
+    long[] oplogIds = new long[3];
+    for (int i = 0; i < oplogIds.length; i++) {
+      for (int j = 0; j < 100; j++) {
+        region.put(i * 100 + j, "value" + j);
+      }
+      oplogIds[i] = getOplogId(region, i * 100);
+      diskStore.forceRoll();
+    }
+    // the second oplog has the most garbage
+    for (int j = 0; j < 10; j++) {
+      region.destroy(j);
+    }
+    for (int j = 100; j < 190; j++) {
+      region.destroy(j);
+    }
+    for (int j = 200; j < 250; j++) {
+      region.destroy(j);
+    }
+
+    CompactableOplog[] oplogs = diskStore.getOplogToBeCompacted();
+    assertThat(oplogs).hasSize(1);
+    assertThat(((Oplog) oplogs[0]).getOplogId()).isEqualTo(oplogIds[1]);
+    assertThat(diskStore.numCompactableOplogs()).isEqualTo(3);
+  }
+
+  @Test
+  public void compactionPausesBetweenChunksAndKeepsTheLiveEntries() throws Exception {
+    Region<Integer, String> region = createRegion();
+    DiskStoreImpl diskStore = getDiskStore();
+    for (int i = 0; i < NUM_KEYS; i++) {
+      region.put(i, "value" + i);
+    }
+    diskStore.forceRoll();
+    for (int i = 0; i < NUM_KEYS; i += 3) {
+      region.destroy(i);
+    }
+    DiskStoreStats stats = diskStore.getStats();
+    long reclaimableBytes = diskStore.getReclaimableBytes();
+    assertThat(reclaimableBytes).isGreaterThan(0);
+    assertThat(stats.getCompactedBytes()).isEqualTo(0);
+    assertThat(stats.getWriteAmplification()).isEqualTo(1.0);
+
+    assertThat(diskStore.forceCompaction()).isTrue();
+
+    int liveEntries = NUM_KEYS - (NUM_KEYS + 2) / 3;
+    assertThat(stats.getCompactYields())
+        .isGreaterThanOrEqualTo(liveEntries / CompactionThrottle.CHUNK_SIZE);
+    assertThat(stats.getCompactedBytes()).isGreaterThan(0);
+    assertThat(stats.getWriteAmplification()).isGreaterThan(1.0);
+    assertThat(diskStore.getReclaimableBytes()).isLessThan(reclaimableBytes);
+    StatisticsImpl statistics = (StatisticsImpl) stats.getStats();
+    statistics.invokeSuppliers();
+    assertThat(statistics.getLong("reclaimableBytes")).isEqualTo(diskStore.getReclaimableBytes());
+    assertThat(statistics.getDouble("writeAmplification"))
+        .isEqualTo(stats.getWriteAmplification());
+
+    this.cache.close();
+    this.cache = createCache();
+    Region<Integer, String> recovered = createRegion();
+    assertThat(recovered).hasSize(liveEntries);
+    for (int i = 0; i < NUM_KEYS; i++) {
+      if (i % 3 == 0) {
+        assertThat(recovered.containsKey(i)).isFalse();
+      } else {
+        assertThat(recovered.get(i)).isEqualTo("value" + i);
+      }
+    }
+  }
+
+  @Test
+  public void compactionIsPausedToStayWithinTheBudget() throws Exception {
+    DiskStoreStats stats = getDiskStore().getStats();
+    CompactionThrottle throttle = new CompactionThrottle(stats, 2, 1000000);
+    assertThat(throttle.entryCompacted()).isFalse();
+    stats.incCompactedBytes(100000);
+    assertThat(throttle.entryCompacted()).isTrue();
+
+    long start = System.nanoTime();
+    throttle.pause();
+    assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(90));
+    assertThat(stats.getCompactYields()).isEqualTo(1);
+    assertThat(throttle.entryCompacted()).isFalse();
+  }
+
+  private Cache createCache() {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    Cache cache = new CacheFactory(props).create();
+    cache.createDiskStoreFactory().setDiskDirs(new File[] {this.diskDir}).setAutoCompact(false)
+        .setAllowForceCompaction(true).setCompactionThreshold(100).create("store");
+    return cache;
+  }
+
+  private Region<Integer, String> createRegion() {
+    return this.cache.<Integer, String>createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName("store").create("region");
+  }
+
+  private DiskStoreImpl getDiskStore() {
+    return (DiskStoreImpl) this.cache.findDiskStore("store");
+  }
+
+  private long getOplogId(Region<Integer, String> region, int key) {
+    DiskEntry entry = (DiskEntry) ((LocalRegion) region).getRegionEntry(key);
+    return entry.getDiskId().getOplogId();
+  }
+}
@@ -189,7 +189,7 @@ public class DiskRegionAsyncRecoveryJUnitTest extends DiskRegionTestingBase {
     putEntries(region, 10, 15, "A");
 
     PersistentOplogSet set = store.getPersistentOplogSet(region.getDiskRegion());
-    String currentChild = set.getChild().getOplogFile().getName();
+    String currentChild = set.getChild(region.getDiskRegion()).getOplogFile().getName();
     // Wait for the krfs to be created
     Set<String> crfs;
     Set<String> krfs;
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class KrfPrefetcherIntegrationTest {
+
+  private static final int NUM_KEYS = 2000;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Cache cache;
+
+  private File diskDir;
+
+  @Before
+  public void setUp() throws Exception {
+    this.diskDir = this.temporaryFolder.newFolder();
+    this.cache = createCache();
+  }
+
+  @After
+  public void tearDown() {
+    if (this.cache != null && !this.cache.isClosed()) {
+      this.cache.close();
+    }
+  }
+
+  @Test
+  public void latestRecordOfEachEntryIsRecoveredFromTheKrfs() throws Exception {
+    Region<String, String> region = createRegion("region");
+    Region<String, String> other = createRegion("other");
+    char[] chars = new char[1000];
+    Arrays.fill(chars, 'x');
+    String padding = new String(chars);
+    // the entries are modified in later oplogs than the ones that created them
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < NUM_KEYS; i++) {
+        region.put("key" + i, round + padding);
+        other.put("key" + i, "other" + round);
+      }
+    }
+    for (int i = 0; i < NUM_KEYS; i++) {
+      if (i % 3 == 0) {
+        region.destroy("key" + i);
+      } else if (i % 3 == 1) {
+        region.invalidate("key" + i);
+      }
+    }
+    this.cache.close();
+    assertThat(this.diskDir.list((dir, name) -> name.endsWith(".krf")).length)
+        .isGreaterThan(1);
+
+    this.cache = createCache();
+    Region<String, String> recovered = createRegion("region");
+    Region<String, String> recoveredOther = createRegion("other");
+    assertThat(recovered).hasSize(NUM_KEYS - (NUM_KEYS + 2) / 3);
+    assertThat(recoveredOther).hasSize(NUM_KEYS);
+    for (int i = 0; i < NUM_KEYS; i++) {
+      String key = "key" + i;
+      if (i % 3 == 0) {
+        assertThat(recovered.containsKey(key)).isFalse();
+      } else if (i % 3 == 1) {
+        assertThat(recovered.containsKey(key)).isTrue();
+        assertThat(recovered.get(key)).isNull();
+      } else {
+        assertThat(recovered.get(key)).isEqualTo(2 + padding);
+      }
+      assertThat(recoveredOther.get(key)).isEqualTo("other2");
+    }
+  }
+
+  @Test
+  public void krfRecordsAreReadInTheOrderTheyWereWritten() throws Exception {
+    Region<String, String> region = createRegion("region");
+    for (int i = 0; i < NUM_KEYS; i++) {
+      region.put("key" + i, "value" + i);
+    }
+    DiskStoreImpl diskStore = (DiskStoreImpl) this.cache.findDiskStore("store");
+    DiskRegion dr = ((LocalRegion) region).getDiskRegion();
+    Oplog oplog = diskStore.getPersistentOplogSet(dr).getChild(dr);
+    diskStore.forceRoll();
+    oplog.createKrf(false);
+
+    List<Oplog.KrfRecord> records = oplog.readKrfRecords();
+    assertThat(records).hasSize(NUM_KEYS);
+    long lastOffset = -1;
+    for (Oplog.KrfRecord record : records) {
+      assertThat(record.key).isInstanceOf(String.class);
+      assertThat(record.oplogOffset).isGreaterThan(lastOffset);
+      lastOffset = record.oplogOffset;
+    }
+  }
+
+  private Cache createCache() {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    Cache cache = new CacheFactory(props).create();
+    cache.createDiskStoreFactory().setDiskDirs(new File[] {this.diskDir}).setMaxOplogSize(1)
+        .setAutoCompact(false).create("store");
+    return cache;
+  }
+
+  private Region<String, String> createRegion(String name) {
+    return this.cache.<String, String>createRegionFactory(RegionShortcut.REPLICATE_PERSISTENT)
+        .setDiskStoreName("store").create(name);
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import com.jayway.awaitility.Awaitility;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.CacheLoader;
+import org.apache.geode.cache.CacheTransactionManager;
+import org.apache.geode.cache.ExpirationAction;
+import org.apache.geode.cache.ExpirationAttributes;
+import org.apache.geode.cache.LoaderHelper;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionFactory;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Checks that {@link LocalRegion#getForLongKey(long)} and {@link LocalRegion#getForIntKey(int)}
+ * behave like {@link LocalRegion#get(Object)}.
+ */
+@Category(IntegrationTest.class)
+public class LocalRegionGetForPrimitiveKeyIntegrationTest {
+
+  private GemFireCacheImpl cache;
+
+  @Before
+  public void setUp() {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    this.cache = (GemFireCacheImpl) new CacheFactory(props).create();
+  }
+
+  @After
+  public void tearDown() {
+    if (this.cache != null && !this.cache.isClosed()) {
+      this.cache.close();
+    }
+  }
+
+  @Test
+  public void hitUpdatesTheStatsLikeGet() {
+    LocalRegion region = (LocalRegion) this.cache.createRegionFactory(RegionShortcut.LOCAL)
+        .setStatisticsEnabled(true).create("region");
+    region.put(7L, "long");
+    region.put(8, "int");
+    CachePerfStats stats = region.getCachePerfStats();
+    int gets = stats.getGets();
+    int misses = stats.getMisses();
+
+    assertThat(region.getForLongKey(7L)).isEqualTo("long");
+    assertThat(region.getForIntKey(8)).isEqualTo("int");
+
+    assertThat(stats.getGets()).isEqualTo(gets + 2);
+    assertThat(stats.getMisses()).isEqualTo(misses);
+    assertThat(region.getEntry(7L).getStatistics().getHitCount()).isEqualTo(1);
+    assertThat(region.getEntry(8).getStatistics().getHitCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void missIsLoadedLikeGet() {
+    LocalRegion region = (LocalRegion) this.cache.createRegionFactory(RegionShortcut.LOCAL)
+        .setStatisticsEnabled(true).setCacheLoader(new KeyLoader()).create("region");
+    CachePerfStats stats = region.getCachePerfStats();
+    int misses = stats.getMisses();
+
+    assertThat(region.getForLongKey(7L)).isEqualTo("loaded 7");
+    assertThat(region.getForIntKey(8)).isEqualTo("loaded 8");
+
+    assertThat(stats.getMisses()).isEqualTo(misses + 2);
+    assertThat(region.get(7L)).isEqualTo("loaded 7");
+    assertThat(region.get(8)).isEqualTo("loaded 8");
+  }
+
+  @Test
+  public void invalidEntryIsLoadedLikeGet() {
+    LocalRegion region = (LocalRegion) this.cache.createRegionFactory(RegionShortcut.LOCAL)
+        .setCacheLoader(new KeyLoader()).create("region");
+    region.put(7L, "long");
+    region.invalidate(7L);
+
+    assertThat(region.getForLongKey(7L)).isEqualTo("loaded 7");
+  }
+
+  @Test
+  public void expiredEntryIsLoadedLikeGet() {
+    RegionFactory<Object, Object> factory = this.cache.createRegionFactory(RegionShortcut.LOCAL);
+    LocalRegion region = (LocalRegion) factory.setStatisticsEnabled(true)
+        .setEntryTimeToLive(new ExpirationAttributes(1, ExpirationAction.DESTROY))
+        .setCacheLoader(new KeyLoader()).create("region");
+    region.put(7L, "long");
+    region.put(8, "int");
+
+    Awaitility.await().atMost(30, TimeUnit.SECONDS).until(() -> region.isEmpty());
+    assertThat(region.getForLongKey(7L)).isEqualTo("loaded 7");
+    assertThat(region.getForIntKey(8)).isEqualTo("loaded 8");
+  }
+
+  @Test
+  public void transactionSeesItsOwnChanges() {
+    LocalRegion region =
+        (LocalRegion) this.cache.createRegionFactory(RegionShortcut.LOCAL).create("region");
+    region.put(7L, "committed");
+    region.put(8, "committed");
+    CacheTransactionManager txManager = this.cache.getCacheTransactionManager();
+    txManager.begin();
+    try {
+      region.put(7L, "tx");
+      region.put(8, "tx");
+      assertThat(region.getForLongKey(7L)).isEqualTo("tx");
+      assertThat(region.getForIntKey(8)).isEqualTo("tx");
+    } finally {
+      txManager.rollback();
+    }
+    assertThat(region.getForLongKey(7L)).isEqualTo("committed");
+    assertThat(region.getForIntKey(8)).isEqualTo("committed");
+  }
+
+  @Test
+  public void keyConstraintMismatchIsRejectedLikeGet() {
+    LocalRegion longRegion = (LocalRegion) this.cache
+        .<Long, Object>createRegionFactory(RegionShortcut.LOCAL).setKeyConstraint(Long.class)
+        .create("longRegion");
+    LocalRegion stringRegion = (LocalRegion) this.cache
+        .<String, Object>createRegionFactory(RegionShortcut.LOCAL).setKeyConstraint(String.class)
+        .create("stringRegion");
+    longRegion.put(7L, "long");
+
+    assertThat(longRegion.getForLongKey(7L)).isEqualTo("long");
+    assertThatThrownBy(() -> longRegion.getForIntKey(7)).isInstanceOf(ClassCastException.class);
+    assertThatThrownBy(() -> stringRegion.getForLongKey(7L))
+        .isInstanceOf(ClassCastException.class);
+  }
+
+  @Test
+  public void partitionedRegionIsReadThroughGet() {
+    Region<Object, Object> region =
+        this.cache.createRegionFactory(RegionShortcut.PARTITION).create("region");
+    for (int i = 0; i < 100; i++) {
+      region.put((long) i, "long " + i);
+      region.put(i, "int " + i);
+    }
+    PartitionedRegion pr = (PartitionedRegion) region;
+    for (int i = 0; i < 100; i++) {
+      assertThat(pr.getForLongKey(i)).isEqualTo("long " + i);
+      assertThat(pr.getForIntKey(i)).isEqualTo("int " + i);
+    }
+    assertThat(pr.getForLongKey(100)).isNull();
+  }
+
+  private static class KeyLoader implements CacheLoader<Object, Object> {
+    @Override
+    public Object load(LoaderHelper<Object, Object> helper) {
+      return "loaded " + helper.getKey();
+    }
+
+    @Override
+    public void close() {}
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.apache.geode.distributed.ConfigurationProperties.ENABLE_TIME_STATISTICS;
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.Statistics;
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.EvictionAction;
+import org.apache.geode.cache.EvictionAttributes;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.distributed.internal.DistributionStats;
+import org.apache.geode.distributed.internal.InternalDistributedSystem;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class MappedCrfIntegrationTest {
+
+  private static final int NUM_KEYS = 3000;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Cache cache;
+
+  private File diskDir;
+
+  private String padding;
+
+  @Before
+  public void setUp() throws Exception {
+    MappedCrf.MMAP_READS = true;
+    this.diskDir = this.temporaryFolder.newFolder();
+    this.cache = createCache();
+    char[] chars = new char[1000];
+    Arrays.fill(chars, 'x');
+    this.padding = new String(chars);
+  }
+
+  @After
+  public void tearDown() {
+    MappedCrf.MMAP_READS =
+        Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "disk.mmapReads");
+    DistributionStats.enableClockStats = false;
+    System.clearProperty(DiskStoreImpl.RECOVER_VALUE_PROPERTY_NAME);
+    if (this.cache != null && !this.cache.isClosed()) {
+      this.cache.close();
+    }
+  }
+
+  @Test
+  public void overflowedValuesAreReadFromTheMappedCrfs() throws Exception {
+    Region<Integer, String> region = createRegion(RegionShortcut.LOCAL);
+    for (int i = 0; i < NUM_KEYS; i++) {
+      region.put(i, i + this.padding);
+    }
+    DiskStoreStats stats = getStats();
+    long seeks = getOplogSeeks(stats);
+    // the first oplog is full, so its values are read without seeking
+    for (int i = 0; i < NUM_KEYS / 4; i++) {
+      assertThat(region.get(i)).isEqualTo(i + this.padding);
+    }
+    assertThat(getOplogSeeks(stats)).isEqualTo(seeks);
+    for (int i = 0; i < NUM_KEYS; i++) {
+      assertThat(region.get(i)).isEqualTo(i + this.padding);
+    }
+  }
+
+  @Test
+  public void recoveredValuesAreReadFromTheMappedCrfs() throws Exception {
+    Region<Integer, String> region = createRegion(RegionShortcut.LOCAL_PERSISTENT);
+    for (int i = 0; i < NUM_KEYS; i++) {
+      region.put(i, i + this.padding);
+    }
+    this.cache.close();
+
+    // fault the values in from the recovered oplogs
+    System.setProperty(DiskStoreImpl.RECOVER_VALUE_PROPERTY_NAME, "false");
+    this.cache = createCache();
+    Region<Integer, String> recovered = createRegion(RegionShortcut.LOCAL_PERSISTENT);
+    long seeks = getOplogSeeks(getStats());
+    for (int i = 0; i < NUM_KEYS; i++) {
+      assertThat(recovered.get(i)).isEqualTo(i + this.padding);
+    }
+    assertThat(getOplogSeeks(getStats())).isEqualTo(seeks);
+  }
+
+  @Test
+  public void faultLatenciesAreRecordedInTheHistogram() throws Exception {
+    Region<Integer, String> region = createRegion(RegionShortcut.LOCAL);
+    for (int i = 0; i < NUM_KEYS; i++) {
+      region.put(i, i + this.padding);
+    }
+    DiskStoreStats stats = getStats();
+    long reads = stats.getReads();
+    for (int i = 0; i < NUM_KEYS; i++) {
+      region.get(i);
+    }
+    Statistics[] histograms = ((InternalDistributedSystem) this.cache.getDistributedSystem())
+        .findStatisticsByTextId("storeFaultLatency");
+    assertThat(histograms).hasSize(1);
+    long faults = 0;
+    for (String bucket : new String[] {"ForLTE10000", "ForLTE100000", "ForLTE1000000",
+        "ForLTE10000000", "ForLTE100000000", "ForGT100000000"}) {
+      faults += histograms[0].getInt("BucketCount" + bucket);
+    }
+    assertThat(faults).isEqualTo(stats.getReads() - reads).isGreaterThan(0);
+  }
+
+  private Cache createCache() {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    props.setProperty(ENABLE_TIME_STATISTICS, "true");
+    Cache cache = new CacheFactory(props).create();
+    cache.createDiskStoreFactory().setDiskDirs(new File[] {this.diskDir}).setMaxOplogSize(1)
+        .setAutoCompact(false).create("store");
+    return cache;
+  }
+
+  private Region<Integer, String> createRegion(RegionShortcut shortcut) {
+    return this.cache.<Integer, String>createRegionFactory(shortcut).setDiskStoreName("store")
+        .setEvictionAttributes(
+            EvictionAttributes.createLRUEntryAttributes(1, EvictionAction.OVERFLOW_TO_DISK))
+        .create("region");
+  }
+
+  private DiskStoreStats getStats() {
+    return ((DiskStoreImpl) this.cache.findDiskStore("store")).getStats();
+  }
+
+  private long getOplogSeeks(DiskStoreStats stats) {
+    return stats.getStats().getLong("oplogSeeks");
+  }
+}
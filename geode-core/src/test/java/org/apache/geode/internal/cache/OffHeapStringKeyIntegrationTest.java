@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.apache.geode.distributed.ConfigurationProperties.OFF_HEAP_MEMORY_SIZE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.internal.offheap.MemoryAllocatorImpl;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Checks that the off-heap memory of string keys kept off heap is freed once their entries are
+ * gone.
+ */
+@Category(IntegrationTest.class)
+public class OffHeapStringKeyIntegrationTest {
+
+  private static final int NUM_THREADS = 4;
+
+  private GemFireCacheImpl cache;
+
+  private boolean offHeapStringKeys;
+
+  @Before
+  public void setUp() {
+    this.offHeapStringKeys = InlineKeyHelper.OFF_HEAP_STRING_KEYS;
+    InlineKeyHelper.OFF_HEAP_STRING_KEYS = true;
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    props.setProperty(OFF_HEAP_MEMORY_SIZE, "4m");
+    this.cache = (GemFireCacheImpl) new CacheFactory(props).create();
+  }
+
+  @After
+  public void tearDown() {
+    InlineKeyHelper.OFF_HEAP_STRING_KEYS = this.offHeapStringKeys;
+    if (this.cache != null && !this.cache.isClosed()) {
+      this.cache.close();
+    }
+  }
+
+  @Test
+  public void keysAreFreedWhenEntriesAreDestroyed() {
+    Region<String, String> region = createRegion(false);
+    for (int i = 0; i < 20000; i++) {
+      String key = key(i);
+      region.put(key, "value");
+      assertThat(region.getEntry(key).getKey()).isEqualTo(key);
+      region.destroy(key);
+    }
+    assertThat(region).isEmpty();
+    assertThat(getUsedMemory()).isEqualTo(0);
+  }
+
+  @Test
+  public void keyIsFreedWhenTheEntryIsRemovedFromTheMap() {
+    Region<String, String> region = createRegion(false);
+    String key = key(0);
+    region.put(key, "value");
+    AbstractRegionEntry re = (AbstractRegionEntry) ((LocalRegion) region).getRegionEntry(key);
+    assertThat(((OffHeapKeyRegionEntry) re).getKeyAddress()).isNotEqualTo(0L);
+    assertThat(re.isKeyEqual(key)).isTrue();
+
+    region.destroy(key);
+    assertThat(((OffHeapKeyRegionEntry) re).getKeyAddress()).isEqualTo(0L);
+    assertThat(re.getKey()).isNull();
+    assertThat(re.isKeyEqual(key)).isFalse();
+    assertThat(getUsedMemory()).isEqualTo(0);
+  }
+
+  @Test
+  public void keysOfEntriesThatLoseACreateRaceAreFreed() throws Exception {
+    final Region<String, String> region = createRegion(false);
+    final CyclicBarrier barrier = new CyclicBarrier(NUM_THREADS);
+    ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < NUM_THREADS; t++) {
+        final int thread = t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 2000; i++) {
+            if (i % 100 == 0) {
+              barrier.await();
+            }
+            if (thread % 2 == 0) {
+              region.putIfAbsent(key(i), "value" + thread);
+            } else {
+              region.put(key(i), "value" + thread);
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(region).hasSize(2000);
+    for (int i = 0; i < 2000; i++) {
+      region.destroy(key(i));
+    }
+    assertThat(getUsedMemory()).isEqualTo(0);
+  }
+
+  @Test
+  public void keysOfTombstonesAreFreedWhenTheTombstonesAreCollected() throws Exception {
+    Region<String, String> region = createRegion(true);
+    for (int i = 0; i < 100; i++) {
+      region.put(key(i), "value");
+      region.destroy(key(i));
+    }
+    assertThat(getUsedMemory()).isGreaterThan(0);
+    assertThat(this.cache.getTombstoneService().forceBatchExpirationForTests(100)).isTrue();
+    assertThat(getUsedMemory()).isEqualTo(0);
+  }
+
+  private Region<String, String> createRegion(boolean concurrencyChecks) {
+    return this.cache.<String, String>createRegionFactory(RegionShortcut.REPLICATE)
+        .setOffHeap(true).setConcurrencyChecksEnabled(concurrencyChecks).create("region");
+  }
+
+  private static String key(int i) {
+    // too long to be inlined in the region entry
+    return "a key that is too long to be inlined " + i;
+  }
+
+  private static long getUsedMemory() {
+    return MemoryAllocatorImpl.getAllocator().getUsedMemory();
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.EvictionAction;
+import org.apache.geode.cache.EvictionAttributes;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class OplogGroupCommitIntegrationTest {
+
+  private static final int NUM_THREADS = 8;
+
+  private static final int NUM_KEYS = 500;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Cache cache;
+
+  private File diskDir;
+
+  @Before
+  public void setUp() throws Exception {
+    OplogGroupCommitter.GROUP_COMMIT = true;
+    this.diskDir = this.temporaryFolder.newFolder();
+    this.cache = createCache();
+  }
+
+  @After
+  public void tearDown() {
+    OplogGroupCommitter.GROUP_COMMIT =
+        Boolean.getBoolean(DistributionConfig.GEMFIRE_PREFIX + "disk.groupCommit");
+    if (this.cache != null && !this.cache.isClosed()) {
+      this.cache.close();
+    }
+  }
+
+  @Test
+  public void concurrentWritesAreCommittedAndRecovered() throws Exception {
+    final Region<String, String> region = createRegion();
+    ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+    try {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (int t = 0; t < NUM_THREADS; t++) {
+        final int thread = t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < NUM_KEYS; i++) {
+            String key = thread + "-" + i;
+            region.put(key, "created");
+            region.put(key, "modified");
+            if (i % 2 == 0) {
+              region.destroy(key);
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    DiskStoreStats stats = ((DiskStoreImpl) this.cache.findDiskStore("store")).getStats();
+    // every create, modify and destroy waited for its record to be committed
+    assertThat(stats.getGroupCommittedWrites()).isEqualTo(NUM_THREADS * NUM_KEYS * 5 / 2);
+    assertThat(stats.getGroupCommits()).isGreaterThan(0)
+        .isLessThanOrEqualTo(stats.getGroupCommittedWrites());
+
+    this.cache.close();
+    this.cache = createCache();
+    Region<String, String> recovered = createRegion();
+    assertThat(recovered).hasSize(NUM_THREADS * NUM_KEYS / 2);
+    for (int t = 0; t < NUM_THREADS; t++) {
+      for (int i = 0; i < NUM_KEYS; i++) {
+        assertThat(recovered.get(t + "-" + i)).isEqualTo(i % 2 == 0 ? null : "modified");
+      }
+    }
+  }
+
+  /**
+   * Commits write the swapped write buffers without the oplog lock while other threads append
+   * records larger than the write buffer, which are flushed under the lock, and fault values in
+   * from the oplog, which waits for the records of a commit to be written.
+   */
+  @Test
+  public void valuesAreReadAndRecoveredWhileCommitsWriteOutsideTheLock() throws Exception {
+    final Region<String, byte[]> region = createOverflowRegion();
+    ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+    try {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (int t = 0; t < NUM_THREADS; t++) {
+        final int thread = t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < NUM_KEYS / 10; i++) {
+            String key = thread + "-" + i;
+            byte[] value = createValue(thread, i);
+            region.put(key, value);
+            assertThat(region.get(key)).isEqualTo(value);
+            assertThat(region.get(thread + "-0")).isEqualTo(createValue(thread, 0));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    this.cache.close();
+    this.cache = createCache();
+    Region<String, byte[]> recovered = createOverflowRegion();
+    assertThat(recovered).hasSize(NUM_THREADS * NUM_KEYS / 10);
+    for (int t = 0; t < NUM_THREADS; t++) {
+      for (int i = 0; i < NUM_KEYS / 10; i++) {
+        assertThat(recovered.get(t + "-" + i)).isEqualTo(createValue(t, i));
+      }
+    }
+  }
+
+  /** Every third value is larger than the write buffer of an oplog */
+  private byte[] createValue(int thread, int i) {
+    byte[] value = new byte[i % 3 == 0 ? 40000 : 100 + i];
+    Arrays.fill(value, (byte) (thread * 31 + i));
+    return value;
+  }
+
+  @Test
+  public void asynchronousWritesAreNotGroupCommitted() throws Exception {
+    Region<String, String> region =
+        this.cache.<String, String>createRegionFactory(RegionShortcut.REPLICATE_PERSISTENT)
+            .setDiskStoreName("store").setDiskSynchronous(false).create("region");
+    for (int i = 0; i < NUM_KEYS; i++) {
+      region.put("key" + i, "value");
+    }
+    DiskStoreStats stats = ((DiskStoreImpl) this.cache.findDiskStore("store")).getStats();
+    assertThat(stats.getGroupCommittedWrites()).isEqualTo(0);
+  }
+
+  private Cache createCache() {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    Cache cache = new CacheFactory(props).create();
+    cache.createDiskStoreFactory().setDiskDirs(new File[] {this.diskDir}).create("store");
+    return cache;
+  }
+
+  private Region<String, String> createRegion() {
+    return this.cache.<String, String>createRegionFactory(RegionShortcut.REPLICATE_PERSISTENT)
+        .setDiskStoreName("store").create("region");
+  }
+
+  /** Keeps a single value in memory so the others are faulted in from the oplogs */
+  private Region<String, byte[]> createOverflowRegion() {
+    return this.cache.<String, byte[]>createRegionFactory(RegionShortcut.REPLICATE_PERSISTENT)
+        .setDiskStoreName("store")
+        .setEvictionAttributes(
+            EvictionAttributes.createLRUEntryAttributes(1, EvictionAction.OVERFLOW_TO_DISK))
+        .create("region");
+  }
+}
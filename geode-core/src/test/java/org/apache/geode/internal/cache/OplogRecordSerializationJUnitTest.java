@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.cache.Scope;
+import org.apache.geode.internal.cache.DiskEntry.Helper.ValueWrapper;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Checks that the key and versions of an oplog record serialized before taking the oplog lock are
+ * the same bytes as when they are serialized while holding it.
+ */
+@Category(IntegrationTest.class)
+public class OplogRecordSerializationJUnitTest extends DiskRegionTestingBase {
+
+  private final DiskRegionProperties diskProps = new DiskRegionProperties();
+
+  @Override
+  protected final void postSetUp() throws Exception {
+    diskProps.setDiskDirs(dirs);
+    region =
+        DiskRegionHelperFactory.getSyncPersistOnlyRegion(cache, diskProps, Scope.DISTRIBUTED_ACK);
+  }
+
+  @Test
+  public void createRecordOfStringKey() throws Exception {
+    region.put("key", "value");
+    assertSameRecord("key", true);
+  }
+
+  @Test
+  public void createRecordOfObjectKey() throws Exception {
+    Long key = Long.valueOf(Long.MAX_VALUE);
+    region.put(key, new byte[] {1, 2, 3});
+    assertSameRecord(key, true);
+  }
+
+  @Test
+  public void modifyRecord() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      region.put("key", "value" + i);
+    }
+    assertSameRecord("key", false);
+  }
+
+  @Test
+  public void modifyRecordOfTombstone() throws Exception {
+    region.put("key", "value");
+    region.destroy("key");
+    RegionEntry entry = ((LocalRegion) region).getRegionEntry("key");
+    assertTrue(entry.isTombstone());
+    assertSameRecord("key", false);
+  }
+
+  private void assertSameRecord(Object key, boolean create) throws Exception {
+    LocalRegion lr = (LocalRegion) region;
+    DiskEntry entry = (DiskEntry) lr.getRegionEntry(key);
+    assertNotNull(entry.getVersionStamp());
+    ValueWrapper value = DiskEntry.Helper.createValueWrapper(entry._getValue(), null);
+    DiskRegion dr = lr.getDiskRegion();
+    Oplog oplog = dr.testHook_getChild();
+
+    byte[][] underLock = oplog.testHook_getRecordKeyAndVersions(dr, entry, value, create, false);
+    byte[][] beforeLock = oplog.testHook_getRecordKeyAndVersions(dr, entry, value, create, true);
+
+    if (create) {
+      assertNotNull(beforeLock[0]);
+    }
+    assertArrayEquals(underLock[0], beforeLock[0]);
+    assertNotNull(beforeLock[1]);
+    assertArrayEquals(underLock[1], beforeLock[1]);
+  }
+}
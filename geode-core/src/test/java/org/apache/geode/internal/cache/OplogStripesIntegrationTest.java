@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache;
+
+import static org.apache.geode.distributed.ConfigurationProperties.LOCATORS;
+import static org.apache.geode.distributed.ConfigurationProperties.MCAST_PORT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import org.apache.geode.cache.Cache;
+import org.apache.geode.cache.CacheFactory;
+import org.apache.geode.cache.PartitionAttributesFactory;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionShortcut;
+import org.apache.geode.distributed.internal.DistributionConfig;
+import org.apache.geode.test.junit.categories.IntegrationTest;
+
+/**
+ * Writes the regions of a disk store to several active oplogs and recovers them, also with a
+ * different number of stripes.
+ */
+@Category(IntegrationTest.class)
+public class OplogStripesIntegrationTest {
+
+  private static final int NUM_STRIPES = 4;
+
+  private static final int NUM_REGIONS = 8;
+
+  private static final int NUM_KEYS = 200;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Cache cache;
+
+  private File[] diskDirs;
+
+  @Before
+  public void setUp() throws Exception {
+    PersistentOplogSet.OPLOG_STRIPES = NUM_STRIPES;
+    this.diskDirs = new File[] {this.temporaryFolder.newFolder(), this.temporaryFolder.newFolder()};
+    this.cache = createCache();
+  }
+
+  @After
+  public void tearDown() {
+    PersistentOplogSet.OPLOG_STRIPES = Math.max(1,
+        Integer.getInteger(DistributionConfig.GEMFIRE_PREFIX + "disk.oplogStripes", 1).intValue());
+    if (this.cache != null && !this.cache.isClosed()) {
+      this.cache.close();
+    }
+  }
+
+  @Test
+  public void regionsWriteToTheChildOfTheirStripe() throws Exception {
+    Set<Oplog> children = new HashSet<Oplog>();
+    Set<Long> oplogIds = new HashSet<Long>();
+    for (int r = 0; r < NUM_REGIONS; r++) {
+      Region<String, String> region = createRegion("region" + r);
+      region.put("key", "value");
+      PersistentOplogSet oplogSet = getDiskStore().persistentOplogs;
+      assertThat(oplogSet.getChildren()).hasSize(NUM_STRIPES);
+      DiskRegion dr = ((LocalRegion) region).getDiskRegion();
+      Oplog child = dr.testHook_getChild();
+      assertThat(child.getStripe()).isEqualTo(oplogSet.getStripe(dr.getId()));
+      DiskEntry entry = (DiskEntry) ((LocalRegion) region).getRegionEntry("key");
+      assertThat(entry.getDiskId().getOplogId()).isEqualTo(child.getOplogId());
+      children.add(child);
+      oplogIds.add(child.getOplogId());
+    }
+    assertThat(children).hasSize(NUM_STRIPES);
+    assertThat(oplogIds).hasSize(NUM_STRIPES);
+  }
+
+  @Test
+  public void rollingAStripeGivesItTheNextOplogId() throws Exception {
+    Region<String, String> region = createRegion("region");
+    region.put("key", "value");
+    DiskRegion dr = ((LocalRegion) region).getDiskRegion();
+    PersistentOplogSet oplogSet = getDiskStore().persistentOplogs;
+    long maxId = 0;
+    for (Oplog child : oplogSet.getChildren()) {
+      maxId = Math.max(maxId, child.getOplogId());
+    }
+
+    dr.testHook_getChild().forceRolling(dr);
+
+    assertThat(dr.testHook_getChild().getOplogId()).isEqualTo(maxId + 1);
+    assertThat(oplogSet.getChildren()).hasSize(NUM_STRIPES);
+  }
+
+  @Test
+  public void stripedOplogsAreRecovered() throws Exception {
+    Map<String, Long> versions = writeRegions();
+
+    this.cache.close();
+    this.cache = createCache();
+    verifyRegions(versions);
+  }
+
+  @Test
+  public void stripedOplogsAreRecoveredWithADifferentNumberOfStripes() throws Exception {
+    Map<String, Long> versions = writeRegions();
+
+    this.cache.close();
+    PersistentOplogSet.OPLOG_STRIPES = 1;
+    this.cache = createCache();
+    versions = verifyRegions(versions);
+
+    for (int r = 0; r < NUM_REGIONS; r++) {
+      this.cache.<String, String>getRegion("region" + r).put("key0", "updated");
+    }
+    this.cache.close();
+    PersistentOplogSet.OPLOG_STRIPES = 3;
+    this.cache = createCache();
+    for (int r = 0; r < NUM_REGIONS; r++) {
+      Region<String, String> region = createRegion("region" + r);
+      assertThat(region.get("key0")).isEqualTo("updated");
+      assertThat(region.get("key1")).isEqualTo(r == 1 ? "recreated" : "modified");
+      assertThat(getRegionVersion(region)).isEqualTo(versions.get(region.getName()) + 1);
+    }
+  }
+
+  @Test
+  public void compactedStripesAreRecovered() throws Exception {
+    Map<String, Long> versions = writeRegions();
+    for (int r = 0; r < NUM_REGIONS; r++) {
+      Region<String, String> region = this.cache.getRegion("region" + r);
+      for (int i = 0; i < NUM_KEYS; i += 2) {
+        region.destroy("key" + i);
+        region.put("key" + i, "recreated");
+      }
+      versions.put(region.getName(), getRegionVersion(region));
+    }
+    getDiskStore().forceRoll();
+    assertThat(getDiskStore().forceCompaction()).isTrue();
+
+    this.cache.close();
+    this.cache = createCache();
+    for (int r = 0; r < NUM_REGIONS; r++) {
+      Region<String, String> region = createRegion("region" + r);
+      assertThat(region).hasSize(NUM_KEYS);
+      for (int i = 0; i < NUM_KEYS; i++) {
+        assertThat(region.get("key" + i))
+            .isEqualTo(i % 2 == 0 || i == r ? "recreated" : "modified");
+      }
+      assertThat(getRegionVersion(region)).isEqualTo(versions.get(region.getName()));
+    }
+  }
+
+  @Test
+  public void bucketsAreStripedAndRecovered() throws Exception {
+    Region<Integer, String> region = createPartitionedRegion();
+    for (int i = 0; i < NUM_KEYS; i++) {
+      region.put(i, "value" + i);
+    }
+    Set<Oplog> children = new HashSet<Oplog>();
+    for (BucketRegion bucket : ((PartitionedRegion) region).getDataStore()
+        .getAllLocalBucketRegions()) {
+      children.add(bucket.getDiskRegion().testHook_getChild());
+    }
+    assertThat(children).hasSize(NUM_STRIPES);
+
+    this.cache.close();
+    this.cache = createCache();
+    region = createPartitionedRegion();
+    assertThat(region).hasSize(NUM_KEYS);
+    for (int i = 0; i < NUM_KEYS; i++) {
+      assertThat(region.get(i)).isEqualTo("value" + i);
+    }
+  }
+
+  /**
+   * Creates, modifies and destroys entries in several regions, rolling the oplogs in between, and
+   * returns the version of each region.
+   */
+  private Map<String, Long> writeRegions() {
+    for (int r = 0; r < NUM_REGIONS; r++) {
+      Region<String, String> region = createRegion("region" + r);
+      for (int i = 0; i < NUM_KEYS; i++) {
+        region.put("key" + i, "created");
+      }
+    }
+    getDiskStore().forceRoll();
+    Map<String, Long> versions = new HashMap<String, Long>();
+    for (int r = 0; r < NUM_REGIONS; r++) {
+      Region<String, String> region = this.cache.getRegion("region" + r);
+      for (int i = 0; i < NUM_KEYS; i++) {
+        region.put("key" + i, "modified");
+      }
+      region.destroy("key" + r);
+      region.put("key" + r, "recreated");
+      versions.put(region.getName(), getRegionVersion(region));
+    }
+    return versions;
+  }
+
+  private Map<String, Long> verifyRegions(Map<String, Long> versions) {
+    Map<String, Long> recovered = new HashMap<String, Long>();
+    for (int r = 0; r < NUM_REGIONS; r++) {
+      Region<String, String> region = createRegion("region" + r);
+      assertThat(region).hasSize(NUM_KEYS);
+      for (int i = 0; i < NUM_KEYS; i++) {
+        assertThat(region.get("key" + i)).isEqualTo(i == r ? "recreated" : "modified");
+      }
+      assertThat(getRegionVersion(region)).isEqualTo(versions.get(region.getName()));
+      recovered.put(region.getName(), getRegionVersion(region));
+    }
+    return recovered;
+  }
+
+  private long getRegionVersion(Region<?, ?> region) {
+    return ((LocalRegion) region).getVersionVector().getCurrentVersion();
+  }
+
+  private DiskStoreImpl getDiskStore() {
+    return (DiskStoreImpl) this.cache.findDiskStore("store");
+  }
+
+  private Cache createCache() {
+    Properties props = new Properties();
+    props.setProperty(MCAST_PORT, "0");
+    props.setProperty(LOCATORS, "");
+    Cache cache = new CacheFactory(props).create();
+    cache.createDiskStoreFactory().setDiskDirs(this.diskDirs).setMaxOplogSize(1)
+        .setAllowForceCompaction(true).setAutoCompact(false).create("store");
+    return cache;
+  }
+
+  private Region<String, String> createRegion(String name) {
+    return this.cache.<String, String>createRegionFactory(RegionShortcut.REPLICATE_PERSISTENT)
+        .setDiskStoreName("store").create(name);
+  }
+
+  private Region<Integer, String> createPartitionedRegion() {
+    return this.cache.<Integer, String>createRegionFactory(RegionShortcut.PARTITION_PERSISTENT)
+        .setDiskStoreName("store")
+        .setPartitionAttributes(
+            new PartitionAttributesFactory<Integer, String>().setTotalNumBuckets(8).create())
+        .create("partitioned");
+  }
+}
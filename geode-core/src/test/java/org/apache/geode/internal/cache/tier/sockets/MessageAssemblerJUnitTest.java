@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.cache.tier.sockets;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.util.concurrent.Semaphore;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.internal.cache.tier.MessageType;
+import org.apache.geode.test.junit.categories.ClientServerTest;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category({UnitTest.class, ClientServerTest.class})
+public class MessageAssemblerJUnitTest {
+
+  private Pipe pipe;
+  private MessageAssembler assembler;
+
+  @Before
+  public void setUp() throws Exception {
+    pipe = Pipe.open();
+    pipe.source().configureBlocking(false);
+    assembler = new MessageAssembler();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    pipe.sink().close();
+    pipe.source().close();
+    MessageAssembler.emptyBufferPool();
+  }
+
+  private static ByteBuffer message(int payloadLength) {
+    ByteBuffer bb = ByteBuffer.allocate(Message.FIXED_LENGTH + payloadLength);
+    bb.putInt(MessageType.PING);
+    bb.putInt(payloadLength);
+    bb.putInt(0);
+    bb.putInt(0);
+    bb.put((byte) 0);
+    for (int i = 0; i < payloadLength; i++) {
+      bb.put((byte) i);
+    }
+    bb.flip();
+    return bb;
+  }
+
+  private void write(ByteBuffer bb, int count) throws Exception {
+    int oldLimit = bb.limit();
+    bb.limit(bb.position() + count);
+    while (bb.hasRemaining()) {
+      pipe.sink().write(bb);
+    }
+    bb.limit(oldLimit);
+  }
+
+  @Test
+  public void notReadyUntilWholeMessageArrives() throws Exception {
+    ByteBuffer msg = message(100);
+    assertFalse(assembler.assemble(pipe.source()));
+
+    write(msg, 10);
+    assertFalse(assembler.assemble(pipe.source()));
+
+    write(msg, Message.FIXED_LENGTH);
+    assertFalse(assembler.assemble(pipe.source()));
+    assertEquals(Message.FIXED_LENGTH + 10, assembler.getAssembledBytes());
+
+    write(msg, msg.remaining());
+    assertTrue(assembler.assemble(pipe.source()));
+  }
+
+  @Test
+  public void readReturnsAssembledBytesThenReadsChannel() throws Exception {
+    ByteBuffer msg = message(50);
+    write(msg, msg.remaining());
+    assertTrue(assembler.assemble(pipe.source()));
+    pipe.sink().write(ByteBuffer.wrap(new byte[] {42}));
+
+    assembler.dispatch();
+    ByteBuffer dst = ByteBuffer.allocate(Message.FIXED_LENGTH + 50);
+    while (dst.hasRemaining()) {
+      assertTrue(assembler.read(pipe.source(), dst) > 0);
+    }
+    dst.flip();
+    assertEquals(message(50), dst);
+
+    ByteBuffer next = ByteBuffer.allocate(1);
+    assertEquals(1, assembler.read(pipe.source(), next));
+    assertEquals(42, next.get(0));
+  }
+
+  @Test
+  public void largeMessageIsDispatchedOnceHeaderArrives() throws Exception {
+    ByteBuffer msg = message(MessageAssembler.MAX_ASSEMBLED_SIZE + 1);
+    write(msg, Message.FIXED_LENGTH);
+    assertTrue(assembler.assemble(pipe.source()));
+    assertEquals(Message.FIXED_LENGTH, assembler.getAssembledBytes());
+  }
+
+  @Test
+  public void endOfStreamIsReportedAfterAssembledBytes() throws Exception {
+    ByteBuffer msg = message(20);
+    write(msg, 5);
+    pipe.sink().close();
+    assertTrue(assembler.assemble(pipe.source()));
+
+    assembler.dispatch();
+    ByteBuffer dst = ByteBuffer.allocate(Message.FIXED_LENGTH);
+    assertEquals(5, assembler.read(pipe.source(), dst));
+    assertEquals(-1, assembler.read(pipe.source(), dst));
+  }
+
+  @Test
+  public void resetAllowsNextMessageToBeAssembled() throws Exception {
+    ByteBuffer msg = message(10);
+    write(msg, msg.remaining());
+    assertTrue(assembler.assemble(pipe.source()));
+    assembler.dispatch();
+    assembler.reset();
+    assertEquals(0, assembler.getAssembledBytes());
+
+    msg = message(30);
+    write(msg, msg.remaining());
+    assertTrue(assembler.assemble(pipe.source()));
+    assertEquals(Message.FIXED_LENGTH + 30, assembler.getAssembledBytes());
+  }
+
+  @Test
+  public void messageLongerThanMaxMessageLengthIsNotAssembled() throws Exception {
+    assembler = new MessageAssembler(new Semaphore(1 << 20), null, null, 100);
+    ByteBuffer msg = message(101);
+    write(msg, msg.remaining());
+    assertTrue(assembler.assemble(pipe.source()));
+    assertEquals(Message.FIXED_LENGTH, assembler.getAssembledBytes());
+  }
+
+  @Test
+  public void messageIsNotAssembledOnceTotalSizeIsReached() throws Exception {
+    Semaphore assembledBytes = new Semaphore(1024);
+    MessageAssembler first = new MessageAssembler(assembledBytes, null, null, 0);
+    ByteBuffer msg = message(100);
+    write(msg, msg.remaining());
+    assertTrue(first.assemble(pipe.source()));
+    assertEquals(0, assembledBytes.availablePermits());
+
+    assembler = new MessageAssembler(assembledBytes, null, null, 0);
+    write(message(100), Message.FIXED_LENGTH);
+    assertTrue(assembler.assemble(pipe.source()));
+    assertEquals(Message.FIXED_LENGTH, assembler.getAssembledBytes());
+
+    first.dispatch();
+    first.reset();
+    assertEquals(1024, assembledBytes.availablePermits());
+  }
+
+  @Test
+  public void messageIsNotAssembledWithoutLimiterPermits() throws Exception {
+    Semaphore assembledBytes = new Semaphore(1 << 20);
+    Semaphore msgLimiter = new Semaphore(1);
+    Semaphore dataLimiter = new Semaphore(150);
+    assembler = new MessageAssembler(assembledBytes, msgLimiter, dataLimiter, 0);
+    ByteBuffer msg = message(200);
+    write(msg, msg.remaining());
+    assertTrue(assembler.assemble(pipe.source()));
+    assertEquals(Message.FIXED_LENGTH, assembler.getAssembledBytes());
+    assertEquals(1, msgLimiter.availablePermits());
+    assertEquals(150, dataLimiter.availablePermits());
+    assertEquals(1 << 20, assembledBytes.availablePermits());
+  }
+
+  @Test
+  public void limiterPermitsAreReleasedOnResetUnlessTaken() throws Exception {
+    Semaphore msgLimiter = new Semaphore(1);
+    Semaphore dataLimiter = new Semaphore(100);
+    assembler = new MessageAssembler(new Semaphore(1 << 20), msgLimiter, dataLimiter, 0);
+    ByteBuffer msg = message(100);
+    write(msg, msg.remaining());
+    assertTrue(assembler.assemble(pipe.source()));
+    assertEquals(0, msgLimiter.availablePermits());
+    assertEquals(0, dataLimiter.availablePermits());
+    assertFalse("permits are only handed over once dispatched", assembler.takeLimiterPermits());
+
+    assembler.dispatch();
+    assembler.reset();
+    assertEquals(1, msgLimiter.availablePermits());
+    assertEquals(100, dataLimiter.availablePermits());
+
+    msg = message(100);
+    write(msg, msg.remaining());
+    assertTrue(assembler.assemble(pipe.source()));
+    assembler.dispatch();
+    assertTrue(assembler.takeLimiterPermits());
+    assertFalse(assembler.takeLimiterPermits());
+    assembler.reset();
+    // the message that took the permits releases them
+    assertEquals(0, msgLimiter.availablePermits());
+    assertEquals(0, dataLimiter.availablePermits());
+  }
+}
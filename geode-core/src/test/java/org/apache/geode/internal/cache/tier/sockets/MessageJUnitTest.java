@@ -17,8 +17,16 @@ package org.apache.geode.internal.cache.tier.sockets;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.geode.test.junit.categories.ClientServerTest;
 import org.junit.Before;
@@ -26,6 +34,8 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
 import org.apache.geode.internal.Version;
+import org.apache.geode.internal.cache.tier.MessageType;
+import org.apache.geode.internal.offheap.StoredObject;
 import org.apache.geode.test.junit.categories.UnitTest;
 
 @Category({UnitTest.class, ClientServerTest.class})
@@ -118,6 +128,103 @@ public class MessageJUnitTest {
     verify(mockPart1, times(2)).clear();
   }
 
+  @Test
+  public void correlationIdIsSentAndReceived() throws Exception {
+    Message sent = new Message(1, Version.CURRENT);
+    sent.setMessageType(MessageType.REQUEST);
+    sent.addStringPart("value");
+    sent.setCorrelationId(42);
+    Message received = roundTrip(sent, null);
+    assertEquals(42, received.getCorrelationId());
+    assertEquals(1, received.getNumberOfParts());
+    assertEquals("value", received.getPart(0).getString());
+  }
+
+  @Test
+  public void messageWithoutCorrelationIdHasNone() throws Exception {
+    Message sent = new Message(1, Version.CURRENT);
+    sent.setMessageType(MessageType.REQUEST);
+    sent.addStringPart("value");
+    Message received = roundTrip(sent, null);
+    assertEquals(Message.NO_CORRELATION_ID, received.getCorrelationId());
+    assertEquals("value", received.getPart(0).getString());
+  }
+
+  @Test
+  public void replyIsTaggedWithRequestCorrelationId() throws Exception {
+    when(mockServerConnection.getRequestCorrelationId()).thenReturn(7);
+    Message reply = new Message(1, Version.CURRENT);
+    reply.setMessageType(MessageType.REPLY);
+    reply.addStringPart("ok");
+    Message received = roundTrip(reply, mockServerConnection);
+    assertEquals(7, received.getCorrelationId());
+    assertEquals("ok", received.getPart(0).getString());
+  }
+
+  @Test
+  public void largeAndOffHeapPartsAreWrittenToChannel() throws Exception {
+    byte[] large = new byte[100000];
+    Arrays.fill(large, (byte) 7);
+    final byte[] offHeapBytes = new byte[5000];
+    Arrays.fill(offHeapBytes, (byte) 9);
+    StoredObject offHeap = mock(StoredObject.class);
+    when(offHeap.hasRefCount()).thenReturn(true);
+    when(offHeap.getDataSize()).thenReturn(offHeapBytes.length);
+    when(offHeap.createDirectByteBuffer()).thenAnswer(invocation -> {
+      ByteBuffer bb = ByteBuffer.allocateDirect(offHeapBytes.length);
+      bb.put(offHeapBytes);
+      bb.flip();
+      return bb;
+    });
+
+    try (ServerSocketChannel server = ServerSocketChannel.open()) {
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      try (SocketChannel sender = SocketChannel.open(server.getLocalAddress());
+          SocketChannel receiver = server.accept()) {
+        CompletableFuture<Message> received = CompletableFuture.supplyAsync(() -> {
+          Message msg = new Message(3, Version.CURRENT);
+          try {
+            msg.setComms(receiver.socket(), ByteBuffer.allocateDirect(1000), null);
+            msg.recv();
+          } catch (Exception e) {
+            throw new RuntimeException(e);
+          }
+          return msg;
+        });
+
+        Message sent = new Message(3, Version.CURRENT);
+        sent.setMessageType(MessageType.RESPONSE);
+        sent.setComms(sender.socket(), ByteBuffer.allocateDirect(1000), mockStats);
+        sent.addStringPart("first");
+        sent.addRawPart(large, false);
+        sent.addPartInAnyForm(offHeap, false);
+        sent.send();
+
+        Message msg = received.get();
+        assertEquals("first", msg.getPart(0).getString());
+        assertArrayEquals(large, msg.getPart(1).getSerializedForm());
+        assertArrayEquals(offHeapBytes, msg.getPart(2).getSerializedForm());
+        verify(offHeap, never()).getAddressForReadingData(anyInt(), anyInt());
+      }
+    }
+  }
+
+  private Message roundTrip(Message sent, ServerConnection sc) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Socket socket = mock(Socket.class);
+    if (sc != null) {
+      sent.setComms(sc, socket, ByteBuffer.allocate(1000), null);
+    }
+    sent.setComms(socket, null, out, ByteBuffer.allocate(1000), null);
+    sent.send();
+
+    Message received = new Message(1, Version.CURRENT);
+    received.setComms(socket, new ByteArrayInputStream(out.toByteArray()), null,
+        ByteBuffer.allocate(1000), null);
+    received.recv();
+    return received;
+  }
+
   // TODO many more tests are needed
 
 }
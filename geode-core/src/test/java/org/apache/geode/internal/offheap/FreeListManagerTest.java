@@ -451,6 +451,76 @@ public class FreeListManagerTest {
         .isEqualTo(originalFragment.getAddress() + (16 + 8));
   }
 
+  @Test
+  public void incrementalDefragmentationTurnsLargeRunIntoFragment() {
+    setUpSingleSlabManager();
+    int chunkSize = FreeListManager.MIN_COALESCED_FRAGMENT_SIZE / 2;
+    OffHeapStoredObject c1 = freeListManager.allocate(chunkSize - 8);
+    OffHeapStoredObject c2 = freeListManager.allocate(chunkSize - 8);
+    OffHeapStoredObject c3 = freeListManager.allocate(chunkSize - 8);
+    freeListManager.allocate(DEFAULT_SLAB_SIZE - (3 * chunkSize) - 8);
+    OffHeapStoredObject.release(c2.getAddress(), freeListManager);
+    OffHeapStoredObject.release(c3.getAddress(), freeListManager);
+    OffHeapStoredObject.release(c1.getAddress(), freeListManager);
+
+    assertThat(freeListManager.defragmentIncrementally(100)).isEqualTo(3 * chunkSize);
+
+    assertThat(freeListManager.getFreeTinyMemory()).isZero();
+    assertThat(freeListManager.getFragmentList()).hasSize(1);
+    Fragment fragment = freeListManager.getFragmentList().get(0);
+    assertThat(fragment.getAddress()).isEqualTo(c1.getAddress());
+    assertThat(fragment.getSize()).isEqualTo(3 * chunkSize);
+    verify(stats).endIncrementalDefragmentation(anyLong(), eq(3L * chunkSize));
+    verify(stats).setLargestFragment(3 * chunkSize);
+  }
+
+  @Test
+  public void incrementalDefragmentationPutsSmallRunOnFreeList() {
+    setUpSingleSlabManager();
+    OffHeapStoredObject c1 = freeListManager.allocate(24);
+    OffHeapStoredObject c2 = freeListManager.allocate(24);
+    freeListManager.allocate(DEFAULT_SLAB_SIZE - 64 - 8);
+    OffHeapStoredObject.release(c1.getAddress(), freeListManager);
+    OffHeapStoredObject.release(c2.getAddress(), freeListManager);
+
+    assertThat(freeListManager.defragmentIncrementally(100)).isEqualTo(64);
+
+    assertThat(freeListManager.getFragmentList()).isEmpty();
+    assertThat(freeListManager.getFreeTinyMemory()).isEqualTo(64);
+    OffHeapStoredObject c = freeListManager.allocate(64 - 8);
+    assertThat(c.getAddress()).isEqualTo(c1.getAddress());
+  }
+
+  @Test
+  public void incrementalDefragmentationLeavesChunksThatAreNotAdjacent() {
+    setUpSingleSlabManager();
+    OffHeapStoredObject c1 = freeListManager.allocate(24);
+    freeListManager.allocate(24);
+    OffHeapStoredObject c3 = freeListManager.allocate(24);
+    OffHeapStoredObject.release(c1.getAddress(), freeListManager);
+    OffHeapStoredObject.release(c3.getAddress(), freeListManager);
+
+    assertThat(freeListManager.defragmentIncrementally(100)).isZero();
+
+    assertThat(freeListManager.getFreeTinyMemory()).isEqualTo(64);
+    assertThat(freeListManager.getFragmentList()).hasSize(1);
+    verify(stats).endIncrementalDefragmentation(anyLong(), eq(0L));
+  }
+
+  @Test
+  public void incrementalDefragmentationTakesAtMostMaxChunks() {
+    setUpSingleSlabManager();
+    OffHeapStoredObject c1 = freeListManager.allocate(24);
+    OffHeapStoredObject c2 = freeListManager.allocate(24);
+    OffHeapStoredObject.release(c1.getAddress(), freeListManager);
+    OffHeapStoredObject.release(c2.getAddress(), freeListManager);
+
+    assertThat(freeListManager.defragmentIncrementally(1)).isZero();
+    assertThat(freeListManager.getFreeTinyMemory()).isEqualTo(64);
+    assertThat(freeListManager.defragmentIncrementally(2)).isEqualTo(64);
+    assertThat(freeListManager.getFreeTinyMemory()).isEqualTo(64);
+  }
+
   @Test
   public void allocationsThatLeaveLessThanMinChunkSizeFreeInAFragment() {
     int SMALL_SLAB = 16;
@@ -95,6 +95,29 @@ public class NullOffHeapMemoryStats implements OffHeapMemoryStats {
   @Override
   public void endDefragmentation(long start) {}
 
+  @Override
+  public long startIncrementalDefragmentation() {
+    return 0;
+  }
+
+  @Override
+  public void endIncrementalDefragmentation(long start, long bytesCoalesced) {}
+
+  @Override
+  public int getIncrementalDefragmentations() {
+    return 0;
+  }
+
+  @Override
+  public long getIncrementalDefragmentationTime() {
+    return 0;
+  }
+
+  @Override
+  public long getCoalescedBytes() {
+    return 0;
+  }
+
   @Override
   public void setFragmentation(int value) {}
 
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.internal.cache.OffHeapKeyRegionEntry;
+import org.apache.geode.internal.cache.RegionEntryContext;
+import org.apache.geode.internal.cache.VMThinRegionEntryOffHeapStringKeyOffHeap;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class OffHeapKeyHelperJUnitTest {
+
+  private static final String BYTE_KEY = "a string key that is too long to be inlined";
+  private static final String CHAR_KEY = "a string key with a non ascii char \u20ac in it";
+
+  private MemoryAllocator ma;
+
+  @Before
+  public void setUp() {
+    OutOfOffHeapMemoryListener ooohml = mock(OutOfOffHeapMemoryListener.class);
+    OffHeapMemoryStats stats = mock(OffHeapMemoryStats.class);
+    ma = MemoryAllocatorImpl.create(ooohml, stats, 1, OffHeapStorage.MIN_SLAB_SIZE,
+        OffHeapStorage.MIN_SLAB_SIZE);
+  }
+
+  @After
+  public void tearDown() {
+    MemoryAllocatorImpl.freeOffHeapMemory();
+  }
+
+  private OffHeapKeyRegionEntry entryWithKeyAt(long addr) {
+    OffHeapKeyRegionEntry re = mock(OffHeapKeyRegionEntry.class);
+    when(re.getKeyAddress()).thenReturn(addr);
+    return re;
+  }
+
+  @Test
+  public void byteEncodedKeyIsReadBack() {
+    long addr = OffHeapKeyHelper.allocateStringKey(BYTE_KEY, true);
+    OffHeapKeyRegionEntry re = entryWithKeyAt(addr);
+    assertEquals(BYTE_KEY, OffHeapKeyHelper.getStringKey(re));
+    assertTrue(OffHeapKeyHelper.isStringKeyEqual(re, BYTE_KEY));
+    assertFalse(OffHeapKeyHelper.isStringKeyEqual(re, BYTE_KEY + "x"));
+    assertFalse(OffHeapKeyHelper.isStringKeyEqual(re, CHAR_KEY));
+    OffHeapKeyHelper.releaseKey(addr);
+  }
+
+  @Test
+  public void charEncodedKeyIsReadBack() {
+    long addr = OffHeapKeyHelper.allocateStringKey(CHAR_KEY, false);
+    OffHeapKeyRegionEntry re = entryWithKeyAt(addr);
+    assertEquals(CHAR_KEY, OffHeapKeyHelper.getStringKey(re));
+    assertTrue(OffHeapKeyHelper.isStringKeyEqual(re, CHAR_KEY));
+    assertFalse(OffHeapKeyHelper.isStringKeyEqual(re, CHAR_KEY.replace('\u20ac', '?')));
+    OffHeapKeyHelper.releaseKey(addr);
+  }
+
+  @Test
+  public void releasedEntryHasNoKey() {
+    OffHeapKeyRegionEntry re = entryWithKeyAt(0L);
+    assertNull(OffHeapKeyHelper.getStringKey(re));
+    assertFalse(OffHeapKeyHelper.isStringKeyEqual(re, BYTE_KEY));
+  }
+
+  @Test
+  public void entryFreesKeyWhenReleased() {
+    long usedBefore = ma.getUsedMemory();
+    VMThinRegionEntryOffHeapStringKeyOffHeap re = new VMThinRegionEntryOffHeapStringKeyOffHeap(
+        mock(RegionEntryContext.class), CHAR_KEY, null, false);
+    assertTrue(ma.getUsedMemory() > usedBefore);
+    assertEquals(CHAR_KEY, re.getKey());
+    assertTrue(re.isKeyEqual(CHAR_KEY));
+
+    re.release();
+    assertEquals(0L, re.getKeyAddress());
+    assertEquals(usedBefore, ma.getUsedMemory());
+    assertNull(re.getKey());
+    assertFalse(re.isKeyEqual(CHAR_KEY));
+
+    // releasing again must not free the memory twice
+    re.release();
+    assertEquals(usedBefore, ma.getUsedMemory());
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.offheap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class SizeClassFreeListManagerJUnitTest {
+
+  private static final int SLAB_SIZE = 1024 * 1024 * 5;
+
+  private final MemoryAllocatorImpl ma = mock(MemoryAllocatorImpl.class);
+  private final OffHeapMemoryStats stats = mock(OffHeapMemoryStats.class);
+  private SizeClassFreeListManager freeListManager;
+
+  @Before
+  public void setUp() {
+    when(ma.getStats()).thenReturn(stats);
+    this.freeListManager = new SizeClassFreeListManager(ma, new Slab[] {new SlabImpl(SLAB_SIZE)});
+  }
+
+  @After
+  public void tearDown() {
+    this.freeListManager.freeSlabs();
+  }
+
+  @Test
+  public void sizeClassesLeaveFewerUnusedBytesThanHeaderCanRecord() {
+    for (int size = FreeListManager.MAX_TINY + 1; size < FreeListManager.MAX_TINY + 4096; size++) {
+      int sizeClass = SizeClassFreeListManager.sizeClassCeiling(size);
+      assertThat(sizeClass).isGreaterThanOrEqualTo(size);
+      assertThat(sizeClass % FreeListManager.TINY_MULTIPLE).isZero();
+      assertThat(SizeClassFreeListManager.sizeClassFloor(sizeClass)).isEqualTo(sizeClass);
+      // the largest free chunk kept in this class
+      int chunkSize = sizeClass + SizeClassFreeListManager.HUGE_CLASS_SPACING - 8;
+      assertThat(SizeClassFreeListManager.sizeClassFloor(chunkSize)).isEqualTo(sizeClass);
+      int dataSize = size - OffHeapStoredObject.HEADER_SIZE;
+      assertThat(chunkSize - dataSize).isLessThan(FreeListManager.HUGE_MULTIPLE);
+    }
+  }
+
+  @Test
+  public void freedTinyChunkIsReusedFromThreadCache() {
+    OffHeapStoredObject c = this.freeListManager.allocate(100);
+    long addr = c.getAddress();
+    OffHeapStoredObject.release(addr, this.freeListManager);
+
+    assertThat(this.freeListManager.getFreeTinyMemory()).isEqualTo(c.getSize());
+    assertThat(this.freeListManager.allocate(100).getAddress()).isEqualTo(addr);
+    assertThat(this.freeListManager.getFreeTinyMemory()).isZero();
+  }
+
+  @Test
+  public void hugeChunkIsRoundedToSizeClassAndReused() {
+    int dataSize = FreeListManager.MAX_TINY + 1;
+    OffHeapStoredObject c = this.freeListManager.allocate(dataSize);
+    int expectedSize =
+        SizeClassFreeListManager.sizeClassCeiling(dataSize + OffHeapStoredObject.HEADER_SIZE);
+    assertThat(c.getSize()).isEqualTo(expectedSize);
+    assertThat(c.getDataSize()).isEqualTo(dataSize);
+    long addr = c.getAddress();
+    OffHeapStoredObject.release(addr, this.freeListManager);
+    assertThat(this.freeListManager.getFreeHugeMemory()).isEqualTo(expectedSize);
+
+    // a slightly bigger request falls into the same size class
+    assertThat(this.freeListManager.allocate(dataSize + 50).getAddress()).isEqualTo(addr);
+    assertThat(this.freeListManager.getFreeHugeMemory()).isZero();
+  }
+
+  @Test
+  public void hugeChunkKeptBySuperclassIsReusedWithoutFragments() {
+    long addr = this.freeListManager.allocate(FreeListManager.MAX_TINY * 2).getAddress();
+    OffHeapStoredObject.release(addr, this.freeListManager);
+    // give the superclass a free chunk no size class can hold
+    long freeAddr = this.freeListManager.pollFreeHugeChunk();
+    assertThat(freeAddr).isEqualTo(addr);
+    int cSize = SizeClassFreeListManager.HUGE_CLASS_SPACING - 8;
+    OffHeapStoredObject.setSize(freeAddr, cSize);
+    this.freeListManager.freeHuge(freeAddr, cSize);
+
+    OffHeapStoredObject c = this.freeListManager.allocateHuge(cSize, false);
+    assertThat(c).isNotNull();
+    assertThat(c.getAddress()).isEqualTo(addr);
+  }
+
+  @Test
+  public void defragmentReclaimsChunksCachedByDeadThread() throws Exception {
+    Thread t = new Thread(() -> {
+      for (int i = 0; i < 10; i++) {
+        OffHeapStoredObject c = this.freeListManager.allocate(100);
+        OffHeapStoredObject.release(c.getAddress(), this.freeListManager);
+      }
+      OffHeapStoredObject[] chunks = new OffHeapStoredObject[10];
+      for (int i = 0; i < chunks.length; i++) {
+        chunks[i] = this.freeListManager.allocate(200);
+      }
+      for (OffHeapStoredObject c : chunks) {
+        OffHeapStoredObject.release(c.getAddress(), this.freeListManager);
+      }
+    });
+    t.start();
+    t.join();
+    assertThat(this.freeListManager.getFreeTinyMemory()).isGreaterThan(0);
+
+    assertThat(this.freeListManager.defragment(SLAB_SIZE)).isTrue();
+    assertThat(this.freeListManager.getFreeTinyMemory()).isZero();
+    assertThat(this.freeListManager.getFragmentList()).hasSize(1);
+    assertThat(this.freeListManager.getFragmentList().get(0).getSize()).isEqualTo(SLAB_SIZE);
+  }
+}
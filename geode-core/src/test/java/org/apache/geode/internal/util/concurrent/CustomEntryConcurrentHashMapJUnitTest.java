@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.geode.internal.util.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.geode.internal.cache.AbstractRegionEntry;
+import org.apache.geode.internal.cache.RegionEntryContext;
+import org.apache.geode.internal.cache.VMThinRegionEntryHeapIntKey;
+import org.apache.geode.internal.cache.VMThinRegionEntryHeapLongKey;
+import org.apache.geode.test.junit.categories.UnitTest;
+
+@Category(UnitTest.class)
+public class CustomEntryConcurrentHashMapJUnitTest {
+
+  @Test
+  public void primitiveKeyHashesMatchBoxedKeyHashes() {
+    long[] longKeys = {0L, 1L, -1L, Long.MAX_VALUE, Long.MIN_VALUE, 0x123456789abcdefL};
+    for (long k : longKeys) {
+      assertThat(CustomEntryConcurrentHashMap.longKeyHash(k))
+          .isEqualTo(CustomEntryConcurrentHashMap.keyHash(Long.valueOf(k), true));
+      assertThat(CustomEntryConcurrentHashMap.intKeyHash((int) k))
+          .isEqualTo(CustomEntryConcurrentHashMap.keyHash(Integer.valueOf((int) k), true));
+    }
+  }
+
+  @Test
+  public void getForPrimitiveKeyFindsOnlyKeysOfThatType() {
+    CustomEntryConcurrentHashMap<Object, String> map =
+        new CustomEntryConcurrentHashMap<Object, String>();
+    map.put(Long.valueOf(7), "long");
+    map.put(Integer.valueOf(8), "int");
+
+    assertThat(map.getForLongKey(7)).isEqualTo("long");
+    assertThat(map.getForIntKey(8)).isEqualTo("int");
+    assertThat(map.getForIntKey(7)).isNull();
+    assertThat(map.getForLongKey(8)).isNull();
+    assertThat(map.getForLongKey(9)).isNull();
+  }
+
+  @Test
+  public void getForPrimitiveKeyFindsInlineKeyRegionEntries() {
+    RegionEntryContext context = mock(RegionEntryContext.class);
+    CustomEntryConcurrentHashMap<Object, Object> map =
+        new CustomEntryConcurrentHashMap<Object, Object>(16, 0.75f, 16, false,
+            new AbstractRegionEntry.HashRegionEntryCreator());
+    for (int i = 0; i < 1000; i++) {
+      long longKey = i * 1000000007L;
+      map.putIfAbsent(longKey, new VMThinRegionEntryHeapLongKey(context, longKey, "v" + i));
+      map.putIfAbsent(i, new VMThinRegionEntryHeapIntKey(context, i, "v" + i));
+    }
+
+    for (int i = 0; i < 1000; i++) {
+      long longKey = i * 1000000007L;
+      assertThat(map.getForLongKey(longKey)).isSameAs(map.get(longKey));
+      assertThat(map.getForIntKey(i)).isSameAs(map.get(i));
+    }
+    assertThat(map.getForLongKey(-1L)).isNull();
+    assertThat(map.getForIntKey(-1)).isNull();
+  }
+}
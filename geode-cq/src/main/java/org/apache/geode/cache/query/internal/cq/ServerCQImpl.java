@@ -311,7 +311,8 @@ public class ServerCQImpl extends CqQueryImpl implements DataSerializable, Serve
    */
   private Query constructServerSideQuery() throws QueryException {
     GemFireCacheImpl cache = (GemFireCacheImpl) cqService.getCache();
-    DefaultQuery locQuery = (DefaultQuery) cache.getLocalQueryService().newQuery(this.queryString);
+    // not from the query service since the compiled query is modified below and must not be shared
+    DefaultQuery locQuery = new DefaultQuery(this.queryString, cache, false);
     CompiledSelect select = locQuery.getSimpleSelect();
     CompiledIteratorDef from = (CompiledIteratorDef) select.getIterators().get(0);
     // WARNING: ASSUMES QUERY WAS ALREADY VALIDATED FOR PROPER "FORM" ON CLIENT;